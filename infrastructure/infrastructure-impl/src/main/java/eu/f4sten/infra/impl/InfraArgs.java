@@ -19,6 +19,8 @@ import java.io.File;
 
 import com.beust.jcommander.Parameter;
 
+import eu.f4sten.infra.impl.kafka.ErrorFormatter;
+
 public class InfraArgs {
 
     @Parameter(names = "--db.url", arity = 1, description = "JDBC url for the database")
@@ -39,6 +41,18 @@ public class InfraArgs {
     @Parameter(names = "--kafka.groupId", arity = 1, description = "optional id for Kafka consumer group")
     public String kafkaGroupId = null;
 
+    @Parameter(names = "--kafka.timingTrail", arity = 1, description = "append stage timing information to all published messages")
+    public boolean kafkaTimingTrail = false;
+
+    @Parameter(names = "--errors.fingerprintFrames", arity = 1, description = "number of top stack frames that identify an error")
+    public int errorFingerprintFrames = ErrorFormatter.DEFAULT_FINGERPRINT_FRAMES;
+
+    @Parameter(names = "--errors.stackDepth", arity = 1, description = "maximum number of stack frames per exception in error messages")
+    public int errorStackDepth = ErrorFormatter.DEFAULT_STACK_DEPTH;
+
+    @Parameter(names = "--errors.windowMS", arity = 1, description = "stacktraces are only published once per error and window, disabled if <= 0")
+    public long errorWindowMS = ErrorFormatter.DEFAULT_WINDOW_MS;
+
     @Parameter(names = "--instanceId", arity = 1, description = "uniquely identifies this application instance across re-starts")
     public String instanceId = null;
 
@@ -47,4 +61,7 @@ public class InfraArgs {
 
     @Parameter(names = "--http.baseUrl", arity = 1, description = "base url of http servlets")
     public String httpBaseUrl = "/";
+
+    @Parameter(names = "--http.metricsPort", arity = 1, description = "port of a dedicated http server for /metrics, disabled if negative")
+    public int httpMetricsPort = -1;
 }
\ No newline at end of file
@@ -22,6 +22,7 @@ import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Binder;
@@ -46,11 +47,17 @@ import dev.c0ps.libhttpd.HttpServer;
 import dev.c0ps.libhttpd.HttpServerGracefulShutdownThread;
 import dev.c0ps.libhttpd.HttpServerImpl;
 import dev.c0ps.maven.json.CommonsMavenDataModule;
+import eu.f4sten.infra.impl.kafka.ErrorFormatter;
 import eu.f4sten.infra.impl.kafka.MessageGeneratorImpl;
+import eu.f4sten.infra.impl.kafka.MeteredKafka;
+import eu.f4sten.infra.impl.kafka.TimingTrail;
+import eu.f4sten.infra.impl.metrics.MetricsImpl;
+import eu.f4sten.infra.impl.metrics.MetricsResource;
 import eu.f4sten.infra.impl.utils.HostNameImpl;
 import eu.f4sten.infra.impl.utils.PostgresConnectorImpl;
 import eu.f4sten.infra.impl.utils.VersionImpl;
 import eu.f4sten.infra.kafka.MessageGenerator;
+import eu.f4sten.infra.metrics.Metrics;
 import eu.f4sten.infra.utils.HostName;
 import eu.f4sten.infra.utils.PostgresConnector;
 import eu.f4sten.infra.utils.Version;
@@ -75,12 +82,29 @@ public class InfraConfig implements IInjectorConfig {
     }
 
     @Provides
+    @Singleton
     public HttpServer bindHttpServer(Injector injector) {
         var server = new HttpServerImpl(injector, args.httpPort, args.httpBaseUrl);
+        server.register(MetricsResource.class);
         Runtime.getRuntime().addShutdownHook(new HttpServerGracefulShutdownThread(server));
         return server;
     }
 
+    @Provides
+    @Singleton
+    public Metrics bindMetrics(Injector injector) {
+        var metrics = new MetricsImpl();
+        if (args.httpMetricsPort >= 0) {
+            // plugins without REST endpoints do not start the regular server
+            LOG.info("Serving metrics on port {} ...", args.httpMetricsPort);
+            var server = new HttpServerImpl(injector, args.httpMetricsPort, "/");
+            server.register(MetricsResource.class);
+            Runtime.getRuntime().addShutdownHook(new HttpServerGracefulShutdownThread(server));
+            server.start();
+        }
+        return metrics;
+    }
+
     @Provides
     public IoUtils bindIoUtils(JsonUtils jsonUtils, ObjectMapper om) {
         assertFor(args) //
@@ -121,10 +145,25 @@ public class InfraConfig implements IInjectorConfig {
 
     @Provides
     @Singleton
-    public Kafka bindKafka(JsonUtils jsonUtils, KafkaConnector connector) {
+    public Kafka bindKafka(JsonUtils jsonUtils, KafkaConnector connector, Metrics metrics, TimingTrail trail) {
         var kafka = new KafkaImpl(jsonUtils, connector, args.kafkaShouldAutoCommit);
         Runtime.getRuntime().addShutdownHook(new KafkaGracefulShutdownThread(kafka));
-        return kafka;
+        return new MeteredKafka(kafka, metrics, trail);
+    }
+
+    @Provides
+    @Singleton
+    public TimingTrail bindTimingTrail() {
+        return new TimingTrail(args.kafkaTimingTrail);
+    }
+
+    @Provides
+    @Singleton
+    public ErrorFormatter bindErrorFormatter(Metrics metrics) {
+        assertFor(args) //
+                .that(a -> a.errorFingerprintFrames > 0, "number of fingerprint frames must be positive") //
+                .that(a -> a.errorStackDepth > 0, "stack depth must be positive");
+        return new ErrorFormatter(args.errorFingerprintFrames, args.errorStackDepth, args.errorWindowMS, metrics);
     }
 
     @Provides
@@ -144,6 +183,8 @@ public class InfraConfig implements IInjectorConfig {
         LOG.info("Instantiating ObjectMapper from {} modules: {}", modules.size(), modules);
 
         return new ObjectMapperBuilder().build() //
-                .registerModules(modules);
+                .registerModules(modules) //
+                // LazyMessage cuts records out of the source instead of copying their tokens
+                .enable(JsonParser.Feature.INCLUDE_SOURCE_IN_LOCATION);
     }
 }
\ No newline at end of file
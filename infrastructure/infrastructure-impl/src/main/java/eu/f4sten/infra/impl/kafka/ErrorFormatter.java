@@ -0,0 +1,163 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.infra.impl.kafka;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import eu.f4sten.infra.kafka.Message.Error;
+import eu.f4sten.infra.metrics.Metrics;
+
+/**
+ * Converts exceptions into compact error messages. Errors are fingerprinted by
+ * their type and top stack frames (and those of their root cause) and the
+ * (truncated) stacktrace is only included for the first occurrence of a
+ * fingerprint per time window. Later occurrences only reference the
+ * fingerprint. Errors are counted per type only, the number of fingerprints
+ * is unbounded and would create a metric series for every distinct problem.
+ */
+public class ErrorFormatter {
+
+    public static final String ERRORS = "f4sten_errors_total";
+
+    public static final int DEFAULT_FINGERPRINT_FRAMES = 5;
+    public static final int DEFAULT_STACK_DEPTH = 30;
+    public static final long DEFAULT_WINDOW_MS = 1000 * 60 * 10; // 10min
+
+    private static final int MAX_TRACKED_FINGERPRINTS = 10_000;
+    private static final int FINGERPRINT_BYTES = 8;
+
+    private final int fingerprintFrames;
+    private final int stackDepth;
+    private final long windowMs;
+    private final Metrics metrics;
+
+    private final Map<String, Long> windowStarts = new ConcurrentHashMap<>();
+    private volatile long lastPruneAt = 0;
+
+    public ErrorFormatter(int fingerprintFrames, int stackDepth, long windowMs, Metrics metrics) {
+        this.fingerprintFrames = fingerprintFrames;
+        this.stackDepth = stackDepth;
+        this.windowMs = windowMs;
+        this.metrics = metrics;
+    }
+
+    public Error format(Throwable t) {
+        var e = new Error();
+        e.message = t.getMessage();
+        e.type = t.getClass().getName();
+        e.fingerprint = fingerprint(t);
+        metrics.counter(ERRORS, "Number of errors per type", "type", e.type).inc();
+        if (isFirstInWindow(e.fingerprint)) {
+            e.stacktrace = stacktrace(t);
+        }
+        return e;
+    }
+
+    public String fingerprint(Throwable t) {
+        var sb = new StringBuilder();
+        appendTopFrames(t, sb);
+        // wrapping exceptions are often thrown in the same place for different problems
+        var root = rootCause(t);
+        if (root != t) {
+            sb.append("\nCaused by: ");
+            appendTopFrames(root, sb);
+        }
+        try {
+            var hash = MessageDigest.getInstance("SHA-1").digest(sb.toString().getBytes(UTF_8));
+            var hex = new StringBuilder();
+            for (var i = 0; i < FINGERPRINT_BYTES; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void appendTopFrames(Throwable t, StringBuilder sb) {
+        sb.append(t.getClass().getName());
+        var frames = t.getStackTrace();
+        for (var i = 0; i < Math.min(frames.length, fingerprintFrames); i++) {
+            sb.append('\n').append(frames[i]);
+        }
+    }
+
+    private static Throwable rootCause(Throwable t) {
+        var seen = Collections.newSetFromMap(new IdentityHashMap<Throwable, Boolean>());
+        var cur = t;
+        while (cur.getCause() != null && seen.add(cur)) {
+            cur = cur.getCause();
+        }
+        return cur;
+    }
+
+    /** stacktrace in the format of {@link Throwable#printStackTrace()}, but limited in depth */
+    public String stacktrace(Throwable t) {
+        var sb = new StringBuilder();
+        var seen = Collections.newSetFromMap(new IdentityHashMap<Throwable, Boolean>());
+        var cur = t;
+        var prefix = "";
+        while (cur != null && seen.add(cur)) {
+            sb.append(prefix).append(cur).append('\n');
+            var frames = cur.getStackTrace();
+            var numFrames = Math.min(frames.length, stackDepth);
+            for (var i = 0; i < numFrames; i++) {
+                sb.append("\tat ").append(frames[i]).append('\n');
+            }
+            if (frames.length > numFrames) {
+                sb.append("\t... ").append(frames.length - numFrames).append(" more\n");
+            }
+            cur = cur.getCause();
+            prefix = "Caused by: ";
+        }
+        return sb.toString();
+    }
+
+    private boolean isFirstInWindow(String fingerprint) {
+        if (windowMs <= 0) {
+            return true;
+        }
+        var now = System.currentTimeMillis();
+        if (now - lastPruneAt >= windowMs || windowStarts.size() >= MAX_TRACKED_FINGERPRINTS) {
+            lastPruneAt = now;
+            windowStarts.values().removeIf(start -> now - start >= windowMs);
+        }
+        if (windowStarts.size() >= MAX_TRACKED_FINGERPRINTS && !windowStarts.containsKey(fingerprint)) {
+            // too many distinct errors to track, better include the stacktrace again
+            return true;
+        }
+        var isFirst = new boolean[1];
+        windowStarts.compute(fingerprint, (fp, start) -> {
+            if (start == null || now - start >= windowMs) {
+                isFirst[0] = true;
+                return now;
+            }
+            return start;
+        });
+        return isFirst[0];
+    }
+
+    int numTrackedFingerprints() {
+        return windowStarts.size();
+    }
+}
@@ -15,12 +15,14 @@
  */
 package eu.f4sten.infra.impl.kafka;
 
-import org.apache.commons.lang3.exception.ExceptionUtils;
+import java.util.ArrayList;
+import java.util.List;
 
 import dev.c0ps.diapper.RunnerArgs;
 import eu.f4sten.infra.kafka.Message;
-import eu.f4sten.infra.kafka.Message.Error;
+import eu.f4sten.infra.kafka.Message.Hop;
 import eu.f4sten.infra.kafka.MessageGenerator;
+import eu.f4sten.infra.metrics.Metrics;
 import eu.f4sten.infra.utils.HostName;
 import eu.f4sten.infra.utils.Version;
 import jakarta.inject.Inject;
@@ -30,12 +32,21 @@ public class MessageGeneratorImpl implements MessageGenerator {
     private final RunnerArgs args;
     private final HostName host;
     private final Version version;
+    private final TimingTrail trail;
+    private final ErrorFormatter errors;
+
+    public MessageGeneratorImpl(RunnerArgs args, HostName host, Version version, Metrics metrics) {
+        this(args, host, version, new TimingTrail(false), new ErrorFormatter(ErrorFormatter.DEFAULT_FINGERPRINT_FRAMES, //
+                ErrorFormatter.DEFAULT_STACK_DEPTH, ErrorFormatter.DEFAULT_WINDOW_MS, metrics));
+    }
 
     @Inject
-    public MessageGeneratorImpl(RunnerArgs args, HostName host, Version version) {
+    public MessageGeneratorImpl(RunnerArgs args, HostName host, Version version, TimingTrail trail, ErrorFormatter errors) {
         this.args = args;
         this.host = host;
         this.version = version;
+        this.trail = trail;
+        this.errors = errors;
     }
 
     @Override
@@ -45,7 +56,7 @@ public class MessageGeneratorImpl implements MessageGenerator {
 
     @Override
     public <Input, Output> Message<Input, Output> getStd(Input input, Output output) {
-        var m = fill(new Message<Input, Output>());
+        var m = fill(new Message<Input, Output>(), input);
         m.input = input;
         m.payload = output;
         return m;
@@ -53,24 +64,49 @@ public class MessageGeneratorImpl implements MessageGenerator {
 
     @Override
     public <Input> Message<Input, ?> getErr(Input input, Throwable t) {
-        var m = fill(new Message<Input, Object>());
+        var m = fill(new Message<Input, Object>(), input);
         m.input = input;
-        m.error = getError(t);
+        m.error = errors.format(t);
         return m;
     }
 
-    private <Input, Output> Message<Input, Output> fill(Message<Input, Output> m) {
+    @Override
+    public Runnable bindConsumption(Runnable task) {
+        return trail.bind(task);
+    }
+
+    private <Input, Output> Message<Input, Output> fill(Message<Input, Output> m, Input input) {
         m.host = host.get();
         m.plugin = args.run;
         m.version = version.get();
+        if (trail.isEnabled()) {
+            m.trail = extendTrail(input, m.createdAt.getTime());
+        }
         return m;
     }
 
-    private static Error getError(Throwable t) {
-        var e = new Message.Error();
-        e.message = t.getMessage();
-        e.type = t.getClass().getName();
-        e.stacktrace = ExceptionUtils.getStackTrace(t);
-        return e;
+    private List<Hop> extendTrail(Object input, long publishedAt) {
+        var hops = new ArrayList<Hop>();
+        if (input instanceof Message) {
+            var in = (Message<?, ?>) input;
+            if (in.trail != null) {
+                hops.addAll(in.trail);
+            } else if (in.plugin != null && in.createdAt != null) {
+                // predecessor did not record a trail, reconstruct its hop
+                var consumedAt = in.consumedAt == null ? null : in.consumedAt.getTime();
+                hops.add(toHop(in.plugin, consumedAt, in.createdAt.getTime()));
+            }
+        }
+        hops.add(toHop(args.run, trail.getConsumedAt(), publishedAt));
+        return hops;
+    }
+
+    private static Hop toHop(String plugin, Long consumedAt, long publishedAt) {
+        var h = new Hop();
+        h.plugin = plugin;
+        h.consumedAt = consumedAt;
+        h.publishedAt = publishedAt;
+        h.durationMs = consumedAt == null ? null : publishedAt - consumedAt;
+        return h;
     }
 }
\ No newline at end of file
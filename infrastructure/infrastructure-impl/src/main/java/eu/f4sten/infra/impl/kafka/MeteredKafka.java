@@ -0,0 +1,132 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.infra.impl.kafka;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+import dev.c0ps.franz.Kafka;
+import dev.c0ps.franz.Lane;
+import dev.c0ps.io.TRef;
+import eu.f4sten.infra.metrics.Counter;
+import eu.f4sten.infra.metrics.Metrics;
+import eu.f4sten.infra.metrics.Timer;
+
+/**
+ * Decorates a {@link Kafka} instance to record the number of consumed and
+ * published records, processing times, and errors per topic and lane.
+ * The callbacks are run in the {@link TimingTrail}, which binds their
+ * consumption time.
+ */
+public class MeteredKafka implements Kafka {
+
+    public static final String CONSUMED = "f4sten_kafka_consumed_total";
+    public static final String PUBLISHED = "f4sten_kafka_published_total";
+    public static final String ERRORS = "f4sten_kafka_processing_errors_total";
+    public static final String PROCESSING = "f4sten_kafka_processing_seconds";
+
+    private final Kafka kafka;
+    private final Metrics metrics;
+    private final TimingTrail trail;
+
+    private final Map<String, Counter> publishCounters = new ConcurrentHashMap<>();
+
+    public MeteredKafka(Kafka kafka, Metrics metrics, TimingTrail trail) {
+        this.kafka = kafka;
+        this.metrics = metrics;
+        this.trail = trail;
+    }
+
+    @Override
+    public void sendHeartbeat() {
+        kafka.sendHeartbeat();
+    }
+
+    @Override
+    public <T> void subscribe(String topic, Class<T> type, BiConsumer<T, Lane> callback) {
+        kafka.subscribe(topic, type, meter(topic, callback));
+    }
+
+    @Override
+    public <T> void subscribe(String topic, Class<T> type, BiConsumer<T, Lane> callback, BiFunction<T, Throwable, ?> errors) {
+        kafka.subscribe(topic, type, meter(topic, callback), errors);
+    }
+
+    @Override
+    public <T> void subscribe(String topic, TRef<T> typeRef, BiConsumer<T, Lane> callback) {
+        kafka.subscribe(topic, typeRef, meter(topic, callback));
+    }
+
+    @Override
+    public <T> void subscribe(String topic, TRef<T> typeRef, BiConsumer<T, Lane> callback, BiFunction<T, Throwable, ?> errors) {
+        kafka.subscribe(topic, typeRef, meter(topic, callback), errors);
+    }
+
+    private <T> BiConsumer<T, Lane> meter(String topic, BiConsumer<T, Lane> callback) {
+        var lanes = Lane.values();
+        var consumed = new Counter[lanes.length];
+        var errors = new Counter[lanes.length];
+        var timers = new Timer[lanes.length];
+        for (var lane : lanes) {
+            var l = name(lane);
+            consumed[lane.ordinal()] = metrics.counter(CONSUMED, "Number of consumed records", "topic", topic, "lane", l);
+            errors[lane.ordinal()] = metrics.counter(ERRORS, "Number of records that failed processing", "topic", topic, "lane", l);
+            timers[lane.ordinal()] = metrics.timer(PROCESSING, "Processing time of consumed records", "topic", topic, "lane", l);
+        }
+        return (obj, lane) -> {
+            var idx = lane.ordinal();
+            consumed[idx].inc();
+            var start = System.nanoTime();
+            try {
+                trail.consume(() -> callback.accept(obj, lane));
+            } catch (RuntimeException | Error e) {
+                errors[idx].inc();
+                throw e;
+            } finally {
+                timers[idx].record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    @Override
+    public <T> void publish(T obj, String topic, Lane lane) {
+        var key = topic + "/" + lane;
+        publishCounters.computeIfAbsent(key, k -> metrics.counter(PUBLISHED, "Number of published records", "topic", topic, "lane", name(lane))).inc();
+        kafka.publish(obj, topic, lane);
+    }
+
+    @Override
+    public void poll() {
+        kafka.poll();
+    }
+
+    @Override
+    public void commit() {
+        kafka.commit();
+    }
+
+    @Override
+    public void stop() {
+        kafka.stop();
+    }
+
+    private static String name(Lane lane) {
+        return lane.name().toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.infra.impl.kafka;
+
+/**
+ * Remembers when the record that is currently processed has been consumed, so
+ * the {@link MessageGeneratorImpl} can append a timing hop to outgoing
+ * messages. The time is bound to the thread that runs the consumer callback,
+ * so concurrent consumers do not mix up their records. Plugins that publish
+ * from another thread (or after the callback has returned) carry the time
+ * along by running the publishing task through {@link #bind(Runnable)}.
+ */
+public class TimingTrail {
+
+    private final boolean isEnabled;
+    private final ThreadLocal<Long> consumedAt = new ThreadLocal<>();
+
+    public TimingTrail(boolean isEnabled) {
+        this.isEnabled = isEnabled;
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /** runs the processing of a record that has just been consumed */
+    public void consume(Runnable processing) {
+        if (!isEnabled) {
+            processing.run();
+            return;
+        }
+        runAt(System.currentTimeMillis(), processing);
+    }
+
+    /**
+     * @return task that runs with the consumption time that is bound to the
+     *         calling thread, or the task itself if there is none
+     */
+    public Runnable bind(Runnable task) {
+        var at = consumedAt.get();
+        if (at == null) {
+            return task;
+        }
+        return () -> runAt(at, task);
+    }
+
+    private void runAt(long at, Runnable task) {
+        // callbacks can be nested, e.g., when a plugin consumes inline
+        var outer = consumedAt.get();
+        consumedAt.set(at);
+        try {
+            task.run();
+        } finally {
+            if (outer == null) {
+                consumedAt.remove();
+            } else {
+                consumedAt.set(outer);
+            }
+        }
+    }
+
+    /** @return consumption time of the record that is processed on this thread (or null) */
+    public Long getConsumedAt() {
+        return consumedAt.get();
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.infra.impl.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.f4sten.infra.metrics.Counter;
+import eu.f4sten.infra.metrics.Metrics;
+import eu.f4sten.infra.metrics.Timer;
+
+public class MetricsImpl implements Metrics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MetricsImpl.class);
+
+    private static final Pattern NAME = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+    private static final Pattern LABEL = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+    private static final double[] BUCKETS = { 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 300, 600 };
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public MetricsImpl() {
+        registerJvmMetrics();
+    }
+
+    @Override
+    public Counter counter(String name, String help, String... labels) {
+        var sample = family(name, help, "counter").get(labels(labels), CounterImpl::new);
+        if (!(sample instanceof Counter)) {
+            throw new IllegalArgumentException(String.format("counter %s is read from a function", name));
+        }
+        return (Counter) sample;
+    }
+
+    @Override
+    public Timer timer(String name, String help, String... labels) {
+        return (Timer) family(name, help, "histogram").get(labels(labels), TimerImpl::new);
+    }
+
+    @Override
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, "gauge").get(labels(labels), () -> new Gauge(value));
+    }
+
+    @Override
+    public void monitor(String name, ExecutorService executor) {
+        if (!(executor instanceof ThreadPoolExecutor)) {
+            LOG.warn("Cannot monitor executor '{}' of type {}", name, executor.getClass().getName());
+            return;
+        }
+        var tpe = (ThreadPoolExecutor) executor;
+        gauge("f4sten_executor_queued_tasks", "Number of tasks waiting for execution", () -> tpe.getQueue().size(), "executor", name);
+        gauge("f4sten_executor_active_threads", "Number of threads that are actively executing tasks", tpe::getActiveCount, "executor", name);
+        gauge("f4sten_executor_completed_tasks", "Number of tasks that have completed execution", tpe::getCompletedTaskCount, "executor", name);
+    }
+
+    @Override
+    public String scrape() {
+        var sb = new StringBuilder();
+        for (var f : families.values()) {
+            f.write(sb);
+        }
+        return sb.toString();
+    }
+
+    private void registerJvmMetrics() {
+        var mem = ManagementFactory.getMemoryMXBean();
+        gauge("jvm_memory_used_bytes", "Used memory", () -> mem.getHeapMemoryUsage().getUsed(), "area", "heap");
+        gauge("jvm_memory_used_bytes", "Used memory", () -> mem.getNonHeapMemoryUsage().getUsed(), "area", "nonheap");
+        gauge("jvm_memory_committed_bytes", "Committed memory", () -> mem.getHeapMemoryUsage().getCommitted(), "area", "heap");
+        gauge("jvm_memory_committed_bytes", "Committed memory", () -> mem.getNonHeapMemoryUsage().getCommitted(), "area", "nonheap");
+        gauge("jvm_memory_max_bytes", "Max memory", () -> mem.getHeapMemoryUsage().getMax(), "area", "heap");
+
+        for (var gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            counterFunction("jvm_gc_collections_total", "Number of collections", gc::getCollectionCount, "gc", gc.getName());
+            gauge("jvm_gc_collection_seconds", "Accumulated collection time", () -> gc.getCollectionTime() / 1000d, "gc", gc.getName());
+        }
+
+        var threads = ManagementFactory.getThreadMXBean();
+        gauge("jvm_threads_live", "Number of live threads", threads::getThreadCount);
+
+        var runtime = ManagementFactory.getRuntimeMXBean();
+        gauge("process_uptime_seconds", "Uptime of the JVM", () -> runtime.getUptime() / 1000d);
+    }
+
+    /** counter that is maintained elsewhere and read on scrape, e.g., by an MXBean */
+    private void counterFunction(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, "counter").get(labels(labels), () -> new Gauge(value));
+    }
+
+    private Family family(String name, String help, String type) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("invalid metric name: " + name);
+        }
+        var f = families.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (!f.type.equals(type)) {
+            throw new IllegalArgumentException(String.format("metric %s is a %s, not a %s", name, f.type, type));
+        }
+        return f;
+    }
+
+    private static String labels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("labels must be key/value pairs");
+        }
+        var sb = new StringBuilder();
+        for (var i = 0; i < labels.length; i += 2) {
+            if (labels[i] == null || !LABEL.matcher(labels[i]).matches()) {
+                throw new IllegalArgumentException("invalid label name: " + labels[i]);
+            }
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return sb.toString();
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String format(double d) {
+        if (Double.isNaN(d)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(d)) {
+            return d > 0 ? "+Inf" : "-Inf";
+        }
+        if (d == Math.rint(d) && Math.abs(d) < 1e15) {
+            return Long.toString((long) d);
+        }
+        return Double.toString(d);
+    }
+
+    private static String withLabels(String name, String labels) {
+        return labels.isEmpty() ? name : name + "{" + labels + "}";
+    }
+
+    private interface Sample {
+        void write(StringBuilder sb, String name, String labels);
+    }
+
+    private static class Family {
+
+        private final String name;
+        private final String help;
+        private final String type;
+        private final Map<String, Sample> samples = new ConcurrentSkipListMap<>();
+
+        Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        Sample get(String labels, Supplier<Sample> factory) {
+            return samples.computeIfAbsent(labels, l -> factory.get());
+        }
+
+        void write(StringBuilder sb) {
+            if (help != null) {
+                sb.append("# HELP ").append(name).append(' ').append(help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+            }
+            sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+            for (var e : samples.entrySet()) {
+                e.getValue().write(sb, name, e.getKey());
+            }
+        }
+    }
+
+    private static class CounterImpl implements Counter, Sample {
+
+        private final LongAdder value = new LongAdder();
+
+        @Override
+        public void inc(long amount) {
+            if (amount < 0) {
+                throw new IllegalArgumentException("counters cannot be decreased");
+            }
+            value.add(amount);
+        }
+
+        @Override
+        public long get() {
+            return value.sum();
+        }
+
+        @Override
+        public void write(StringBuilder sb, String name, String labels) {
+            sb.append(withLabels(name, labels)).append(' ').append(value.sum()).append('\n');
+        }
+    }
+
+    private static class Gauge implements Sample {
+
+        private final DoubleSupplier value;
+
+        Gauge(DoubleSupplier value) {
+            this.value = value;
+        }
+
+        @Override
+        public void write(StringBuilder sb, String name, String labels) {
+            sb.append(withLabels(name, labels)).append(' ').append(format(value.getAsDouble())).append('\n');
+        }
+    }
+
+    private static class TimerImpl implements Timer, Sample {
+
+        private final LongAdder[] buckets = new LongAdder[BUCKETS.length];
+        private final LongAdder count = new LongAdder();
+        private final DoubleAdder sum = new DoubleAdder();
+
+        TimerImpl() {
+            for (var i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        @Override
+        public void record(long nanos) {
+            var seconds = nanos / NANOS_PER_SECOND;
+            for (var i = 0; i < BUCKETS.length; i++) {
+                if (seconds <= BUCKETS[i]) {
+                    buckets[i].increment();
+                    break;
+                }
+            }
+            count.increment();
+            sum.add(seconds);
+        }
+
+        @Override
+        public long count() {
+            return count.sum();
+        }
+
+        @Override
+        public void write(StringBuilder sb, String name, String labels) {
+            var prefix = labels.isEmpty() ? "" : labels + ",";
+            var cumulative = 0L;
+            for (var i = 0; i < BUCKETS.length; i++) {
+                cumulative += buckets[i].sum();
+                var le = prefix + "le=\"" + format(BUCKETS[i]) + "\"";
+                sb.append(withLabels(name + "_bucket", le)).append(' ').append(cumulative).append('\n');
+            }
+            // count is read separately, make sure that +Inf is never smaller than the last bucket
+            var total = Math.max(cumulative, count.sum());
+            sb.append(withLabels(name + "_bucket", prefix + "le=\"+Inf\"")).append(' ').append(total).append('\n');
+            sb.append(withLabels(name + "_sum", labels)).append(' ').append(format(sum.sum())).append('\n');
+            sb.append(withLabels(name + "_count", labels)).append(' ').append(total).append('\n');
+        }
+    }
+}
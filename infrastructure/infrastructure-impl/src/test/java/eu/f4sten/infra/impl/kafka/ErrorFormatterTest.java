@@ -0,0 +1,140 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.infra.impl.kafka;
+
+import static eu.f4sten.infra.impl.kafka.ErrorFormatter.ERRORS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import eu.f4sten.infra.impl.metrics.MetricsImpl;
+
+public class ErrorFormatterTest {
+
+    private MetricsImpl metrics;
+    private ErrorFormatter sut;
+
+    @BeforeEach
+    public void setup() {
+        metrics = new MetricsImpl();
+        // only consider the top frame, i.e., the call site in #create
+        sut = new ErrorFormatter(1, 2, 60_000, metrics);
+    }
+
+    @Test
+    public void basicInformationIsIncluded() {
+        var e = sut.format(new IllegalArgumentException("msg"));
+        assertEquals(IllegalArgumentException.class.getName(), e.type);
+        assertEquals("msg", e.message);
+        assertEquals(16, e.fingerprint.length());
+        assertTrue(e.stacktrace.startsWith(IllegalArgumentException.class.getName() + ": msg\n"));
+    }
+
+    @Test
+    public void fingerprintIgnoresMessage() {
+        var a = sut.fingerprint(create("a"));
+        var b = sut.fingerprint(create("b"));
+        assertEquals(a, b);
+    }
+
+    @Test
+    public void fingerprintDependsOnType() {
+        var a = sut.fingerprint(new IllegalArgumentException());
+        var b = sut.fingerprint(new IllegalStateException());
+        assertNotEquals(a, b);
+    }
+
+    @Test
+    public void fingerprintDependsOnRootCauseType() {
+        var a = sut.fingerprint(wrap(new IllegalArgumentException()));
+        var b = sut.fingerprint(wrap(new IllegalStateException()));
+        assertNotEquals(a, b);
+    }
+
+    @Test
+    public void fingerprintDependsOnRootCauseFrames() {
+        // same type, but different call site
+        var a = sut.fingerprint(wrap(new IllegalStateException()));
+        var b = sut.fingerprint(wrap(wrap(create("x"))));
+        var c = sut.fingerprint(wrap(create("y")));
+        assertNotEquals(a, c);
+        assertEquals(b, c);
+    }
+
+    @Test
+    public void stacktraceIsTruncated() {
+        var t = new RuntimeException("outer", new IllegalStateException("inner"));
+        var actual = sut.stacktrace(t);
+
+        var lines = actual.split("\n");
+        assertEquals(RuntimeException.class.getName() + ": outer", lines[0]);
+        assertTrue(lines[1].startsWith("\tat "));
+        assertTrue(lines[2].startsWith("\tat "));
+        assertTrue(lines[3].matches("\t\\.\\.\\. [0-9]+ more"));
+        assertEquals("Caused by: " + IllegalStateException.class.getName() + ": inner", lines[4]);
+        assertFalse(actual.contains("\tat " + t.getStackTrace()[2]));
+    }
+
+    @Test
+    public void stacktraceIsOnlyIncludedOncePerWindow() {
+        var a = sut.format(create("a"));
+        var b = sut.format(create("b"));
+        assertNotNull(a.stacktrace);
+        assertNull(b.stacktrace);
+        assertEquals(a.fingerprint, b.fingerprint);
+    }
+
+    @Test
+    public void stacktraceIsAlwaysIncludedWithoutWindow() {
+        sut = new ErrorFormatter(1, 2, 0, metrics);
+        assertNotNull(sut.format(create("a")).stacktrace);
+        assertNotNull(sut.format(create("b")).stacktrace);
+    }
+
+    @Test
+    public void occurrencesAreCountedPerType() {
+        sut.format(create("a"));
+        sut.format(wrap(create("b")));
+        sut.format(new IllegalArgumentException());
+
+        assertEquals(1, metrics.counter(ERRORS, null, "type", IllegalStateException.class.getName()).get());
+        assertEquals(1, metrics.counter(ERRORS, null, "type", RuntimeException.class.getName()).get());
+        assertEquals(1, metrics.counter(ERRORS, null, "type", IllegalArgumentException.class.getName()).get());
+    }
+
+    @Test
+    public void expiredFingerprintsArePruned() throws InterruptedException {
+        sut = new ErrorFormatter(1, 2, 1, metrics);
+        sut.format(create("a"));
+        Thread.sleep(5);
+        sut.format(new IllegalArgumentException());
+        assertEquals(1, sut.numTrackedFingerprints());
+    }
+
+    private static RuntimeException wrap(Throwable cause) {
+        return new RuntimeException(cause);
+    }
+
+    private static IllegalStateException create(String msg) {
+        return new IllegalStateException(msg);
+    }
+}
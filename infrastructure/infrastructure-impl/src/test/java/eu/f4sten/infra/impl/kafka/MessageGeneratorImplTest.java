@@ -17,14 +17,18 @@ package eu.f4sten.infra.impl.kafka;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import dev.c0ps.diapper.RunnerArgs;
+import eu.f4sten.infra.impl.metrics.MetricsImpl;
 import eu.f4sten.infra.kafka.Message;
 import eu.f4sten.infra.utils.HostName;
 import eu.f4sten.infra.utils.Version;
@@ -38,13 +42,16 @@ public class MessageGeneratorImplTest {
     private static final String SOME_PAYLOAD = "payload";
     private static final String SOME_INPUT = "input";
 
+    private RunnerArgs args;
+    private MetricsImpl metrics;
     private MessageGeneratorImpl sut;
 
     @BeforeEach
     public void setup() {
-        var args = new RunnerArgs();
+        args = new RunnerArgs();
         args.run = SOME_PLUGIN;
-        sut = new MessageGeneratorImpl(args, new TestHostName(), new TestVersion());
+        metrics = new MetricsImpl();
+        sut = new MessageGeneratorImpl(args, new TestHostName(), new TestVersion(), metrics);
     }
 
     @Test
@@ -113,8 +120,10 @@ public class MessageGeneratorImplTest {
         expected.error.stacktrace = null;
 
         assertNotNull(actual.error);
+        assertNotNull(actual.error.fingerprint);
         var stack = actual.error.stacktrace;
         actual.error.stacktrace = null;
+        actual.error.fingerprint = null;
         assertEquals(expected, actual);
 
         assertTrue(stack.contains(IllegalArgumentException.class.getName()));
@@ -123,6 +132,113 @@ public class MessageGeneratorImplTest {
         assertTrue(stack.contains("at " + MessageGeneratorImplTest.class.getName()));
     }
 
+    @Test
+    public void repeatedErrorsOnlyReferenceFingerprint() {
+        var errs = new ArrayList<Message.Error>();
+        for (var i = 0; i < 2; i++) {
+            // identical call sites result in identical fingerprints
+            errs.add(sut.getErr(SOME_INPUT, new IllegalStateException(SOME_ERROR)).error);
+        }
+        assertEquals(errs.get(0).fingerprint, errs.get(1).fingerprint);
+        assertNotNull(errs.get(0).stacktrace);
+        assertNull(errs.get(1).stacktrace);
+    }
+
+    @Test
+    public void errorsAreCountedInGivenMetrics() {
+        var err = sut.getErr(SOME_INPUT, new IllegalStateException(SOME_ERROR)).error;
+        var counter = metrics.counter(ErrorFormatter.ERRORS, null, "type", err.type);
+        assertEquals(1, counter.get());
+    }
+
+    @Test
+    public void noTrailByDefault() {
+        assertNull(sut.getStd(SOME_PAYLOAD).trail);
+        assertNull(sut.getErr(SOME_INPUT, new RuntimeException()).trail);
+    }
+
+    @Test
+    public void trailStartsWithOwnHop() {
+        var trail = new TimingTrail(true);
+        sut = createWithTrail(trail);
+
+        var noConsumption = sut.getStd(SOME_PAYLOAD);
+        assertEquals(List.of(hop(SOME_PLUGIN, null, noConsumption.createdAt.getTime())), noConsumption.trail);
+
+        trail.consume(() -> {
+            var consumedAt = trail.getConsumedAt();
+            var actual = sut.getStd(SOME_INPUT, SOME_PAYLOAD);
+            assertEquals(List.of(hop(SOME_PLUGIN, consumedAt, actual.createdAt.getTime())), actual.trail);
+        });
+    }
+
+    @Test
+    public void trailCanBePublishedFromAnotherThread() throws InterruptedException {
+        var trail = new TimingTrail(true);
+        sut = createWithTrail(trail);
+
+        var consumedAt = new Long[1];
+        var actual = new ArrayList<Message<?, String>>();
+        var t = new Thread[1];
+        trail.consume(() -> {
+            consumedAt[0] = trail.getConsumedAt();
+            t[0] = new Thread(sut.bindConsumption(() -> {
+                actual.add(sut.getStd(SOME_PAYLOAD));
+            }));
+        });
+        t[0].start();
+        t[0].join();
+
+        var m = actual.get(0);
+        assertNotNull(consumedAt[0]);
+        assertEquals(List.of(hop(SOME_PLUGIN, consumedAt[0], m.createdAt.getTime())), m.trail);
+    }
+
+    @Test
+    public void trailIsCarriedForward() {
+        var trail = new TimingTrail(true);
+        sut = createWithTrail(trail);
+
+        var in = new Message<Void, String>();
+        in.trail = List.of(hop("a", 1L, 3), hop("b", 5L, 8));
+
+        trail.consume(() -> {
+            var actual = sut.getErr(in, new RuntimeException());
+            var expected = List.of(hop("a", 1L, 3), hop("b", 5L, 8), hop(SOME_PLUGIN, trail.getConsumedAt(), actual.createdAt.getTime()));
+            assertEquals(expected, actual.trail);
+        });
+    }
+
+    @Test
+    public void trailIsReconstructedFromLegacyInput() {
+        var trail = new TimingTrail(true);
+        sut = createWithTrail(trail);
+
+        var in = new Message<Void, String>();
+        in.plugin = "a";
+        in.consumedAt = new Date(2);
+        in.createdAt = new Date(7);
+
+        var actual = sut.getStd(in, SOME_PAYLOAD);
+        var expected = List.of(hop("a", 2L, 7), hop(SOME_PLUGIN, null, actual.createdAt.getTime()));
+        assertEquals(expected, actual.trail);
+    }
+
+    private MessageGeneratorImpl createWithTrail(TimingTrail trail) {
+        var errors = new ErrorFormatter(ErrorFormatter.DEFAULT_FINGERPRINT_FRAMES, ErrorFormatter.DEFAULT_STACK_DEPTH, //
+                ErrorFormatter.DEFAULT_WINDOW_MS, metrics);
+        return new MessageGeneratorImpl(args, new TestHostName(), new TestVersion(), trail, errors);
+    }
+
+    private static Message.Hop hop(String plugin, Long consumedAt, long publishedAt) {
+        var h = new Message.Hop();
+        h.plugin = plugin;
+        h.consumedAt = consumedAt;
+        h.publishedAt = publishedAt;
+        h.durationMs = consumedAt == null ? null : publishedAt - consumedAt;
+        return h;
+    }
+
     private static <T, U> Message<T, U> deleteCreatedAt(Message<T, U> m) {
         m.createdAt = null;
         return m;
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.infra.impl.kafka;
+
+import static eu.f4sten.infra.impl.kafka.MeteredKafka.CONSUMED;
+import static eu.f4sten.infra.impl.kafka.MeteredKafka.ERRORS;
+import static eu.f4sten.infra.impl.kafka.MeteredKafka.PROCESSING;
+import static eu.f4sten.infra.impl.kafka.MeteredKafka.PUBLISHED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.function.BiConsumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import dev.c0ps.franz.Kafka;
+import dev.c0ps.franz.Lane;
+import eu.f4sten.infra.impl.metrics.MetricsImpl;
+
+public class MeteredKafkaTest {
+
+    private static final String SOME_TOPIC = "t";
+
+    private Kafka kafka;
+    private MetricsImpl metrics;
+    private TimingTrail trail;
+    private MeteredKafka sut;
+
+    @BeforeEach
+    public void setup() {
+        kafka = mock(Kafka.class);
+        metrics = new MetricsImpl();
+        trail = new TimingTrail(true);
+        sut = new MeteredKafka(kafka, metrics, trail);
+    }
+
+    @Test
+    public void publishIsDelegatedAndCounted() {
+        sut.publish("x", SOME_TOPIC, Lane.NORMAL);
+        sut.publish("y", SOME_TOPIC, Lane.NORMAL);
+        sut.publish("z", SOME_TOPIC, Lane.ERROR);
+
+        verify(kafka).publish("x", SOME_TOPIC, Lane.NORMAL);
+        verify(kafka).publish("z", SOME_TOPIC, Lane.ERROR);
+        assertEquals(2, count(PUBLISHED, Lane.NORMAL));
+        assertEquals(1, count(PUBLISHED, Lane.ERROR));
+    }
+
+    @Test
+    public void consumptionIsCountedAndTimed() {
+        var calls = new int[1];
+        var callback = subscribe((s, l) -> calls[0]++);
+
+        callback.accept("x", Lane.PRIORITY);
+
+        assertEquals(1, calls[0]);
+        assertEquals(1, count(CONSUMED, Lane.PRIORITY));
+        assertEquals(0, count(CONSUMED, Lane.NORMAL));
+        assertEquals(1, metrics.timer(PROCESSING, null, "topic", SOME_TOPIC, "lane", "priority").count());
+    }
+
+    @Test
+    public void errorsAreCountedAndRethrown() {
+        var callback = subscribe((s, l) -> {
+            throw new IllegalStateException();
+        });
+
+        assertThrows(IllegalStateException.class, () -> {
+            callback.accept("x", Lane.NORMAL);
+        });
+        assertEquals(1, count(CONSUMED, Lane.NORMAL));
+        assertEquals(1, count(ERRORS, Lane.NORMAL));
+        assertEquals(1, metrics.timer(PROCESSING, null, "topic", SOME_TOPIC, "lane", "normal").count());
+    }
+
+    @Test
+    public void consumptionIsMarkedInTimingTrail() {
+        var consumedAt = new ArrayList<Long>();
+        var callback = subscribe((s, l) -> {
+            consumedAt.add(trail.getConsumedAt());
+        });
+        assertNull(trail.getConsumedAt());
+        callback.accept("x", Lane.NORMAL);
+        assertNotNull(consumedAt.get(0));
+        assertNull(trail.getConsumedAt());
+    }
+
+    @Test
+    public void otherMethodsAreDelegated() {
+        sut.poll();
+        sut.commit();
+        sut.sendHeartbeat();
+        sut.stop();
+        verify(kafka).poll();
+        verify(kafka).commit();
+        verify(kafka).sendHeartbeat();
+        verify(kafka).stop();
+    }
+
+    @SuppressWarnings("unchecked")
+    private BiConsumer<String, Lane> subscribe(BiConsumer<String, Lane> callback) {
+        sut.subscribe(SOME_TOPIC, String.class, callback);
+        var captor = ArgumentCaptor.forClass(BiConsumer.class);
+        verify(kafka).subscribe(eq(SOME_TOPIC), eq(String.class), captor.capture());
+        return captor.getValue();
+    }
+
+    private long count(String name, Lane lane) {
+        return metrics.counter(name, null, "topic", SOME_TOPIC, "lane", lane.name().toLowerCase()).get();
+    }
+}
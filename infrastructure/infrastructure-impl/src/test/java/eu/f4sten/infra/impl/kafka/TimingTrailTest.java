@@ -0,0 +1,129 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.infra.impl.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+public class TimingTrailTest {
+
+    @Test
+    public void noConsumptionTimeOutsideOfProcessing() {
+        var sut = new TimingTrail(true);
+        assertNull(sut.getConsumedAt());
+        sut.consume(() -> {
+            assertNotNull(sut.getConsumedAt());
+        });
+        assertNull(sut.getConsumedAt());
+    }
+
+    @Test
+    public void disabledTrailDoesNotRecord() {
+        var sut = new TimingTrail(false);
+        var seen = new ArrayList<Long>();
+        sut.consume(() -> {
+            seen.add(sut.getConsumedAt());
+        });
+        assertEquals(1, seen.size());
+        assertNull(seen.get(0));
+    }
+
+    @Test
+    public void consumptionTimeIsBoundToThread() {
+        var sut = new TimingTrail(true);
+        var seen = new ArrayList<Long>();
+        sut.consume(() -> {
+            var t = new Thread(() -> {
+                seen.add(sut.getConsumedAt());
+            });
+            t.start();
+            join(t);
+        });
+        assertEquals(1, seen.size());
+        assertNull(seen.get(0));
+    }
+
+    @Test
+    public void nestedProcessingRestoresOuterTime() {
+        var sut = new TimingTrail(true);
+        var seen = new ArrayList<Long>();
+        sut.consume(() -> {
+            var outer = sut.getConsumedAt();
+            sut.consume(() -> {
+                seen.add(sut.getConsumedAt());
+            });
+            assertEquals(outer, sut.getConsumedAt());
+        });
+        assertEquals(1, seen.size());
+        assertNull(sut.getConsumedAt());
+    }
+
+    @Test
+    public void boundTasksRunWithConsumptionTimeOnOtherThreads() {
+        var sut = new TimingTrail(true);
+        var seen = new ArrayList<Long>();
+        var expected = new ArrayList<Long>();
+        sut.consume(() -> {
+            expected.add(sut.getConsumedAt());
+            var t = new Thread(sut.bind(() -> {
+                seen.add(sut.getConsumedAt());
+            }));
+            t.start();
+            join(t);
+        });
+        assertEquals(1, seen.size());
+        assertNotNull(seen.get(0));
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    public void boundTasksRunAfterProcessing() {
+        var sut = new TimingTrail(true);
+        var tasks = new ArrayList<Runnable>();
+        var seen = new ArrayList<Long>();
+        var expected = new ArrayList<Long>();
+        sut.consume(() -> {
+            expected.add(sut.getConsumedAt());
+            tasks.add(sut.bind(() -> {
+                seen.add(sut.getConsumedAt());
+            }));
+        });
+        tasks.get(0).run();
+        assertEquals(expected, seen);
+        assertNull(sut.getConsumedAt());
+    }
+
+    @Test
+    public void bindingWithoutConsumptionReturnsTask() {
+        var sut = new TimingTrail(true);
+        Runnable task = () -> {};
+        assertSame(task, sut.bind(task));
+    }
+
+    private static void join(Thread t) {
+        try {
+            t.join();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
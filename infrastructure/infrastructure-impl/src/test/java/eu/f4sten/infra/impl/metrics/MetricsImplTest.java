@@ -0,0 +1,178 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.infra.impl.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MetricsImplTest {
+
+    private MetricsImpl sut;
+
+    @BeforeEach
+    public void setup() {
+        sut = new MetricsImpl();
+    }
+
+    @Test
+    public void countersAreReused() {
+        var a = sut.counter("c_total", "help", "k", "v");
+        var b = sut.counter("c_total", "help", "k", "v");
+        assertSame(a, b);
+    }
+
+    @Test
+    public void counterIsScraped() {
+        sut.counter("c_total", "some help", "k", "v").inc(3);
+        var actual = sut.scrape();
+        assertContains(actual, "# HELP c_total some help\n# TYPE c_total counter\nc_total{k=\"v\"} 3\n");
+    }
+
+    @Test
+    public void counterWithoutLabels() {
+        sut.counter("c_total", "help").inc();
+        assertContains(sut.scrape(), "\nc_total 1\n");
+    }
+
+    @Test
+    public void counterCannotDecrease() {
+        var c = sut.counter("c_total", "help");
+        assertThrows(IllegalArgumentException.class, () -> {
+            c.inc(-1);
+        });
+    }
+
+    @Test
+    public void labelValuesAreEscaped() {
+        sut.counter("c_total", "help", "k", "a\"b\\c\nd").inc();
+        assertContains(sut.scrape(), "c_total{k=\"a\\\"b\\\\c\\nd\"} 1\n");
+    }
+
+    @Test
+    public void timerIsScrapedAsHistogram() {
+        var t = sut.timer("t_seconds", "help", "step", "x");
+        t.record(2_000_000); // 2ms
+        t.record(2_000_000_000L); // 2s
+        assertEquals(2, t.count());
+
+        var actual = sut.scrape();
+        assertContains(actual, "# TYPE t_seconds histogram\n");
+        assertContains(actual, "t_seconds_bucket{step=\"x\",le=\"0.001\"} 0\n");
+        assertContains(actual, "t_seconds_bucket{step=\"x\",le=\"0.0025\"} 1\n");
+        assertContains(actual, "t_seconds_bucket{step=\"x\",le=\"1\"} 1\n");
+        assertContains(actual, "t_seconds_bucket{step=\"x\",le=\"2.5\"} 2\n");
+        assertContains(actual, "t_seconds_bucket{step=\"x\",le=\"+Inf\"} 2\n");
+        assertContains(actual, "t_seconds_sum{step=\"x\"} 2.002\n");
+        assertContains(actual, "t_seconds_count{step=\"x\"} 2\n");
+    }
+
+    @Test
+    public void timerMeasuresLambdas() {
+        var t = sut.timer("t_seconds", "help");
+        var actual = t.time(() -> "x");
+        t.time(() -> {
+            // nothing to do
+        });
+        assertEquals("x", actual);
+        assertEquals(2, t.count());
+    }
+
+    @Test
+    public void gaugeIsEvaluatedOnScrape() {
+        var val = new double[] { 1 };
+        sut.gauge("g", "help", () -> val[0]);
+        assertContains(sut.scrape(), "\ng 1\n");
+        val[0] = 1.5;
+        assertContains(sut.scrape(), "\ng 1.5\n");
+    }
+
+    @Test
+    public void jvmMetricsAreRegistered() {
+        var actual = sut.scrape();
+        assertContains(actual, "jvm_memory_used_bytes{area=\"heap\"}");
+        assertContains(actual, "# TYPE jvm_gc_collections_total counter\n");
+        assertContains(actual, "jvm_gc_collections_total{gc=");
+        assertContains(actual, "jvm_threads_live ");
+    }
+
+    @Test
+    public void jvmCountersCannotBeIncremented() {
+        var gc = ManagementFactory.getGarbageCollectorMXBeans().get(0).getName();
+        assertThrows(IllegalArgumentException.class, () -> {
+            sut.counter("jvm_gc_collections_total", "help", "gc", gc);
+        });
+    }
+
+    @Test
+    public void executorsCanBeMonitored() {
+        var exec = Executors.newFixedThreadPool(1);
+        try {
+            sut.monitor("e", exec);
+            assertContains(sut.scrape(), "f4sten_executor_queued_tasks{executor=\"e\"} 0\n");
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    @Test
+    public void unsupportedExecutorsAreIgnored() {
+        var exec = Executors.newSingleThreadExecutor();
+        try {
+            sut.monitor("e", exec);
+            assertFalse(sut.scrape().contains("executor=\"e\""));
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    @Test
+    public void failsOnTypeMismatch() {
+        sut.counter("x", "help");
+        assertThrows(IllegalArgumentException.class, () -> {
+            sut.timer("x", "help");
+        });
+    }
+
+    @Test
+    public void failsOnInvalidName() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            sut.counter("a-b", "help");
+        });
+    }
+
+    @Test
+    public void failsOnInvalidLabels() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            sut.counter("x", "help", "k");
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            sut.counter("x", "help", "a-b", "v");
+        });
+    }
+
+    private static void assertContains(String actual, String expected) {
+        assertTrue(actual.contains(expected), String.format("Expected to find:\n%s\n\nin:\n%s", expected, actual));
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.infra.json;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+/**
+ * Lazily bound alternative to {@link eu.f4sten.infra.kafka.Message} for
+ * consumers that are only interested in a small part of deeply nested
+ * messages. Deserialization only keeps the raw JSON of the record and
+ * {@link #get(String, Class)} parses it on demand: it follows the given JSON
+ * pointer (e.g., "/input/input/payload"), skips all sibling sub-trees without
+ * materializing them, and only binds the value that is found at the end.
+ */
+@JsonDeserialize(using = LazyMessage.Deserializer.class)
+public class LazyMessage {
+
+    private final String json;
+    private final ObjectCodec codec;
+
+    public LazyMessage(String json, ObjectCodec codec) {
+        this.json = json;
+        this.codec = codec;
+    }
+
+    /** @return bound value at the given JSON pointer, or null if it does not exist */
+    public <T> T get(String pointer, Class<T> type) {
+        try (var p = at(pointer)) {
+            return p == null ? null : p.readValueAs(type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** @return bound value at the given JSON pointer, or null if it does not exist */
+    public <T> T get(String pointer, TypeReference<T> typeRef) {
+        try (var p = at(pointer)) {
+            return p == null ? null : p.readValueAs(typeRef);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return parser over all tokens of the message, for consumers that scan the
+     *         message themselves (the caller has to close it)
+     */
+    public JsonParser asParser() {
+        try {
+            var p = codec.getFactory().createParser(json);
+            p.setCodec(codec);
+            return p;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public boolean has(String pointer) {
+        try (var p = at(pointer)) {
+            return p != null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** @return parser that is positioned on the value at the pointer, or null */
+    private JsonParser at(String pointer) throws IOException {
+        var p = asParser();
+        var t = p.nextToken();
+        var ptr = JsonPointer.compile(pointer);
+        while (t != null && !ptr.matches()) {
+            t = moveToChild(p, ptr) ? p.currentToken() : null;
+            ptr = ptr.tail();
+        }
+        if (t == null || t == JsonToken.VALUE_NULL) {
+            p.close();
+            return null;
+        }
+        return p;
+    }
+
+    /** @return true if the parser has been moved to the child that the pointer refers to */
+    private static boolean moveToChild(JsonParser p, JsonPointer ptr) throws IOException {
+        if (p.currentToken() == JsonToken.START_OBJECT) {
+            var name = ptr.getMatchingProperty();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                var isMatch = name.equals(p.currentName());
+                p.nextToken();
+                if (isMatch) {
+                    return true;
+                }
+                p.skipChildren();
+            }
+        } else if (p.currentToken() == JsonToken.START_ARRAY) {
+            var idx = ptr.getMatchingIndex();
+            var i = 0;
+            for (var t = p.nextToken(); idx >= 0 && t != null && t != JsonToken.END_ARRAY; t = p.nextToken()) {
+                if (i++ == idx) {
+                    return true;
+                }
+                p.skipChildren();
+            }
+        }
+        return false;
+    }
+
+    public static class Deserializer extends StdDeserializer<LazyMessage> {
+
+        private static final long serialVersionUID = 1L;
+
+        public Deserializer() {
+            super(LazyMessage.class);
+        }
+
+        @Override
+        public LazyMessage deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            var raw = rawJson(p);
+            return new LazyMessage(raw != null ? raw : copy(p), p.getCodec());
+        }
+
+        /**
+         * Cuts the value out of the parsed content, Kafka records are parsed from
+         * Strings. The structure of the value is skipped, but not copied.
+         *
+         * @return raw JSON of the current value or null if the content is not
+         *         available or the value is not a container
+         */
+        private static String rawJson(JsonParser p) throws IOException {
+            var start = p.getTokenLocation();
+            var content = start.contentReference().getRawContent();
+            var isContainer = p.isExpectedStartObjectToken() || p.isExpectedStartArrayToken();
+            if (!isContainer || !(content instanceof String)) {
+                return null;
+            }
+            p.skipChildren();
+            var end = p.getCurrentLocation();
+            return ((String) content).substring((int) start.getCharOffset(), (int) end.getCharOffset());
+        }
+
+        /** fallback for other sources, e.g., streams or token buffers */
+        private static String copy(JsonParser p) throws IOException {
+            var out = new StringWriter();
+            try (var g = p.getCodec().getFactory().createGenerator(out)) {
+                g.copyCurrentStructure(p);
+            }
+            return out.toString();
+        }
+    }
+}
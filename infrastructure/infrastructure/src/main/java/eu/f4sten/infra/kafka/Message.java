@@ -18,11 +18,15 @@ package eu.f4sten.infra.kafka;
 import static org.apache.commons.lang3.builder.ToStringStyle.MULTI_LINE_STYLE;
 
 import java.util.Date;
+import java.util.List;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
 public class Message<Input, Payload> {
 
     public Date createdAt = new Date();
@@ -32,13 +36,20 @@ public class Message<Input, Payload> {
     public String host;
     public Error error;
 
+    /** optional timing information of all previous stages, oldest first */
+    @JsonInclude(Include.NON_NULL)
+    public List<Hop> trail;
+
     public Input input;
     public Payload payload;
 
     public static class Error {
         public String type;
         public String message;
+        /** omitted for repetitions of the same error, see fingerprint */
         public String stacktrace;
+        @JsonInclude(Include.NON_NULL)
+        public String fingerprint;
 
         @Override
         public boolean equals(Object obj) {
@@ -70,4 +81,31 @@ public class Message<Input, Payload> {
     public String toString() {
         return ToStringBuilder.reflectionToString(this, MULTI_LINE_STYLE);
     }
+
+    /**
+     * One stage of the pipeline that has processed (a predecessor of) a message.
+     * All times are epoch milliseconds, consumedAt and durationMs are unknown
+     * (null) if the stage did not originate from a consumed record.
+     */
+    public static class Hop {
+        public String plugin;
+        public Long consumedAt;
+        public long publishedAt;
+        public Long durationMs;
+
+        @Override
+        public boolean equals(Object obj) {
+            return EqualsBuilder.reflectionEquals(this, obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return HashCodeBuilder.reflectionHashCode(this);
+        }
+
+        @Override
+        public String toString() {
+            return ToStringBuilder.reflectionToString(this, MULTI_LINE_STYLE);
+        }
+    }
 }
\ No newline at end of file
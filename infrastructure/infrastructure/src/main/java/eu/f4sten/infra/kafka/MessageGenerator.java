@@ -22,4 +22,11 @@ public interface MessageGenerator {
     <Input, Output> Message<Input, Output> getStd(Input input, Output output);
 
     <Input> Message<Input, ?> getErr(Input input, Throwable t);
+
+    /**
+     * Binds the consumption time of the record that is processed on the calling
+     * thread to the task, so the messages that the task generates extend the
+     * timing trail of that record, even if it runs on another thread.
+     */
+    Runnable bindConsumption(Runnable task);
 }
\ No newline at end of file
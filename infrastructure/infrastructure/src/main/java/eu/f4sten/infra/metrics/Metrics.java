@@ -0,0 +1,45 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.infra.metrics;
+
+import java.util.concurrent.ExecutorService;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registry for runtime metrics of a plugin, which are exposed in the Prometheus
+ * text format. Labels are passed as alternating key/value pairs, requesting the
+ * same name and labels twice returns the same instance.
+ */
+public interface Metrics {
+
+    Counter counter(String name, String help, String... labels);
+
+    Timer timer(String name, String help, String... labels);
+
+    void gauge(String name, String help, DoubleSupplier value, String... labels);
+
+    /**
+     * Registers gauges for the queue depth and the active threads of the given
+     * executor.
+     */
+    void monitor(String name, ExecutorService executor);
+
+    /**
+     * @return all registered metrics in the Prometheus text format (version
+     *         0.0.4)
+     */
+    String scrape();
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.infra.metrics;
+
+import java.util.function.Supplier;
+
+public interface Timer {
+
+    void record(long nanos);
+
+    long count();
+
+    default void time(Runnable r) {
+        var start = System.nanoTime();
+        try {
+            r.run();
+        } finally {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    default <T> T time(Supplier<T> s) {
+        var start = System.nanoTime();
+        try {
+            return s.get();
+        } finally {
+            record(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.infra.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.f4sten.infra.metrics.Counter;
+import eu.f4sten.infra.metrics.Metrics;
+
+/**
+ * Keeps a working set of directories on disk (e.g., extracted sources or the
+ * local Maven repository) below a size budget. Every tracked directory (e.g.,
+ * of one package version) is evicted as a whole: once the tracked size crosses
+ * the high-water mark, the least recently used directories are deleted until
+ * the size is below the low-water mark. Directories with an open {@link Lease}
+ * are in use and never evicted. Consumers that read a directory after the lease
+ * has been closed (e.g., another service that is notified via Kafka) are
+ * protected by a minimum age: a directory is only evicted once its last use is
+ * older than that. Directories that are too young are reconsidered on the next
+ * release.
+ *
+ * The last access is stored as the modification time of the directory, so the
+ * recency survives restarts. The size of a directory is the sum of its file
+ * sizes, which is an upper bound for trees that share files via hard links.
+ * Instances can be used from multiple threads. Victims are chosen (and
+ * accounted for) under a lock, but deleted outside of it, so eviction does not
+ * block other threads. Only acquiring a directory that is currently deleted
+ * waits for the deletion to finish.
+ */
+public class DiskBudgetManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DiskBudgetManager.class);
+
+    public static final double LOW_WATER_RATIO = 0.9;
+
+    private static final String LABEL = "budget";
+
+    private final String name;
+    private final long highWaterMark;
+    private final long lowWaterMark;
+    private final long minAgeMS;
+    private final LongSupplier clock;
+
+    // access-ordered, iteration starts with the least recently used directory
+    private final Map<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<Path> deleting = new HashSet<>();
+    private final List<Consumer<File>> evictionListeners = new CopyOnWriteArrayList<>();
+    private long usage;
+
+    private final Counter evictions;
+    private final Counter evictedBytes;
+
+    /**
+     * @param highWaterMark budget in bytes, a value of zero or less disables the
+     *                      eviction
+     */
+    public DiskBudgetManager(String name, long highWaterMark, Metrics metrics) {
+        this(name, highWaterMark, 0, metrics);
+    }
+
+    /**
+     * @param highWaterMark budget in bytes, a value of zero or less disables the
+     *                      eviction
+     * @param minAgeMS      directories that have been used more recently are not
+     *                      evicted
+     */
+    public DiskBudgetManager(String name, long highWaterMark, long minAgeMS, Metrics metrics) {
+        this(name, highWaterMark, minAgeMS, metrics, System::currentTimeMillis);
+    }
+
+    DiskBudgetManager(String name, long highWaterMark, long minAgeMS, Metrics metrics, LongSupplier clock) {
+        this.name = name;
+        this.highWaterMark = highWaterMark;
+        this.lowWaterMark = (long) (highWaterMark * LOW_WATER_RATIO);
+        this.minAgeMS = minAgeMS;
+        this.clock = clock;
+
+        metrics.gauge("f4sten_disk_budget_usage_bytes", "Size of all tracked directories", this::getUsage, LABEL, name);
+        metrics.gauge("f4sten_disk_budget_limit_bytes", "High-water mark of the budget", () -> highWaterMark, LABEL, name);
+        metrics.gauge("f4sten_disk_budget_directories", "Number of tracked directories", this::getNumDirectories, LABEL, name);
+        evictions = metrics.counter("f4sten_disk_budget_evictions_total", "Number of evicted directories", LABEL, name);
+        evictedBytes = metrics.counter("f4sten_disk_budget_evicted_bytes_total", "Size of all evicted directories", LABEL, name);
+    }
+
+    public boolean isEnabled() {
+        return highWaterMark > 0;
+    }
+
+    /**
+     * Is notified about every evicted directory, after it has been deleted.
+     */
+    public void onEviction(Consumer<File> listener) {
+        evictionListeners.add(listener);
+    }
+
+    /**
+     * Tracks the existing directories below the root that match the predicate
+     * (sub folders of a match are not considered). Nothing is tracked if eviction
+     * is disabled, as walking large trees can take a while.
+     */
+    public void scan(File root, Predicate<Path> isTracked) {
+        if (!isEnabled() || !root.exists()) {
+            return;
+        }
+        LOG.info("Scanning {} for directories of budget '{}' ...", root, name);
+        var found = new ArrayList<Path>();
+        try {
+            Files.walkFileTree(root.toPath().toAbsolutePath().normalize(), new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (isTracked.test(dir)) {
+                        found.add(dir);
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        found.sort(Comparator.comparingLong(dir -> dir.toFile().lastModified()));
+        for (var dir : found) {
+            var size = sizeOf(dir);
+            synchronized (this) {
+                if (!entries.containsKey(dir) && !deleting.contains(dir)) {
+                    entries.put(dir, new Entry(size, dir.toFile().lastModified()));
+                    usage += size;
+                }
+            }
+        }
+        LOG.info("Found {} directories ({} bytes) for budget '{}'", found.size(), getUsage(), name);
+        evictIfNecessary();
+    }
+
+    /**
+     * Marks the directory as used, it will not be evicted before the lease is
+     * closed. The directory does not have to exist yet, its size is measured
+     * when the lease is closed.
+     */
+    public Lease acquire(File dir) {
+        var path = dir.toPath().toAbsolutePath().normalize();
+        synchronized (this) {
+            awaitDeletion(path);
+            var e = entries.get(path);
+            if (e == null) {
+                e = new Entry(0, clock.getAsLong());
+                entries.put(path, e);
+            }
+            e.pins++;
+        }
+        return new Lease(path);
+    }
+
+    private void awaitDeletion(Path dir) {
+        try {
+            while (deleting.contains(dir)) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    public synchronized long getUsage() {
+        return usage;
+    }
+
+    public synchronized int getNumDirectories() {
+        return entries.size();
+    }
+
+    public long getNumEvictions() {
+        return evictions.get();
+    }
+
+    private void release(Path dir) {
+        var size = sizeOf(dir);
+        var exists = Files.exists(dir);
+        var now = clock.getAsLong();
+        if (exists) {
+            dir.toFile().setLastModified(now);
+        }
+        synchronized (this) {
+            // refreshes the recency
+            var e = entries.get(dir);
+            e.pins--;
+            e.lastUse = now;
+            usage += size - e.size;
+            e.size = size;
+            if (!exists && e.pins == 0) {
+                entries.remove(dir);
+            }
+        }
+        evictIfNecessary();
+    }
+
+    private void evictIfNecessary() {
+        if (!isEnabled()) {
+            return;
+        }
+        var evicted = new ArrayList<Path>();
+        var minLastUse = clock.getAsLong() - minAgeMS;
+        synchronized (this) {
+            if (usage <= highWaterMark) {
+                return;
+            }
+            var it = entries.entrySet().iterator();
+            while (usage > lowWaterMark && it.hasNext()) {
+                var next = it.next();
+                var e = next.getValue();
+                if (!isEvictable(e, minLastUse)) {
+                    continue;
+                }
+                it.remove();
+                deleting.add(next.getKey());
+                usage -= e.size;
+                evictions.inc();
+                evictedBytes.inc(e.size);
+                evicted.add(next.getKey());
+            }
+            if (usage > lowWaterMark) {
+                LOG.warn("Budget '{}' is exceeded ({} bytes), all remaining directories are in use or too young", name, usage);
+            }
+        }
+        for (var dir : evicted) {
+            try {
+                delete(dir.toFile());
+            } finally {
+                finishDeletion(dir);
+            }
+        }
+        LOG.info("Evicted {} directories of budget '{}'", evicted.size(), name);
+        for (var dir : evicted) {
+            for (var l : evictionListeners) {
+                l.accept(dir.toFile());
+            }
+        }
+    }
+
+    private static boolean isEvictable(Entry e, long minLastUse) {
+        return e.pins == 0 && e.lastUse <= minLastUse;
+    }
+
+    private synchronized void finishDeletion(Path dir) {
+        deleting.remove(dir);
+        notifyAll();
+    }
+
+    private static void delete(File dir) {
+        try {
+            FileUtils.deleteDirectory(dir);
+        } catch (IOException e) {
+            LOG.warn("Could not delete directory {}", dir, e);
+        }
+    }
+
+    private static long sizeOf(Path dir) {
+        var size = new long[1];
+        try {
+            Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    size[0] += attrs.size();
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    // e.g., missing directories or concurrently deleted files
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return size[0];
+    }
+
+    private static class Entry {
+
+        private long size;
+        private int pins;
+        private long lastUse;
+
+        private Entry(long size, long lastUse) {
+            this.size = size;
+            this.lastUse = lastUse;
+        }
+    }
+
+    /**
+     * Marks a directory as in use until it is closed.
+     */
+    public class Lease implements AutoCloseable {
+
+        private final Path dir;
+        private boolean isClosed;
+
+        private Lease(Path dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        public void close() {
+            if (!isClosed) {
+                isClosed = true;
+                release(dir);
+            }
+        }
+    }
+}
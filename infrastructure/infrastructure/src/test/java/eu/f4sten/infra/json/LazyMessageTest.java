@@ -0,0 +1,144 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.infra.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.c0ps.io.ObjectMapperBuilder;
+import dev.c0ps.io.TRef;
+import eu.f4sten.infra.kafka.Message;
+
+public class LazyMessageTest {
+
+    private ObjectMapper om;
+
+    @BeforeEach
+    public void setup() {
+        om = new ObjectMapperBuilder().build();
+    }
+
+    @Test
+    public void nestedValuesCanBeExtracted() throws JsonProcessingException {
+        var sut = lazy(someNestedMessage());
+        assertEquals("p1", sut.get("/input/payload", String.class));
+        assertEquals("p2", sut.get("/payload", String.class));
+        assertEquals("pl", sut.get("/input/plugin", String.class));
+    }
+
+    @Test
+    public void typeRefsAreSupported() throws JsonProcessingException {
+        var in = someNestedMessage();
+        var sut = lazy(in);
+        var actual = sut.get("", new TRef<Message<Message<String, String>, String>>() {});
+        assertEquals(in, actual);
+    }
+
+    @Test
+    public void complexValuesCanBeExtracted() throws JsonProcessingException {
+        var in = new Message<List<String>, Map<String, Integer>>();
+        in.input = List.of("a", "b");
+        in.payload = Map.of("x", 1);
+        var sut = lazy(in);
+        assertEquals(List.of("a", "b"), sut.get("/input", new TRef<List<String>>() {}));
+        assertEquals("b", sut.get("/input/1", String.class));
+        assertEquals(Map.of("x", 1), sut.get("/payload", new TRef<Map<String, Integer>>() {}));
+    }
+
+    @Test
+    public void valuesCanBeAccessedRepeatedly() throws JsonProcessingException {
+        var sut = lazy(someNestedMessage());
+        assertEquals("p1", sut.get("/input/payload", String.class));
+        assertEquals("p1", sut.get("/input/payload", String.class));
+    }
+
+    @Test
+    public void missingValuesAreNull() throws JsonProcessingException {
+        var sut = lazy(someNestedMessage());
+        assertNull(sut.get("/input/input/payload", String.class));
+        assertNull(sut.get("/error", Message.Error.class));
+        assertNull(sut.get("/doesNotExist", String.class));
+        assertFalse(sut.has("/doesNotExist"));
+        assertTrue(sut.has("/input/payload"));
+    }
+
+    @Test
+    public void arrayElementsCanBeExtracted() throws JsonProcessingException {
+        var sut = om.readValue("{\"a\":[[1,2],{\"b\":[3,4]},5]}", LazyMessage.class);
+        assertEquals(Integer.valueOf(4), sut.get("/a/1/b/1", Integer.class));
+        assertEquals(Integer.valueOf(5), sut.get("/a/2", Integer.class));
+        assertNull(sut.get("/a/3", Integer.class));
+        assertNull(sut.get("/a/x", Integer.class));
+    }
+
+    @Test
+    public void messagesCanBeReadFromStreams() throws IOException {
+        var json = om.writeValueAsBytes(someNestedMessage());
+        var sut = om.readValue(new ByteArrayInputStream(json), LazyMessage.class);
+        assertEquals("p1", sut.get("/input/payload", String.class));
+        assertEquals("p2", sut.get("/payload", String.class));
+    }
+
+    @Test
+    public void nestedMessagesOnlyContainTheirValue() throws IOException {
+        var sut = om.readValue("[{\"a\":1},{\"a\":2}]", new TRef<List<LazyMessage>>() {});
+        assertEquals(Integer.valueOf(1), sut.get(0).get("/a", Integer.class));
+        assertEquals(Map.of("a", 2), sut.get(1).get("", Map.class));
+    }
+
+    @Test
+    public void allTokensCanBeScanned() throws IOException {
+        var sut = lazy(Map.of("a", "b"));
+        try (var p = sut.asParser()) {
+            assertEquals(JsonToken.START_OBJECT, p.nextToken());
+            assertEquals(JsonToken.FIELD_NAME, p.nextToken());
+            assertEquals("a", p.getCurrentName());
+            assertEquals(JsonToken.VALUE_STRING, p.nextToken());
+            assertEquals("b", p.getText());
+            assertEquals(JsonToken.END_OBJECT, p.nextToken());
+            assertNull(p.nextToken());
+        }
+    }
+
+    private LazyMessage lazy(Object o) throws JsonProcessingException {
+        var json = om.writeValueAsString(o);
+        return om.readValue(json, LazyMessage.class);
+    }
+
+    private static Message<Message<String, String>, String> someNestedMessage() {
+        var inner = new Message<String, String>();
+        inner.plugin = "pl";
+        inner.payload = "p1";
+        var outer = new Message<Message<String, String>, String>();
+        outer.input = inner;
+        outer.payload = "p2";
+        return outer;
+    }
+}
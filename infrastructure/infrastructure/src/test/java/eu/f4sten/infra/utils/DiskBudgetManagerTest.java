@@ -0,0 +1,219 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.infra.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import eu.f4sten.infra.metrics.Counter;
+import eu.f4sten.infra.metrics.Metrics;
+
+public class DiskBudgetManagerTest {
+
+    @TempDir
+    public File tmp;
+
+    private Metrics metrics;
+    private Map<String, TestCounter> counters;
+    private DiskBudgetManager sut;
+    private long now;
+
+    @BeforeEach
+    public void setup() {
+        counters = new HashMap<>();
+        metrics = mock(Metrics.class);
+        when(metrics.counter(anyString(), anyString(), eq("budget"), eq("test"))).thenAnswer(i -> {
+            return counters.computeIfAbsent(i.getArgument(0), n -> new TestCounter());
+        });
+        sut = new DiskBudgetManager("test", 1000, metrics);
+    }
+
+    @Test
+    public void sizeIsMeasuredWhenReleased() throws IOException {
+        var a = new File(tmp, "a");
+        try (var lease = sut.acquire(a)) {
+            write(a, "x", 100);
+            write(a, "y/z", 50);
+            assertEquals(0, sut.getUsage());
+        }
+        assertEquals(150, sut.getUsage());
+        assertEquals(1, sut.getNumDirectories());
+    }
+
+    @Test
+    public void missingDirectoriesAreNotTracked() {
+        sut.acquire(new File(tmp, "a")).close();
+        assertEquals(0, sut.getUsage());
+        assertEquals(0, sut.getNumDirectories());
+    }
+
+    @Test
+    public void leastRecentlyUsedDirectoriesAreEvicted() throws IOException {
+        var a = add("a", 400);
+        var b = add("b", 400);
+        // a is now more recent than b
+        sut.acquire(a).close();
+        var c = add("c", 400);
+
+        assertTrue(a.exists());
+        assertFalse(b.exists());
+        assertTrue(c.exists());
+        assertEquals(800, sut.getUsage());
+        assertEquals(1, sut.getNumEvictions());
+        assertEquals(400, counters.get("f4sten_disk_budget_evicted_bytes_total").get());
+    }
+
+    @Test
+    public void evictionGoesBelowLowWaterMark() throws IOException {
+        add("a", 300);
+        add("b", 300);
+        add("c", 300);
+        add("d", 200);
+        // 1100 > 1000, evicted until <= 900
+        assertEquals(800, sut.getUsage());
+        assertEquals(1, sut.getNumEvictions());
+        add("e", 500);
+        // 1300, "b" and "c" are evicted
+        assertEquals(700, sut.getUsage());
+        assertEquals(3, sut.getNumEvictions());
+    }
+
+    @Test
+    public void directoriesInUseAreNotEvicted() throws IOException {
+        var a = add("a", 600);
+        try (var lease = sut.acquire(a)) {
+            var b = add("b", 600);
+            assertTrue(a.exists());
+            assertFalse(b.exists());
+        }
+        assertTrue(a.exists());
+    }
+
+    @Test
+    public void listenersAreNotified() throws IOException {
+        var evicted = new ArrayList<File>();
+        sut.onEviction(evicted::add);
+        var a = add("a", 600);
+        add("b", 600);
+        assertEquals(List.of(a.getAbsoluteFile()), evicted);
+    }
+
+    @Test
+    public void evictedDirectoriesCanBeAcquiredAgain() throws IOException {
+        var a = add("a", 600);
+        add("b", 600);
+        assertFalse(a.exists());
+        add("a", 100);
+        assertTrue(a.exists());
+        assertEquals(700, sut.getUsage());
+        assertEquals(2, sut.getNumDirectories());
+    }
+
+    @Test
+    public void scanTracksExistingDirectories() throws IOException {
+        write(new File(tmp, "x/a"), "f", 400);
+        write(new File(tmp, "x/b/c"), "f", 400);
+        write(new File(tmp, "y/d"), "f", 400);
+        new File(tmp, "x/a").setLastModified(1000);
+        new File(tmp, "x/b").setLastModified(2000);
+        new File(tmp, "y/d").setLastModified(3000);
+
+        sut.scan(tmp, p -> p.getNameCount() == tmp.toPath().toAbsolutePath().getNameCount() + 2);
+
+        // "x/a" is the oldest directory
+        assertEquals(2, sut.getNumDirectories());
+        assertEquals(800, sut.getUsage());
+        assertFalse(new File(tmp, "x/a").exists());
+        assertTrue(new File(tmp, "x/b/c/f").exists());
+    }
+
+    @Test
+    public void recentlyUsedDirectoriesAreNotEvicted() throws IOException {
+        sut = new DiskBudgetManager("test", 1000, 100, metrics, () -> now);
+        now = 1000;
+        var a = add("a", 600);
+        now = 1050;
+        var b = add("b", 600);
+        // a is too young
+        assertTrue(a.exists());
+        assertTrue(b.exists());
+        assertEquals(1200, sut.getUsage());
+
+        now = 1101;
+        var c = add("c", 100);
+        // a is old enough, b and c are too young
+        assertFalse(a.exists());
+        assertTrue(b.exists());
+        assertTrue(c.exists());
+        assertEquals(700, sut.getUsage());
+    }
+
+    @Test
+    public void disabledBudgetDoesNotEvict() throws IOException {
+        sut = new DiskBudgetManager("test", 0, metrics);
+        var a = add("a", 600);
+        var b = add("b", 600);
+        assertTrue(a.exists());
+        assertTrue(b.exists());
+        assertEquals(1200, sut.getUsage());
+    }
+
+    private File add(String name, int size) throws IOException {
+        var dir = new File(tmp, name);
+        try (var lease = sut.acquire(dir)) {
+            write(dir, "f", size);
+        }
+        return dir;
+    }
+
+    private static void write(File dir, String name, int size) throws IOException {
+        var f = new File(dir, name);
+        f.getParentFile().mkdirs();
+        Files.write(f.toPath(), new byte[size]);
+    }
+
+    private static class TestCounter implements Counter {
+
+        private long count;
+
+        @Override
+        public void inc(long amount) {
+            count += amount;
+        }
+
+        @Override
+        public long get() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmark suite and stores the results as JSON.
+ *
+ * Usage: java -jar benchmarks.jar [include-regex] [result-file]
+ */
+public class BenchmarkSuite {
+
+    private static final String DEFAULT_INCLUDE = BenchmarkSuite.class.getPackageName() + "\\..*Benchmark";
+    private static final String DEFAULT_RESULT = "jmh-results.json";
+
+    private BenchmarkSuite() {
+        // do not instantiate
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        var include = args.length > 0 ? args[0] : DEFAULT_INCLUDE;
+        var result = args.length > 1 ? args[1] : DEFAULT_RESULT;
+
+        var opts = new OptionsBuilder() //
+                .include(include) //
+                .resultFormat(ResultFormatType.JSON) //
+                .result(result) //
+                .build();
+        new Runner(opts).run();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.c0ps.io.ObjectMapperBuilder;
+import dev.c0ps.io.TRef;
+import dev.c0ps.maven.data.Dependency;
+import dev.c0ps.maven.data.Pom;
+import dev.c0ps.maven.data.PomBuilder;
+import dev.c0ps.maven.json.CommonsMavenDataModule;
+import eu.f4sten.infra.json.LazyMessage;
+import eu.f4sten.infra.kafka.Message;
+import eu.f4sten.pomanalyzer.data.MavenId;
+
+/**
+ * Compares binding the full envelope of the ingested-artifact-completion input
+ * with the lazy extraction of the pom via {@link LazyMessage}. The outer
+ * payloads simulate the (often large) results of the intermediate stages.
+ *
+ * Run with: java -cp &lt;classpath&gt; org.openjdk.jmh.Main LazyMessageBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LazyMessageBenchmark {
+
+    private static final String POM_PATH = "/input/input/input/payload";
+    private static final TRef<Message<Message<Message<Message<MavenId, Pom>, Object>, Object>, Object>> FULL = //
+            new TRef<Message<Message<Message<Message<MavenId, Pom>, Object>, Object>, Object>>() {};
+
+    @Param({ "10", "100" })
+    public int numDependencies;
+
+    @Param({ "100", "10000" })
+    public int stagePayloadSize;
+
+    private ObjectMapper om;
+    private String json;
+
+    @Setup
+    public void setup() throws IOException {
+        om = new ObjectMapperBuilder().build().registerModule(new CommonsMavenDataModule());
+        json = om.writeValueAsString(nestedMessage());
+    }
+
+    @Benchmark
+    public Pom fullBinding() throws IOException {
+        return om.readValue(json, FULL).input.input.input.payload;
+    }
+
+    @Benchmark
+    public Pom lazyBinding() throws IOException {
+        return om.readValue(json, LazyMessage.class).get(POM_PATH, Pom.class);
+    }
+
+    private Message<?, ?> nestedMessage() {
+        var a = new MavenId();
+        a.groupId = "g";
+        a.artifactId = "a";
+        a.version = "1.2.3";
+
+        var pa = new Message<MavenId, Pom>();
+        pa.plugin = "pom-analyzer";
+        pa.input = a;
+        pa.payload = somePom();
+
+        var opal = wrap(pa, "opal");
+        var mdb = wrap(opal, "metadata-db");
+        return wrap(mdb, "callable-indexer");
+    }
+
+    private Message<Object, Object> wrap(Message<?, ?> input, String plugin) {
+        var m = new Message<Object, Object>();
+        m.plugin = plugin;
+        m.input = input;
+        m.payload = stagePayload();
+        return m;
+    }
+
+    private Map<String, Object> stagePayload() {
+        var methods = new ArrayList<Map<String, Object>>();
+        for (var i = 0; i < stagePayloadSize; i++) {
+            var method = new LinkedHashMap<String, Object>();
+            method.put("id", i);
+            method.put("uri", "/some.pkg/SomeType.method" + i + "()%2Fjava.lang%2FVoidType");
+            methods.add(method);
+        }
+        return Map.of("methods", methods);
+    }
+
+    private Pom somePom() {
+        var pb = new PomBuilder();
+        pb.groupId = "g";
+        pb.artifactId = "a";
+        pb.packagingType = "jar";
+        pb.version = "1.2.3";
+        pb.artifactRepository = "https://repo.maven.apache.org/maven2/";
+        pb.projectName = "some project";
+        pb.repoUrl = "https://github.com/some/project";
+        for (var i = 0; i < numDependencies; i++) {
+            pb.dependencies.add(new Dependency("dg" + i, "da" + i, "1.0." + i));
+        }
+        return pb.pom();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.benchmarks;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Provides;
+
+import dev.c0ps.maven.resolution.IMavenResolver;
+import dev.c0ps.maven.resolution.MavenDependencyResolver;
+import dev.c0ps.maven.resolution.MavenDependentsResolver;
+import dev.c0ps.maven.resolution.MavenResolver;
+import dev.c0ps.maven.resolution.MavenResolverData;
+import dev.c0ps.maven.resolution.ResolvedRevision;
+import dev.c0ps.maven.resolution.ResolverConfig;
+
+/**
+ * Measures dependency and dependents resolution on a synthetic graph. The
+ * dependencies are resolved for the latest release of the newest artifact
+ * (deep closure), the dependents for the latest release of the most popular
+ * artifact (large fan-in).
+ *
+ * Run with: java -cp &lt;classpath&gt; org.openjdk.jmh.Main ResolutionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResolutionBenchmark {
+
+    @Param({ "1000", "10000" })
+    public int numArtifacts;
+
+    @Param({ "10" })
+    public int versionsPerArtifact;
+
+    private IMavenResolver resolver;
+    private ResolverConfig config;
+    private String leaf;
+    private String[] hub;
+
+    @Setup
+    public void setup() {
+        var graph = SyntheticMavenGraph.ofSize(numArtifacts, versionsPerArtifact);
+        var data = new MavenResolverData();
+        graph.generate().forEach(data::add);
+        data.removeOutdatedPomRegistrations();
+        resolver = createResolver(data);
+
+        config = new ResolverConfig();
+        var last = numArtifacts - 1;
+        var latest = graph.version(versionsPerArtifact - 1);
+        leaf = graph.groupId(last) + ":" + graph.artifactId(last) + ":" + latest;
+        hub = new String[] { graph.groupId(0), graph.artifactId(0), latest };
+    }
+
+    @Benchmark
+    public Set<ResolvedRevision> resolveDependencies() {
+        return resolver.resolveDependencies(List.of(leaf), config);
+    }
+
+    @Benchmark
+    public Set<ResolvedRevision> resolveDependents() {
+        return resolver.resolveDependents(hub[0], hub[1], hub[2], config);
+    }
+
+    static IMavenResolver createResolver(MavenResolverData data) {
+        // same wiring as in the DepGraphConfig of the dependency-graph-resolver
+        var injector = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(MavenResolverData.class).toInstance(data);
+            }
+
+            @Provides
+            public MavenDependencyResolver provideDependencyResolver(MavenResolverData d) {
+                var r = new MavenDependencyResolver();
+                r.setData(d);
+                return r;
+            }
+
+            @Provides
+            public MavenDependentsResolver provideDependentsResolver(MavenResolverData d) {
+                var r = new MavenDependentsResolver();
+                r.setData(d);
+                return r;
+            }
+        });
+        return injector.getInstance(MavenResolver.class);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.c0ps.maven.data.Pom;
+import dev.c0ps.maven.resolution.MavenResolverData;
+
+/**
+ * Measures filling {@link MavenResolverData} with a synthetic graph and the
+ * cleanup after a share of the poms has been registered again (e.g., after a
+ * re-ingestion).
+ *
+ * Run with: java -cp &lt;classpath&gt; org.openjdk.jmh.Main ResolverDataBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ResolverDataBenchmark {
+
+    private static final int REREGISTERED_SHARE = 10; // every 10th pom
+
+    @Param({ "1000", "10000" })
+    public int numArtifacts;
+
+    @Param({ "10" })
+    public int versionsPerArtifact;
+
+    private List<Pom> poms;
+    private MavenResolverData filled;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        poms = SyntheticMavenGraph.ofSize(numArtifacts, versionsPerArtifact).generate();
+    }
+
+    @Setup(Level.Invocation)
+    public void fill() {
+        filled = new MavenResolverData();
+        poms.forEach(filled::add);
+        for (var i = 0; i < poms.size(); i += REREGISTERED_SHARE) {
+            filled.add(poms.get(i));
+        }
+    }
+
+    @Benchmark
+    public MavenResolverData add() {
+        var data = new MavenResolverData();
+        poms.forEach(data::add);
+        return data;
+    }
+
+    @Benchmark
+    public MavenResolverData removeOutdatedPomRegistrations() {
+        filled.removeOutdatedPomRegistrations();
+        return filled;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.benchmarks;
+
+import static dev.c0ps.maven.resolution.ResolverDepth.DIRECT;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.c0ps.maven.resolution.IMavenResolver;
+import dev.c0ps.maven.resolution.MavenResolverData;
+import dev.c0ps.maven.resolution.ResolvedRevision;
+import dev.c0ps.maven.resolution.ResolverConfig;
+import eu.f4sten.depgraph.index.ReverseDependencyIndex;
+
+/**
+ * Compares dependents queries of the {@code MavenDependentsResolver} (as
+ * wired in the dependency-graph-resolver) with lookups in the
+ * {@link ReverseDependencyIndex}, which applies the same rules. The synthetic
+ * graph has a skewed popularity of dependencies, so the direct query targets
+ * a hub with a large fan-in (like slf4j-api or junit), the transitive query
+ * starts in the middle of the graph.
+ *
+ * Run with: java -cp &lt;classpath&gt; org.openjdk.jmh.Main ReverseDependencyIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReverseDependencyIndexBenchmark {
+
+    @Param({ "1000", "10000" })
+    public int numArtifacts;
+
+    @Param({ "10" })
+    public int versionsPerArtifact;
+
+    private IMavenResolver resolver;
+    private ReverseDependencyIndex index;
+    private ResolverConfig direct;
+    private ResolverConfig transitive;
+    private String[] hub;
+    private String[] leaf;
+
+    @Setup
+    public void setup() {
+        var graph = SyntheticMavenGraph.ofSize(numArtifacts, versionsPerArtifact);
+        var data = new MavenResolverData();
+        index = new ReverseDependencyIndex();
+        for (var pom : graph.generate()) {
+            data.add(pom);
+            index.add(pom);
+        }
+        data.removeOutdatedPomRegistrations();
+        resolver = ResolutionBenchmark.createResolver(data);
+
+        direct = new ResolverConfig();
+        direct.depth = DIRECT;
+        transitive = new ResolverConfig();
+
+        hub = new String[] { graph.groupId(0), graph.artifactId(0), graph.version(versionsPerArtifact / 2) };
+        var mid = numArtifacts / 2;
+        leaf = new String[] { graph.groupId(mid), graph.artifactId(mid), graph.version(0) };
+    }
+
+    @Benchmark
+    public Set<ResolvedRevision> directDependentsByResolver() {
+        return resolver.resolveDependents(hub[0], hub[1], hub[2], direct);
+    }
+
+    @Benchmark
+    public Set<ResolvedRevision> directDependentsByIndex() {
+        return index.resolveDependents(hub[0], hub[1], hub[2], direct);
+    }
+
+    @Benchmark
+    public Set<ResolvedRevision> transitiveDependentsByResolver() {
+        return resolver.resolveDependents(leaf[0], leaf[1], leaf[2], transitive);
+    }
+
+    @Benchmark
+    public Set<ResolvedRevision> transitiveDependentsByIndex() {
+        return index.resolveDependents(leaf[0], leaf[1], leaf[2], transitive);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.c0ps.io.ObjectMapperBuilder;
+import dev.c0ps.io.TRef;
+import dev.c0ps.maven.data.Pom;
+import dev.c0ps.maven.json.CommonsMavenDataModule;
+import dev.c0ps.maven.resolution.MavenResolverData;
+import eu.f4sten.depgraph.store.BinarySnapshot;
+
+/**
+ * Measures storing and loading the pom snapshot of the dependency-graph
+ * resolver, loading includes registering all poms with
+ * {@link MavenResolverData}. The single JSON array of the legacy export serves
+ * as a baseline.
+ *
+ * Run with: java -cp &lt;classpath&gt; org.openjdk.jmh.Main SnapshotBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    @Param({ "10000" })
+    public int numArtifacts;
+
+    @Param({ "10" })
+    public int versionsPerArtifact;
+
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    private File dir;
+    private ObjectMapper om;
+    private BinarySnapshot<Pom> snapshot;
+    private List<Pom> poms;
+    private byte[] legacyJson;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("snapshot-benchmark").toFile();
+        om = new ObjectMapperBuilder().build().registerModule(new CommonsMavenDataModule());
+
+        poms = SyntheticMavenGraph.ofSize(numArtifacts, versionsPerArtifact).generate();
+        snapshot = new BinarySnapshot<>(new File(dir, "poms.snapshot"), om, Pom.class);
+        snapshot.write(0, c -> poms.forEach(c));
+        legacyJson = om.writeValueAsBytes(new HashSet<>(poms));
+    }
+
+    @TearDown
+    public void teardown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Benchmark
+    public MavenResolverData legacyJsonArray() throws IOException {
+        var data = new MavenResolverData();
+        HashSet<Pom> loaded = om.readValue(legacyJson, new TRef<HashSet<Pom>>() {});
+        loaded.forEach(data::add);
+        return data;
+    }
+
+    @Benchmark
+    public MavenResolverData chunkedSnapshot() {
+        var data = new MavenResolverData();
+        snapshot.read(threads, chunk -> chunk.forEach(data::add));
+        return data;
+    }
+
+    @Benchmark
+    public File storeSnapshot() {
+        var out = new BinarySnapshot<>(new File(dir, "store.snapshot"), om, Pom.class);
+        out.write(0, c -> poms.forEach(c));
+        return out.getFile();
+    }
+}
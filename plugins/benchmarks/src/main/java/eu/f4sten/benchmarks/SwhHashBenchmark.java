@@ -0,0 +1,145 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import eu.f4sten.swhinserter.SwhHashCalculator;
+
+/**
+ * Measures hashing all files of one (synthetic) package version. The legacy
+ * implementation of {@link SwhHashCalculator} (decoding and re-encoding the
+ * whole file, one digest per file) serves as a baseline. The files are hot in
+ * the page cache, so the results show CPU and allocation costs, not disk I/O.
+ *
+ * Run with: java -cp &lt;classpath&gt; org.openjdk.jmh.Main SwhHashBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SwhHashBenchmark {
+
+    @Param({ "1000" })
+    public int numFiles;
+
+    @Param({ "4096", "65536", "8388608" })
+    public int fileSize;
+
+    @Param({ "4" })
+    public int threads;
+
+    private File dir;
+    private List<String> paths;
+    private SwhHashCalculator calc;
+    private ExecutorService pool;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("SwhHashBenchmark").toFile();
+        // keep the total size bounded for large files
+        var num = (int) Math.max(1, Math.min(numFiles, (256L << 20) / fileSize));
+        var rnd = new Random(1234);
+        paths = new ArrayList<>();
+        for (var i = 0; i < num; i++) {
+            var path = "f" + i + ".java";
+            var content = new byte[fileSize];
+            // printable ASCII, so the legacy implementation computes the same hashes
+            for (var j = 0; j < content.length; j++) {
+                content[j] = (byte) (' ' + rnd.nextInt(95));
+            }
+            Files.write(new File(dir, path).toPath(), content);
+            paths.add(path);
+        }
+        calc = new SwhHashCalculator();
+        pool = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown
+    public void teardown() throws IOException {
+        pool.shutdownNow();
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Benchmark
+    public void legacy(Blackhole bh) throws IOException {
+        for (var path : paths) {
+            bh.consume(legacyCalc(dir, path));
+        }
+    }
+
+    @Benchmark
+    public void streaming(Blackhole bh) {
+        for (var path : paths) {
+            bh.consume(calc.calc(dir, path));
+        }
+    }
+
+    @Benchmark
+    public void streamingParallel(Blackhole bh) throws InterruptedException, ExecutionException {
+        var hashes = new ArrayList<Future<String>>(paths.size());
+        for (var path : paths) {
+            hashes.add(pool.submit(() -> calc.calc(dir, path)));
+        }
+        for (var h : hashes) {
+            bh.consume(h.get());
+        }
+    }
+
+    private static String legacyCalc(File base, String path) throws IOException {
+        var content = FileUtils.readFileToString(new File(base, path), StandardCharsets.UTF_8);
+        var bytes = content.getBytes(StandardCharsets.UTF_8);
+        try {
+            var md = MessageDigest.getInstance("SHA-1");
+            md.update(String.format("blob %d\u0000", bytes.length).getBytes());
+            md.update(bytes);
+            return Hex.encodeHexString(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
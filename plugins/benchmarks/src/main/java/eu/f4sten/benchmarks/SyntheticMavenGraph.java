@@ -0,0 +1,153 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import dev.c0ps.maven.data.Dependency;
+import dev.c0ps.maven.data.Pom;
+import dev.c0ps.maven.data.PomBuilder;
+
+/**
+ * Deterministic generator of Maven-like dependency graphs. Artifacts have
+ * multiple versions that are released over time, dependencies point to older
+ * artifacts (so the graph is acyclic) with a skewed popularity (a few hubs
+ * like slf4j-api or junit, a long tail), a share of the dependencies uses
+ * version ranges, and some artifacts inherit from a parent/BOM that manages
+ * their dependency versions.
+ *
+ * The same config always yields the same poms, in release order.
+ */
+public class SyntheticMavenGraph {
+
+    public static final String GROUP_PREFIX = "org.synthetic.g";
+    public static final String PARENT_GROUP = "org.synthetic.parents";
+
+    public long seed = 1234;
+    public int numArtifacts = 1000;
+    public int versionsPerArtifact = 10;
+    /** average number of dependencies per pom */
+    public int fanOut = 8;
+    /** share of dependencies that use version ranges instead of soft requirements */
+    public double rangeRatio = 0.2;
+    /** share of artifacts that inherit from a parent/BOM */
+    public double parentRatio = 0.3;
+    public int numParents = 10;
+    /** larger values concentrate more dependencies on few popular artifacts */
+    public double popularitySkew = 2;
+    public int artifactsPerGroup = 20;
+    public long firstRelease = 1_000_000_000_000L; // 2001-09
+    public long releaseIntervalMS = 60 * 60 * 1000; // 1h
+
+    public static SyntheticMavenGraph ofSize(int numArtifacts, int versionsPerArtifact) {
+        var g = new SyntheticMavenGraph();
+        g.numArtifacts = numArtifacts;
+        g.versionsPerArtifact = versionsPerArtifact;
+        return g;
+    }
+
+    public int numPoms() {
+        return numParents + numArtifacts * versionsPerArtifact;
+    }
+
+    /** @return all parents first, then the releases of all artifacts ordered by release date */
+    public List<Pom> generate() {
+        var rnd = new Random(seed);
+        var out = new ArrayList<Pom>(numPoms());
+        var parents = new ArrayList<Pom>();
+        for (var i = 0; i < numParents; i++) {
+            var p = parent(i, rnd);
+            parents.add(p);
+            out.add(p);
+        }
+        // interleave the releases, version v of all artifacts is released before v+1
+        var releaseIdx = 0L;
+        for (var v = 0; v < versionsPerArtifact; v++) {
+            for (var a = 0; a < numArtifacts; a++) {
+                var releaseDate = firstRelease + (releaseIdx++) * releaseIntervalMS;
+                out.add(pom(a, v, releaseDate, parents, rnd));
+            }
+        }
+        return out;
+    }
+
+    private Pom parent(int idx, Random rnd) {
+        var pb = new PomBuilder();
+        pb.groupId = PARENT_GROUP;
+        pb.artifactId = "parent" + idx;
+        pb.version = "1.0";
+        pb.packagingType = "pom";
+        pb.releaseDate = firstRelease - 1;
+        for (var i = 0; i < fanOut; i++) {
+            var dep = popularArtifact(numArtifacts, rnd);
+            pb.dependencyManagement.add(new Dependency(groupId(dep), artifactId(dep), version(rnd.nextInt(versionsPerArtifact))));
+        }
+        return pb.pom();
+    }
+
+    private Pom pom(int a, int v, long releaseDate, List<Pom> parents, Random rnd) {
+        var pb = new PomBuilder();
+        pb.groupId = groupId(a);
+        pb.artifactId = artifactId(a);
+        pb.version = version(v);
+        pb.packagingType = "jar";
+        pb.releaseDate = releaseDate;
+        pb.artifactRepository = "https://repo.maven.apache.org/maven2/";
+
+        if (!parents.isEmpty() && rnd.nextDouble() < parentRatio) {
+            var parent = parents.get(a % parents.size());
+            pb.parentCoordinate = parent.groupId + ":" + parent.artifactId + ":pom:" + parent.version;
+            // effective poms contain the managed dependencies with their resolved versions
+            pb.dependencyManagement.addAll(parent.dependencyManagement);
+        }
+
+        // only older artifacts can be used as dependencies, which keeps the graph acyclic
+        var numDeps = a == 0 ? 0 : rnd.nextInt(2 * fanOut + 1);
+        for (var i = 0; i < numDeps; i++) {
+            var dep = popularArtifact(a, rnd);
+            pb.dependencies.add(new Dependency(groupId(dep), artifactId(dep), versionSpec(v, rnd)));
+        }
+        return pb.pom();
+    }
+
+    /** picks one of the first n artifacts, lower indices are more popular */
+    private int popularArtifact(int n, Random rnd) {
+        return (int) (Math.pow(rnd.nextDouble(), popularitySkew) * n);
+    }
+
+    private String versionSpec(int maxVersion, Random rnd) {
+        // depend on versions that were released before
+        var v = rnd.nextInt(maxVersion + 1);
+        if (rnd.nextDouble() < rangeRatio) {
+            return "[" + version(v) + "," + version(Math.min(v + 3, versionsPerArtifact)) + ")";
+        }
+        return version(v);
+    }
+
+    public String groupId(int artifact) {
+        return GROUP_PREFIX + (artifact / artifactsPerGroup);
+    }
+
+    public String artifactId(int artifact) {
+        return "a" + artifact;
+    }
+
+    public String version(int v) {
+        return "1." + v + ".0";
+    }
+}
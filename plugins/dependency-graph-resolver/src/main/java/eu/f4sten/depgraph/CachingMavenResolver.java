@@ -0,0 +1,330 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import dev.c0ps.maven.data.Pom;
+import dev.c0ps.maven.data.Scope;
+import dev.c0ps.maven.resolution.IMavenResolver;
+import dev.c0ps.maven.resolution.ResolvedRevision;
+import dev.c0ps.maven.resolution.ResolverConfig;
+import dev.c0ps.maven.resolution.ResolverDepth;
+import eu.f4sten.depgraph.index.ReverseDependencyIndex;
+import eu.f4sten.infra.metrics.Counter;
+import eu.f4sten.infra.metrics.Metrics;
+
+/**
+ * Bounded cache of resolution results. Dependencies are resolved by another
+ * resolver, dependents through the {@link ReverseDependencyIndex}. Entries are
+ * keyed by the full query (kind, coordinates, and resolver config) and the
+ * size is bounded by the total number of cached revisions, least recently used
+ * entries are evicted first. Results are immutable and the cached instance
+ * is shared by all requests, so hits do not copy the result set.
+ *
+ * The config defaults to resolving at the current time, so most requests have
+ * a different resolveAt. Any resolveAt that is not before the latest known
+ * release date yields the same result, so these are all cached under the same
+ * (open-ended) key.
+ *
+ * Every pom that gets registered in the resolver data has to be passed to
+ * {@link #invalidate(Pom)} (after it was added to the index), which only drops
+ * the entries that could be affected: dependency results that considered the
+ * groupId:artifactId of the new pom (the roots, the resolved revisions, and
+ * all dependencies, managed dependencies and parents they reference, even if
+ * these were not resolved) and dependents results that contain one of its
+ * dependencies. Poms that are released after the resolution timestamp of an
+ * entry are ignored.
+ */
+public class CachingMavenResolver implements IMavenResolver {
+
+    public static final String HITS = "f4sten_depgraph_cache_hits_total";
+    public static final String MISSES = "f4sten_depgraph_cache_misses_total";
+    public static final String EVICTIONS = "f4sten_depgraph_cache_evictions_total";
+    public static final String INVALIDATIONS = "f4sten_depgraph_cache_invalidations_total";
+
+    private final IMavenResolver resolver;
+    private final ReverseDependencyIndex index;
+    private final long maxWeight;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter invalidations;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<Key>> keysByGa = new HashMap<>();
+    // generation of the last change that is relevant for the respective entry kind,
+    // only tracked while resolutions are in flight
+    private final Map<String, Long> lastDependencyChange = new HashMap<>();
+    private final Map<String, Long> lastDependentsChange = new HashMap<>();
+    private long latestReleaseDate = Long.MIN_VALUE;
+    private int numInFlight = 0;
+    private long generation = 0;
+    private long weight = 0;
+
+    public CachingMavenResolver(IMavenResolver resolver, ReverseDependencyIndex index, long maxWeight, Metrics metrics) {
+        this.resolver = resolver;
+        this.index = index;
+        this.maxWeight = maxWeight;
+        this.hits = metrics.counter(HITS, "Number of resolutions that were answered from the cache");
+        this.misses = metrics.counter(MISSES, "Number of resolutions that were not found in the cache");
+        this.evictions = metrics.counter(EVICTIONS, "Number of cache entries that were evicted because of the size bound");
+        this.invalidations = metrics.counter(INVALIDATIONS, "Number of cache entries that were dropped because of new poms");
+        metrics.gauge("f4sten_depgraph_cache_entries", "Number of cached resolution results", this::size);
+        metrics.gauge("f4sten_depgraph_cache_weight", "Number of cached revisions", this::weight);
+    }
+
+    @Override
+    public Set<ResolvedRevision> resolveDependencies(Collection<String> gavs, ResolverConfig config) {
+        var coordinates = new ArrayList<>(new HashSet<>(gavs));
+        coordinates.sort(null);
+        return getOrResolve(Kind.DEPENDENCIES, coordinates, config, () -> resolver.resolveDependencies(gavs, config));
+    }
+
+    @Override
+    public Set<ResolvedRevision> resolveDependents(String gid, String aid, String version, ResolverConfig config) {
+        var coordinates = List.of(gid + ":" + aid + ":" + version);
+        return getOrResolve(Kind.DEPENDENTS, coordinates, config, () -> index.resolveDependents(gid, aid, version, config));
+    }
+
+    private Set<ResolvedRevision> getOrResolve(Kind kind, List<String> coordinates, ResolverConfig config, Resolution resolution) {
+        Key key;
+        long startGeneration;
+        synchronized (this) {
+            var resolveAt = config.resolveAt >= latestReleaseDate ? Long.MAX_VALUE : config.resolveAt;
+            key = new Key(kind, coordinates, config, resolveAt);
+            var e = entries.get(key);
+            if (e != null) {
+                hits.inc();
+                return e.result;
+            }
+            misses.inc();
+            startGeneration = generation;
+            numInFlight++;
+        }
+
+        Set<ResolvedRevision> result = null;
+        try {
+            result = Set.copyOf(resolution.resolve());
+            return result;
+        } finally {
+            finishResolution(key, result, startGeneration);
+        }
+    }
+
+    private synchronized void finishResolution(Key key, Set<ResolvedRevision> result, long startGeneration) {
+        numInFlight--;
+        if (result != null) {
+            var gas = touchedGas(key, result);
+            // results that might have been affected by a concurrent change are not cached
+            if (!isChangedSince(key.kind, gas, startGeneration) && !entries.containsKey(key)) {
+                put(key, new Entry(result, gas));
+            }
+        }
+        if (numInFlight == 0) {
+            lastDependencyChange.clear();
+            lastDependentsChange.clear();
+        }
+    }
+
+    /** drops all cached results that could change because of the given pom */
+    public synchronized void invalidate(Pom pom) {
+        generation++;
+        latestReleaseDate = Math.max(latestReleaseDate, pom.releaseDate);
+        var ga = ga(pom.groupId, pom.artifactId);
+        var depGas = new HashSet<String>();
+        for (var d : pom.dependencies) {
+            depGas.add(ga(d.groupId, d.artifactId));
+        }
+
+        if (numInFlight > 0) {
+            lastDependencyChange.put(ga, generation);
+            lastDependentsChange.put(ga, generation);
+            for (var depGa : depGas) {
+                lastDependentsChange.put(depGa, generation);
+            }
+        }
+
+        var affected = new HashSet<Key>();
+        affected.addAll(keysByGa.getOrDefault(ga, Set.of()));
+        for (var depGa : depGas) {
+            affected.addAll(keysOfKind(Kind.DEPENDENTS, keysByGa.getOrDefault(depGa, Set.of())));
+        }
+        for (var key : affected) {
+            if (pom.releaseDate <= key.resolveAt) {
+                remove(key);
+                invalidations.inc();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    private static List<Key> keysOfKind(Kind kind, Collection<Key> keys) {
+        var out = new ArrayList<Key>();
+        for (var key : keys) {
+            if (key.kind == kind) {
+                out.add(key);
+            }
+        }
+        return out;
+    }
+
+    private boolean isChangedSince(Kind kind, Set<String> gas, long startGeneration) {
+        var changes = kind == Kind.DEPENDENCIES ? lastDependencyChange : lastDependentsChange;
+        for (var ga : gas) {
+            if (changes.getOrDefault(ga, 0L) > startGeneration) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void put(Key key, Entry e) {
+        entries.put(key, e);
+        weight += e.weight();
+        for (var ga : e.gas) {
+            keysByGa.computeIfAbsent(ga, x -> new HashSet<>()).add(key);
+        }
+        var it = entries.entrySet().iterator();
+        while (weight > maxWeight && it.hasNext()) {
+            var eldest = it.next();
+            it.remove();
+            unindex(eldest.getKey(), eldest.getValue());
+            evictions.inc();
+        }
+    }
+
+    private void remove(Key key) {
+        var e = entries.remove(key);
+        if (e != null) {
+            unindex(key, e);
+        }
+    }
+
+    private void unindex(Key key, Entry e) {
+        weight -= e.weight();
+        for (var ga : e.gas) {
+            var keys = keysByGa.get(ga);
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByGa.remove(ga);
+            }
+        }
+    }
+
+    private Set<String> touchedGas(Key key, Set<ResolvedRevision> result) {
+        var gas = new HashSet<String>();
+        for (var gav : key.coordinates) {
+            var parts = gav.split(":");
+            gas.add(parts.length > 1 ? ga(parts[0], parts[1]) : gav);
+            addReferencedGas(key, gav, gas);
+        }
+        for (var r : result) {
+            gas.add(ga(r.groupId, r.artifactId));
+            addReferencedGas(key, r.groupId + ":" + r.artifactId + ":" + r.version, gas);
+        }
+        return gas;
+    }
+
+    private void addReferencedGas(Key key, String gav, Set<String> gas) {
+        // dependents results are affected by new dependents, not by the dependencies of their results
+        if (key.kind == Kind.DEPENDENCIES) {
+            gas.addAll(index.findReferencedGas(gav));
+        }
+    }
+
+    private static String ga(String groupId, String artifactId) {
+        return groupId + ":" + artifactId;
+    }
+
+    private enum Kind {
+        DEPENDENCIES, DEPENDENTS
+    }
+
+    private interface Resolution {
+        Set<ResolvedRevision> resolve();
+    }
+
+    private static class Entry {
+        private final Set<ResolvedRevision> result;
+        private final Set<String> gas;
+
+        Entry(Set<ResolvedRevision> result, Set<String> gas) {
+            this.result = result;
+            this.gas = gas;
+        }
+
+        long weight() {
+            return 1 + result.size();
+        }
+    }
+
+    /** copies the query, callers are free to change their config afterwards */
+    private static class Key {
+        private final Kind kind;
+        private final List<String> coordinates;
+        // replaces config.resolveAt
+        private final long resolveAt;
+        private final ResolverDepth depth;
+        private final Scope scope;
+        private final boolean alwaysIncludeProvided;
+        private final boolean alwaysIncludeOptional;
+        private final int hash;
+
+        Key(Kind kind, List<String> coordinates, ResolverConfig config, long resolveAt) {
+            this.kind = kind;
+            this.coordinates = List.copyOf(coordinates);
+            this.resolveAt = resolveAt;
+            this.depth = config.depth;
+            this.scope = config.scope;
+            this.alwaysIncludeProvided = config.alwaysIncludeProvided;
+            this.alwaysIncludeOptional = config.alwaysIncludeOptional;
+            this.hash = Objects.hash(kind, this.coordinates, resolveAt, depth, scope, alwaysIncludeProvided, alwaysIncludeOptional);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            var other = (Key) obj;
+            return hash == other.hash && kind == other.kind && resolveAt == other.resolveAt && depth == other.depth && scope == other.scope //
+                    && alwaysIncludeProvided == other.alwaysIncludeProvided && alwaysIncludeOptional == other.alwaysIncludeOptional //
+                    && coordinates.equals(other.coordinates);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -24,4 +24,28 @@ public class DepGraphArgs {
 
     @Parameter(names = "--depgraph.minTimeExportMS", arity = 1, description = "Minimum time that needs to pass before updating disk export (ms)")
     public long minTimeExportMS = 20 * 60 * 1000; // 20min
-}
\ No newline at end of file
+
+    @Parameter(names = "--depgraph.maxSegments", arity = 1, description = "Number of segments in the pom log that triggers a background compaction")
+    public int maxSegments = 16;
+
+    @Parameter(names = "--depgraph.loadThreads", arity = 1, description = "Number of threads that decode the pom snapshot on startup")
+    public int loadThreads = Runtime.getRuntime().availableProcessors();
+
+    @Parameter(names = "--depgraph.snapshotChunkSize", arity = 1, description = "Number of poms per independently decodable chunk in the pom snapshot")
+    public int snapshotChunkSize = 10000;
+
+    @Parameter(names = "--depgraph.cacheSize", arity = 1, description = "Maximum number of revisions in cached resolution results")
+    public long cacheSize = 1000000;
+
+    @Parameter(names = "--depgraph.batchThreads", arity = 1, description = "Number of threads that resolve the coordinates of batch requests")
+    public int batchThreads = Runtime.getRuntime().availableProcessors();
+
+    @Parameter(names = "--depgraph.maxBatchSize", arity = 1, description = "Maximum number of coordinates in a batch request")
+    public int maxBatchSize = 1000;
+
+    @Parameter(names = "--depgraph.maxCursors", arity = 1, description = "Maximum number of open cursors of paginated streaming requests")
+    public int maxCursors = 1000;
+
+    @Parameter(names = "--depgraph.cursorTimeoutMS", arity = 1, description = "Time after which an unused cursor of a paginated streaming request expires (ms)")
+    public long cursorTimeoutMS = 10 * 60 * 1000; // 10min
+}
@@ -15,16 +15,31 @@
  */
 package eu.f4sten.depgraph;
 
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Binder;
 import com.google.inject.Provides;
+import com.google.inject.Singleton;
 
 import dev.c0ps.diapper.IInjectorConfig;
 import dev.c0ps.diapper.InjectorConfig;
+import dev.c0ps.io.IoUtils;
+import dev.c0ps.io.JsonUtils;
+import dev.c0ps.maven.data.Pom;
 import dev.c0ps.maven.resolution.IMavenResolver;
 import dev.c0ps.maven.resolution.MavenDependencyResolver;
 import dev.c0ps.maven.resolution.MavenDependentsResolver;
 import dev.c0ps.maven.resolution.MavenResolver;
 import dev.c0ps.maven.resolution.MavenResolverData;
+import eu.f4sten.depgraph.batch.BatchResolver;
+import eu.f4sten.depgraph.index.ReverseDependencyIndex;
+import eu.f4sten.depgraph.store.BinarySnapshot;
+import eu.f4sten.depgraph.store.PomInterner;
+import eu.f4sten.depgraph.store.SegmentLog;
+import eu.f4sten.depgraph.stream.Cursors;
+import eu.f4sten.infra.metrics.Metrics;
 
 @InjectorConfig
 public class DepGraphConfig implements IInjectorConfig {
@@ -38,8 +53,36 @@ public class DepGraphConfig implements IInjectorConfig {
     @Override
     public void configure(Binder binder) {
         binder.bind(DepGraphArgs.class).toInstance(args);
-        binder.bind(IMavenResolver.class).to(MavenResolver.class);
+        binder.bind(IMavenResolver.class).to(CachingMavenResolver.class);
         binder.bind(MavenResolverData.class).toInstance(new MavenResolverData());
+        binder.bind(ReverseDependencyIndex.class).toInstance(new ReverseDependencyIndex());
+        binder.bind(PomInterner.class).toInstance(new PomInterner());
+    }
+
+    @Provides
+    @Singleton
+    public LockingMavenResolver provideLockingResolver(MavenResolver resolver) {
+        return new LockingMavenResolver(resolver);
+    }
+
+    @Provides
+    @Singleton
+    public CachingMavenResolver provideCachingResolver(LockingMavenResolver resolver, ReverseDependencyIndex index, Metrics metrics) {
+        return new CachingMavenResolver(resolver, index, args.cacheSize, metrics);
+    }
+
+    @Provides
+    @Singleton
+    public BatchResolver provideBatchResolver(IMavenResolver resolver, Metrics metrics) {
+        var pool = Executors.newFixedThreadPool(args.batchThreads);
+        metrics.monitor("depgraph-batch", pool);
+        return new BatchResolver(resolver, pool, args.maxBatchSize);
+    }
+
+    @Provides
+    @Singleton
+    public Cursors provideCursors() {
+        return new Cursors(args.maxCursors, args.cursorTimeoutMS);
     }
 
     @Provides
@@ -55,4 +98,18 @@ public class DepGraphConfig implements IInjectorConfig {
         r.setData(data);
         return r;
     }
-}
\ No newline at end of file
+
+    @Provides
+    @Singleton
+    public SegmentLog<Pom> provideSegmentLog(IoUtils io, JsonUtils json) {
+        var dir = Paths.get(io.getBaseFolder().getAbsolutePath(), "mvn_depgraph", "segments").toFile();
+        return new SegmentLog<>(dir, Pom::toCoordinate, json::toJson, s -> json.fromJson(s, Pom.class));
+    }
+
+    @Provides
+    @Singleton
+    public BinarySnapshot<Pom> provideSnapshot(IoUtils io, ObjectMapper om) {
+        var f = Paths.get(io.getBaseFolder().getAbsolutePath(), "mvn_depgraph", "poms.snapshot").toFile();
+        return new BinarySnapshot<>(f, om, Pom.class, args.snapshotChunkSize);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import dev.c0ps.maven.resolution.IMavenResolver;
+import dev.c0ps.maven.resolution.ResolvedRevision;
+import dev.c0ps.maven.resolution.ResolverConfig;
+
+/**
+ * Guards the resolver data, which is not thread-safe. Resolutions share a read
+ * lock and run concurrently, all changes of the data (registering poms,
+ * removing outdated registrations) have to be run through
+ * {@link #update(Runnable)}, which waits for running resolutions and blocks
+ * new ones until the change is complete. Every resolution sees a consistent
+ * state of the data.
+ */
+public class LockingMavenResolver implements IMavenResolver {
+
+    private final IMavenResolver resolver;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public LockingMavenResolver(IMavenResolver resolver) {
+        this.resolver = resolver;
+    }
+
+    @Override
+    public Set<ResolvedRevision> resolveDependencies(Collection<String> gavs, ResolverConfig config) {
+        return read(() -> resolver.resolveDependencies(gavs, config));
+    }
+
+    @Override
+    public Set<ResolvedRevision> resolveDependents(String gid, String aid, String version, ResolverConfig config) {
+        return read(() -> resolver.resolveDependents(gid, aid, version, config));
+    }
+
+    /** runs a change of the resolver data exclusively */
+    public void update(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private <T> T read(Supplier<T> resolution) {
+        lock.readLock().lock();
+        try {
+            return resolution.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
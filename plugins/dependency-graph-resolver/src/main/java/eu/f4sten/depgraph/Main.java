@@ -19,8 +19,13 @@ import static dev.c0ps.commons.MemoryUsageUtils.logMemoryUsage;
 
 import java.io.File;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,6 +38,12 @@ import dev.c0ps.maven.MavenUtilities;
 import dev.c0ps.maven.data.Pom;
 import dev.c0ps.maven.resolution.MavenResolverData;
 import dev.c0ps.maven.rest.DependencyGraphResolutionService;
+import eu.f4sten.depgraph.batch.BatchResolutionService;
+import eu.f4sten.depgraph.index.ReverseDependencyIndex;
+import eu.f4sten.depgraph.store.BinarySnapshot;
+import eu.f4sten.depgraph.store.PomInterner;
+import eu.f4sten.depgraph.store.SegmentLog;
+import eu.f4sten.depgraph.stream.StreamingResolutionService;
 import eu.f4sten.infra.kafka.DefaultTopics;
 import eu.f4sten.infra.kafka.Message;
 import jakarta.inject.Inject;
@@ -47,36 +58,58 @@ public class Main implements Runnable {
     private final IoUtils io;
     private final MavenResolverData data;
     private final DepGraphArgs args;
+    private final SegmentLog<Pom> log;
+    private final BinarySnapshot<Pom> snapshot;
+    private final PomInterner interner;
+    private final CachingMavenResolver cache;
+    private final LockingMavenResolver locking;
+    private final ReverseDependencyIndex index;
 
-    private Set<Pom> poms = new HashSet<>();
+    // maintenance that is proportional to the total number of poms, runs off the Kafka thread
+    private final ExecutorService maintenanceExec = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean isCompacting = new AtomicBoolean(false);
+    private final AtomicBoolean isCleanupScheduled = new AtomicBoolean(false);
+
+    private final List<Pom> pending = new ArrayList<>();
     private long lastStoredAt = 0;
     private int numPomsAddedSinceLastStore = 0;
 
     @Inject
-    public Main(HttpServer server, Kafka kafka, IoUtils io, MavenResolverData data, DepGraphArgs args) {
+    public Main(HttpServer server, Kafka kafka, IoUtils io, MavenResolverData data, DepGraphArgs args, SegmentLog<Pom> log,
+            BinarySnapshot<Pom> snapshot, PomInterner interner, CachingMavenResolver cache, LockingMavenResolver locking, ReverseDependencyIndex index) {
         this.server = server;
         this.kafka = kafka;
         this.io = io;
         this.data = data;
         this.args = args;
+        this.log = log;
+        this.snapshot = snapshot;
+        this.interner = interner;
+        this.cache = cache;
+        this.locking = locking;
+        this.index = index;
     }
 
     @Override
     public void run() {
         server.register(DependencyGraphResolutionService.class);
+        server.register(BatchResolutionService.class);
+        server.register(StreamingResolutionService.class);
         server.start();
 
-        LOG.info("Storage location for poms: {}", dbFile());
+        LOG.info("Storage location for poms: {}", log.getDir());
 
         initPomsAndDataContainers();
 
         kafka.subscribe(DefaultTopics.POM_ANALYZER, new TRef<Message<Void, Pom>>() {}, (m, l) -> {
             numPomsAddedSinceLastStore++;
             logProgress(m.payload);
-            var pom = MavenUtilities.simplify(m.payload);
-            poms.add(pom);
+            var pom = interner.intern(MavenUtilities.simplify(m.payload));
+            pending.add(pom);
 
-            data.add(pom);
+            locking.update(() -> data.add(pom));
+            index.add(pom);
+            cache.invalidate(pom);
 
             if (shouldStore()) {
                 store();
@@ -88,32 +121,73 @@ public class Main implements Runnable {
     }
 
     private void initPomsAndDataContainers() {
-        var f = dbFile();
-        if (f.exists()) {
-            time("Reading poms from file system", () -> {
-                poms = io.readFromZip(dbFile(), new TRef<HashSet<Pom>>() {});
-            });
+        migrateLegacyExport();
+        if (log.isEmpty()) {
+            LOG.info("Starting to collect poms from scratch ...");
+            return;
+        }
 
-            LOG.info("Registering {} poms with data containers", poms.size());
-            var numAdded = 0;
-            for (var pom : poms) {
-                numAdded++;
-                data.add(pom);
-                if ((numAdded % NUM_TO_REPORT) == 0) {
-                    LOG.info("Added {} more coordinates to data containers ...", NUM_TO_REPORT);
-                }
+        // registration is sequential, poms are interned before (in parallel for snapshots)
+        var numAdded = new int[1];
+        Consumer<Pom> register = interned -> {
+            numAdded[0]++;
+            locking.update(() -> data.add(interned));
+            index.add(interned);
+            cache.invalidate(interned);
+            if ((numAdded[0] % NUM_TO_REPORT) == 0) {
+                LOG.info("Added {} more coordinates to data containers ...", NUM_TO_REPORT);
             }
-            time("Cleanup resolver data", () -> {
-                data.removeOutdatedPomRegistrations();
-            });
-            LOG.info("Data containers ready");
+        };
 
-            logMemoryUsage();
+        var lastSnapshotSegment = readSnapshot(register);
+        time("Reading remaining poms from segment log", () -> {
+            log.forEachLatest(lastSnapshotSegment + 1, Long.MAX_VALUE, pom -> register.accept(interner.intern(pom)));
+        });
+        LOG.info("Registered {} poms with data containers", numAdded[0]);
+        LOG.info("Reverse dependency index contains {} edges", index.numEdges());
+        time("Cleanup resolver data", () -> {
+            locking.update(data::removeOutdatedPomRegistrations);
+        });
+        LOG.info("Data containers ready");
 
-        } else {
-            LOG.info("Starting to collect poms from scratch ...");
-            poms = new HashSet<>();
+        logMemoryUsage();
+        logMemoryPerPom();
+
+        if (log.lastSegmentId() > lastSnapshotSegment) {
+            compactInBackground();
+        }
+    }
+
+    /** @return id of the last segment that is covered by the snapshot or -1 */
+    private long readSnapshot(Consumer<Pom> register) {
+        if (!snapshot.exists()) {
+            return -1;
+        }
+        var lastSegment = new long[] { -1 };
+        try {
+            time("Reading poms from snapshot", () -> {
+                // chunks are decoded and interned in parallel, but handed over sequentially
+                lastSegment[0] = snapshot.read(args.loadThreads, interner::intern, chunk -> chunk.forEach(register));
+            });
+        } catch (RuntimeException e) {
+            // corrupted snapshots fail their checksums before any pom is registered, other
+            // failures can leave duplicate registrations, which are harmless: replay the full log
+            LOG.warn("Cannot read snapshot {}, falling back to segment log", snapshot.getFile(), e);
+            return -1;
+        }
+        return lastSegment[0];
+    }
+
+    private void migrateLegacyExport() {
+        var f = legacyDbFile();
+        if (!f.exists() || !log.isEmpty()) {
+            return;
         }
+        time("Migrating legacy pom export into segment log", () -> {
+            var poms = io.readFromZip(f, new TRef<HashSet<Pom>>() {});
+            log.append(poms);
+            io.move(f, new File(f.getParentFile(), f.getName() + "-migrated"));
+        });
     }
 
     private boolean shouldStore() {
@@ -123,28 +197,63 @@ public class Main implements Runnable {
     }
 
     private void store() {
-        var tmp = tmpFile();
-        time("Storing poms to file system", () -> {
-            LOG.info("Storing {} poms in total, {} new", poms.size(), numPomsAddedSinceLastStore);
-            io.writeToZip(poms, tmp);
-            // reduces likelihood of corruption as rename is MUCH faster than store
-            io.move(tmp, dbFile());
+        // the append only covers the new poms and is the durability barrier for the offsets
+        time("Appending poms to segment log", () -> {
+            LOG.info("Appending {} new poms", pending.size());
+            log.append(pending);
             kafka.commit();
 
+            pending.clear();
             numPomsAddedSinceLastStore = 0;
             lastStoredAt = now();
         });
 
-        LOG.info("Removing outdated Pom registrations ...");
-        data.removeOutdatedPomRegistrations();
+        cleanupInBackground();
+        compactInBackgroundIfNecessary();
     }
 
-    private File tmpFile() {
-        var f = Paths.get(io.getBaseFolder().getAbsolutePath(), "mvn_depgraph", "poms.json-tmp").toFile();
-        return f;
+    private void cleanupInBackground() {
+        if (!isCleanupScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        maintenanceExec.submit(() -> {
+            isCleanupScheduled.set(false);
+            try {
+                // blocks resolutions while it runs, they must not see partially cleaned data
+                time("Removing outdated Pom registrations", () -> {
+                    locking.update(data::removeOutdatedPomRegistrations);
+                });
+            } catch (RuntimeException e) {
+                LOG.error("Removing outdated Pom registrations failed", e);
+            }
+        });
+    }
+
+    private void compactInBackgroundIfNecessary() {
+        if (log.numSegments() > args.maxSegments) {
+            compactInBackground();
+        }
     }
 
-    private File dbFile() {
+    private void compactInBackground() {
+        if (!isCompacting.compareAndSet(false, true)) {
+            return;
+        }
+        maintenanceExec.submit(() -> {
+            try {
+                time("Compacting segment log and updating snapshot", () -> {
+                    var lastId = log.compact();
+                    snapshot.write(lastId, c -> log.forEachLatest(0, lastId, c));
+                });
+            } catch (RuntimeException e) {
+                LOG.error("Compaction of segment log failed", e);
+            } finally {
+                isCompacting.set(false);
+            }
+        });
+    }
+
+    private File legacyDbFile() {
         var f = Paths.get(io.getBaseFolder().getAbsolutePath(), "mvn_depgraph", "poms.zip").toFile();
         return f;
     }
@@ -156,7 +265,18 @@ public class Main implements Runnable {
         if (wasSomethingAdded && isHittingProgressThreshold) {
             LOG.info("Added {} more coordinates through Kafka ...", NUM_TO_REPORT);
             logMemoryUsage();
+            logMemoryPerPom();
+        }
+    }
+
+    private void logMemoryPerPom() {
+        var numPoms = index.numPackageVersions();
+        if (numPoms == 0) {
+            return;
         }
+        var rt = Runtime.getRuntime();
+        var usedHeap = rt.totalMemory() - rt.freeMemory();
+        LOG.info("Memory per pom: {} bytes of used heap ({} poms)", usedHeap / numPoms, numPoms);
     }
 
     private static void time(String activity, Runnable r) {
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph;
+
+import dev.c0ps.maven.data.Scope;
+import dev.c0ps.maven.resolution.ResolverConfig;
+import dev.c0ps.maven.resolution.ResolverDepth;
+
+/** maps the query parameters of the resolution endpoints to a {@link ResolverConfig} */
+public class ResolverConfigUtils {
+
+    private ResolverConfigUtils() {
+        // do not instantiate
+    }
+
+    /** unset parameters keep the defaults of {@link ResolverConfig} */
+    public static ResolverConfig config(Long resolveAt, ResolverDepth depth, Scope scope, Boolean alwaysIncludeProvided, Boolean alwaysIncludeOptional) {
+        var config = new ResolverConfig();
+        if (resolveAt != null) {
+            config.resolveAt = resolveAt;
+        }
+        if (depth != null) {
+            config.depth = depth;
+        }
+        if (scope != null) {
+            config.scope = scope;
+        }
+        if (alwaysIncludeProvided != null) {
+            config.alwaysIncludeProvided = alwaysIncludeProvided;
+        }
+        if (alwaysIncludeOptional != null) {
+            config.alwaysIncludeOptional = alwaysIncludeOptional;
+        }
+        return config;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph.batch;
+
+import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+
+@Path("/depgraph/batch")
+@Consumes(APPLICATION_JSON)
+@Produces(APPLICATION_JSON)
+public class BatchResolutionService {
+
+    private final BatchResolver resolver;
+
+    @Inject
+    public BatchResolutionService(BatchResolver resolver) {
+        this.resolver = resolver;
+    }
+
+    @POST
+    @Path("/dependencies")
+    public BatchResult resolveDependencies(BatchRequest req) {
+        try {
+            return resolver.resolveDependencies(req);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
+    @POST
+    @Path("/dependents")
+    public BatchResult resolveDependents(BatchRequest req) {
+        try {
+            return resolver.resolveDependents(req);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+}
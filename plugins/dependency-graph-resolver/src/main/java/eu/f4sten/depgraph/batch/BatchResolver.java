@@ -0,0 +1,116 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph.batch;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+import dev.c0ps.maven.resolution.IMavenResolver;
+import dev.c0ps.maven.resolution.ResolvedRevision;
+import dev.c0ps.maven.resolution.ResolverConfig;
+
+/**
+ * Resolves all coordinates of a {@link BatchRequest} in parallel on a shared,
+ * bounded pool. Duplicate coordinates are only resolved once and the
+ * (caching) resolver is shared with the single-coordinate endpoints, so
+ * coordinates that have been resolved before with the same config are served
+ * from the cache. The cache is keyed by the whole query, shared subgraphs of
+ * different coordinates are resolved again: the Maven mediation (nearest
+ * wins, dependency management and exclusions of the root) depends on the
+ * root, so the resolution of a subgraph cannot be reused for another root.
+ * Failures are reported per coordinate and do not fail the whole batch.
+ */
+public class BatchResolver {
+
+    private final IMavenResolver resolver;
+    private final ExecutorService pool;
+    private final int maxBatchSize;
+
+    public BatchResolver(IMavenResolver resolver, ExecutorService pool, int maxBatchSize) {
+        this.resolver = resolver;
+        this.pool = pool;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public BatchResult resolveDependencies(BatchRequest req) {
+        return resolve(req, (gav, config) -> {
+            return resolver.resolveDependencies(List.of(gav), config);
+        });
+    }
+
+    public BatchResult resolveDependents(BatchRequest req) {
+        return resolve(req, (gav, config) -> {
+            var parts = gav.split(":");
+            return resolver.resolveDependents(parts[0], parts[1], parts[2], config);
+        });
+    }
+
+    private BatchResult resolve(BatchRequest req, BiFunction<String, ResolverConfig, Set<ResolvedRevision>> fn) {
+        if (req == null || req.coordinates == null || req.config == null) {
+            throw new IllegalArgumentException("Batch request requires coordinates and config");
+        }
+        var coordinates = new LinkedHashSet<>(req.coordinates);
+        if (coordinates.size() > maxBatchSize) {
+            var msg = String.format("Batch contains %d coordinates, but only %d are allowed", coordinates.size(), maxBatchSize);
+            throw new IllegalArgumentException(msg);
+        }
+
+        var res = new BatchResult();
+        var futures = new LinkedHashMap<String, Future<Set<ResolvedRevision>>>();
+        for (var gav : coordinates) {
+            if (!isValid(gav)) {
+                res.failures.put(gav, "Invalid coordinate, expected groupId:artifactId:version");
+                continue;
+            }
+            futures.put(gav, pool.submit(() -> fn.apply(gav, req.config)));
+        }
+
+        try {
+            for (var e : futures.entrySet()) {
+                collect(e.getKey(), e.getValue(), res);
+            }
+        } catch (InterruptedException e) {
+            futures.values().forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        return res;
+    }
+
+    private static void collect(String gav, Future<Set<ResolvedRevision>> f, BatchResult res) throws InterruptedException {
+        try {
+            res.results.put(gav, f.get());
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+            var msg = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getName();
+            res.failures.put(gav, msg);
+        }
+    }
+
+    private static boolean isValid(String gav) {
+        if (gav == null) {
+            return false;
+        }
+        var parts = gav.split(":");
+        return parts.length == 3 && !parts[0].isEmpty() && !parts[1].isEmpty() && !parts[2].isEmpty();
+    }
+}
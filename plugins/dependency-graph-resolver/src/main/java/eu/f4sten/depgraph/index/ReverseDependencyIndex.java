@@ -0,0 +1,442 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph.index;
+
+import static dev.c0ps.maven.data.Scope.COMPILE;
+import static dev.c0ps.maven.data.Scope.IMPORT;
+import static dev.c0ps.maven.data.Scope.PROVIDED;
+import static dev.c0ps.maven.data.Scope.RUNTIME;
+import static dev.c0ps.maven.data.Scope.SYSTEM;
+import static dev.c0ps.maven.data.Scope.TEST;
+import static dev.c0ps.maven.resolution.ResolverDepth.TRANSITIVE;
+
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.artifact.versioning.VersionRange;
+
+import dev.c0ps.maven.data.Pom;
+import dev.c0ps.maven.data.Scope;
+import dev.c0ps.maven.resolution.ResolvedRevision;
+import dev.c0ps.maven.resolution.ResolverConfig;
+
+/**
+ * Reverse edges of the dependency graph, from the groupId:artifactId of a
+ * dependency to the package versions that declare it. The index only keeps
+ * coordinates, release dates and the edge attributes that are needed for the
+ * dependents resolution (version constraints, scope, optional), not the poms.
+ * It is maintained incrementally, re-adding a package version only replaces
+ * the edges that changed (every version keeps its own edges, removing one is
+ * constant time), which makes dependents queries index lookups plus checks.
+ *
+ * Dependents are traversed lazily, {@link #traverseDependents} only expands
+ * as many package versions as have been consumed. Every expansion takes the
+ * read lock on its own, so a long running traversal does not block updates
+ * and reflects the index at the time the respective version was expanded.
+ *
+ * Queries apply the same rules as the {@code MavenDependentsResolver}:
+ * <ul>
+ * <li>only package versions that have been released at the resolution time
+ * are considered and of those only the latest version of each
+ * groupId:artifactId, older versions are outdated</li>
+ * <li>the scope of the dependency must be included in the requested scope,
+ * provided dependencies can be included through the config</li>
+ * <li>version constraints follow the Maven syntax: ranges ("[1.0,2.0)") must
+ * contain the version, soft requirements ("1.0") have to match exactly, and
+ * declarations without a version match all versions</li>
+ * <li>transitive dependents are only reached through compile and runtime
+ * dependencies that are not optional (unless optional dependencies are always
+ * included)</li>
+ * </ul>
+ */
+public class ReverseDependencyIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // package versions are referenced by their position in these lists
+    private final List<String> gaOf = new ArrayList<>();
+    private final List<String> versionOf = new ArrayList<>();
+    private final List<Long> releaseDateOf = new ArrayList<>();
+    private final List<Edge[]> edgesOf = new ArrayList<>();
+    // dependencies, managed dependencies and parent, everything the resolution of a version looks at
+    private final List<String[]> referencedGasOf = new ArrayList<>();
+
+    private final Map<String, Integer> idsByGav = new HashMap<>();
+    private final Map<String, List<Integer>> idsByGa = new HashMap<>();
+    private final Map<String, List<Edge>> edgesByGa = new HashMap<>();
+    // interned groupId:artifactId strings, shared by all versions and edges
+    private final Map<String, String> gas = new HashMap<>();
+    private final Map<String, VersionRange> ranges = new ConcurrentHashMap<>();
+
+    private long numEdges = 0;
+
+    public void add(Pom pom) {
+        lock.writeLock().lock();
+        try {
+            var ga = intern(ga(pom.groupId, pom.artifactId));
+            var gav = gav(pom.groupId, pom.artifactId, pom.version);
+            var id = idsByGav.get(gav);
+            if (id == null) {
+                id = gaOf.size();
+                idsByGav.put(gav, id);
+                idsByGa.computeIfAbsent(ga, x -> new ArrayList<>()).add(id);
+                gaOf.add(ga);
+                versionOf.add(pom.version);
+                releaseDateOf.add(pom.releaseDate);
+                edgesOf.add(new Edge[0]);
+                referencedGasOf.add(null);
+            } else {
+                releaseDateOf.set(id, pom.releaseDate);
+            }
+
+            var edges = new ArrayList<Edge>();
+            for (var d : pom.dependencies) {
+                var depGa = intern(ga(d.groupId, d.artifactId));
+                edges.add(new Edge(id, depGa, d.getVersionConstraintsArr(), d.scope, d.optional));
+            }
+            replaceEdges(id, edges);
+            referencedGasOf.set(id, referencedGas(id, pom));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void replaceEdges(int id, List<Edge> edges) {
+        var added = new ArrayList<>(edges);
+        var kept = new ArrayList<Edge>();
+        for (var old : edgesOf.get(id)) {
+            var same = indexOfSame(added, old);
+            if (same == -1) {
+                unlink(old);
+            } else {
+                added.remove(same);
+                kept.add(old);
+            }
+        }
+        for (var e : added) {
+            link(e);
+            kept.add(e);
+        }
+        edgesOf.set(id, kept.toArray(new Edge[0]));
+    }
+
+    private static int indexOfSame(List<Edge> edges, Edge e) {
+        for (var i = 0; i < edges.size(); i++) {
+            if (edges.get(i).isSame(e)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void link(Edge e) {
+        var edges = edgesByGa.computeIfAbsent(e.ga, x -> new ArrayList<>());
+        e.pos = edges.size();
+        edges.add(e);
+        numEdges++;
+    }
+
+    /** swaps the last edge into the position of the removed one */
+    private void unlink(Edge e) {
+        var edges = edgesByGa.get(e.ga);
+        var last = edges.remove(edges.size() - 1);
+        if (last != e) {
+            edges.set(e.pos, last);
+            last.pos = e.pos;
+        }
+        numEdges--;
+        if (edges.isEmpty()) {
+            edgesByGa.remove(e.ga);
+        }
+    }
+
+    private String[] referencedGas(int id, Pom pom) {
+        var out = new LinkedHashSet<String>();
+        for (var e : edgesOf.get(id)) {
+            out.add(e.ga);
+        }
+        for (var d : pom.dependencyManagement) {
+            out.add(intern(ga(d.groupId, d.artifactId)));
+        }
+        if (pom.parentCoordinate != null) {
+            // groupId:artifactId:packaging:version
+            var parts = pom.parentCoordinate.split(":");
+            if (parts.length > 1) {
+                out.add(intern(ga(parts[0], parts[1])));
+            }
+        }
+        return out.toArray(new String[0]);
+    }
+
+    /**
+     * @return all package versions that depend on the coordinate, directly or
+     *         transitively (depending on the config), with the scope of the
+     *         dependency through which they were found first
+     */
+    public Set<ResolvedRevision> resolveDependents(String groupId, String artifactId, String version, ResolverConfig config) {
+        var out = new LinkedHashSet<ResolvedRevision>();
+        traverseDependents(groupId, artifactId, version, config).forEachRemaining(out::add);
+        return out;
+    }
+
+    /**
+     * Same result as {@link #resolveDependents}, in breadth-first order. The
+     * returned iterator is not thread-safe.
+     */
+    public Iterator<ResolvedRevision> traverseDependents(String groupId, String artifactId, String version, ResolverConfig config) {
+        if (config.scope == SYSTEM || config.scope == IMPORT) {
+            throw new IllegalArgumentException(String.format("Invalid resolution scope: %s", config.scope));
+        }
+        return new Traversal(ga(groupId, artifactId), version, config);
+    }
+
+    private void expand(String ga, String version, Traversal t) {
+        lock.readLock().lock();
+        try {
+            collect(ga, version, t);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void expand(int id, Traversal t) {
+        lock.readLock().lock();
+        try {
+            collect(gaOf.get(id), versionOf.get(id), t);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collect(String ga, String version, Traversal t) {
+        var edges = edgesByGa.get(ga);
+        if (edges == null) {
+            return;
+        }
+        var v = new DefaultArtifactVersion(version);
+        var latest = new HashMap<String, Integer>();
+        for (var e : edges) {
+            if (!isIncluded(e.scope, t.config) || !matches(e.constraints, version, v) || !isLatest(e.dependent, t.config.resolveAt, latest)) {
+                continue;
+            }
+            if (t.found.add(e.dependent)) {
+                t.pending.add(revision(e));
+            }
+            if (t.config.depth == TRANSITIVE && isTransitive(e, t.config) && t.expanded.add(e.dependent)) {
+                t.queue.add(e.dependent);
+            }
+        }
+    }
+
+    private ResolvedRevision revision(Edge e) {
+        var ga = gaOf.get(e.dependent);
+        var sep = ga.indexOf(':');
+        var releaseDate = new Timestamp(releaseDateOf.get(e.dependent));
+        // the index has no database ids
+        return new ResolvedRevision(-1, ga.substring(0, sep), ga.substring(sep + 1), versionOf.get(e.dependent), releaseDate, e.scope);
+    }
+
+    private boolean isLatest(int id, long resolveAt, Map<String, Integer> latest) {
+        if (releaseDateOf.get(id) > resolveAt) {
+            return false;
+        }
+        var ga = gaOf.get(id);
+        var latestId = latest.get(ga);
+        if (latestId == null) {
+            latestId = findLatest(ga, resolveAt);
+            latest.put(ga, latestId);
+        }
+        return latestId == id;
+    }
+
+    private int findLatest(String ga, long resolveAt) {
+        var latest = -1;
+        for (var id : idsByGa.get(ga)) {
+            var releaseDate = releaseDateOf.get(id);
+            if (releaseDate <= resolveAt && (latest == -1 || releaseDate > releaseDateOf.get(latest))) {
+                latest = id;
+            }
+        }
+        return latest;
+    }
+
+    private static boolean isIncluded(Scope dep, ResolverConfig config) {
+        if (dep == config.scope || (dep == PROVIDED && config.alwaysIncludeProvided)) {
+            return true;
+        }
+        switch (config.scope) {
+        case COMPILE:
+            return dep == PROVIDED || dep == SYSTEM;
+        case RUNTIME:
+            return dep == COMPILE;
+        case TEST:
+            return dep != IMPORT;
+        default:
+            return false;
+        }
+    }
+
+    private static boolean isTransitive(Edge e, ResolverConfig config) {
+        var isInherited = e.scope == COMPILE || e.scope == RUNTIME;
+        return isInherited && (!e.optional || config.alwaysIncludeOptional);
+    }
+
+    private boolean matches(String[] constraints, String version, DefaultArtifactVersion v) {
+        if (constraints == null || constraints.length == 0) {
+            return true;
+        }
+        for (var c : constraints) {
+            if (isRange(c) ? containsVersion(c, v) : c.equals(version)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean containsVersion(String spec, DefaultArtifactVersion v) {
+        var range = ranges.computeIfAbsent(spec, ReverseDependencyIndex::parse);
+        return range != null && range.containsVersion(v);
+    }
+
+    /**
+     * @return groupId:artifactId of all dependencies (in any scope), managed
+     *         dependencies and the parent that are referenced by the
+     *         groupId:artifactId:version, empty if it is unknown
+     */
+    public Set<String> findReferencedGas(String gav) {
+        lock.readLock().lock();
+        try {
+            var id = idsByGav.get(gav);
+            return id == null ? Set.of() : Set.of(referencedGasOf.get(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int numPackageVersions() {
+        lock.readLock().lock();
+        try {
+            return gaOf.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long numEdges() {
+        lock.readLock().lock();
+        try {
+            return numEdges;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private String intern(String ga) {
+        var existing = gas.putIfAbsent(ga, ga);
+        return existing != null ? existing : ga;
+    }
+
+    private static boolean isRange(String spec) {
+        return spec.startsWith("[") || spec.startsWith("(");
+    }
+
+    private static VersionRange parse(String spec) {
+        try {
+            return VersionRange.createFromVersionSpec(spec);
+        } catch (InvalidVersionSpecificationException e) {
+            // ConcurrentHashMap does not store null, invalid specs are parsed again
+            return null;
+        }
+    }
+
+    private static String ga(String groupId, String artifactId) {
+        return groupId + ":" + artifactId;
+    }
+
+    private static String gav(String groupId, String artifactId, String version) {
+        return groupId + ":" + artifactId + ":" + version;
+    }
+
+    private static class Edge {
+        private final int dependent;
+        // groupId:artifactId of the dependency
+        private final String ga;
+        private final String[] constraints;
+        private final Scope scope;
+        private final boolean optional;
+        // position in the edges of the dependency
+        private int pos;
+
+        Edge(int dependent, String ga, String[] constraints, Scope scope, boolean optional) {
+            this.dependent = dependent;
+            this.ga = ga;
+            this.constraints = constraints;
+            this.scope = scope;
+            this.optional = optional;
+        }
+
+        boolean isSame(Edge other) {
+            return ga.equals(other.ga) && Arrays.equals(constraints, other.constraints) && scope == other.scope && optional == other.optional;
+        }
+    }
+
+    /** lazy breadth-first traversal, package versions are only expanded on demand */
+    private class Traversal implements Iterator<ResolvedRevision> {
+        private final ResolverConfig config;
+        private final ArrayDeque<ResolvedRevision> pending = new ArrayDeque<>();
+        private final ArrayDeque<Integer> queue = new ArrayDeque<>();
+        private final Set<Integer> found = new HashSet<>();
+        private final Set<Integer> expanded = new HashSet<>();
+
+        // ids are stable, so the traversal can continue after concurrent updates
+        Traversal(String ga, String version, ResolverConfig config) {
+            this.config = config;
+            expand(ga, version, this);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (pending.isEmpty() && !queue.isEmpty()) {
+                var id = queue.poll();
+                expand(id, this);
+            }
+            return !pending.isEmpty();
+        }
+
+        @Override
+        public ResolvedRevision next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return pending.poll();
+        }
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph.store;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compact binary snapshot of a record set that can be loaded without parsing
+ * JSON. Records are stored as their Jackson token stream (see
+ * {@link TokenCodec}), all field names and string values are deduplicated in a
+ * dictionary, so loaded records also share
+ * their String instances. The file is memory-mapped for reading.
+ *
+ * Layout: header (magic, version, tag, #strings, #chunks), string dictionary,
+ * chunk table (offset, length, #records, checksum), checksum of dictionary and
+ * table, and the chunks, which contain the length-prefixed token streams of the records.
+ * Chunks can be decoded independently and in parallel. All checksums (CRC32C)
+ * are validated before the first record is decoded, so a corrupted snapshot is
+ * rejected as a whole and the caller can fall back to its primary data.
+ */
+public class BinarySnapshot<T> {
+
+    private static final int MAGIC = 0x46344253; // "F4BS"
+    private static final int FORMAT_VERSION = 3;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long MAX_WINDOW = 1L << 30;
+    private static final int MAX_CHUNK_BYTES = 1 << 28;
+    public static final int DEFAULT_CHUNK_SIZE = 10_000;
+
+    private final File file;
+    private final ObjectMapper om;
+    private final Class<T> type;
+    private final int chunkSize;
+
+    public BinarySnapshot(File file, ObjectMapper om, Class<T> type) {
+        this(file, om, type, DEFAULT_CHUNK_SIZE);
+    }
+
+    public BinarySnapshot(File file, ObjectMapper om, Class<T> type, int chunkSize) {
+        this.file = file;
+        this.om = om;
+        this.type = type;
+        this.chunkSize = chunkSize;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public boolean exists() {
+        return file.exists();
+    }
+
+    /**
+     * Atomically replaces the snapshot with all records that are passed to the
+     * consumer. The tag is stored in the header, e.g., to remember the state
+     * that is covered by this snapshot.
+     */
+    public void write(long tag, Consumer<Consumer<T>> records) {
+        var dict = new StringDictionary();
+        var body = new File(file.getParentFile(), file.getName() + ".body.tmp");
+        var tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try {
+            var chunks = writeBody(body, dict, records);
+            try (var fos = new FileOutputStream(tmp)) {
+                var out = new DataOutputStream(new BufferedOutputStream(fos, BUFFER_SIZE));
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(tag);
+                out.writeInt(dict.size());
+                out.writeInt(chunks.size());
+                var crc = new CRC32C();
+                for (var s : dict.strings()) {
+                    var bytes = s.getBytes(UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                    updateInt(crc, bytes.length);
+                    crc.update(bytes);
+                }
+                for (var c : chunks) {
+                    out.writeLong(c.offset);
+                    out.writeInt(c.length);
+                    out.writeInt(c.numRecords);
+                    out.writeInt(c.checksum);
+                    updateChunk(crc, c);
+                }
+                out.writeInt((int) crc.getValue());
+                Files.copy(body.toPath(), out);
+                out.flush();
+                fos.getChannel().force(true);
+            }
+            Files.move(tmp.toPath(), file.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+        } catch (IOException e) {
+            tmp.delete();
+            throw new RuntimeException(e);
+        } finally {
+            body.delete();
+        }
+    }
+
+    private List<Chunk> writeBody(File body, StringDictionary dict, Consumer<Consumer<T>> records) throws IOException {
+        var chunks = new ArrayList<Chunk>();
+        try (var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(body), BUFFER_SIZE))) {
+            var buf = new GrowingBuffer();
+            var cur = new Chunk[] { new Chunk(0) };
+            var crc = new CRC32C();
+            records.accept(r -> {
+                try {
+                    buf.reset();
+                    TokenCodec.encode(om, r, dict, buf);
+                    out.writeInt(buf.size());
+                    out.write(buf.bytes(), 0, buf.size());
+                    updateInt(crc, buf.size());
+                    crc.update(buf.bytes(), 0, buf.size());
+                    var c = cur[0];
+                    c.length += Integer.BYTES + buf.size();
+                    c.numRecords++;
+                    if (c.numRecords == chunkSize || c.length > MAX_CHUNK_BYTES) {
+                        c.checksum = (int) crc.getValue();
+                        crc.reset();
+                        chunks.add(c);
+                        cur[0] = new Chunk(c.offset + c.length);
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            if (cur[0].numRecords > 0) {
+                cur[0].checksum = (int) crc.getValue();
+                chunks.add(cur[0]);
+            }
+        }
+        return chunks;
+    }
+
+    /** reads all records on the current thread, see {@link #read(int, Consumer)} */
+    public long read(Consumer<T> consumer) {
+        return read(1, chunk -> chunk.forEach(consumer));
+    }
+
+    /**
+     * Decodes the chunks of the snapshot in parallel. The consumer receives the
+     * records of one chunk at a time, calls are never concurrent, but the order
+     * of the chunks is undefined if parallelism is larger than 1. Snapshots with
+     * an invalid checksum are rejected with an {@link IllegalStateException}
+     * before any record is passed to the consumer.
+     *
+     * @return tag of the snapshot, see {@link #write(long, Consumer)}
+     */
+    public long read(int parallelism, Consumer<List<T>> chunkConsumer) {
+        return read(parallelism, UnaryOperator.identity(), chunkConsumer);
+    }
+
+    /**
+     * Like {@link #read(int, Consumer)}, but every record is passed through
+     * prepare on the decoding threads (concurrently) before it is handed over,
+     * which moves per-record work out of the sequential consumer.
+     */
+    public long read(int parallelism, UnaryOperator<T> prepare, Consumer<List<T>> chunkConsumer) {
+        try (var ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            var in = new MappedInput(ch);
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported snapshot format: " + file);
+            }
+            var tag = in.readLong();
+            var strings = new String[in.readInt()];
+            var chunks = new Chunk[in.readInt()];
+            var crc = new CRC32C();
+            for (var i = 0; i < strings.length; i++) {
+                var len = in.readInt();
+                var bytes = in.read(len);
+                updateInt(crc, len);
+                crc.update(bytes);
+                strings[i] = new String(bytes, UTF_8);
+            }
+            for (var i = 0; i < chunks.length; i++) {
+                chunks[i] = new Chunk(in.readLong());
+                chunks[i].length = in.readInt();
+                chunks[i].numRecords = in.readInt();
+                chunks[i].checksum = in.readInt();
+                updateChunk(crc, chunks[i]);
+            }
+            if (in.readInt() != (int) crc.getValue()) {
+                throw new IllegalStateException("Corrupted string dictionary or chunk table in snapshot: " + file);
+            }
+            var bodyStart = in.position();
+
+            var checks = new ArrayList<Callable<Void>>();
+            for (var i = 0; i < chunks.length; i++) {
+                var idx = i;
+                checks.add(() -> {
+                    var c = chunks[idx];
+                    var chunkCrc = new CRC32C();
+                    chunkCrc.update(ch.map(MapMode.READ_ONLY, bodyStart + c.offset, c.length));
+                    if ((int) chunkCrc.getValue() != c.checksum) {
+                        throw new IllegalStateException("Corrupted chunk " + idx + " in snapshot: " + file);
+                    }
+                    return null;
+                });
+            }
+            runAll(parallelism, checks);
+
+            var tasks = new ArrayList<Callable<Void>>();
+            for (var c : chunks) {
+                tasks.add(() -> {
+                    var records = decodeChunk(ch.map(MapMode.READ_ONLY, bodyStart + c.offset, c.length), c.numRecords, strings, prepare);
+                    synchronized (chunkConsumer) {
+                        chunkConsumer.accept(records);
+                    }
+                    return null;
+                });
+            }
+            runAll(parallelism, tasks);
+            return tag;
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot read snapshot " + file, e);
+        }
+    }
+
+    private List<T> decodeChunk(ByteBuffer buf, int numRecords, String[] strings, UnaryOperator<T> prepare) throws IOException {
+        var records = new ArrayList<T>(numRecords);
+        for (var i = 0; i < numRecords; i++) {
+            var len = buf.getInt();
+            var record = buf.slice();
+            record.limit(len);
+            buf.position(buf.position() + len);
+            records.add(prepare.apply(TokenCodec.decode(om, record, id -> strings[id], type)));
+        }
+        return records;
+    }
+
+    private static void updateChunk(Checksum crc, Chunk c) {
+        updateInt(crc, (int) (c.offset >>> 32));
+        updateInt(crc, (int) c.offset);
+        updateInt(crc, c.length);
+        updateInt(crc, c.numRecords);
+        updateInt(crc, c.checksum);
+    }
+
+    private static void updateInt(Checksum crc, int i) {
+        crc.update(i >>> 24);
+        crc.update(i >>> 16);
+        crc.update(i >>> 8);
+        crc.update(i);
+    }
+
+    private static void runAll(int parallelism, List<Callable<Void>> tasks) {
+        if (parallelism <= 1) {
+            for (var t : tasks) {
+                call(t);
+            }
+            return;
+        }
+        var pool = new ForkJoinPool(parallelism);
+        try {
+            for (var f : pool.invokeAll(tasks)) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void call(Callable<Void> task) {
+        try {
+            task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class Chunk {
+        private final long offset;
+        private int length;
+        private int numRecords;
+        private int checksum;
+
+        Chunk(long offset) {
+            this.offset = offset;
+        }
+    }
+
+    /** sequential reader that maps the file in windows, as single mappings are limited to 2GB */
+    private static class MappedInput {
+        private final FileChannel ch;
+        private final long size;
+        private long windowStart = 0;
+        private MappedByteBuffer window;
+
+        MappedInput(FileChannel ch) throws IOException {
+            this.ch = ch;
+            this.size = ch.size();
+            map(0);
+        }
+
+        public int readInt() throws IOException {
+            return ensure(Integer.BYTES).getInt();
+        }
+
+        public long readLong() throws IOException {
+            return ensure(Long.BYTES).getLong();
+        }
+
+        public byte[] read(int len) throws IOException {
+            var bytes = new byte[len];
+            ensure(len).get(bytes);
+            return bytes;
+        }
+
+        public long position() {
+            return windowStart + window.position();
+        }
+
+        private ByteBuffer ensure(int len) throws IOException {
+            if (window.remaining() < len) {
+                map(windowStart + window.position());
+            }
+            if (window.remaining() < len) {
+                throw new IOException("Unexpected end of snapshot");
+            }
+            return window;
+        }
+
+        private void map(long pos) throws IOException {
+            windowStart = pos;
+            window = ch.map(MapMode.READ_ONLY, pos, Math.min(MAX_WINDOW, size - pos));
+        }
+    }
+}
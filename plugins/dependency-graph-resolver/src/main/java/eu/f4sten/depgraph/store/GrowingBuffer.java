@@ -0,0 +1,69 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph.store;
+
+import java.util.Arrays;
+
+/** append-only byte buffer that can be reused */
+class GrowingBuffer {
+
+    private byte[] bytes = new byte[1024];
+    private int size = 0;
+
+    public void reset() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** the backing array, only the first {@link #size()} bytes are valid */
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    public void put(byte b) {
+        ensureCapacity(1);
+        bytes[size++] = b;
+    }
+
+    public void putVarInt(int value) {
+        var v = value;
+        while ((v & ~0x7F) != 0) {
+            put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        put((byte) v);
+    }
+
+    public void putLong(long value) {
+        ensureCapacity(Long.BYTES);
+        for (var i = Long.BYTES - 1; i >= 0; i--) {
+            bytes[size++] = (byte) (value >>> (i * 8));
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (size + n > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + n));
+        }
+    }
+}
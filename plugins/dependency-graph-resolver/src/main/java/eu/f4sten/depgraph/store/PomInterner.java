@@ -0,0 +1,71 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph.store;
+
+import java.util.ArrayList;
+import java.util.Set;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import dev.c0ps.maven.data.Dependency;
+import dev.c0ps.maven.data.Pom;
+
+/**
+ * Canonicalizes the poms that are registered with the resolver data, which
+ * has to keep them as objects. Equal strings (coordinates, versions,
+ * packaging, parents, repositories) and equal dependency declarations of
+ * different poms become references to one shared instance, so every distinct
+ * value is only kept once on the heap. The interner does not keep the poms.
+ *
+ * Canonical instances are only weakly referenced, values of poms that have
+ * been superseded and removed from the resolver data are garbage collected
+ * like the poms themselves. Thread-safe, so poms can be interned while they
+ * are decoded in parallel.
+ */
+public class PomInterner {
+
+    private final Interner<String> strings = Interners.newWeakInterner();
+    private final Interner<Dependency> dependencies = Interners.newWeakInterner();
+
+    /** @return an equal pom that only references canonical strings and dependencies */
+    public Pom intern(Pom pom) {
+        var pb = pom.clone();
+        pb.groupId = string(pb.groupId);
+        pb.artifactId = string(pb.artifactId);
+        pb.version = string(pb.version);
+        pb.packagingType = string(pb.packagingType);
+        pb.parentCoordinate = string(pb.parentCoordinate);
+        pb.artifactRepository = string(pb.artifactRepository);
+        canonicalize(pb.dependencies);
+        canonicalize(pb.dependencyManagement);
+        return pb.pom();
+    }
+
+    private String string(String s) {
+        return s == null ? null : strings.intern(s);
+    }
+
+    private void canonicalize(Set<Dependency> deps) {
+        var canonical = new ArrayList<Dependency>(deps.size());
+        for (var d : deps) {
+            canonical.add(dependencies.intern(d));
+        }
+        // keeps the declaration order
+        deps.clear();
+        deps.addAll(canonical);
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph.store;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only log of keyed records, stored as a sequence of immutable segment
+ * files. Each segment consists of a header and a list of frames (key length,
+ * payload length, CRC32 of key and payload, key, payload). Segments are
+ * written to a temporary file, synced, and atomically renamed, so a segment
+ * is either complete or absent. Later records replace earlier records with
+ * the same key. {@link #compact()} merges all existing segments into one and
+ * drops superseded records.
+ */
+public class SegmentLog<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SegmentLog.class);
+
+    private static final int MAGIC = 0x46345347; // "F4SG"
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-([0-9]+)\\.log");
+
+    private final File dir;
+    private final Function<T, String> keyFn;
+    private final Function<T, String> encoder;
+    private final Function<String, T> decoder;
+
+    private final AtomicLong nextId;
+    private final Object compactionLock = new Object();
+
+    public SegmentLog(File dir, Function<T, String> keyFn, Function<T, String> encoder, Function<String, T> decoder) {
+        this.dir = dir;
+        this.keyFn = keyFn;
+        this.encoder = encoder;
+        this.decoder = decoder;
+        dir.mkdirs();
+        deleteLeftOverTmpFiles();
+        var ids = segmentIds();
+        nextId = new AtomicLong(ids.isEmpty() ? 0 : ids.get(ids.size() - 1) + 1);
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    public boolean isEmpty() {
+        return segmentIds().isEmpty();
+    }
+
+    public int numSegments() {
+        return segmentIds().size();
+    }
+
+    /** stores all records in a new segment, which is durable once this method returns */
+    public void append(Collection<T> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        var id = nextId.getAndIncrement();
+        writeSegment(id, out -> {
+            for (var r : records) {
+                writeFrame(out, keyFn.apply(r), encoder.apply(r).getBytes(UTF_8));
+            }
+        });
+    }
+
+    /** id of the newest segment, or -1 if the log is empty */
+    public long lastSegmentId() {
+        var ids = segmentIds();
+        return ids.isEmpty() ? -1 : ids.get(ids.size() - 1);
+    }
+
+    /** calls the consumer for the latest record of every key, in the order in which they were appended */
+    public void forEachLatest(Consumer<T> consumer) {
+        forEachLatest(0, Long.MAX_VALUE, consumer);
+    }
+
+    /** same as {@link #forEachLatest(Consumer)}, but only considers segments in the given (inclusive) id range */
+    public void forEachLatest(long minId, long maxId, Consumer<T> consumer) {
+        var ids = segmentIds();
+        ids.removeIf(id -> id < minId || id > maxId);
+        var latest = indexLatest(ids);
+        for (var i = 0; i < ids.size(); i++) {
+            var segIdx = i;
+            readSegment(ids.get(i), (frameIdx, key, payload) -> {
+                if (isLatest(latest, key, segIdx, frameIdx)) {
+                    consumer.accept(decoder.apply(new String(payload, UTF_8)));
+                }
+            });
+        }
+    }
+
+    /**
+     * Merges all segments that exist when the method is called into a single
+     * segment. Safe to run concurrently to {@link #append(Collection)}, new
+     * segments will just not be included. A crash leaves either the old
+     * segments or the merged segment (plus already merged old segments, which
+     * are superseded by the merged segment).
+     *
+     * @return id of the merged segment, or -1 if the log is empty
+     */
+    public long compact() {
+        synchronized (compactionLock) {
+            var ids = segmentIds();
+            if (ids.size() < 2) {
+                return ids.isEmpty() ? -1 : ids.get(0);
+            }
+            var latest = indexLatest(ids);
+            var targetId = ids.get(ids.size() - 1);
+            writeSegment(targetId, out -> {
+                for (var i = 0; i < ids.size(); i++) {
+                    var segIdx = i;
+                    readSegment(ids.get(i), (frameIdx, key, payload) -> {
+                        if (isLatest(latest, key, segIdx, frameIdx)) {
+                            writeFrame(out, key, payload);
+                        }
+                    });
+                }
+            });
+            for (var id : ids.subList(0, ids.size() - 1)) {
+                segmentFile(id).delete();
+            }
+            LOG.info("Compacted {} segments into {} ({} records)", ids.size(), segmentFile(targetId).getName(), latest.size());
+            return targetId;
+        }
+    }
+
+    private Map<String, Long> indexLatest(List<Long> ids) {
+        var latest = new HashMap<String, Long>();
+        for (var i = 0; i < ids.size(); i++) {
+            var segIdx = i;
+            readSegment(ids.get(i), (frameIdx, key, payload) -> {
+                latest.put(key, position(segIdx, frameIdx));
+            });
+        }
+        return latest;
+    }
+
+    private static boolean isLatest(Map<String, Long> latest, String key, int segIdx, int frameIdx) {
+        return latest.get(key) == position(segIdx, frameIdx);
+    }
+
+    private static long position(int segIdx, int frameIdx) {
+        return ((long) segIdx << 32) | frameIdx;
+    }
+
+    private void writeSegment(long id, FrameWriter frames) {
+        var target = segmentFile(id);
+        var tmp = new File(dir, target.getName() + ".tmp");
+        try (var fos = new FileOutputStream(tmp)) {
+            var out = new DataOutputStream(new BufferedOutputStream(fos, BUFFER_SIZE));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            frames.write(out);
+            out.flush();
+            fos.getChannel().force(true);
+        } catch (IOException e) {
+            tmp.delete();
+            throw new RuntimeException(e);
+        }
+        try {
+            Files.move(tmp.toPath(), target.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+            syncDir();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void writeFrame(DataOutputStream out, String key, byte[] payload) throws IOException {
+        var keyBytes = key.getBytes(UTF_8);
+        out.writeInt(keyBytes.length);
+        out.writeInt(payload.length);
+        out.writeLong(crc(keyBytes, payload));
+        out.write(keyBytes);
+        out.write(payload);
+    }
+
+    private void readSegment(long id, FrameReader reader) {
+        var f = segmentFile(id);
+        try (var in = new DataInputStream(new BufferedInputStream(new FileInputStream(f), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported segment format: " + f);
+            }
+            var frameIdx = 0;
+            while (true) {
+                int keyLen;
+                try {
+                    keyLen = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                var payloadLen = in.readInt();
+                var crc = in.readLong();
+                var key = new byte[keyLen];
+                var payload = new byte[payloadLen];
+                in.readFully(key);
+                in.readFully(payload);
+                if (crc(key, payload) != crc) {
+                    throw new IllegalStateException(String.format("Checksum mismatch in frame %d of %s", frameIdx, f));
+                }
+                reader.read(frameIdx++, new String(key, UTF_8), payload);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot read segment " + f, e);
+        }
+    }
+
+    private static long crc(byte[] key, byte[] payload) {
+        var crc = new CRC32();
+        crc.update(key);
+        crc.update(payload);
+        return crc.getValue();
+    }
+
+    private List<Long> segmentIds() {
+        var ids = new ArrayList<Long>();
+        var names = dir.list();
+        if (names != null) {
+            for (var name : names) {
+                var m = SEGMENT_NAME.matcher(name);
+                if (m.matches()) {
+                    ids.add(Long.parseLong(m.group(1)));
+                }
+            }
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private File segmentFile(long id) {
+        return new File(dir, String.format("segment-%012d.log", id));
+    }
+
+    private void deleteLeftOverTmpFiles() {
+        var tmps = dir.listFiles((d, name) -> name.endsWith(".tmp"));
+        if (tmps != null) {
+            for (var tmp : tmps) {
+                LOG.info("Deleting incomplete segment {}", tmp);
+                tmp.delete();
+            }
+        }
+    }
+
+    private void syncDir() {
+        // makes the rename durable, not supported on all platforms
+        try (var ch = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException e) {
+            LOG.debug("Cannot sync directory {}", dir, e);
+        }
+    }
+
+    private interface FrameWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private interface FrameReader {
+        void read(int frameIdx, String key, byte[] payload) throws IOException;
+    }
+}
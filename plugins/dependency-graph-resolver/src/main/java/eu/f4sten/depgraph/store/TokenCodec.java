@@ -0,0 +1,192 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.function.IntFunction;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * Binary encoding of the Jackson token stream of a value. Field names and
+ * strings are replaced by (varint) ids of a {@link StringDictionary}, numbers
+ * are stored as 8-byte values.
+ */
+final class TokenCodec {
+
+    private static final byte OBJ_START = 1;
+    private static final byte OBJ_END = 2;
+    private static final byte ARR_START = 3;
+    private static final byte ARR_END = 4;
+    private static final byte NAME = 5;
+    private static final byte STR = 6;
+    private static final byte INT = 7;
+    private static final byte FLOAT = 8;
+    private static final byte TRUE = 9;
+    private static final byte FALSE = 10;
+    private static final byte NULL = 11;
+
+    private TokenCodec() {
+        // do not instantiate
+    }
+
+    /** appends the encoded token stream of the value to the buffer */
+    public static void encode(ObjectMapper om, Object value, StringDictionary dict, GrowingBuffer out) {
+        try {
+            var tb = new TokenBuffer(om, false);
+            om.writeValue(tb, value);
+            try (var p = tb.asParser()) {
+                encodeTokens(p, dict, out);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** decodes a value from all remaining bytes in the buffer */
+    public static <T> T decode(ObjectMapper om, ByteBuffer in, IntFunction<String> strings, Class<T> type) {
+        try {
+            var tb = new TokenBuffer(om, false);
+            decodeTokens(in, strings, tb);
+            try (var p = tb.asParser()) {
+                return om.readValue(p, type);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void encodeTokens(JsonParser p, StringDictionary dict, GrowingBuffer out) throws IOException {
+        JsonToken t;
+        while ((t = p.nextToken()) != null) {
+            switch (t) {
+            case START_OBJECT:
+                out.put(OBJ_START);
+                break;
+            case END_OBJECT:
+                out.put(OBJ_END);
+                break;
+            case START_ARRAY:
+                out.put(ARR_START);
+                break;
+            case END_ARRAY:
+                out.put(ARR_END);
+                break;
+            case FIELD_NAME:
+                out.put(NAME);
+                out.putVarInt(dict.id(p.getCurrentName()));
+                break;
+            default:
+                encodeScalar(t, p, dict, out);
+            }
+        }
+    }
+
+    private static void encodeScalar(JsonToken t, JsonParser p, StringDictionary dict, GrowingBuffer out) throws IOException {
+        switch (t) {
+        case VALUE_STRING:
+            out.put(STR);
+            out.putVarInt(dict.id(p.getText()));
+            break;
+        case VALUE_NUMBER_INT:
+            out.put(INT);
+            out.putLong(p.getLongValue());
+            break;
+        case VALUE_NUMBER_FLOAT:
+            out.put(FLOAT);
+            out.putLong(Double.doubleToRawLongBits(p.getDoubleValue()));
+            break;
+        case VALUE_TRUE:
+            out.put(TRUE);
+            break;
+        case VALUE_FALSE:
+            out.put(FALSE);
+            break;
+        case VALUE_NULL:
+            out.put(NULL);
+            break;
+        default:
+            throw new IllegalStateException("Unsupported token: " + t);
+        }
+    }
+
+    private static void decodeTokens(ByteBuffer in, IntFunction<String> strings, JsonGenerator g) throws IOException {
+        while (in.hasRemaining()) {
+            var code = in.get();
+            switch (code) {
+            case OBJ_START:
+                g.writeStartObject();
+                break;
+            case OBJ_END:
+                g.writeEndObject();
+                break;
+            case ARR_START:
+                g.writeStartArray();
+                break;
+            case ARR_END:
+                g.writeEndArray();
+                break;
+            case NAME:
+                g.writeFieldName(strings.apply(getVarInt(in)));
+                break;
+            default:
+                decodeScalar(code, in, strings, g);
+            }
+        }
+    }
+
+    private static void decodeScalar(byte code, ByteBuffer in, IntFunction<String> strings, JsonGenerator g) throws IOException {
+        switch (code) {
+        case STR:
+            g.writeString(strings.apply(getVarInt(in)));
+            break;
+        case INT:
+            g.writeNumber(in.getLong());
+            break;
+        case FLOAT:
+            g.writeNumber(Double.longBitsToDouble(in.getLong()));
+            break;
+        case TRUE:
+            g.writeBoolean(true);
+            break;
+        case FALSE:
+            g.writeBoolean(false);
+            break;
+        case NULL:
+            g.writeNull();
+            break;
+        default:
+            throw new IllegalStateException("Unsupported token code: " + code);
+        }
+    }
+
+    private static int getVarInt(ByteBuffer in) {
+        var value = 0;
+        var shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2021 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph.stream;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+import dev.c0ps.maven.resolution.ResolvedRevision;
+
+/**
+ * Open cursors of paginated streams, each one is the remaining part of a
+ * result that is still being produced (e.g., a running traversal), so the
+ * next page continues where the previous one stopped. The number of cursors is
+ * bounded (least recently used cursors are dropped first) and cursors that
+ * have not been used within the timeout expire.
+ *
+ * A cursor is taken out while a page is written and put back afterwards, it
+ * can only be used by one request at a time.
+ */
+public class Cursors {
+
+    private final int maxCursors;
+    private final long timeoutMS;
+    private final LongSupplier clock;
+
+    private final LinkedHashMap<String, Cursor> cursors = new LinkedHashMap<>(16, 0.75f, true);
+
+    public Cursors(int maxCursors, long timeoutMS) {
+        this(maxCursors, timeoutMS, System::currentTimeMillis);
+    }
+
+    Cursors(int maxCursors, long timeoutMS, LongSupplier clock) {
+        this.maxCursors = maxCursors;
+        this.timeoutMS = timeoutMS;
+        this.clock = clock;
+    }
+
+    public String newId() {
+        return UUID.randomUUID().toString();
+    }
+
+    public synchronized void put(String id, Iterator<ResolvedRevision> remaining) {
+        removeExpired();
+        cursors.put(id, new Cursor(remaining, clock.getAsLong()));
+        var it = cursors.values().iterator();
+        while (cursors.size() > maxCursors) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /** @return the remaining revisions or null if the cursor is unknown or expired */
+    public synchronized Iterator<ResolvedRevision> take(String id) {
+        removeExpired();
+        var c = cursors.remove(id);
+        return c == null ? null : c.remaining;
+    }
+
+    public synchronized int size() {
+        removeExpired();
+        return cursors.size();
+    }
+
+    private void removeExpired() {
+        var now = clock.getAsLong();
+        // access order, the least recently used cursors come first
+        var it = cursors.values().iterator();
+        while (it.hasNext() && now - it.next().lastUse > timeoutMS) {
+            it.remove();
+        }
+    }
+
+    private static class Cursor {
+        private final Iterator<ResolvedRevision> remaining;
+        private final long lastUse;
+
+        Cursor(Iterator<ResolvedRevision> remaining, long lastUse) {
+            this.remaining = remaining;
+            this.lastUse = lastUse;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph.stream;
+
+import static jakarta.ws.rs.core.Response.Status.GONE;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import dev.c0ps.maven.data.Scope;
+import dev.c0ps.maven.resolution.IMavenResolver;
+import dev.c0ps.maven.resolution.ResolvedRevision;
+import dev.c0ps.maven.resolution.ResolverDepth;
+import eu.f4sten.depgraph.ResolverConfigUtils;
+import eu.f4sten.depgraph.index.ReverseDependencyIndex;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+
+/**
+ * Variant of the resolution endpoints that streams the result as
+ * newline-delimited JSON (one revision per line) instead of one large array.
+ * Every revision is written as soon as it is produced: dependents come from a
+ * lazy traversal of the {@link ReverseDependencyIndex}, so the first lines are
+ * sent before the traversal has finished. The dependency resolver only returns
+ * complete results, these are taken from the (shared) cache and written one
+ * by one.
+ *
+ * Results can be paginated through {@code limit}, a page then stops after
+ * {@code limit} revisions and the {@value #NEXT_CURSOR} header contains a
+ * cursor that continues the same resolution, results are not resolved again
+ * for the next page. The header is absent if the result is exhausted, a page
+ * with less than {@code limit} revisions is always the last one. Unknown or
+ * expired cursors are rejected with 410 (Gone). Without a limit, the whole
+ * result is streamed.
+ *
+ * The query parameters of the resolver config are the same as for the regular
+ * endpoints.
+ */
+@Path("/depgraph/stream")
+@Produces(StreamingResolutionService.NDJSON)
+public class StreamingResolutionService {
+
+    public static final String NDJSON = "application/x-ndjson";
+    public static final String NEXT_CURSOR = "X-Next-Cursor";
+
+    private static final int FLUSH_INTERVAL = 1000;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final IMavenResolver resolver;
+    private final ReverseDependencyIndex index;
+    private final Cursors cursors;
+    private final ObjectWriter writer;
+
+    @Inject
+    public StreamingResolutionService(IMavenResolver resolver, ReverseDependencyIndex index, Cursors cursors, ObjectMapper om) {
+        this.resolver = resolver;
+        this.index = index;
+        this.cursors = cursors;
+        this.writer = om.writerFor(ResolvedRevision.class);
+    }
+
+    @GET
+    @Path("/dependencies/{groupId}/{artifactId}/{version}")
+    public Response resolveDependencies(@PathParam("groupId") String g, @PathParam("artifactId") String a, @PathParam("version") String v,
+            @QueryParam("resolveAt") Long resolveAt, @QueryParam("depth") ResolverDepth depth, @QueryParam("scope") Scope scope,
+            @QueryParam("alwaysIncludeProvided") Boolean alwaysIncludeProvided, @QueryParam("alwaysIncludeOptional") Boolean alwaysIncludeOptional,
+            @QueryParam("cursor") String cursor, @QueryParam("limit") @DefaultValue("0") int limit) {
+        var config = ResolverConfigUtils.config(resolveAt, depth, scope, alwaysIncludeProvided, alwaysIncludeOptional);
+        return stream(() -> resolver.resolveDependencies(List.of(g + ":" + a + ":" + v), config).iterator(), cursor, limit);
+    }
+
+    @GET
+    @Path("/dependents/{groupId}/{artifactId}/{version}")
+    public Response resolveDependents(@PathParam("groupId") String g, @PathParam("artifactId") String a, @PathParam("version") String v,
+            @QueryParam("resolveAt") Long resolveAt, @QueryParam("depth") ResolverDepth depth, @QueryParam("scope") Scope scope,
+            @QueryParam("alwaysIncludeProvided") Boolean alwaysIncludeProvided, @QueryParam("alwaysIncludeOptional") Boolean alwaysIncludeOptional,
+            @QueryParam("cursor") String cursor, @QueryParam("limit") @DefaultValue("0") int limit) {
+        var config = ResolverConfigUtils.config(resolveAt, depth, scope, alwaysIncludeProvided, alwaysIncludeOptional);
+        return stream(() -> index.traverseDependents(g, a, v, config), cursor, limit);
+    }
+
+    private Response stream(Supplier<Iterator<ResolvedRevision>> resolution, String cursor, int limit) {
+        var revisions = cursor == null ? start(resolution) : cursors.take(cursor);
+        if (revisions == null) {
+            throw new ClientErrorException("Unknown or expired cursor", GONE);
+        }
+        var isPaginated = limit > 0;
+        // finds the first revision, a traversal only continues once the body is written
+        var hasNext = revisions.hasNext();
+        var next = isPaginated && hasNext ? (cursor == null ? cursors.newId() : cursor) : null;
+
+        StreamingOutput body = out -> {
+            write(revisions, limit, out);
+            if (next != null) {
+                cursors.put(next, revisions);
+            }
+        };
+        var res = Response.ok(body, NDJSON);
+        if (next != null) {
+            res.header(NEXT_CURSOR, next);
+        }
+        return res.build();
+    }
+
+    private static Iterator<ResolvedRevision> start(Supplier<Iterator<ResolvedRevision>> resolution) {
+        try {
+            return resolution.get();
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
+    /**
+     * serializes one revision at a time, so only a single line is buffered
+     *
+     * @param limit maximum number of revisions, non-positive values write all
+     */
+    public void write(Iterator<ResolvedRevision> revisions, int limit, OutputStream os) throws IOException {
+        var out = new BufferedOutputStream(os, BUFFER_SIZE);
+        var i = 0;
+        while ((limit <= 0 || i < limit) && revisions.hasNext()) {
+            out.write(writer.writeValueAsBytes(revisions.next()));
+            out.write('\n');
+            if (++i % FLUSH_INTERVAL == 0) {
+                // make the first results available early
+                out.flush();
+            }
+        }
+        out.flush();
+    }
+}
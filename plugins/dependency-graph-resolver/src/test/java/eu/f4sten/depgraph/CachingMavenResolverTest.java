@@ -0,0 +1,326 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.c0ps.maven.data.Dependency;
+import dev.c0ps.maven.data.Pom;
+import dev.c0ps.maven.data.PomBuilder;
+import dev.c0ps.maven.resolution.IMavenResolver;
+import dev.c0ps.maven.resolution.ResolvedRevision;
+import dev.c0ps.maven.resolution.ResolverConfig;
+import eu.f4sten.depgraph.index.ReverseDependencyIndex;
+import eu.f4sten.infra.metrics.Counter;
+import eu.f4sten.infra.metrics.Metrics;
+
+public class CachingMavenResolverTest {
+
+    private static final long T = 1000;
+
+    private IMavenResolver resolver;
+    private ReverseDependencyIndex index;
+    private Map<String, TestCounter> counters;
+    private Metrics metrics;
+    private CachingMavenResolver sut;
+
+    @BeforeEach
+    public void setup() {
+        resolver = mock(IMavenResolver.class);
+        when(resolver.resolveDependencies(any(), any())).thenAnswer(i -> revisions(2));
+        counters = new HashMap<>();
+        metrics = mock(Metrics.class);
+        when(metrics.counter(anyString(), anyString())).thenAnswer(i -> {
+            return counters.computeIfAbsent(i.getArgument(0), n -> new TestCounter());
+        });
+        index = new ReverseDependencyIndex();
+        sut = new CachingMavenResolver(resolver, index, 100, metrics);
+        // known poms, which also define the latest release date
+        register(pom("g", "a"));
+        register(pom("g", "b"));
+    }
+
+    @Test
+    public void resultsAreCached() {
+        var a = sut.resolveDependencies(List.of("g:a:1"), config(T));
+        var b = sut.resolveDependencies(List.of("g:a:1"), config(T));
+        assertSame(a, b);
+        verify(resolver, times(1)).resolveDependencies(any(), any());
+        assertEquals(1, sut.size());
+        assertEquals(3, sut.weight());
+        assertEquals(1, count(CachingMavenResolver.HITS));
+        assertEquals(1, count(CachingMavenResolver.MISSES));
+    }
+
+    @Test
+    public void coordinateOrderDoesNotMatter() {
+        sut.resolveDependencies(List.of("g:a:1", "g:b:1"), config(T));
+        sut.resolveDependencies(List.of("g:b:1", "g:a:1"), config(T));
+        verify(resolver, times(1)).resolveDependencies(any(), any());
+    }
+
+    @Test
+    public void configIsPartOfTheKey() {
+        var optional = config(T);
+        optional.alwaysIncludeOptional = true;
+        sut.resolveDependencies(List.of("g:a:1"), config(T));
+        sut.resolveDependencies(List.of("g:a:1"), optional);
+        sut.resolveDependencies(List.of("g:a:1"), optional);
+        verify(resolver, times(2)).resolveDependencies(any(), any());
+    }
+
+    @Test
+    public void changingTheConfigAfterwardsDoesNotChangeTheKey() {
+        var config = config(T);
+        sut.resolveDependencies(List.of("g:a:1"), config);
+        config.alwaysIncludeOptional = true;
+        sut.resolveDependencies(List.of("g:a:1"), config(T));
+        verify(resolver, times(1)).resolveDependencies(any(), any());
+    }
+
+    @Test
+    public void resolveAtBeforeLatestReleaseIsPartOfTheKey() {
+        sut.resolveDependencies(List.of("g:a:1"), config(T - 3));
+        sut.resolveDependencies(List.of("g:a:1"), config(T - 2));
+        sut.resolveDependencies(List.of("g:a:1"), config(T - 2));
+        verify(resolver, times(2)).resolveDependencies(any(), any());
+    }
+
+    @Test
+    public void resolveAtAfterLatestReleaseIsNormalized() {
+        sut.resolveDependencies(List.of("g:a:1"), config(T));
+        sut.resolveDependencies(List.of("g:a:1"), config(T + 1));
+        sut.resolveDependencies(List.of("g:a:1"), new ResolverConfig());
+        verify(resolver, times(1)).resolveDependencies(any(), any());
+    }
+
+    @Test
+    public void newerReleaseEndsNormalization() {
+        sut.resolveDependencies(List.of("g:a:1"), config(T));
+        var pb = builder("g", "b");
+        pb.releaseDate = T + 1;
+        register(pb.pom());
+        sut.resolveDependencies(List.of("g:a:1"), config(T));
+        verify(resolver, times(2)).resolveDependencies(any(), any());
+    }
+
+    @Test
+    public void kindIsPartOfTheKey() {
+        var dependencies = sut.resolveDependencies(List.of("g:a:1"), config(T));
+        var dependents = sut.resolveDependents("g", "a", "1", config(T));
+        assertNotSame(dependencies, dependents);
+        verify(resolver, times(1)).resolveDependencies(any(), any());
+        assertEquals(2, sut.size());
+    }
+
+    @Test
+    public void newVersionOfRootInvalidatesDependencies() {
+        sut.resolveDependencies(List.of("g:a:1"), config(T));
+        sut.resolveDependencies(List.of("g:b:1"), config(T));
+        register(pom("g", "a"));
+        assertEquals(1, sut.size());
+        sut.resolveDependencies(List.of("g:a:1"), config(T));
+        verify(resolver, times(3)).resolveDependencies(any(), any());
+        assertEquals(1, count(CachingMavenResolver.INVALIDATIONS));
+    }
+
+    @Test
+    public void dependentsAreResolvedThroughTheIndex() {
+        register(pom("g", "c", "g:a"));
+        var a = sut.resolveDependents("g", "a", "1", config(T));
+        var b = sut.resolveDependents("g", "a", "1", config(T));
+        assertSame(a, b);
+        assertEquals(1, a.size());
+        assertEquals("c", a.iterator().next().artifactId);
+        verify(resolver, never()).resolveDependents(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    public void newDependentInvalidatesDependents() {
+        sut.resolveDependents("g", "a", "1", config(T));
+        sut.resolveDependents("g", "b", "1", config(T));
+        register(pom("g", "c", "g:a"));
+        assertEquals(1, sut.size());
+        sut.resolveDependents("g", "b", "1", config(T));
+        assertEquals(1, count(CachingMavenResolver.HITS));
+        assertEquals(1, sut.resolveDependents("g", "a", "1", config(T)).size());
+    }
+
+    @Test
+    public void newVersionOfDeclaredDependencyInvalidatesDependencies() {
+        register(pom("g", "c", "g:b"));
+        // the mocked result does not contain g:b, e.g., because it was not resolvable
+        sut.resolveDependencies(List.of("g:c:1"), config(T));
+        sut.resolveDependencies(List.of("g:a:1"), config(T));
+        register(pom("g", "b"));
+        assertEquals(1, sut.size());
+        sut.resolveDependencies(List.of("g:c:1"), config(T));
+        verify(resolver, times(3)).resolveDependencies(any(), any());
+    }
+
+    @Test
+    public void resultsAreImmutable() {
+        var a = sut.resolveDependencies(List.of("g:a:1"), config(T));
+        assertThrows(UnsupportedOperationException.class, () -> {
+            a.clear();
+        });
+    }
+
+    @Test
+    public void unrelatedPomsDoNotInvalidateDependents() {
+        sut.resolveDependents("g", "a", "1", config(T));
+        register(pom("g", "b", "x:y"));
+        assertEquals(1, sut.size());
+    }
+
+    @Test
+    public void newGaOnlyInvalidatesDependenciesThatReferenceIt() {
+        register(pom("g", "c", "g:new"));
+        sut.resolveDependencies(List.of("g:a:1"), config(T));
+        sut.resolveDependencies(List.of("g:c:1"), config(T));
+        sut.resolveDependents("g", "a", "1", config(T));
+        register(pom("g", "new"));
+        assertEquals(2, sut.size());
+        sut.resolveDependencies(List.of("g:a:1"), config(T));
+        verify(resolver, times(2)).resolveDependencies(any(), any());
+    }
+
+    @Test
+    public void newVersionOfManagedDependencyInvalidatesDependencies() {
+        var pb = builder("g", "c");
+        pb.dependencyManagement.add(new Dependency("g", "m", "1"));
+        register(pb.pom());
+        sut.resolveDependencies(List.of("g:c:1"), config(T));
+        register(pom("g", "m"));
+        assertEquals(0, sut.size());
+    }
+
+    @Test
+    public void newVersionOfParentInvalidatesDependencies() {
+        var pb = builder("g", "c");
+        pb.parentCoordinate = "g:p:pom:1";
+        register(pb.pom());
+        sut.resolveDependencies(List.of("g:c:1"), config(T));
+        register(pom("g", "p"));
+        assertEquals(0, sut.size());
+    }
+
+    @Test
+    public void laterReleasesAreIgnored() {
+        sut.resolveDependencies(List.of("g:a:1"), config(T - 2));
+        register(pom("g", "a"));
+        assertEquals(1, sut.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvicted() {
+        sut = new CachingMavenResolver(resolver, index, 9, metrics);
+        sut.resolveDependencies(List.of("g:a:1"), config(T));
+        sut.resolveDependencies(List.of("g:a:2"), config(T));
+        sut.resolveDependencies(List.of("g:a:1"), config(T));
+        sut.resolveDependencies(List.of("g:a:3"), config(T));
+        sut.resolveDependencies(List.of("g:a:4"), config(T));
+        assertEquals(3, sut.size());
+        assertEquals(9, sut.weight());
+        assertEquals(1, count(CachingMavenResolver.EVICTIONS));
+
+        sut.resolveDependencies(List.of("g:a:1"), config(T));
+        verify(resolver, times(4)).resolveDependencies(any(), any());
+    }
+
+    @Test
+    public void failedResolutionsAreNotCached() {
+        when(resolver.resolveDependencies(any(), any())).thenThrow(new IllegalStateException());
+        assertThrows(IllegalStateException.class, () -> {
+            sut.resolveDependencies(List.of("g:a:1"), config(T));
+        });
+        assertEquals(0, sut.size());
+    }
+
+    private void register(Pom pom) {
+        index.add(pom);
+        sut.invalidate(pom);
+    }
+
+    private long count(String counter) {
+        return counters.get(counter).get();
+    }
+
+    private static ResolverConfig config(long resolveAt) {
+        var c = new ResolverConfig();
+        c.resolveAt = resolveAt;
+        return c;
+    }
+
+    private static Set<ResolvedRevision> revisions(int num) {
+        var out = new HashSet<ResolvedRevision>();
+        for (var i = 0; i < num; i++) {
+            out.add(mock(ResolvedRevision.class));
+        }
+        return out;
+    }
+
+    private static Pom pom(String g, String a, String... deps) {
+        var pb = builder(g, a);
+        for (var dep : deps) {
+            var parts = dep.split(":");
+            pb.dependencies.add(new Dependency(parts[0], parts[1], "1"));
+        }
+        return pb.pom();
+    }
+
+    private static PomBuilder builder(String g, String a) {
+        var pb = new PomBuilder();
+        pb.groupId = g;
+        pb.artifactId = a;
+        pb.version = "1";
+        pb.releaseDate = T - 1;
+        return pb;
+    }
+
+    private static class TestCounter implements Counter {
+        private long count;
+
+        @Override
+        public void inc(long amount) {
+            count += amount;
+        }
+
+        @Override
+        public long get() {
+            return count;
+        }
+    }
+}
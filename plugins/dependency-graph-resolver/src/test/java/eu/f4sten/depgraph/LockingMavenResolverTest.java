@@ -0,0 +1,131 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.c0ps.maven.resolution.IMavenResolver;
+import dev.c0ps.maven.resolution.ResolvedRevision;
+import dev.c0ps.maven.resolution.ResolverConfig;
+
+public class LockingMavenResolverTest {
+
+    private AtomicInteger numResolutions;
+    private LockingMavenResolver sut;
+
+    @BeforeEach
+    public void setup() {
+        numResolutions = new AtomicInteger();
+        sut = new LockingMavenResolver(new IMavenResolver() {
+            @Override
+            public Set<ResolvedRevision> resolveDependencies(Collection<String> gavs, ResolverConfig config) {
+                numResolutions.incrementAndGet();
+                return Set.of();
+            }
+
+            @Override
+            public Set<ResolvedRevision> resolveDependents(String gid, String aid, String version, ResolverConfig config) {
+                numResolutions.incrementAndGet();
+                return Set.of();
+            }
+        });
+    }
+
+    @Test
+    public void resolutionsAreDelegated() {
+        sut.resolveDependencies(Set.of("g:a:1"), new ResolverConfig());
+        sut.resolveDependents("g", "a", "1", new ResolverConfig());
+        assertEquals(2, numResolutions.get());
+    }
+
+    @Test
+    public void resolutionsWaitForUpdates() throws InterruptedException {
+        var isUpdating = new CountDownLatch(1);
+        var canFinish = new CountDownLatch(1);
+        var updater = new Thread(() -> sut.update(() -> {
+            isUpdating.countDown();
+            await(canFinish);
+        }));
+        updater.start();
+        assertTrue(isUpdating.await(10, TimeUnit.SECONDS));
+
+        var hasResolved = new CountDownLatch(1);
+        var reader = new Thread(() -> {
+            sut.resolveDependents("g", "a", "1", new ResolverConfig());
+            hasResolved.countDown();
+        });
+        reader.start();
+        assertFalse(hasResolved.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(0, numResolutions.get());
+
+        canFinish.countDown();
+        assertTrue(hasResolved.await(10, TimeUnit.SECONDS));
+        assertEquals(1, numResolutions.get());
+        updater.join();
+        reader.join();
+    }
+
+    @Test
+    public void updatesWaitForResolutions() throws InterruptedException {
+        var isResolving = new CountDownLatch(1);
+        var canFinish = new CountDownLatch(1);
+        var blocking = new LockingMavenResolver(new IMavenResolver() {
+            @Override
+            public Set<ResolvedRevision> resolveDependencies(Collection<String> gavs, ResolverConfig config) {
+                isResolving.countDown();
+                await(canFinish);
+                return Set.of();
+            }
+
+            @Override
+            public Set<ResolvedRevision> resolveDependents(String gid, String aid, String version, ResolverConfig config) {
+                return Set.of();
+            }
+        });
+        var reader = new Thread(() -> blocking.resolveDependencies(Set.of("g:a:1"), new ResolverConfig()));
+        reader.start();
+        assertTrue(isResolving.await(10, TimeUnit.SECONDS));
+
+        var hasUpdated = new CountDownLatch(1);
+        var updater = new Thread(() -> blocking.update(hasUpdated::countDown));
+        updater.start();
+        assertFalse(hasUpdated.await(100, TimeUnit.MILLISECONDS));
+
+        canFinish.countDown();
+        assertTrue(hasUpdated.await(10, TimeUnit.SECONDS));
+        reader.join();
+        updater.join();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
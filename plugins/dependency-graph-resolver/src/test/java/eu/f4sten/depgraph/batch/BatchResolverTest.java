@@ -0,0 +1,119 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.c0ps.maven.resolution.IMavenResolver;
+import dev.c0ps.maven.resolution.ResolvedRevision;
+
+public class BatchResolverTest {
+
+    private static final ResolvedRevision R1 = mock(ResolvedRevision.class);
+    private static final ResolvedRevision R2 = mock(ResolvedRevision.class);
+
+    private IMavenResolver resolver;
+    private ExecutorService pool;
+    private BatchResolver sut;
+
+    @BeforeEach
+    public void setup() {
+        resolver = mock(IMavenResolver.class);
+        pool = Executors.newFixedThreadPool(4);
+        sut = new BatchResolver(resolver, pool, 3);
+    }
+
+    @AfterEach
+    public void teardown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void resolvesAllDependencies() {
+        when(resolver.resolveDependencies(eq(List.of("g:a:1")), any())).thenReturn(Set.of(R1));
+        when(resolver.resolveDependencies(eq(List.of("g:b:1")), any())).thenReturn(Set.of(R2));
+
+        var req = req("g:a:1", "g:b:1");
+        var actual = sut.resolveDependencies(req);
+        assertEquals(Map.of("g:a:1", Set.of(R1), "g:b:1", Set.of(R2)), actual.results);
+        assertEquals(Map.of(), actual.failures);
+        verify(resolver).resolveDependencies(List.of("g:a:1"), req.config);
+    }
+
+    @Test
+    public void resolvesAllDependents() {
+        when(resolver.resolveDependents(eq("g"), eq("a"), eq("1"), any())).thenReturn(Set.of(R1));
+        var actual = sut.resolveDependents(req("g:a:1"));
+        assertEquals(Map.of("g:a:1", Set.of(R1)), actual.results);
+    }
+
+    @Test
+    public void duplicatesAreResolvedOnce() {
+        when(resolver.resolveDependencies(any(), any())).thenReturn(Set.of(R1));
+        var actual = sut.resolveDependencies(req("g:a:1", "g:a:1", "g:a:1", "g:a:1"));
+        assertEquals(Map.of("g:a:1", Set.of(R1)), actual.results);
+        verify(resolver, times(1)).resolveDependencies(any(), any());
+    }
+
+    @Test
+    public void failuresArePerCoordinate() {
+        when(resolver.resolveDependencies(eq(List.of("g:a:1")), any())).thenReturn(Set.of(R1));
+        when(resolver.resolveDependencies(eq(List.of("g:b:1")), any())).thenThrow(new IllegalStateException("boom"));
+
+        var actual = sut.resolveDependencies(req("g:a:1", "g:b:1", "invalid"));
+        assertEquals(Map.of("g:a:1", Set.of(R1)), actual.results);
+        assertEquals(Map.of("g:b:1", "boom", "invalid", "Invalid coordinate, expected groupId:artifactId:version"), actual.failures);
+    }
+
+    @Test
+    public void batchSizeIsLimited() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            sut.resolveDependencies(req("g:a:1", "g:a:2", "g:a:3", "g:a:4"));
+        });
+    }
+
+    @Test
+    public void coordinatesAreRequired() {
+        var req = new BatchRequest();
+        req.coordinates = null;
+        assertThrows(IllegalArgumentException.class, () -> {
+            sut.resolveDependencies(req);
+        });
+    }
+
+    private static BatchRequest req(String... coordinates) {
+        var req = new BatchRequest();
+        req.coordinates = List.of(coordinates);
+        return req;
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph.index;
+
+import static dev.c0ps.maven.data.Scope.COMPILE;
+import static dev.c0ps.maven.data.Scope.PROVIDED;
+import static dev.c0ps.maven.data.Scope.RUNTIME;
+import static dev.c0ps.maven.data.Scope.SYSTEM;
+import static dev.c0ps.maven.data.Scope.TEST;
+import static dev.c0ps.maven.resolution.ResolverDepth.DIRECT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Provides;
+
+import dev.c0ps.maven.data.Dependency;
+import dev.c0ps.maven.data.Pom;
+import dev.c0ps.maven.data.PomBuilder;
+import dev.c0ps.maven.data.Scope;
+import dev.c0ps.maven.resolution.IMavenResolver;
+import dev.c0ps.maven.resolution.MavenDependencyResolver;
+import dev.c0ps.maven.resolution.MavenDependentsResolver;
+import dev.c0ps.maven.resolution.MavenResolver;
+import dev.c0ps.maven.resolution.MavenResolverData;
+import dev.c0ps.maven.resolution.ResolvedRevision;
+import dev.c0ps.maven.resolution.ResolverConfig;
+
+public class ReverseDependencyIndexTest {
+
+    private static final long T = 1000;
+
+    private ReverseDependencyIndex sut;
+
+    @BeforeEach
+    public void setup() {
+        sut = new ReverseDependencyIndex();
+    }
+
+    @Test
+    public void emptyIndex() {
+        assertEquals(Set.of(), find("a:1", config()));
+        assertEquals(0, sut.numPackageVersions());
+        assertEquals(0, sut.numEdges());
+    }
+
+    @Test
+    public void softRequirementsMatchExactly() {
+        sut.add(pom("b:1", T, "a:1.0"));
+        assertEquals(Set.of("g:b:1"), find("a:1.0", config()));
+        assertEquals(Set.of(), find("a:1.1", config()));
+    }
+
+    @Test
+    public void rangesAreChecked() {
+        sut.add(pom("b:1", T, "a:[1.0,2.0)"));
+        assertEquals(Set.of("g:b:1"), find("a:1.0", config()));
+        assertEquals(Set.of("g:b:1"), find("a:1.9", config()));
+        assertEquals(Set.of(), find("a:2.0", config()));
+    }
+
+    @Test
+    public void laterReleasesAreIgnored() {
+        sut.add(pom("b:1", T + 1, "a:1"));
+        assertEquals(Set.of(), find("a:1", config(T)));
+        assertEquals(Set.of("g:b:1"), find("a:1", config(T + 1)));
+    }
+
+    @Test
+    public void outdatedVersionsAreIgnored() {
+        sut.add(pom("b:1", T, "a:1"));
+        sut.add(pom("b:2", T + 1, "a:1"));
+        sut.add(pom("c:1", T, "a:1"));
+        sut.add(pom("c:2", T + 1, "x:1"));
+        assertEquals(Set.of("g:b:1", "g:c:1"), find("a:1", config(T)));
+        assertEquals(Set.of("g:b:2"), find("a:1", config(T + 1)));
+    }
+
+    @Test
+    public void scopesAreRespected() {
+        sut.add(pom("b:1", T, dep("a:1", COMPILE)));
+        sut.add(pom("c:1", T, dep("a:1", RUNTIME)));
+        sut.add(pom("d:1", T, dep("a:1", PROVIDED)));
+        sut.add(pom("e:1", T, dep("a:1", TEST)));
+        sut.add(pom("f:1", T, dep("a:1", SYSTEM)));
+        assertEquals(Set.of("g:b:1", "g:c:1"), find("a:1", config(RUNTIME)));
+        assertEquals(Set.of("g:b:1", "g:d:1", "g:f:1"), find("a:1", config(COMPILE)));
+        assertEquals(Set.of("g:b:1", "g:c:1", "g:d:1", "g:e:1", "g:f:1"), find("a:1", config(TEST)));
+        assertEquals(Set.of("g:b:1", "g:c:1", "g:d:1"), find("a:1", config(c -> {
+            c.alwaysIncludeProvided = true;
+        })));
+    }
+
+    @Test
+    public void invalidScopesFail() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            find("a:1", config(SYSTEM));
+        });
+    }
+
+    @Test
+    public void transitiveDependents() {
+        sut.add(pom("b:1", T, "a:1"));
+        sut.add(pom("c:1", T, "b:1"));
+        sut.add(pom("d:1", T, "c:1", "a:1"));
+        sut.add(pom("e:1", T, "c:2"));
+        assertEquals(Set.of("g:b:1", "g:d:1"), find("a:1", config(c -> {
+            c.depth = DIRECT;
+        })));
+        assertEquals(Set.of("g:b:1", "g:c:1", "g:d:1"), find("a:1", config()));
+    }
+
+    @Test
+    public void onlyInheritedDependenciesAreTransitive() {
+        sut.add(pom("b:1", T, dep("a:1", TEST)));
+        sut.add(pom("c:1", T, "b:1"));
+        assertEquals(Set.of("g:b:1"), find("a:1", config(TEST)));
+    }
+
+    @Test
+    public void optionalDependenciesAreNotTransitive() {
+        sut.add(pom("b:1", T, new Dependency("g", "a", "1", Set.of(), COMPILE, true, "jar", "")));
+        sut.add(pom("c:1", T, "b:1"));
+        assertEquals(Set.of("g:b:1"), find("a:1", config()));
+        assertEquals(Set.of("g:b:1", "g:c:1"), find("a:1", config(c -> {
+            c.alwaysIncludeOptional = true;
+        })));
+    }
+
+    @Test
+    public void cyclesTerminate() {
+        sut.add(pom("a:1", T, "b:1"));
+        sut.add(pom("b:1", T, "a:1"));
+        assertEquals(Set.of("g:a:1", "g:b:1"), find("a:1", config()));
+    }
+
+    @Test
+    public void readdingReplacesEdges() {
+        sut.add(pom("b:1", T, "a:1", "x:1"));
+        assertEquals(2, sut.numEdges());
+        sut.add(pom("b:1", T, "x:1"));
+        assertEquals(1, sut.numPackageVersions());
+        assertEquals(1, sut.numEdges());
+        assertEquals(Set.of(), find("a:1", config()));
+        assertEquals(Set.of("g:b:1"), find("x:1", config()));
+    }
+
+    @Test
+    public void readdingOnlyReplacesChangedEdges() {
+        sut.add(pom("b:1", T, "a:1", "x:1"));
+        sut.add(pom("b:1", T, "x:1", "y:1"));
+        assertEquals(2, sut.numEdges());
+        assertEquals(Set.of(), find("a:1", config()));
+        assertEquals(Set.of("g:b:1"), find("x:1", config()));
+        assertEquals(Set.of("g:b:1"), find("y:1", config()));
+    }
+
+    @Test
+    public void removingAnEdgeKeepsOtherDependents() {
+        sut.add(pom("b:1", T, "a:1"));
+        sut.add(pom("c:1", T, "a:1"));
+        sut.add(pom("d:1", T, "a:1"));
+        sut.add(pom("b:1", T));
+        assertEquals(Set.of("g:c:1", "g:d:1"), find("a:1", config()));
+        sut.add(pom("d:1", T));
+        assertEquals(Set.of("g:c:1"), find("a:1", config()));
+        assertEquals(1, sut.numEdges());
+    }
+
+    @Test
+    public void dependentsHaveTheScopeOfTheirDependency() {
+        sut.add(pom("b:1", T, dep("a:1", RUNTIME)));
+        var revisions = sut.resolveDependents("g", "a", "1", config(TEST));
+        assertEquals(1, revisions.size());
+        var r = revisions.iterator().next();
+        assertEquals("g", r.groupId);
+        assertEquals("b", r.artifactId);
+        assertEquals("1", r.version);
+        assertEquals(RUNTIME, r.scope);
+    }
+
+    @Test
+    public void traversalContinuesAfterUpdates() {
+        sut.add(pom("b:1", T, "a:1"));
+        sut.add(pom("c:1", T, "b:1"));
+        var it = sut.traverseDependents("g", "a", "1", config());
+        assertEquals("b", it.next().artifactId);
+        sut.add(pom("d:1", T, "b:1"));
+        var rest = new HashSet<String>();
+        it.forEachRemaining(r -> rest.add(r.artifactId));
+        assertEquals(Set.of("c", "d"), rest);
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void referencedGasIncludeManagedDependenciesAndParent() {
+        var pb = pom("b:1", T, "a:1", dep("x:1", TEST)).clone();
+        pb.dependencyManagement.add(new Dependency("g", "m", "1"));
+        pb.parentCoordinate = "g:p:pom:1";
+        sut.add(pb.pom());
+        assertEquals(Set.of("g:a", "g:x", "g:m", "g:p"), sut.findReferencedGas("g:b:1"));
+        assertEquals(Set.of(), sut.findReferencedGas("g:b:2"));
+    }
+
+    @Test
+    public void sameResultsAsMavenDependentsResolver() {
+        var poms = List.of( //
+                pom("a:1", T), //
+                pom("a:2", T + 1), //
+                pom("b:1", T, "a:1"), //
+                pom("b:2", T + 2, "a:[1,3)"), //
+                pom("c:1", T, "b:1", dep("a:1", TEST)), //
+                pom("c:2", T + 3, "b:2"), //
+                pom("d:1", T, dep("c:1", PROVIDED), dep("b:1", RUNTIME)), //
+                pom("e:1", T + 1, new Dependency("g", "b", "2", Set.of(), COMPILE, true, "jar", "")), //
+                pom("f:1", T + 2, "e:1", "a:2"));
+        var data = new MavenResolverData();
+        for (var pom : poms) {
+            sut.add(pom);
+            data.add(pom);
+        }
+        data.removeOutdatedPomRegistrations();
+        var resolver = createResolver(data);
+
+        // resolve after all releases, the removal of outdated registrations does not consider the resolution time
+        var configs = new ArrayList<ResolverConfig>();
+        for (var scope : new Scope[] { COMPILE, RUNTIME, TEST }) {
+            configs.add(config(c -> {
+                c.resolveAt = T + 3;
+                c.scope = scope;
+            }));
+        }
+        configs.add(config(c -> {
+            c.resolveAt = T + 3;
+            c.depth = DIRECT;
+        }));
+        configs.add(config(c -> {
+            c.resolveAt = T + 3;
+            c.alwaysIncludeProvided = true;
+            c.alwaysIncludeOptional = true;
+        }));
+
+        for (var pom : poms) {
+            for (var config : configs) {
+                var expected = new HashSet<String>();
+                for (var r : resolver.resolveDependents(pom.groupId, pom.artifactId, pom.version, config)) {
+                    expected.add(r.groupId + ":" + r.artifactId + ":" + r.version);
+                }
+                var actual = gavs(sut.resolveDependents(pom.groupId, pom.artifactId, pom.version, config));
+                assertEquals(expected, actual, pom.artifactId + ":" + pom.version);
+            }
+        }
+    }
+
+    private Set<String> find(String av, ResolverConfig config) {
+        var parts = av.split(":");
+        return gavs(sut.resolveDependents("g", parts[0], parts[1], config));
+    }
+
+    private static Set<String> gavs(Collection<ResolvedRevision> revisions) {
+        var out = new HashSet<String>();
+        for (var r : revisions) {
+            out.add(r.groupId + ":" + r.artifactId + ":" + r.version);
+        }
+        return out;
+    }
+
+    private static ResolverConfig config() {
+        return config(T);
+    }
+
+    private static ResolverConfig config(long resolveAt) {
+        return config(c -> {
+            c.resolveAt = resolveAt;
+        });
+    }
+
+    private static ResolverConfig config(Scope scope) {
+        return config(c -> {
+            c.scope = scope;
+        });
+    }
+
+    private static ResolverConfig config(Consumer<ResolverConfig> c) {
+        var config = new ResolverConfig();
+        config.resolveAt = T;
+        c.accept(config);
+        return config;
+    }
+
+    private static Dependency dep(String av, Scope scope) {
+        var parts = av.split(":");
+        return new Dependency("g", parts[0], parts[1], Set.of(), scope, false, "jar", "");
+    }
+
+    private static Pom pom(String av, long releaseDate, Object... deps) {
+        var parts = av.split(":");
+        var pb = new PomBuilder();
+        pb.groupId = "g";
+        pb.artifactId = parts[0];
+        pb.version = parts[1];
+        pb.packagingType = "jar";
+        pb.releaseDate = releaseDate;
+        for (var dep : deps) {
+            if (dep instanceof Dependency) {
+                pb.dependencies.add((Dependency) dep);
+            } else {
+                var depParts = ((String) dep).split(":");
+                pb.dependencies.add(new Dependency("g", depParts[0], depParts[1]));
+            }
+        }
+        return pb.pom();
+    }
+
+    private static IMavenResolver createResolver(MavenResolverData data) {
+        // same wiring as in DepGraphConfig
+        var injector = Guice.createInjector(new AbstractModule() {
+            @Provides
+            public MavenDependencyResolver provideDependencyResolver() {
+                var r = new MavenDependencyResolver();
+                r.setData(data);
+                return r;
+            }
+
+            @Provides
+            public MavenDependentsResolver provideDependentsResolver() {
+                var r = new MavenDependentsResolver();
+                r.setData(data);
+                return r;
+            }
+        });
+        return injector.getInstance(MavenResolver.class);
+    }
+}
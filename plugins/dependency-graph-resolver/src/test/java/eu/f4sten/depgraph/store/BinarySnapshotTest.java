@@ -0,0 +1,251 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class BinarySnapshotTest {
+
+    @TempDir
+    private File dir;
+
+    private BinarySnapshot<Rec> sut;
+
+    @BeforeEach
+    public void setup() {
+        sut = new BinarySnapshot<>(new File(dir, "x.snapshot"), new ObjectMapper(), Rec.class);
+    }
+
+    @Test
+    public void nonExisting() {
+        assertFalse(sut.exists());
+    }
+
+    @Test
+    public void emptySnapshot() {
+        sut.write(7, c -> {});
+        assertTrue(sut.exists());
+        var out = new ArrayList<Rec>();
+        assertEquals(7, sut.read(out::add));
+        assertEquals(List.of(), out);
+    }
+
+    @Test
+    public void roundTrip() {
+        var in = List.of(rec("a", 1), rec("b", 2), rec("a", -3));
+        in.get(1).nested = Map.of("k", List.of(true, false));
+        in.get(2).ratio = 0.25;
+        in.get(2).text = null;
+
+        sut.write(123, c -> in.forEach(c));
+
+        var out = new ArrayList<Rec>();
+        assertEquals(123, sut.read(out::add));
+        assertEquals(in, out);
+    }
+
+    @Test
+    public void stringsAreShared() {
+        sut.write(0, c -> {
+            c.accept(rec(new String("a"), 1));
+            c.accept(rec(new String("a"), 2));
+        });
+        var out = new ArrayList<Rec>();
+        sut.read(out::add);
+        assertSame(out.get(0).name, out.get(1).name);
+    }
+
+    @Test
+    public void largeValues() {
+        var sb = new StringBuilder();
+        for (var i = 0; i < 100_000; i++) {
+            sb.append('x');
+        }
+        var in = rec(sb.toString(), Long.MAX_VALUE);
+        sut.write(0, c -> c.accept(in));
+        var out = new ArrayList<Rec>();
+        sut.read(out::add);
+        assertEquals(List.of(in), out);
+    }
+
+    @Test
+    public void writeReplacesExistingSnapshot() {
+        sut.write(1, c -> c.accept(rec("a", 1)));
+        sut.write(2, c -> c.accept(rec("b", 2)));
+        var out = new ArrayList<Rec>();
+        assertEquals(2, sut.read(out::add));
+        assertEquals(List.of(rec("b", 2)), out);
+        assertEquals(1, dir.list().length);
+    }
+
+    @Test
+    public void recordsAreSplitIntoChunks() {
+        sut = new BinarySnapshot<>(sut.getFile(), new ObjectMapper(), Rec.class, 3);
+        var in = recs(10);
+        sut.write(5, c -> in.forEach(c));
+
+        var sizes = new ArrayList<Integer>();
+        var out = new ArrayList<Rec>();
+        assertEquals(5, sut.read(1, chunk -> {
+            sizes.add(chunk.size());
+            out.addAll(chunk);
+        }));
+        assertEquals(List.of(3, 3, 3, 1), sizes);
+        assertEquals(in, out);
+    }
+
+    @Test
+    public void parallelReadReturnsAllRecords() {
+        sut = new BinarySnapshot<>(sut.getFile(), new ObjectMapper(), Rec.class, 7);
+        var in = recs(1000);
+        sut.write(5, c -> in.forEach(c));
+
+        var out = new HashSet<Rec>();
+        assertEquals(5, sut.read(4, out::addAll));
+        assertEquals(new HashSet<>(in), out);
+    }
+
+    @Test
+    public void recordsArePreparedOnDecodingThreads() {
+        sut = new BinarySnapshot<>(sut.getFile(), new ObjectMapper(), Rec.class, 7);
+        var in = recs(100);
+        sut.write(5, c -> in.forEach(c));
+
+        var out = new HashSet<Rec>();
+        var threads = ConcurrentHashMap.<String> newKeySet();
+        assertEquals(5, sut.read(4, r -> {
+            threads.add(Thread.currentThread().getName());
+            r.num = -r.num;
+            return r;
+        }, out::addAll));
+
+        var expected = new HashSet<Rec>();
+        for (var r : in) {
+            expected.add(rec(r.name, -r.num));
+        }
+        assertEquals(expected, out);
+        assertFalse(threads.contains(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void decodingErrorsArePropagated() {
+        sut = new BinarySnapshot<>(sut.getFile(), new ObjectMapper(), Rec.class, 2);
+        sut.write(0, c -> recs(10).forEach(c));
+        assertThrows(IllegalArgumentException.class, () -> {
+            sut.read(4, chunk -> {
+                throw new IllegalArgumentException();
+            });
+        });
+    }
+
+    @Test
+    public void invalidFilesAreRejected() throws IOException {
+        Files.writeString(sut.getFile().toPath(), "not a snapshot");
+        assertThrows(IllegalStateException.class, () -> {
+            sut.read(r -> {});
+        });
+    }
+
+    @Test
+    public void corruptedChunksAreRejected() throws IOException {
+        sut = new BinarySnapshot<>(sut.getFile(), new ObjectMapper(), Rec.class, 3);
+        sut.write(0, c -> recs(10).forEach(c));
+        flipByte(sut.getFile().length() - 2);
+        assertRejectedWithoutRecords();
+    }
+
+    @Test
+    public void corruptedDictionariesAreRejected() throws IOException {
+        sut.write(0, c -> recs(10).forEach(c));
+        // first byte of the first string, after the header and its length
+        flipByte(28);
+        assertRejectedWithoutRecords();
+    }
+
+    private void assertRejectedWithoutRecords() {
+        var out = new ArrayList<Rec>();
+        var e = assertThrows(IllegalStateException.class, () -> {
+            sut.read(4, out::addAll);
+        });
+        assertTrue(e.getMessage().contains("Corrupted"));
+        assertEquals(List.of(), out);
+    }
+
+    private void flipByte(long pos) throws IOException {
+        try (var f = new RandomAccessFile(sut.getFile(), "rw")) {
+            f.seek(pos);
+            var b = f.read();
+            f.seek(pos);
+            f.write(b ^ 0xFF);
+        }
+    }
+
+    private static List<Rec> recs(int num) {
+        var recs = new ArrayList<Rec>();
+        for (var i = 0; i < num; i++) {
+            recs.add(rec("r" + (i % 13), i));
+        }
+        return recs;
+    }
+
+    private static Rec rec(String name, long num) {
+        var r = new Rec();
+        r.name = name;
+        r.num = num;
+        r.text = "some text";
+        return r;
+    }
+
+    public static class Rec {
+        public String name;
+        public long num;
+        public double ratio;
+        public String text;
+        public Map<String, List<Boolean>> nested;
+
+        @Override
+        public boolean equals(Object obj) {
+            return EqualsBuilder.reflectionEquals(this, obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return HashCodeBuilder.reflectionHashCode(this);
+        }
+    }
+}
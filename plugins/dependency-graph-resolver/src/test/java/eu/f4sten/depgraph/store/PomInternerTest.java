@@ -0,0 +1,117 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.c0ps.maven.data.Dependency;
+import dev.c0ps.maven.data.Pom;
+import dev.c0ps.maven.data.PomBuilder;
+
+public class PomInternerTest {
+
+    private PomInterner sut;
+
+    @BeforeEach
+    public void setup() {
+        sut = new PomInterner();
+    }
+
+    @Test
+    public void internedPomIsEqual() {
+        var in = pom("a", "1", "x", "y");
+        var out = sut.intern(in);
+        assertNotSame(in, out);
+        assertEquals(in, out);
+    }
+
+    @Test
+    public void stringsAreShared() {
+        var a = sut.intern(pom("a", "1"));
+        var b = sut.intern(pom("a", "2"));
+        assertNotSame(a.version, b.version);
+        assertSame(a.groupId, b.groupId);
+        assertSame(a.artifactId, b.artifactId);
+        assertSame(a.packagingType, b.packagingType);
+    }
+
+    @Test
+    public void dependenciesAreShared() {
+        var a = sut.intern(pom("a", "1", "x", "y"));
+        var b = sut.intern(pom("b", "1", "y"));
+        assertSame(dep(a, "y"), dep(b, "y"));
+    }
+
+    @Test
+    public void declarationOrderIsKept() {
+        sut.intern(pom("a", "1", "y"));
+        var b = sut.intern(pom("b", "1", "z", "y", "x"));
+        var actual = new ArrayList<String>();
+        b.dependencies.forEach(d -> actual.add(d.artifactId));
+        assertEquals(List.of("z", "y", "x"), actual);
+    }
+
+    @Test
+    public void internerDoesNotChangeInput() {
+        var in = pom("a", "1", "x");
+        var before = in.dependencies.iterator().next();
+        sut.intern(in);
+        sut.intern(pom("b", "1", "x"));
+        assertSame(before, in.dependencies.iterator().next());
+    }
+
+    @Test
+    public void valuesOfDroppedPomsAreNotRetained() throws InterruptedException {
+        var version = new WeakReference<>(sut.intern(pom("a", "1")).version);
+        for (var i = 0; i < 100 && version.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(version.get());
+    }
+
+    private static Dependency dep(Pom pom, String artifactId) {
+        for (var d : pom.dependencies) {
+            if (artifactId.equals(d.artifactId)) {
+                return d;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    // new String(...) ensures that the literals are not shared already
+    private static Pom pom(String a, String v, String... deps) {
+        var pb = new PomBuilder();
+        pb.groupId = new String("g");
+        pb.artifactId = new String(a);
+        pb.version = new String(v);
+        pb.packagingType = new String("jar");
+        for (var d : deps) {
+            pb.dependencies.add(new Dependency(new String("g"), new String(d), new String("1")));
+        }
+        return pb.pom();
+    }
+}
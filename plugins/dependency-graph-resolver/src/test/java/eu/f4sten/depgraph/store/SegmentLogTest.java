@@ -0,0 +1,137 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SegmentLogTest {
+
+    @TempDir
+    private File dir;
+
+    private SegmentLog<String> sut;
+
+    @BeforeEach
+    public void setup() {
+        sut = create();
+    }
+
+    @Test
+    public void emptyLog() {
+        assertTrue(sut.isEmpty());
+        assertEquals(0, sut.numSegments());
+        assertEquals(List.of(), readAll(sut));
+    }
+
+    @Test
+    public void emptyAppendsDoNotCreateSegments() {
+        sut.append(List.of());
+        assertTrue(sut.isEmpty());
+    }
+
+    @Test
+    public void eachAppendCreatesSegment() {
+        sut.append(List.of("a=1", "b=1"));
+        sut.append(List.of("c=1"));
+        assertFalse(sut.isEmpty());
+        assertEquals(2, sut.numSegments());
+        assertEquals(List.of("a=1", "b=1", "c=1"), readAll(sut));
+    }
+
+    @Test
+    public void laterRecordsReplaceEarlierOnes() {
+        sut.append(List.of("a=1", "b=1", "a=2"));
+        sut.append(List.of("b=2"));
+        assertEquals(List.of("a=2", "b=2"), readAll(sut));
+    }
+
+    @Test
+    public void contentSurvivesRestart() {
+        sut.append(List.of("a=1"));
+        sut.append(List.of("b=1"));
+        var other = create();
+        other.append(List.of("c=1"));
+        assertEquals(3, other.numSegments());
+        assertEquals(List.of("a=1", "b=1", "c=1"), readAll(create()));
+    }
+
+    @Test
+    public void compactionMergesSegmentsAndDropsSupersededRecords() {
+        sut.append(List.of("a=1", "b=1"));
+        sut.append(List.of("a=2"));
+        sut.append(List.of("c=1", "b=2"));
+        sut.compact();
+        assertEquals(1, sut.numSegments());
+        assertEquals(List.of("a=2", "c=1", "b=2"), readAll(sut));
+
+        sut.append(List.of("d=1"));
+        assertEquals(2, sut.numSegments());
+        assertEquals(List.of("a=2", "c=1", "b=2", "d=1"), readAll(create()));
+    }
+
+    @Test
+    public void compactionOfSingleSegmentIsNoop() {
+        sut.append(List.of("a=1"));
+        sut.compact();
+        assertEquals(1, sut.numSegments());
+        assertEquals(List.of("a=1"), readAll(sut));
+    }
+
+    @Test
+    public void incompleteSegmentsAreIgnored() throws IOException {
+        sut.append(List.of("a=1"));
+        new File(dir, "segment-000000000001.log.tmp").createNewFile();
+        var other = create();
+        assertEquals(1, other.numSegments());
+        assertEquals(List.of("a=1"), readAll(other));
+        assertFalse(new File(dir, "segment-000000000001.log.tmp").exists());
+    }
+
+    @Test
+    public void corruptionIsDetected() throws IOException {
+        sut.append(List.of("a=1"));
+        try (var raf = new RandomAccessFile(new File(dir, "segment-000000000000.log"), "rw")) {
+            raf.seek(raf.length() - 1);
+            raf.write('X');
+        }
+        assertThrows(IllegalStateException.class, () -> {
+            readAll(sut);
+        });
+    }
+
+    private SegmentLog<String> create() {
+        return new SegmentLog<>(dir, s -> s.split("=")[0], s -> s, s -> s);
+    }
+
+    private static List<String> readAll(SegmentLog<String> log) {
+        var out = new ArrayList<String>();
+        log.forEachLatest(out::add);
+        return out;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph.stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.c0ps.maven.resolution.ResolvedRevision;
+
+public class CursorsTest {
+
+    private static final long TIMEOUT = 100;
+
+    private long now;
+    private Cursors sut;
+
+    @BeforeEach
+    public void setup() {
+        now = 0;
+        sut = new Cursors(2, TIMEOUT, () -> now);
+    }
+
+    @Test
+    public void idsAreUnique() {
+        assertNotEquals(sut.newId(), sut.newId());
+    }
+
+    @Test
+    public void unknownCursors() {
+        assertNull(sut.take("x"));
+    }
+
+    @Test
+    public void cursorsCanBeTakenOnce() {
+        var it = it();
+        sut.put("a", it);
+        assertEquals(1, sut.size());
+        assertSame(it, sut.take("a"));
+        assertNull(sut.take("a"));
+        assertEquals(0, sut.size());
+    }
+
+    @Test
+    public void cursorsExpire() {
+        sut.put("a", it());
+        now = TIMEOUT;
+        sut.put("b", it());
+        now = TIMEOUT + 1;
+        assertNull(sut.take("a"));
+        assertEquals(1, sut.size());
+    }
+
+    @Test
+    public void puttingBackRenewsTheCursor() {
+        sut.put("a", it());
+        now = TIMEOUT;
+        sut.put("a", sut.take("a"));
+        now = 2 * TIMEOUT;
+        assertEquals(1, sut.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedCursorsAreDropped() {
+        sut.put("a", it());
+        sut.put("b", it());
+        sut.put("a", sut.take("a"));
+        sut.put("c", it());
+        assertEquals(2, sut.size());
+        assertNull(sut.take("b"));
+    }
+
+    private static Iterator<ResolvedRevision> it() {
+        return Collections.emptyIterator();
+    }
+}
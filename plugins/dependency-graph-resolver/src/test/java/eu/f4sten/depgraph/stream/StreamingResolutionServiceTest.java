@@ -0,0 +1,101 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.depgraph.stream;
+
+import static dev.c0ps.maven.data.Scope.COMPILE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.c0ps.maven.resolution.ResolvedRevision;
+import eu.f4sten.depgraph.index.ReverseDependencyIndex;
+
+public class StreamingResolutionServiceTest {
+
+    private StreamingResolutionService sut;
+
+    @BeforeEach
+    public void setup() {
+        sut = new StreamingResolutionService(null, new ReverseDependencyIndex(), new Cursors(10, 1000), new ObjectMapper());
+    }
+
+    @Test
+    public void oneLinePerRevision() throws IOException {
+        var lines = write(revisions(3).iterator(), 0);
+        assertEquals(3, lines.length);
+        for (var i = 0; i < lines.length; i++) {
+            assertTrue(lines[i].startsWith("{"));
+            assertTrue(lines[i].contains("\"a" + i + "\""));
+        }
+    }
+
+    @Test
+    public void limitStopsConsumingTheResolution() throws IOException {
+        var consumed = new int[1];
+        var all = revisions(5).iterator();
+        var it = new Iterator<ResolvedRevision>() {
+            @Override
+            public boolean hasNext() {
+                return all.hasNext();
+            }
+
+            @Override
+            public ResolvedRevision next() {
+                consumed[0]++;
+                return all.next();
+            }
+        };
+        assertEquals(2, write(it, 2).length);
+        assertEquals(2, consumed[0]);
+        assertEquals(2, write(it, 2).length);
+        assertEquals(1, write(it, 2).length);
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void emptyResult() throws IOException {
+        var baos = new ByteArrayOutputStream();
+        sut.write(List.<ResolvedRevision>of().iterator(), 0, baos);
+        assertEquals(0, baos.size());
+    }
+
+    private String[] write(Iterator<ResolvedRevision> it, int limit) throws IOException {
+        var baos = new ByteArrayOutputStream();
+        sut.write(it, limit, baos);
+        return new String(baos.toByteArray(), UTF_8).split("\n");
+    }
+
+    private static List<ResolvedRevision> revisions(int num) {
+        var out = new ArrayList<ResolvedRevision>();
+        for (var i = 0; i < num; i++) {
+            out.add(new ResolvedRevision(-1, "g", "a" + i, "1", new Timestamp(0), COMPILE));
+        }
+        return out;
+    }
+}
@@ -23,10 +23,8 @@ import org.slf4j.LoggerFactory;
 import dev.c0ps.diapper.AssertArgs;
 import dev.c0ps.franz.Kafka;
 import dev.c0ps.franz.Lane;
-import dev.c0ps.io.TRef;
 import dev.c0ps.maven.data.Pom;
-import dev.c0ps.maveneasyindex.Artifact;
-import eu.f4sten.infra.kafka.Message;
+import eu.f4sten.infra.json.LazyMessage;
 import eu.f4sten.pomanalyzer.data.MavenId;
 import eu.f4sten.pomanalyzer.utils.DatabaseUtils;
 import jakarta.inject.Inject;
@@ -35,6 +33,9 @@ public class Main implements Runnable {
 
     private static final Logger LOG = LoggerFactory.getLogger(Main.class);
 
+    // Message<Message<Message<Message<Artifact, Pom>, ?>, ?>, ?>, only bind the pom
+    private static final String POM_PATH = "/input/input/input/payload";
+
     private final IngestedArtifactCompletionArgs args;
     private final Kafka kafka;
     private final DatabaseUtils db;
@@ -54,10 +55,8 @@ public class Main implements Runnable {
 
             LOG.info("Subscribing to '{}'", args.kafkaIn);
 
-            final var msgClass = new TRef<Message<Message<Message<Message<Artifact, Pom>, Object>, Object>, Object>>() {};
-
-            kafka.subscribe(args.kafkaIn, msgClass, (msg, l) -> {
-                final var pom = msg.input.input.input.payload;
+            kafka.subscribe(args.kafkaIn, LazyMessage.class, (msg, l) -> {
+                final var pom = msg.get(POM_PATH, Pom.class);
 
                 if (l == Lane.PRIORITY) {
                     LOG.info("No processing required for package on priority lane ... ({})", pom.toCoordinate());
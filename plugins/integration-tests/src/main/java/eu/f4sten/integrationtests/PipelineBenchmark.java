@@ -0,0 +1,275 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.integrationtests;
+
+import static eu.f4sten.infra.kafka.DefaultTopics.CALLABLE_INDEXER;
+import static eu.f4sten.infra.kafka.DefaultTopics.INGEST;
+import static eu.f4sten.infra.kafka.DefaultTopics.METADATA_DB_JAVA;
+import static eu.f4sten.infra.kafka.DefaultTopics.POM_ANALYZER;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.c0ps.diapper.AssertArgs;
+import dev.c0ps.diapper.RunnerArgs;
+import dev.c0ps.io.IoUtils;
+import dev.c0ps.io.IoUtilsImpl;
+import dev.c0ps.io.JsonUtils;
+import dev.c0ps.maven.PomExtractor;
+import eu.f4sten.infra.impl.kafka.MessageGeneratorImpl;
+import eu.f4sten.infra.kafka.MessageGenerator;
+import eu.f4sten.infra.metrics.Metrics;
+import eu.f4sten.infra.utils.DiskBudgetManager;
+import eu.f4sten.infra.utils.HostName;
+import eu.f4sten.infra.utils.Version;
+import eu.f4sten.ingestedartifactcompletion.IngestedArtifactCompletionArgs;
+import eu.f4sten.integrationtests.benchmark.BaselineComparison;
+import eu.f4sten.integrationtests.benchmark.BenchmarkPomAnalyzerDatabase;
+import eu.f4sten.integrationtests.benchmark.BenchmarkResult;
+import eu.f4sten.integrationtests.benchmark.BenchmarkResult.StageResult;
+import eu.f4sten.integrationtests.benchmark.BenchmarkSwhDatabase;
+import eu.f4sten.integrationtests.benchmark.BrokerClosedException;
+import eu.f4sten.integrationtests.benchmark.FixtureRepository;
+import eu.f4sten.integrationtests.benchmark.InMemoryBroker;
+import eu.f4sten.integrationtests.benchmark.InMemoryMetadataDatabase;
+import eu.f4sten.integrationtests.benchmark.PomAnalyzerStage;
+import eu.f4sten.integrationtests.benchmark.RelayStage;
+import eu.f4sten.mavencrawler.MavenCrawlerArgs;
+import eu.f4sten.mavencrawler.utils.EasyIndexClient;
+import eu.f4sten.mavencrawler.utils.IndexProcessor;
+import eu.f4sten.mavencrawler.utils.LocalStore;
+import eu.f4sten.pomanalyzer.utils.EffectiveModelBuilder;
+import eu.f4sten.pomanalyzer.utils.MavenRepositoryUtils;
+import eu.f4sten.sourcesprovider.SourcesProviderArgs;
+import eu.f4sten.sourcesprovider.utils.BlobStore;
+import eu.f4sten.sourcesprovider.utils.ExtractionPolicy;
+import eu.f4sten.sourcesprovider.utils.PayloadParsing;
+import eu.f4sten.sourcesprovider.utils.SourcesDownloader;
+import eu.f4sten.sourcesprovider.utils.SourcesJarProvider;
+import eu.f4sten.swhinserter.HashCache;
+import eu.f4sten.swhinserter.SwhHashCalculator;
+import eu.f4sten.swhinserter.SwhInserterArgs;
+import jakarta.inject.Inject;
+
+/**
+ * Replays a generated corpus of Maven coordinates through the complete
+ * ingestion pipeline (maven-crawler, pom-analyzer, ingested-artifact-completion,
+ * sources-provider, and swh-inserter). Kafka, Postgres, and the Maven
+ * repository are replaced by local stand-ins, analyses that are not part of
+ * this repository are emulated by relay stages. The run reports the overall
+ * throughput and per-stage latencies and can compare the outcome against the
+ * result of an earlier run.
+ */
+public class PipelineBenchmark implements Runnable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PipelineBenchmark.class);
+
+    private static final String TOPIC_OPAL = "fasten.OPAL";
+    private static final long SUBSCRIPTION_TIMEOUT_MS = 1000 * 30;
+
+    private static final String STAGE_CRAWLER = "maven-crawler";
+    private static final String STAGE_POM_ANALYZER = "pom-analyzer";
+    private static final String STAGE_OPAL = "opal (relay)";
+    private static final String STAGE_METADATA_DB = "metadata-db (relay)";
+    private static final String STAGE_SOURCES_PROVIDER = "sources-provider";
+    private static final String STAGE_CALLABLE_INDEXER = "callable-indexer (relay)";
+    private static final String STAGE_COMPLETION = "ingested-artifact-completion";
+    private static final String STAGE_SWH_INSERTER = "swh-inserter";
+
+    private final PipelineBenchmarkArgs args;
+    private final JsonUtils json;
+    private final ObjectMapper om;
+    private final HostName host;
+    private final Version version;
+    private final EffectiveModelBuilder modelBuilder;
+    private final PomExtractor extractor;
+    private final MavenRepositoryUtils repo;
+    private final Metrics metrics;
+
+    private final List<Thread> threads = new ArrayList<>();
+
+    @Inject
+    public PipelineBenchmark(PipelineBenchmarkArgs args, JsonUtils json, ObjectMapper om, HostName host, Version version, EffectiveModelBuilder modelBuilder, PomExtractor extractor,
+            MavenRepositoryUtils repo, Metrics metrics) {
+        this.args = args;
+        this.json = json;
+        this.om = om;
+        this.host = host;
+        this.version = version;
+        this.modelBuilder = modelBuilder;
+        this.extractor = extractor;
+        this.repo = repo;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void run() {
+        AssertArgs.assertFor(args) //
+                .that(a -> a.numCoordinates > 0, "number of coordinates must be positive") //
+                .that(a -> a.numSourceFiles >= 0, "number of source files must not be negative") //
+                .that(a -> a.timeoutMS > 0, "timeout must be positive") //
+                .that(a -> a.maxRegression >= 0, "max regression must not be negative");
+
+        File workDir = null;
+        try {
+            workDir = Files.createTempDirectory("pipeline-benchmark-").toFile();
+            try (var fixtures = new FixtureRepository(new File(workDir, "repo"))) {
+                LOG.info("Generating {} coordinates (seed: {}) ...", args.numCoordinates, args.seed);
+                fixtures.generate(args.numCoordinates, args.numSourceFiles, args.seed);
+                fixtures.start();
+                var result = runPipeline(workDir, fixtures);
+                report(result);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            FileUtils.deleteQuietly(workDir);
+        }
+    }
+
+    private BenchmarkResult runPipeline(File workDir, FixtureRepository fixtures) {
+        var baseDir = new File(workDir, "base");
+        baseDir.mkdirs();
+        var io = new IoUtilsImpl(baseDir, json, om);
+        var db = new InMemoryMetadataDatabase();
+        var broker = new InMemoryBroker();
+
+        startStages(broker, io, db, fixtures.getUrl(), new File(workDir, "m2"));
+        if (!broker.awaitSubscribers(threads.size(), SUBSCRIPTION_TIMEOUT_MS)) {
+            throw new IllegalStateException("Not all stages have subscribed in time");
+        }
+
+        var crawlerArgs = new MavenCrawlerArgs();
+        crawlerArgs.firstConsideredIndex = 0;
+        var crawler = new IndexProcessor(crawlerArgs, new LocalStore(crawlerArgs, io), new EasyIndexClient(fixtures.getIndexUrl()), broker.connect(STAGE_CRAWLER, json));
+
+        LOG.info("Starting pipeline ...");
+        var startedAt = System.nanoTime();
+        crawler.tryProcessingNextIndices();
+        var isDone = broker.awaitQuiescence(args.timeoutMS);
+        var durationNS = System.nanoTime() - startedAt;
+
+        stopStages(broker);
+        if (!isDone) {
+            throw new IllegalStateException(String.format("Pipeline did not finish within %dms", args.timeoutMS));
+        }
+
+        var result = new BenchmarkResult();
+        result.version = version.get();
+        result.numCoordinates = args.numCoordinates;
+        result.numSourceFiles = args.numSourceFiles;
+        result.seed = args.seed;
+        result.durationMS = durationNS / 1_000_000;
+        result.recordsPerSecond = args.numCoordinates / (durationNS / 1_000_000_000d);
+        result.fileHashes = db.getNumFileHashes();
+        for (var s : broker.getStats()) {
+            result.stages.add(StageResult.of(s));
+        }
+        var sink = result.getStage(STAGE_SWH_INSERTER);
+        result.completed = sink.consumed - sink.errors;
+        return result;
+    }
+
+    private void startStages(InMemoryBroker broker, IoUtils io, InMemoryMetadataDatabase db, String repoUrl, File localRepo) {
+        var pomDb = new BenchmarkPomAnalyzerDatabase(db, json, version);
+
+        start(STAGE_POM_ANALYZER, new PomAnalyzerStage(broker.connect(STAGE_POM_ANALYZER, json), INGEST, POM_ANALYZER, repoUrl, localRepo, modelBuilder, extractor, repo, pomDb,
+                msgs("eu.f4sten.pomanalyzer.Main")));
+        start(STAGE_OPAL, new RelayStage(broker.connect(STAGE_OPAL, json), POM_ANALYZER, TOPIC_OPAL, "/mnt/fasten/revision-callgraphs", //
+                msgs("eu.fasten.analyzer.javacgopal.OPALPlugin$OPAL")));
+        start(STAGE_METADATA_DB, new RelayStage(broker.connect(STAGE_METADATA_DB, json), TOPIC_OPAL, METADATA_DB_JAVA, "/mnt/fasten/global-callgraphs", //
+                msgs("eu.fasten.analyzer.metadataplugin.MetadataDatabaseJavaPlugin")));
+        start(STAGE_CALLABLE_INDEXER, new RelayStage(broker.connect(STAGE_CALLABLE_INDEXER, json), METADATA_DB_JAVA, CALLABLE_INDEXER, "/mnt/fasten/callable-index", //
+                msgs("eu.f4sten.callableindexer.CallableIndexer")));
+
+        var sourcesArgs = new SourcesProviderArgs();
+        var blobs = new BlobStore(new File(io.getBaseFolder(), BlobStore.DEFAULT_FOLDER));
+        var budget = new DiskBudgetManager("sources", 0, metrics);
+        var payloadParsing = new PayloadParsing(new SourcesJarProvider(io, new SourcesDownloader(sourcesArgs), new ExtractionPolicy(sourcesArgs), blobs, budget));
+        start(STAGE_SOURCES_PROVIDER, new eu.f4sten.sourcesprovider.Main(broker.connect(STAGE_SOURCES_PROVIDER, json), sourcesArgs, payloadParsing));
+        start(STAGE_COMPLETION, new eu.f4sten.ingestedartifactcompletion.Main(new IngestedArtifactCompletionArgs(), broker.connect(STAGE_COMPLETION, json), pomDb));
+        start(STAGE_SWH_INSERTER, new eu.f4sten.swhinserter.Main(new SwhInserterArgs(), broker.connect(STAGE_SWH_INSERTER, json), new BenchmarkSwhDatabase(db, io), io,
+                new SwhHashCalculator(), new HashCache(new File(io.getBaseFolder(), HashCache.DEFAULT_FILE))));
+    }
+
+    private MessageGenerator msgs(String plugin) {
+        var runnerArgs = new RunnerArgs();
+        runnerArgs.run = plugin;
+        return new MessageGeneratorImpl(runnerArgs, host, version, metrics);
+    }
+
+    private void start(String name, Runnable stage) {
+        var t = new Thread(() -> {
+            try {
+                stage.run();
+            } catch (BrokerClosedException e) {
+                LOG.debug("Stage {} has been stopped", name);
+            } catch (RuntimeException e) {
+                LOG.error("Stage {} has crashed", name, e);
+            }
+        }, name);
+        t.setDaemon(true);
+        t.start();
+        threads.add(t);
+    }
+
+    private void stopStages(InMemoryBroker broker) {
+        broker.close();
+        for (var t : threads) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void report(BenchmarkResult result) throws IOException {
+        LOG.info("Processed {} coordinates in {}ms ({} records/s, {} completed, {} file hashes)", result.numCoordinates, result.durationMS,
+                String.format("%.2f", result.recordsPerSecond), result.completed, result.fileHashes);
+        for (var s : result.stages) {
+            LOG.info(String.format("%-30s consumed: %6d, published: %6d, errors: %4d, p50: %8.2fms, p99: %8.2fms, queueing p50: %8.2fms, queueing p99: %8.2fms", //
+                    s.name, s.consumed, s.published, s.errors, s.processingP50MS, s.processingP99MS, s.queueingP50MS, s.queueingP99MS));
+        }
+
+        if (args.out != null) {
+            LOG.info("Writing results to {} ...", args.out);
+            FileUtils.writeStringToFile(args.out, json.toJson(result), UTF_8);
+        }
+
+        if (args.baseline != null) {
+            var baseline = json.fromJson(FileUtils.readFileToString(args.baseline, UTF_8), BenchmarkResult.class);
+            var regressions = new BaselineComparison(args.maxRegression).findRegressions(baseline, result);
+            if (!regressions.isEmpty()) {
+                regressions.forEach(r -> LOG.error("Regression: {}", r));
+                throw new IllegalStateException(String.format("Found %d regression(s) against baseline %s (version %s)", regressions.size(), args.baseline, baseline.version));
+            }
+            LOG.info("No regressions found against baseline {} (version {})", args.baseline, baseline.version);
+        }
+    }
+}
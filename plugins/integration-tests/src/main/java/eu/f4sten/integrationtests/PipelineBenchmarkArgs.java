@@ -0,0 +1,44 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.integrationtests;
+
+import java.io.File;
+
+import com.beust.jcommander.Parameter;
+
+public class PipelineBenchmarkArgs {
+
+    @Parameter(names = "--benchmark.numCoordinates", arity = 1)
+    public int numCoordinates = 200;
+
+    @Parameter(names = "--benchmark.numSourceFiles", arity = 1)
+    public int numSourceFiles = 20;
+
+    @Parameter(names = "--benchmark.seed", arity = 1)
+    public long seed = 1234;
+
+    @Parameter(names = "--benchmark.timeoutMS", arity = 1)
+    public long timeoutMS = 1000 * 60 * 10; // 10min
+
+    @Parameter(names = "--benchmark.out", arity = 1)
+    public File out;
+
+    @Parameter(names = "--benchmark.baseline", arity = 1)
+    public File baseline;
+
+    @Parameter(names = "--benchmark.maxRegression", arity = 1)
+    public double maxRegression = 0.1;
+}
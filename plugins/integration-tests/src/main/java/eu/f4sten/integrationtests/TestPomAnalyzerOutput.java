@@ -56,7 +56,9 @@ public class TestPomAnalyzerOutput implements Runnable {
         errs.forEach(m -> {
             System.out.printf("##\n## %s\n##\n", toCoord(m.input), m.error.type);
             System.out.printf("\nError type: %s\n", m.error.type);
-            var msg = m.error.stacktrace.trim();// .replace("\n", "\n| ");
+            var msg = m.error.stacktrace != null //
+                    ? m.error.stacktrace.trim() //
+                    : "(repeated error " + m.error.fingerprint + ")";
             System.out.printf("\n%s\n\n", msg);
         });
 
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.integrationtests;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.c0ps.io.JsonUtils;
+import dev.c0ps.io.TRef;
+import eu.f4sten.infra.kafka.Message;
+import eu.f4sten.integrationtests.benchmark.TimingTrailAggregator;
+import eu.f4sten.integrationtests.utils.Messages;
+import jakarta.inject.Inject;
+
+/**
+ * Reads all topics and reports per-plugin queueing and processing latencies
+ * based on the timing trails of the messages (see --kafka.timingTrail).
+ */
+public class TimingTrailReport implements Runnable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TimingTrailReport.class);
+
+    private final Messages msgs;
+    private final JsonUtils json;
+
+    @Inject
+    public TimingTrailReport(Messages msgs, JsonUtils json) {
+        this.msgs = msgs;
+        this.json = json;
+    }
+
+    @Override
+    public void run() {
+        msgs.collectAll();
+
+        var agg = new TimingTrailAggregator();
+        for (var topic : msgs.topics()) {
+            var trails = msgs.get(topic, (String m) -> {
+                try {
+                    return json.fromJson(m, new TRef<Message<Void, Void>>() {}).trail;
+                } catch (RuntimeException e) {
+                    // not every topic contains messages
+                    LOG.debug("Skipping record in {}: {}", topic, e.getMessage());
+                    return null;
+                }
+            });
+            trails.forEach(agg::add);
+        }
+
+        System.out.printf("%-50s %8s %12s %12s %12s %12s\n", "plugin", "count", "queue p50", "queue p99", "proc p50", "proc p99");
+        for (var plugin : agg.getPlugins()) {
+            var q = agg.getQueueing(plugin);
+            var p = agg.getProcessing(plugin);
+            System.out.printf("%-50s %8d %10.1fms %10.1fms %10.1fms %10.1fms\n", plugin, p.count(), //
+                    q.percentileMs(0.5), q.percentileMs(0.99), p.percentileMs(0.5), p.percentileMs(0.99));
+        }
+    }
+}
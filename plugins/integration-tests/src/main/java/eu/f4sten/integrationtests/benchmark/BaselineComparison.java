@@ -0,0 +1,70 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.integrationtests.benchmark;
+
+import static java.lang.String.format;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares a benchmark run against a baseline. Latencies of fast stages are
+ * noisy, so relative changes are only reported if they also exceed an absolute
+ * minimum.
+ */
+public class BaselineComparison {
+
+    private static final double MIN_ABSOLUTE_DIFF_MS = 1;
+
+    private final double maxRegression;
+
+    public BaselineComparison(double maxRegression) {
+        if (maxRegression < 0) {
+            throw new IllegalArgumentException("max regression must not be negative");
+        }
+        this.maxRegression = maxRegression;
+    }
+
+    public List<String> findRegressions(BenchmarkResult baseline, BenchmarkResult current) {
+        var regressions = new ArrayList<String>();
+        if (current.recordsPerSecond < baseline.recordsPerSecond * (1 - maxRegression)) {
+            regressions.add(format("throughput: %.2f -> %.2f records/s", baseline.recordsPerSecond, current.recordsPerSecond));
+        }
+        if (current.completed < baseline.completed) {
+            regressions.add(format("completed: %d -> %d", baseline.completed, current.completed));
+        }
+        for (var cur : current.stages) {
+            var base = baseline.getStage(cur.name);
+            if (base == null) {
+                continue;
+            }
+            if (cur.errors > base.errors) {
+                regressions.add(format("%s errors: %d -> %d", cur.name, base.errors, cur.errors));
+            }
+            checkLatency(regressions, cur.name + " p50", base.processingP50MS, cur.processingP50MS);
+            checkLatency(regressions, cur.name + " p99", base.processingP99MS, cur.processingP99MS);
+        }
+        return regressions;
+    }
+
+    private void checkLatency(List<String> regressions, String label, double base, double cur) {
+        var isSlower = cur > base * (1 + maxRegression);
+        var isSignificant = cur - base > MIN_ABSOLUTE_DIFF_MS;
+        if (isSlower && isSignificant) {
+            regressions.add(format("%s: %.2fms -> %.2fms", label, base, cur));
+        }
+    }
+}
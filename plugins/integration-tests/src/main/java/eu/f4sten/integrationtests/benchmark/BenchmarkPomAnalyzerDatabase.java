@@ -0,0 +1,57 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.integrationtests.benchmark;
+
+import dev.c0ps.franz.Lane;
+import dev.c0ps.io.JsonUtils;
+import dev.c0ps.maven.data.Pom;
+import eu.f4sten.infra.utils.Version;
+import eu.f4sten.pomanalyzer.utils.DatabaseUtils;
+
+/**
+ * Stand-in for the pom-analyzer database access. Still serializes the same
+ * metadata as the real implementation to keep the CPU cost comparable.
+ */
+public class BenchmarkPomAnalyzerDatabase extends DatabaseUtils {
+
+    private final InMemoryMetadataDatabase db;
+    private final JsonUtils jsonUtils;
+
+    public BenchmarkPomAnalyzerDatabase(InMemoryMetadataDatabase db, JsonUtils jsonUtils, Version version) {
+        super(null, jsonUtils, version);
+        this.db = db;
+        this.jsonUtils = jsonUtils;
+    }
+
+    @Override
+    public void save(Pom result) {
+        jsonUtils.toJson(result);
+        for (var dep : result.dependencies) {
+            jsonUtils.toJson(dep);
+        }
+        db.insertPackageVersion(result.groupId + ":" + result.artifactId, result.version);
+    }
+
+    @Override
+    public void markAsIngestedPackage(String gapv, Lane lane) {
+        db.markAsIngested(gapv + "-" + lane);
+    }
+
+    @Override
+    public boolean hasPackageBeenIngested(String gapv, Lane lane) {
+        return db.isIngested(gapv + "-" + lane);
+    }
+}
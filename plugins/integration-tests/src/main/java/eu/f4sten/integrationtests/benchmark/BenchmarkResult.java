@@ -0,0 +1,77 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.integrationtests.benchmark;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Machine-readable outcome of a benchmark run, meant to be stored along a
+ * release and to be used as the baseline of later runs.
+ */
+public class BenchmarkResult {
+
+    public String version;
+    public Date createdAt = new Date();
+
+    public int numCoordinates;
+    public int numSourceFiles;
+    public long seed;
+
+    public long durationMS;
+    public double recordsPerSecond;
+    /** number of coordinates that made it through all stages */
+    public int completed;
+    public int fileHashes;
+
+    public List<StageResult> stages = new ArrayList<>();
+
+    public StageResult getStage(String name) {
+        for (var s : stages) {
+            if (s.name.equals(name)) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    public static class StageResult {
+
+        public String name;
+        public int consumed;
+        public int published;
+        public int errors;
+
+        public double processingP50MS;
+        public double processingP99MS;
+        public double queueingP50MS;
+        public double queueingP99MS;
+
+        public static StageResult of(StageStats stats) {
+            var r = new StageResult();
+            r.name = stats.name;
+            r.consumed = stats.processing.count();
+            r.published = stats.published.get();
+            r.errors = stats.errors.get();
+            r.processingP50MS = stats.processing.percentileMs(0.5);
+            r.processingP99MS = stats.processing.percentileMs(0.99);
+            r.queueingP50MS = stats.queueing.percentileMs(0.5);
+            r.queueingP99MS = stats.queueing.percentileMs(0.99);
+            return r;
+        }
+    }
+}
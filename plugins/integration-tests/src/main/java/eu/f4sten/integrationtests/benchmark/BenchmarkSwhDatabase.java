@@ -0,0 +1,76 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.integrationtests.benchmark;
+
+import static eu.f4sten.infra.utils.FastenConstants.FORGE_MVN;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import dev.c0ps.io.IoUtils;
+import eu.f4sten.swhinserter.DatabaseUtils;
+
+/**
+ * Stand-in for the swh-inserter database access. The file list of a package
+ * version is taken from the extracted sources, which is what the metadata
+ * database would contain after the ingestion of the package.
+ */
+public class BenchmarkSwhDatabase extends DatabaseUtils {
+
+    private final InMemoryMetadataDatabase db;
+    private final IoUtils io;
+
+    public BenchmarkSwhDatabase(InMemoryMetadataDatabase db, IoUtils io) {
+        super(null);
+        this.db = db;
+        this.io = io;
+    }
+
+    @Override
+    public Long getPkgVersionID(String pkgName, String version) {
+        return db.getPackageVersionId(pkgName, version);
+    }
+
+    @Override
+    public List<String> getFilePaths4PkgVersion(Long pkgVersionID) {
+        var pv = db.getPackageVersion(pkgVersionID);
+        var ga = pv[0].split(":");
+        var g0 = Character.toString(ga[0].charAt(0));
+        var base = Path.of(io.getBaseFolder().getPath(), "sources", FORGE_MVN, g0, ga[0], ga[1], pv[1]);
+        try (var files = Files.walk(base)) {
+            return files.filter(Files::isRegularFile) //
+                    .map(p -> base.relativize(p).toString()) //
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String addFileHash(Long pkgVersionID, String filePath, String fileHash) {
+        db.addFileHash(pkgVersionID, filePath, fileHash);
+        return filePath;
+    }
+
+    @Override
+    public void addPkgVersionMetadata(Long pkgVersionID, String key, String value) {
+        db.addPackageVersionMetadata(pkgVersionID, key, value);
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.integrationtests.benchmark;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.io.FileUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Deterministic corpus of Maven artifacts that is served from localhost in the
+ * layout of a Maven repository. The same seed always generates the same poms,
+ * sources jars, and release dates, so results of different runs stay
+ * comparable. An additional Maven Easy Index is served under {@code /index/}
+ * that lists all generated coordinates in index 0.
+ */
+public class FixtureRepository implements AutoCloseable {
+
+    private static final String INDEX_PATH = "index";
+    private static final int NUM_GROUPS = 10;
+    private static final int MAX_DEPENDENCIES = 3;
+    private static final int MAX_SOURCE_LINES = 200;
+    private static final int NUM_SERVER_THREADS = 4;
+    private static final long FIRST_RELEASE = 1_500_000_000_000L; // 2017-07-14
+    private static final DateTimeFormatter LAST_MODIFIED = DateTimeFormatter.ofPattern("EEE, d MMM yyyy HH:mm:ss Z", Locale.ENGLISH);
+
+    private final File root;
+    private final List<String[]> coordinates = new ArrayList<>();
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+
+    public FixtureRepository(File root) {
+        this.root = root;
+    }
+
+    public List<String[]> getCoordinates() {
+        return coordinates;
+    }
+
+    public String getUrl() {
+        if (server == null) {
+            throw new IllegalStateException("repository has not been started");
+        }
+        var addr = server.getAddress();
+        return String.format("http://%s:%d/", addr.getHostString(), addr.getPort());
+    }
+
+    public String getIndexUrl() {
+        return getUrl() + INDEX_PATH;
+    }
+
+    public void generate(int numCoordinates, int numSourceFiles, long seed) throws IOException {
+        var rnd = new Random(seed);
+        for (var i = 0; i < numCoordinates; i++) {
+            var g = "org.example.bench.g" + (i % NUM_GROUPS);
+            var a = "artifact-" + i;
+            var v = String.format("1.%d.%d", rnd.nextInt(10), rnd.nextInt(10));
+            var releaseDate = FIRST_RELEASE + i * 60_000L;
+            var gav = new String[] { g, a, v };
+
+            var depIdxs = new TreeSet<Integer>();
+            var numDeps = i == 0 ? 0 : rnd.nextInt(MAX_DEPENDENCIES + 1);
+            for (var j = 0; j < numDeps; j++) {
+                depIdxs.add(rnd.nextInt(i));
+            }
+            var deps = new ArrayList<String[]>();
+            for (var idx : depIdxs) {
+                deps.add(coordinates.get(idx));
+            }
+
+            var folder = new File(root, String.join("/", g.replace('.', '/'), a, v));
+            folder.mkdirs();
+            var base = a + "-" + v;
+            writePom(new File(folder, base + ".pom"), gav, deps);
+            writeJar(new File(folder, base + ".jar"), 0, rnd);
+            writeJar(new File(folder, base + "-sources.jar"), numSourceFiles, rnd);
+            for (var f : folder.listFiles()) {
+                f.setLastModified(releaseDate);
+            }
+            coordinates.add(gav);
+        }
+        writeIndex();
+    }
+
+    private static void writePom(File f, String[] gav, List<String[]> deps) throws IOException {
+        var sb = new StringBuilder();
+        sb.append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n");
+        sb.append("  <modelVersion>4.0.0</modelVersion>\n");
+        sb.append("  <groupId>").append(gav[0]).append("</groupId>\n");
+        sb.append("  <artifactId>").append(gav[1]).append("</artifactId>\n");
+        sb.append("  <version>").append(gav[2]).append("</version>\n");
+        sb.append("  <packaging>jar</packaging>\n");
+        sb.append("  <name>Benchmark ").append(gav[1]).append("</name>\n");
+        sb.append("  <scm><url>https://example.org/scm/").append(gav[1]).append("</url></scm>\n");
+        sb.append("  <dependencies>\n");
+        for (var dep : deps) {
+            sb.append("    <dependency>\n");
+            sb.append("      <groupId>").append(dep[0]).append("</groupId>\n");
+            sb.append("      <artifactId>").append(dep[1]).append("</artifactId>\n");
+            sb.append("      <version>").append(dep[2]).append("</version>\n");
+            sb.append("    </dependency>\n");
+        }
+        sb.append("  </dependencies>\n");
+        sb.append("</project>\n");
+        FileUtils.writeStringToFile(f, sb.toString(), UTF_8);
+    }
+
+    private static void writeJar(File f, int numFiles, Random rnd) throws IOException {
+        try (var jar = new JarOutputStream(new FileOutputStream(f))) {
+            for (var i = 0; i < numFiles; i++) {
+                var pkg = "p" + (i % 4);
+                jar.putNextEntry(new ZipEntry(String.format("org/example/%s/C%d.java", pkg, i)));
+                jar.write(source(pkg, i, rnd).getBytes(UTF_8));
+                jar.closeEntry();
+            }
+        }
+    }
+
+    private static String source(String pkg, int idx, Random rnd) {
+        var sb = new StringBuilder();
+        sb.append("package org.example.").append(pkg).append(";\n\n");
+        sb.append("public class C").append(idx).append(" {\n");
+        var numLines = 1 + rnd.nextInt(MAX_SOURCE_LINES);
+        for (var i = 0; i < numLines; i++) {
+            sb.append("    int f").append(i).append(" = ").append(rnd.nextInt()).append(";\n");
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private void writeIndex() throws IOException {
+        var sb = new StringBuilder("[");
+        for (var i = 0; i < coordinates.size(); i++) {
+            var gav = coordinates.get(i);
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(String.format("{\"groupId\":\"%s\",\"artifactId\":\"%s\",\"version\":\"%s\",\"packaging\":\"jar\"}", gav[0], gav[1], gav[2]));
+        }
+        sb.append(']');
+        var index = new File(root, INDEX_PATH);
+        FileUtils.writeStringToFile(new File(index, "exists/0"), "", UTF_8);
+        FileUtils.writeStringToFile(new File(index, "get/0"), sb.toString(), UTF_8);
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serverExecutor = Executors.newFixedThreadPool(NUM_SERVER_THREADS);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    private void handle(HttpExchange x) throws IOException {
+        try {
+            var path = x.getRequestURI().getPath();
+            var f = new File(root, path);
+            var isInside = f.getCanonicalPath().startsWith(root.getCanonicalPath());
+            if (!isInside || !f.exists()) {
+                x.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (f.isDirectory()) {
+                // repository root is checked for existence
+                x.sendResponseHeaders(200, -1);
+                return;
+            }
+            var lastModified = ZonedDateTime.ofInstant(Instant.ofEpochMilli(f.lastModified()), ZoneOffset.UTC);
+            x.getResponseHeaders().add("Last-Modified", LAST_MODIFIED.format(lastModified));
+            var isIndex = path.startsWith("/" + INDEX_PATH + "/");
+            x.getResponseHeaders().add("Content-Type", isIndex ? "application/json" : "application/octet-stream");
+            var hasBody = !"HEAD".equals(x.getRequestMethod()) && f.length() > 0;
+            x.sendResponseHeaders(200, hasBody ? f.length() : -1);
+            if (hasBody) {
+                try (OutputStream os = x.getResponseBody()) {
+                    FileUtils.copyFile(f, os);
+                }
+            }
+        } finally {
+            x.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+            server = null;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.integrationtests.benchmark;
+
+import static eu.f4sten.infra.impl.kafka.FastenKafkaImpl.extension;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import dev.c0ps.franz.Lane;
+import dev.c0ps.io.JsonUtils;
+
+/**
+ * Local stand-in for a Kafka cluster. Every connected client has its own
+ * consumer group, so each subscription receives a copy of every record that is
+ * published in the subscribed topic. Records are transported as JSON to keep
+ * the serialization cost of the real pipeline.
+ */
+public class InMemoryBroker {
+
+    private static final int CHECK_INTERVAL_MS = 10;
+
+    private final Map<String, List<InMemoryKafka>> subscribers = new ConcurrentHashMap<>();
+    private final Set<InMemoryKafka> subscribedClients = ConcurrentHashMap.newKeySet();
+    private final Map<String, StageStats> stats = new LinkedHashMap<>();
+    private final AtomicLong pending = new AtomicLong();
+
+    private volatile boolean isClosed = false;
+
+    public synchronized InMemoryKafka connect(String stage, JsonUtils json) {
+        if (stats.containsKey(stage)) {
+            throw new IllegalArgumentException("stage has already been connected: " + stage);
+        }
+        var s = new StageStats(stage);
+        stats.put(stage, s);
+        return new InMemoryKafka(this, json, s);
+    }
+
+    public synchronized List<StageStats> getStats() {
+        return new ArrayList<>(stats.values());
+    }
+
+    void subscribe(String topic, Lane lane, InMemoryKafka client) {
+        subscribers.computeIfAbsent(topic + extension(lane), t -> new CopyOnWriteArrayList<>()).add(client);
+        subscribedClients.add(client);
+    }
+
+    void publish(String topic, Lane lane, String json) {
+        var clients = subscribers.getOrDefault(topic + extension(lane), List.of());
+        var publishedAt = System.nanoTime();
+        for (var c : clients) {
+            pending.incrementAndGet();
+            c.deliver(new InMemoryKafka.Record(topic, lane, json, publishedAt));
+        }
+    }
+
+    void markProcessed() {
+        pending.decrementAndGet();
+    }
+
+    /**
+     * Waits until the given number of clients has subscribed to at least one
+     * topic, which makes sure that no record is published into the void.
+     */
+    public boolean awaitSubscribers(int numClients, long timeoutMS) {
+        return await(() -> subscribedClients.size() >= numClients, timeoutMS);
+    }
+
+    /**
+     * Waits until all published records have been processed. Records that are
+     * published from a consumer callback are registered before the consumed
+     * record is marked as processed, so the pipeline can only become quiet once
+     * it has been drained completely.
+     */
+    public boolean awaitQuiescence(long timeoutMS) {
+        return await(() -> pending.get() == 0, timeoutMS);
+    }
+
+    private static boolean await(BooleanSupplier condition, long timeoutMS) {
+        var deadline = System.currentTimeMillis() + timeoutMS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(CHECK_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void close() {
+        isClosed = true;
+    }
+
+    public boolean isClosed() {
+        return isClosed;
+    }
+}
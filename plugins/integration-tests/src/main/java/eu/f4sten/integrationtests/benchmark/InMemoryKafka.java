@@ -0,0 +1,187 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.integrationtests.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.c0ps.franz.Kafka;
+import dev.c0ps.franz.Lane;
+import dev.c0ps.io.JsonUtils;
+import dev.c0ps.io.TRef;
+
+/**
+ * {@link Kafka} client of an {@link InMemoryBroker}. Records are processed on
+ * the thread that calls {@link #poll()}, which throws a
+ * {@link BrokerClosedException} once the broker has been closed to terminate
+ * the endless poll loops of the plugins.
+ */
+public class InMemoryKafka implements Kafka {
+
+    private static final Logger LOG = LoggerFactory.getLogger(InMemoryKafka.class);
+    private static final int POLL_TIMEOUT_MS = 50;
+
+    private final InMemoryBroker broker;
+    private final JsonUtils json;
+    private final StageStats stats;
+
+    private final Map<String, Subscription<?>> subscriptions = new HashMap<>();
+    private final BlockingQueue<Record> inbox = new LinkedBlockingQueue<>();
+
+    InMemoryKafka(InMemoryBroker broker, JsonUtils json, StageStats stats) {
+        this.broker = broker;
+        this.json = json;
+        this.stats = stats;
+    }
+
+    @Override
+    public void sendHeartbeat() {
+        // nothing to do
+    }
+
+    @Override
+    public <T> void subscribe(String topic, Class<T> type, BiConsumer<T, Lane> callback) {
+        subscribe(topic, type, callback, null);
+    }
+
+    @Override
+    public <T> void subscribe(String topic, Class<T> type, BiConsumer<T, Lane> callback, BiFunction<T, Throwable, ?> errors) {
+        register(topic, new Subscription<>(s -> json.fromJson(s, type), callback, errors));
+    }
+
+    @Override
+    public <T> void subscribe(String topic, TRef<T> typeRef, BiConsumer<T, Lane> callback) {
+        subscribe(topic, typeRef, callback, null);
+    }
+
+    @Override
+    public <T> void subscribe(String topic, TRef<T> typeRef, BiConsumer<T, Lane> callback, BiFunction<T, Throwable, ?> errors) {
+        register(topic, new Subscription<>(s -> json.fromJson(s, typeRef), callback, errors));
+    }
+
+    private synchronized void register(String topic, Subscription<?> s) {
+        if (subscriptions.containsKey(topic)) {
+            throw new IllegalStateException("already subscribed to " + topic);
+        }
+        subscriptions.put(topic, s);
+        broker.subscribe(topic, Lane.NORMAL, this);
+        broker.subscribe(topic, Lane.PRIORITY, this);
+    }
+
+    @Override
+    public <T> void publish(T obj, String topic, Lane lane) {
+        stats.published.incrementAndGet();
+        if (lane == Lane.ERROR) {
+            stats.errors.incrementAndGet();
+        }
+        broker.publish(topic, lane, json.toJson(obj));
+    }
+
+    void deliver(Record r) {
+        inbox.add(r);
+    }
+
+    @Override
+    public void poll() {
+        if (broker.isClosed()) {
+            throw new BrokerClosedException();
+        }
+        Record r;
+        try {
+            r = inbox.poll(POLL_TIMEOUT_MS, MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BrokerClosedException();
+        }
+        if (r != null) {
+            process(r);
+        }
+    }
+
+    private void process(Record r) {
+        var startedAt = System.nanoTime();
+        stats.queueing.add(startedAt - r.publishedAt);
+        try {
+            subscriptions.get(r.topic).consume(r.json, r.lane);
+        } catch (RuntimeException e) {
+            stats.errors.incrementAndGet();
+            LOG.warn("Stage {} failed to process record from {}", stats.name, r.topic, e);
+        } finally {
+            stats.processing.add(System.nanoTime() - startedAt);
+            broker.markProcessed();
+        }
+    }
+
+    @Override
+    public void commit() {
+        // records are acknowledged when processing finishes
+    }
+
+    @Override
+    public void stop() {
+        LOG.info("Stopping stage {} ...", stats.name);
+    }
+
+    static class Record {
+
+        final String topic;
+        final Lane lane;
+        final String json;
+        final long publishedAt;
+
+        Record(String topic, Lane lane, String json, long publishedAt) {
+            this.topic = topic;
+            this.lane = lane;
+            this.json = json;
+            this.publishedAt = publishedAt;
+        }
+    }
+
+    private static class Subscription<T> {
+
+        private final Function<String, T> decoder;
+        private final BiConsumer<T, Lane> callback;
+        private final BiFunction<T, Throwable, ?> errors;
+
+        Subscription(Function<String, T> decoder, BiConsumer<T, Lane> callback, BiFunction<T, Throwable, ?> errors) {
+            this.decoder = decoder;
+            this.callback = callback;
+            this.errors = errors;
+        }
+
+        void consume(String json, Lane lane) {
+            var obj = decoder.apply(json);
+            try {
+                callback.accept(obj, lane);
+            } catch (RuntimeException e) {
+                if (errors == null) {
+                    throw e;
+                }
+                errors.apply(obj, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.integrationtests.benchmark;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared state of the database stand-ins, replaces the metadata database of a
+ * real deployment.
+ */
+public class InMemoryMetadataDatabase {
+
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final Map<String, Long> packageVersions = new ConcurrentHashMap<>();
+    private final Map<Long, String[]> packageVersionsById = new ConcurrentHashMap<>();
+    private final Map<String, String> fileHashes = new ConcurrentHashMap<>();
+    private final Map<String, String> packageVersionMetadata = new ConcurrentHashMap<>();
+    private final Set<String> ingestedArtifacts = ConcurrentHashMap.newKeySet();
+
+    public long insertPackageVersion(String product, String version) {
+        return packageVersions.computeIfAbsent(key(product, version), k -> {
+            var id = nextId.getAndIncrement();
+            packageVersionsById.put(id, new String[] { product, version });
+            return id;
+        });
+    }
+
+    public Long getPackageVersionId(String product, String version) {
+        return packageVersions.get(key(product, version));
+    }
+
+    /**
+     * @return tuple of product and version, null for unknown ids
+     */
+    public String[] getPackageVersion(long id) {
+        return packageVersionsById.get(id);
+    }
+
+    public void addFileHash(long packageVersionId, String path, String hash) {
+        fileHashes.put(packageVersionId + "/" + path, hash);
+    }
+
+    public int getNumFileHashes() {
+        return fileHashes.size();
+    }
+
+    public void addPackageVersionMetadata(long packageVersionId, String key, String value) {
+        packageVersionMetadata.put(packageVersionId + "/" + key, value);
+    }
+
+    public String getPackageVersionMetadata(long packageVersionId, String key) {
+        return packageVersionMetadata.get(packageVersionId + "/" + key);
+    }
+
+    public void markAsIngested(String key) {
+        ingestedArtifacts.add(key);
+    }
+
+    public boolean isIngested(String key) {
+        return ingestedArtifacts.contains(key);
+    }
+
+    public int getNumIngested() {
+        return ingestedArtifacts.size();
+    }
+
+    private static String key(String product, String version) {
+        return product + "@" + version;
+    }
+}
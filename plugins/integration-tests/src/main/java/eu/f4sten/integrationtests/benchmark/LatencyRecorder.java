@@ -0,0 +1,53 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.integrationtests.benchmark;
+
+import java.util.Arrays;
+
+public class LatencyRecorder {
+
+    private static final double NANOS_PER_MS = 1_000_000d;
+
+    private long[] values = new long[1024];
+    private int size = 0;
+
+    public synchronized void add(long nanos) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = nanos;
+    }
+
+    public synchronized int count() {
+        return size;
+    }
+
+    /**
+     * nearest-rank percentile in milliseconds, 0 if nothing has been recorded
+     */
+    public synchronized double percentileMs(double p) {
+        if (p <= 0 || p > 1) {
+            throw new IllegalArgumentException("percentile must be in (0, 1]");
+        }
+        if (size == 0) {
+            return 0;
+        }
+        var sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        var rank = (int) Math.ceil(p * size);
+        return sorted[Math.max(0, rank - 1)] / NANOS_PER_MS;
+    }
+}
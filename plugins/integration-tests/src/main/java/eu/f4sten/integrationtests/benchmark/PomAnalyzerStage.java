@@ -0,0 +1,123 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.integrationtests.benchmark;
+
+import static eu.f4sten.pomanalyzer.data.Coordinates.toCoordinate;
+import static eu.f4sten.pomanalyzer.utils.MavenRepositoryUtils.checkGetRequest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.Date;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.c0ps.franz.Kafka;
+import dev.c0ps.franz.Lane;
+import dev.c0ps.maven.PomExtractor;
+import dev.c0ps.maveneasyindex.Artifact;
+import eu.f4sten.infra.kafka.MessageGenerator;
+import eu.f4sten.pomanalyzer.utils.DatabaseUtils;
+import eu.f4sten.pomanalyzer.utils.EffectiveModelBuilder;
+import eu.f4sten.pomanalyzer.utils.MavenRepositoryUtils;
+
+/**
+ * Stand-in for the pom-analyzer that processes a single coordinate with the
+ * same building blocks as {@link eu.f4sten.pomanalyzer.Main}, but without
+ * dependency resolution, throttling, and retry tracking, which would all
+ * require network access or a database.
+ */
+public class PomAnalyzerStage implements Runnable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PomAnalyzerStage.class);
+
+    private final Kafka kafka;
+    private final String kafkaIn;
+    private final String kafkaOut;
+    private final String repoUrl;
+    private final File localRepo;
+
+    private final EffectiveModelBuilder modelBuilder;
+    private final PomExtractor extractor;
+    private final MavenRepositoryUtils repo;
+    private final DatabaseUtils db;
+    private final MessageGenerator msgs;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    public PomAnalyzerStage(Kafka kafka, String kafkaIn, String kafkaOut, String repoUrl, File localRepo, EffectiveModelBuilder modelBuilder, PomExtractor extractor,
+            MavenRepositoryUtils repo, DatabaseUtils db, MessageGenerator msgs) {
+        this.kafka = kafka;
+        this.kafkaIn = kafkaIn;
+        this.kafkaOut = kafkaOut;
+        this.repoUrl = repoUrl;
+        this.localRepo = localRepo;
+        this.modelBuilder = modelBuilder;
+        this.extractor = extractor;
+        this.repo = repo;
+        this.db = db;
+        this.msgs = msgs;
+    }
+
+    @Override
+    public void run() {
+        try {
+            kafka.subscribe(kafkaIn, Artifact.class, this::consume);
+            while (true) {
+                kafka.poll();
+            }
+        } finally {
+            kafka.stop();
+        }
+    }
+
+    private void consume(Artifact a, Lane lane) {
+        var consumedAt = new Date();
+        try {
+            var pomFile = download(a);
+            var m = modelBuilder.buildEffectiveModel(pomFile);
+            var result = extractor.process(m);
+            result.artifactRepository = checkGetRequest(repoUrl).url;
+            result.sourcesUrl = repo.getSourceUrlIfExisting(result.pom());
+            result.releaseDate = repo.getReleaseDate(result.pom());
+
+            var pom = result.pom();
+            db.save(pom);
+            var msg = msgs.getStd(pom);
+            msg.consumedAt = consumedAt;
+            kafka.publish(msg, kafkaOut, lane);
+        } catch (Exception e) {
+            LOG.warn("Execution failed for {}", toCoordinate(a), e);
+            kafka.publish(msgs.getErr(a, e), kafkaOut, Lane.ERROR);
+        }
+    }
+
+    private File download(Artifact a) throws IOException, InterruptedException {
+        var path = String.format("%s/%s/%s/%s-%s.pom", a.groupId.replace('.', '/'), a.artifactId, a.version, a.artifactId, a.version);
+        var f = new File(localRepo, path);
+        f.getParentFile().mkdirs();
+        var req = HttpRequest.newBuilder().GET().uri(URI.create(repoUrl + path)).build();
+        var res = http.send(req, BodyHandlers.ofFile(f.toPath()));
+        if (res.statusCode() != 200) {
+            throw new IllegalStateException(String.format("Cannot download %s (status %d)", path, res.statusCode()));
+        }
+        return f;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.integrationtests.benchmark;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import dev.c0ps.franz.Kafka;
+import dev.c0ps.franz.Lane;
+import eu.f4sten.infra.kafka.MessageGenerator;
+
+/**
+ * Stand-in for analyses that are not part of this repository (e.g., OPAL or
+ * the metadata database plugin). The stage wraps every input into a new
+ * message, so downstream plugins see the same message nesting as in
+ * production.
+ */
+public class RelayStage implements Runnable {
+
+    private final Kafka kafka;
+    private final String kafkaIn;
+    private final String kafkaOut;
+    private final String outDir;
+    private final MessageGenerator msgs;
+
+    private int count = 0;
+
+    public RelayStage(Kafka kafka, String kafkaIn, String kafkaOut, String outDir, MessageGenerator msgs) {
+        this.kafka = kafka;
+        this.kafkaIn = kafkaIn;
+        this.kafkaOut = kafkaOut;
+        this.outDir = outDir;
+        this.msgs = msgs;
+    }
+
+    @Override
+    public void run() {
+        try {
+            kafka.subscribe(kafkaIn, LinkedHashMap.class, this::consume);
+            while (true) {
+                kafka.poll();
+            }
+        } finally {
+            kafka.stop();
+        }
+    }
+
+    private void consume(LinkedHashMap<?, ?> input, Lane lane) {
+        var consumedAt = new Date();
+        var msg = msgs.getStd(input, Map.of("dir", outDir + "/" + count++));
+        msg.consumedAt = consumedAt;
+        kafka.publish(msg, kafkaOut, lane);
+    }
+}
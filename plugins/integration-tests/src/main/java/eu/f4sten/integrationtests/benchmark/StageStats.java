@@ -0,0 +1,35 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.integrationtests.benchmark;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class StageStats {
+
+    public final String name;
+
+    /** time between publication of a record and the start of its processing */
+    public final LatencyRecorder queueing = new LatencyRecorder();
+    /** time spent in the consumer callback */
+    public final LatencyRecorder processing = new LatencyRecorder();
+
+    public final AtomicInteger published = new AtomicInteger();
+    public final AtomicInteger errors = new AtomicInteger();
+
+    public StageStats(String name) {
+        this.name = name;
+    }
+}
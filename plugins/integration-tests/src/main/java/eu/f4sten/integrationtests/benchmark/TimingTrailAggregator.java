@@ -0,0 +1,82 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.integrationtests.benchmark;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import eu.f4sten.infra.kafka.Message.Hop;
+
+/**
+ * Splits the latency of each plugin into the time that a record has been
+ * waiting in the queue (consumption minus publication of the previous hop) and
+ * the time spent processing it. Downstream messages repeat the hops of their
+ * predecessors, so every hop is only counted once.
+ */
+public class TimingTrailAggregator {
+
+    private static final long NANOS_PER_MS = 1_000_000L;
+
+    private final Set<String> seen = new HashSet<>();
+    private final Map<String, LatencyRecorder> queueing = new TreeMap<>();
+    private final Map<String, LatencyRecorder> processing = new TreeMap<>();
+
+    public void add(List<Hop> trail) {
+        if (trail == null) {
+            return;
+        }
+        Hop prev = null;
+        for (var hop : trail) {
+            if (seen.add(key(hop))) {
+                if (prev != null && hop.consumedAt != null) {
+                    // clocks of different hosts can be slightly skewed
+                    var waited = Math.max(0, hop.consumedAt - prev.publishedAt);
+                    recorder(queueing, hop.plugin).add(waited * NANOS_PER_MS);
+                }
+                if (hop.durationMs != null) {
+                    recorder(processing, hop.plugin).add(hop.durationMs * NANOS_PER_MS);
+                }
+            }
+            prev = hop;
+        }
+    }
+
+    public Set<String> getPlugins() {
+        var plugins = new TreeSet<String>(queueing.keySet());
+        plugins.addAll(processing.keySet());
+        return plugins;
+    }
+
+    public LatencyRecorder getQueueing(String plugin) {
+        return queueing.getOrDefault(plugin, new LatencyRecorder());
+    }
+
+    public LatencyRecorder getProcessing(String plugin) {
+        return processing.getOrDefault(plugin, new LatencyRecorder());
+    }
+
+    private static LatencyRecorder recorder(Map<String, LatencyRecorder> recorders, String plugin) {
+        return recorders.computeIfAbsent(plugin, p -> new LatencyRecorder());
+    }
+
+    private static String key(Hop hop) {
+        return hop.plugin + "@" + hop.consumedAt + "-" + hop.publishedAt;
+    }
+}
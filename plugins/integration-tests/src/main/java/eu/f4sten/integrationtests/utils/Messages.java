@@ -17,6 +17,7 @@ package eu.f4sten.integrationtests.utils;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.google.common.base.Function;
@@ -57,7 +58,10 @@ public class Messages {
     }
 
     public <T> List<T> get(String baseTopic, Lane lane, Function<String, T> fun) {
-        var topic = topic(baseTopic, lane);
+        return get(topic(baseTopic, lane), fun);
+    }
+
+    public <T> List<T> get(String topic, Function<String, T> fun) {
         if (!msgsByTopic.containsKey(topic)) {
             return List.of();
         }
@@ -66,6 +70,10 @@ public class Messages {
                 .collect(Collectors.toList());
     }
 
+    public Set<String> topics() {
+        return msgsByTopic.keySet();
+    }
+
     public String topic(String baseTopic, Lane l) {
         return String.format("%s%s", baseTopic, FastenKafkaImpl.extension(l));
     }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.integrationtests.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import eu.f4sten.integrationtests.benchmark.BenchmarkResult.StageResult;
+
+public class BaselineComparisonTest {
+
+    private BaselineComparison sut;
+
+    @BeforeEach
+    public void setup() {
+        sut = new BaselineComparison(0.1);
+    }
+
+    @Test
+    public void noRegressionForIdenticalResults() {
+        assertTrue(sut.findRegressions(result(100, 10, 0), result(100, 10, 0)).isEmpty());
+    }
+
+    @Test
+    public void toleratesSmallChanges() {
+        assertTrue(sut.findRegressions(result(100, 10, 0), result(95, 10.5, 0)).isEmpty());
+    }
+
+    @Test
+    public void throughputRegression() {
+        var actual = sut.findRegressions(result(100, 10, 0), result(80, 10, 0));
+        assertEquals(List.of("throughput: 100.00 -> 80.00 records/s"), actual);
+    }
+
+    @Test
+    public void latencyRegression() {
+        var actual = sut.findRegressions(result(100, 10, 0), result(100, 20, 0));
+        assertEquals(List.of("a p50: 10.00ms -> 20.00ms", "a p99: 10.00ms -> 20.00ms"), actual);
+    }
+
+    @Test
+    public void insignificantLatencyChangesAreIgnored() {
+        assertTrue(sut.findRegressions(result(100, 0.1, 0), result(100, 0.5, 0)).isEmpty());
+    }
+
+    @Test
+    public void errorRegression() {
+        var actual = sut.findRegressions(result(100, 10, 0), result(100, 10, 2));
+        assertEquals(List.of("a errors: 0 -> 2"), actual);
+    }
+
+    @Test
+    public void unknownStagesAreIgnored() {
+        var current = result(100, 10, 0);
+        current.stages.get(0).name = "b";
+        assertTrue(sut.findRegressions(result(100, 10, 0), current).isEmpty());
+    }
+
+    private static BenchmarkResult result(double rps, double latencyMS, int errors) {
+        var s = new StageResult();
+        s.name = "a";
+        s.errors = errors;
+        s.processingP50MS = latencyMS;
+        s.processingP99MS = latencyMS;
+
+        var r = new BenchmarkResult();
+        r.recordsPerSecond = rps;
+        r.stages.add(s);
+        return r;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.integrationtests.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LatencyRecorderTest {
+
+    private static final long MS = 1_000_000;
+
+    private LatencyRecorder sut;
+
+    @BeforeEach
+    public void setup() {
+        sut = new LatencyRecorder();
+    }
+
+    @Test
+    public void emptyRecorder() {
+        assertEquals(0, sut.count());
+        assertEquals(0, sut.percentileMs(0.5));
+    }
+
+    @Test
+    public void nearestRank() {
+        for (var i = 100; i > 0; i--) {
+            sut.add(i * MS);
+        }
+        assertEquals(100, sut.count());
+        assertEquals(50, sut.percentileMs(0.5));
+        assertEquals(99, sut.percentileMs(0.99));
+        assertEquals(100, sut.percentileMs(1));
+    }
+
+    @Test
+    public void growsBeyondInitialCapacity() {
+        for (var i = 0; i < 5000; i++) {
+            sut.add(MS);
+        }
+        assertEquals(5000, sut.count());
+        assertEquals(1, sut.percentileMs(0.99));
+    }
+
+    @Test
+    public void invalidPercentile() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            sut.percentileMs(0);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            sut.percentileMs(1.1);
+        });
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.integrationtests.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import eu.f4sten.infra.kafka.Message.Hop;
+
+public class TimingTrailAggregatorTest {
+
+    private TimingTrailAggregator sut;
+
+    @BeforeEach
+    public void setup() {
+        sut = new TimingTrailAggregator();
+    }
+
+    @Test
+    public void emptyAggregator() {
+        sut.add(null);
+        assertEquals(Set.of(), sut.getPlugins());
+        assertEquals(0, sut.getProcessing("a").count());
+    }
+
+    @Test
+    public void queueingAndProcessingAreSeparated() {
+        sut.add(List.of(hop("a", null, 10), hop("b", 15L, 20), hop("c", 50L, 80)));
+
+        assertEquals(Set.of("b", "c"), sut.getPlugins());
+        assertEquals(5, sut.getQueueing("b").percentileMs(1));
+        assertEquals(5, sut.getProcessing("b").percentileMs(1));
+        assertEquals(30, sut.getQueueing("c").percentileMs(1));
+        assertEquals(30, sut.getProcessing("c").percentileMs(1));
+    }
+
+    @Test
+    public void repeatedHopsAreCountedOnce() {
+        sut.add(List.of(hop("a", 1L, 2)));
+        sut.add(List.of(hop("a", 1L, 2), hop("b", 3L, 4)));
+        sut.add(List.of(hop("a", 1L, 2), hop("b", 3L, 4), hop("c", 5L, 6)));
+
+        assertEquals(1, sut.getProcessing("a").count());
+        assertEquals(0, sut.getQueueing("a").count());
+        assertEquals(1, sut.getProcessing("b").count());
+        assertEquals(1, sut.getQueueing("b").count());
+        assertEquals(1, sut.getProcessing("c").count());
+    }
+
+    @Test
+    public void negativeQueueingFromClockSkewIsIgnored() {
+        sut.add(List.of(hop("a", 1L, 20), hop("b", 15L, 30)));
+        assertEquals(0, sut.getQueueing("b").percentileMs(1));
+    }
+
+    private static Hop hop(String plugin, Long consumedAt, long publishedAt) {
+        var h = new Hop();
+        h.plugin = plugin;
+        h.consumedAt = consumedAt;
+        h.publishedAt = publishedAt;
+        h.durationMs = consumedAt == null ? null : publishedAt - consumedAt;
+        return h;
+    }
+}
@@ -38,6 +38,9 @@ import dev.c0ps.maven.PomExtractor;
 import dev.c0ps.maven.data.Pom;
 import dev.c0ps.maveneasyindex.Artifact;
 import eu.f4sten.infra.kafka.MessageGenerator;
+import eu.f4sten.infra.metrics.Metrics;
+import eu.f4sten.infra.metrics.Timer;
+import eu.f4sten.infra.utils.DiskBudgetManager;
 import eu.f4sten.pomanalyzer.data.ResolutionResult;
 import eu.f4sten.pomanalyzer.exceptions.ExecutionTimeoutError;
 import eu.f4sten.pomanalyzer.exceptions.NoArtifactRepositoryException;
@@ -52,7 +55,9 @@ import jakarta.inject.Inject;
 public class Main implements Runnable {
 
     private static final Logger LOG = LoggerFactory.getLogger(Main.class);
-    private static final ExecutorService EXEC = Executors.newSingleThreadExecutor();
+    // fixed pool (instead of single thread executor) to expose the queue in the metrics
+    private static final ExecutorService EXEC = Executors.newFixedThreadPool(1);
+    private static final String STEP_TIMER = "f4sten_pomanalyzer_step_seconds";
 
     private static final int EXEC_DELAY_MS = 250;
     private static final int EXECUTION_TIMEOUT_MS = 1000 * 60 * 10; // 10min
@@ -67,12 +72,19 @@ public class Main implements Runnable {
     private final PomAnalyzerArgs args;
     private final MessageGenerator msgs;
     private final PackagingFixer fixer;
+    private final Metrics metrics;
+    private final DiskBudgetManager m2Budget;
+
+    private final Timer resolveTimer;
+    private final Timer buildTimer;
+    private final Timer extractTimer;
+    private final Timer storeTimer;
 
     private final Date startedAt = new Date();
 
     @Inject
     public Main(ProgressTracker tracker, MavenRepositoryUtils repo, EffectiveModelBuilder modelBuilder, PomExtractor extractor, DatabaseUtils db, Resolver resolver, Kafka kafka, PomAnalyzerArgs args,
-            MessageGenerator msgs, PackagingFixer fixer) {
+            MessageGenerator msgs, PackagingFixer fixer, Metrics metrics, DiskBudgetManager m2Budget) {
         this.tracker = tracker;
         this.repo = repo;
         this.modelBuilder = modelBuilder;
@@ -83,6 +95,14 @@ public class Main implements Runnable {
         this.args = args;
         this.msgs = msgs;
         this.fixer = fixer;
+        this.metrics = metrics;
+        this.m2Budget = m2Budget;
+
+        var help = "Duration of the processing steps";
+        this.resolveTimer = metrics.timer(STEP_TIMER, help, "step", "resolve");
+        this.buildTimer = metrics.timer(STEP_TIMER, help, "step", "build");
+        this.extractTimer = metrics.timer(STEP_TIMER, help, "step", "extract");
+        this.storeTimer = metrics.timer(STEP_TIMER, help, "step", "store");
     }
 
     @Override
@@ -92,6 +112,8 @@ public class Main implements Runnable {
                     .notNull(a -> a.kafkaIn, "kafka input topic") //
                     .notNull(a -> a.kafkaOut, "kafka output topic");
 
+            metrics.monitor("pomanalyzer", EXEC);
+
             LOG.info("Subscribing to '{}', will publish in '{}' ...", args.kafkaIn, args.kafkaOut);
             kafka.subscribe(args.kafkaIn, Artifact.class, this::consumeWithTimeout);
             while (true) {
@@ -107,12 +129,13 @@ public class Main implements Runnable {
         LOG.info("Consuming next {} record {} ...", lane, toCoordinate(id));
         var artifact = bootstrapFirstResolutionResultFromInput(id);
 
-        var future = EXEC.submit(() -> {
+        // results are published on the executor, which needs the consumption time of the record
+        var future = EXEC.submit(msgs.bindConsumption(() -> {
             tracker.startNextOriginal(id);
             tracker.registerRetry(artifact, lane);
             runAndCatch(artifact, lane);
             tracker.pruneRetries(artifact, lane);
-        });
+        }));
 
         try {
             future.get(EXECUTION_TIMEOUT_MS, TimeUnit.MILLISECONDS);
@@ -158,6 +181,13 @@ public class Main implements Runnable {
     }
 
     private void process(ResolutionResult artifact, Lane lane) {
+        // the .m2 folder of the artifact (and of its dependencies) is used until all are processed
+        try (var lease = m2Budget.acquire(artifact.localPomFile.getParentFile())) {
+            processInUse(artifact, lane);
+        }
+    }
+
+    private void processInUse(ResolutionResult artifact, Lane lane) {
         var duration = Duration.between(startedAt.toInstant(), new Date().toInstant());
         var msg = "Processing {} ... (dependency of: {}, started at: {}, running for: {})";
         LOG.info(msg, artifact.coordinate, toCoordinate(tracker.getCurrentOriginal()), startedAt, duration);
@@ -165,13 +195,15 @@ public class Main implements Runnable {
 
         var consumedAt = new Date();
         kafka.sendHeartbeat();
-        resolver.resolveIfNotExisting(artifact);
+        resolveTimer.time(() -> {
+            resolver.resolveIfNotExisting(artifact);
+        });
 
         // merge pom with all its parents and resolve properties
-        var m = modelBuilder.buildEffectiveModel(artifact.localPomFile);
+        var m = buildTimer.time(() -> modelBuilder.buildEffectiveModel(artifact.localPomFile));
 
         // extract details
-        var result = extractor.process(m);
+        var result = extractTimer.time(() -> extractor.process(m));
 
         // some artifact repos return redirects (e.g., HTTPS), use targets instead
         result.artifactRepository = checkGetRequest(artifact.artifactRepository).url;
@@ -184,7 +216,9 @@ public class Main implements Runnable {
         result.sourcesUrl = repo.getSourceUrlIfExisting(result.pom());
         result.releaseDate = repo.getReleaseDate(result.pom());
 
-        store(result.pom(), lane, consumedAt);
+        storeTimer.time(() -> {
+            store(result.pom(), lane, consumedAt);
+        });
 
         // for performance (and to prevent cycles), remember visited coordinates in-mem
         tracker.markCompletionInMem(artifact.coordinate, lane);
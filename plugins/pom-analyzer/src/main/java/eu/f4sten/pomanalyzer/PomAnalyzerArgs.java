@@ -26,4 +26,7 @@ public class PomAnalyzerArgs {
 
     @Parameter(names = "--pomanalyzer.kafkaOut", arity = 1)
     public String kafkaOut = DefaultTopics.POM_ANALYZER;
+
+    @Parameter(names = "--pomanalyzer.m2BudgetMB", arity = 1, description = "Max. size of the local .m2 repository (MB), least recently used versions are evicted (0: unlimited)")
+    public long m2BudgetMB = 0;
 }
\ No newline at end of file
@@ -15,17 +15,26 @@
  */
 package eu.f4sten.pomanalyzer;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import org.jooq.SQLDialect;
 import org.jooq.impl.DSL;
 
 import com.google.inject.Provides;
+import com.google.inject.Singleton;
 
 import dev.c0ps.diapper.InjectorConfig;
 import dev.c0ps.diapper.InjectorConfigBase;
 import dev.c0ps.io.JsonUtils;
+import eu.f4sten.infra.metrics.Metrics;
+import eu.f4sten.infra.utils.DiskBudgetManager;
 import eu.f4sten.infra.utils.PostgresConnector;
 import eu.f4sten.infra.utils.Version;
 import eu.f4sten.pomanalyzer.utils.DatabaseUtils;
+import eu.f4sten.pomanalyzer.utils.EffectiveModelBuilder;
 
 @InjectorConfig
 public class PomAnalyzerInjectorConfig extends InjectorConfigBase {
@@ -47,4 +56,21 @@ public class PomAnalyzerInjectorConfig extends InjectorConfigBase {
         var dslContext = DSL.using(c, SQLDialect.POSTGRES);
         return new DatabaseUtils(dslContext, json, version);
     }
+
+    @Provides
+    @Singleton
+    public DiskBudgetManager provideDiskBudgetManager(Metrics metrics) {
+        var budget = new DiskBudgetManager("m2", args.m2BudgetMB * 1024 * 1024, metrics);
+        // one directory per version: <groupId as path>/<artifactId>/<version>/*.pom
+        budget.scan(EffectiveModelBuilder.LOCAL_M2, PomAnalyzerInjectorConfig::containsPom);
+        return budget;
+    }
+
+    private static boolean containsPom(Path dir) {
+        try (var files = Files.list(dir)) {
+            return files.anyMatch(f -> f.getFileName().toString().endsWith(".pom"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
\ No newline at end of file
@@ -15,7 +15,9 @@
  */
 package eu.f4sten.pomanalyzer;
 
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -23,6 +25,9 @@ import org.junit.jupiter.api.Test;
 import dev.c0ps.franz.Kafka;
 import dev.c0ps.maven.PomExtractor;
 import eu.f4sten.infra.kafka.MessageGenerator;
+import eu.f4sten.infra.metrics.Metrics;
+import eu.f4sten.infra.metrics.Timer;
+import eu.f4sten.infra.utils.DiskBudgetManager;
 import eu.f4sten.pomanalyzer.utils.DatabaseUtils;
 import eu.f4sten.pomanalyzer.utils.EffectiveModelBuilder;
 import eu.f4sten.pomanalyzer.utils.MavenRepositoryUtils;
@@ -41,6 +46,8 @@ public class MainTest {
     private PomAnalyzerArgs args;
     private MessageGenerator msgs;
     private PackagingFixer fixer;
+    private Metrics metrics;
+    private DiskBudgetManager m2Budget;
 
     private Main sut;
     private ProgressTracker tracker;
@@ -57,8 +64,13 @@ public class MainTest {
         args = new PomAnalyzerArgs();
         msgs = mock(MessageGenerator.class);
         fixer = mock(PackagingFixer.class);
+        metrics = mock(Metrics.class);
+        // steps are run through the timers, so these have to be functional
+        when(metrics.timer(anyString(), anyString(), anyString(), anyString())).thenAnswer(i -> new TestTimer());
 
-        sut = new Main(tracker, repo, modelBuilder, extractor, db, resolver, kafka, args, msgs, fixer);
+        m2Budget = mock(DiskBudgetManager.class);
+
+        sut = new Main(tracker, repo, modelBuilder, extractor, db, resolver, kafka, args, msgs, fixer, metrics, m2Budget);
 
 //        when(extractor.process(eq(null))).thenReturn(new Pom());
 //        when(extractor.process(any(Model.class))).thenReturn(new Pom());
@@ -73,4 +85,19 @@ public class MainTest {
     }
 
     // TODO extend test suite, right now this is only a stub for easy debugging
+
+    private static class TestTimer implements Timer {
+
+        private long count;
+
+        @Override
+        public void record(long nanos) {
+            count++;
+        }
+
+        @Override
+        public long count() {
+            return count;
+        }
+    }
 }
\ No newline at end of file
@@ -15,7 +15,13 @@
  */
 package eu.f4sten.sourcesprovider;
 
-import java.util.LinkedHashMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -24,6 +30,8 @@ import org.slf4j.LoggerFactory;
 import dev.c0ps.diapper.AssertArgs;
 import dev.c0ps.franz.Kafka;
 import dev.c0ps.franz.Lane;
+import eu.f4sten.infra.json.LazyMessage;
+import eu.f4sten.sourcesprovider.data.SourcePayload;
 import eu.f4sten.sourcesprovider.utils.PayloadParsing;
 import jakarta.inject.Inject;
 
@@ -33,40 +41,101 @@ public class Main implements Runnable {
     private final Kafka kafka;
     private final SourcesProviderArgs args;
     private final PayloadParsing payloadParser;
+    private final ExecutorService exec;
+
+    // records of the current poll, in the order in which they have been consumed
+    private final List<PendingRecord> pending = new ArrayList<>();
 
     @Inject
     public Main(Kafka kafka, SourcesProviderArgs args, PayloadParsing payloadParser) {
         this.kafka = kafka;
         this.args = args;
         this.payloadParser = payloadParser;
-        AssertArgs.assertFor(args).notNull(a -> a.kafkaIn, "kafka in").notNull(a -> a.kafkaOut, "kafka out");
+        AssertArgs.assertFor(args) //
+                .notNull(a -> a.kafkaIn, "kafka in") //
+                .notNull(a -> a.kafkaOut, "kafka out") //
+                .that(a -> a.downloadThreads > 0, "download threads must be positive") //
+                .that(a -> a.downloadsPerHost > 0, "downloads per host must be positive");
+        this.exec = Executors.newFixedThreadPool(args.downloadThreads);
     }
 
     @Override
     public void run() {
         try {
             LOG.info("Subscribing to '{}', will publish in '{}' ...", args.kafkaIn, args.kafkaOut);
-            kafka.subscribe(args.kafkaIn, LinkedHashMap.class, this::consume);
+            kafka.subscribe(args.kafkaIn, LazyMessage.class, this::consume);
             while (true) {
                 LOG.debug("Polling ...");
                 kafka.poll();
+                publishPending();
             }
         } finally {
+            exec.shutdownNow();
             kafka.stop();
         }
     }
 
-    private void consume(LinkedHashMap<String, String> message, Lane lane) {
-        var json = new JSONObject(message);
-        LOG.info("Consuming next {} record {} ...", lane, json);
-        var sourcePayload = payloadParser.findSourcePayload(json);
-        if (sourcePayload != null) {
-            kafka.publish(sourcePayload, args.kafkaOut, lane);
-        } else {
+    // downloads run in the background, the results are published once all records of the poll are done
+    void consume(LazyMessage message, Lane lane) {
+        LOG.info("Consuming next {} record ...", lane);
+        pending.add(new PendingRecord(message, lane, exec.submit(() -> payloadParser.findSourcePayload(message))));
+    }
+
+    /**
+     * Waits for the downloads of all consumed records and publishes the results in
+     * consumption order. As the next poll only happens afterwards, no record is
+     * committed before its sources have been extracted.
+     */
+    void publishPending() {
+        try {
+            for (var r : pending) {
+                publish(r);
+            }
+        } finally {
+            pending.clear();
+        }
+    }
+
+    private void publish(PendingRecord r) {
+        try {
+            var sourcePayload = r.result.get();
+            if (sourcePayload != null) {
+                kafka.publish(sourcePayload, args.kafkaOut, r.lane);
+            } else {
+                var input = toJson(r.message);
+                var errorMessage = new JSONObject();
+                errorMessage.put("Could not parse source payload for input", input);
+                kafka.publish(errorMessage, args.kafkaOut, Lane.ERROR);
+                LOG.error("Could not parse source payload on {} for record {} ...", r.lane, input);
+            }
+        } catch (ExecutionException e) {
+            var input = toJson(r.message);
             var errorMessage = new JSONObject();
-            errorMessage.put("Could not parse source payload for input", json);
+            errorMessage.put("Could not provide sources for input", input);
+            errorMessage.put("error", String.valueOf(e.getCause()));
             kafka.publish(errorMessage, args.kafkaOut, Lane.ERROR);
-            LOG.error("Could not parse source payload on {} for record {} ...", lane, json);
+            LOG.error("Could not provide sources on {} for record {} ...", r.lane, input, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    // records are only materialized for error reports
+    private static JSONObject toJson(LazyMessage message) {
+        return new JSONObject(message.get("", Map.class));
+    }
+
+    private static class PendingRecord {
+
+        private final LazyMessage message;
+        private final Lane lane;
+        private final Future<SourcePayload> result;
+
+        private PendingRecord(LazyMessage message, Lane lane, Future<SourcePayload> result) {
+            this.message = message;
+            this.lane = lane;
+            this.result = result;
         }
     }
-}
\ No newline at end of file
+}
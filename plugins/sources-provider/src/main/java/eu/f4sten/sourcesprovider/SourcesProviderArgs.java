@@ -25,4 +25,43 @@ public class SourcesProviderArgs {
 
     @Parameter(names = "--sourcesprovider.kafkaOut", arity = 1)
     public String kafkaOut = DefaultTopics.SOURCES_PROVIDER;
-}
\ No newline at end of file
+
+    @Parameter(names = "--sourcesprovider.connectTimeoutMS", arity = 1, description = "Timeout for connecting to the server of a sources jar (ms)")
+    public int connectTimeoutMS = 10 * 1000;
+
+    @Parameter(names = "--sourcesprovider.readTimeoutMS", arity = 1, description = "Timeout for reading from the server of a sources jar (ms)")
+    public int readTimeoutMS = 60 * 1000;
+
+    @Parameter(names = "--sourcesprovider.includes", arity = 1, description = "Comma-separated glob patterns of archive entries that are extracted")
+    public String includes = "**";
+
+    @Parameter(names = "--sourcesprovider.excludes", arity = 1, description = "Comma-separated glob patterns of archive entries that are never extracted (wins over includes)")
+    public String excludes = "**.class,**.jar,**.war,**.ear,**.zip";
+
+    @Parameter(names = "--sourcesprovider.maxFileSize", arity = 1, description = "Max. size of a single extracted file (bytes)")
+    public long maxFileSize = 16L * 1024 * 1024;
+
+    @Parameter(names = "--sourcesprovider.maxArchiveSize", arity = 1, description = "Max. size of all extracted files of one archive (bytes)")
+    public long maxArchiveSize = 512L * 1024 * 1024;
+
+    @Parameter(names = "--sourcesprovider.maxInflatedSize", arity = 1, description = "Max. number of bytes that are inflated from one archive, including skipped entries (bytes)")
+    public long maxInflatedSize = 1024L * 1024 * 1024;
+
+    @Parameter(names = "--sourcesprovider.maxDownloadSize", arity = 1, description = "Max. number of (compressed) bytes that are read from one archive (bytes)")
+    public long maxDownloadSize = 512L * 1024 * 1024;
+
+    @Parameter(names = "--sourcesprovider.maxEntries", arity = 1, description = "Max. number of entries that are read from one archive")
+    public int maxEntries = 100_000;
+
+    @Parameter(names = "--sourcesprovider.downloadThreads", arity = 1, description = "Number of sources jars that are downloaded and extracted concurrently")
+    public int downloadThreads = 8;
+
+    @Parameter(names = "--sourcesprovider.downloadsPerHost", arity = 1, description = "Max. number of concurrent downloads from the same repository host")
+    public int downloadsPerHost = 4;
+
+    @Parameter(names = "--sourcesprovider.diskBudgetMB", arity = 1, description = "Max. size of the extracted sources (MB), least recently used versions are evicted (0: unlimited)")
+    public long diskBudgetMB = 0;
+
+    @Parameter(names = "--sourcesprovider.diskBudgetMinAgeMS", arity = 1, description = "Min. time that a provided version is kept before it can be evicted, so downstream consumers can read it (ms)")
+    public long diskBudgetMinAgeMS = 60 * 60 * 1000;
+}
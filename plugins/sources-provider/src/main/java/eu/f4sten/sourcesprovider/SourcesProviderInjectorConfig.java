@@ -15,10 +15,21 @@
  */
 package eu.f4sten.sourcesprovider;
 
+import java.io.File;
+
 import com.google.inject.Binder;
+import com.google.inject.Provides;
+import com.google.inject.Scopes;
+import com.google.inject.Singleton;
 
 import dev.c0ps.diapper.IInjectorConfig;
 import dev.c0ps.diapper.InjectorConfig;
+import dev.c0ps.io.IoUtils;
+import eu.f4sten.infra.metrics.Metrics;
+import eu.f4sten.infra.utils.DiskBudgetManager;
+import eu.f4sten.sourcesprovider.utils.BlobStore;
+import eu.f4sten.sourcesprovider.utils.SourcesDownloader;
+import eu.f4sten.sourcesprovider.utils.SourcesJarProvider;
 
 @InjectorConfig
 public class SourcesProviderInjectorConfig implements IInjectorConfig {
@@ -32,5 +43,25 @@ public class SourcesProviderInjectorConfig implements IInjectorConfig {
     @Override
     public void configure(Binder binder) {
         binder.bind(SourcesProviderArgs.class).toInstance(args);
+        // shared state: per-host download limits and in-flight downloads
+        binder.bind(SourcesDownloader.class).in(Scopes.SINGLETON);
+        binder.bind(SourcesJarProvider.class).in(Scopes.SINGLETON);
+    }
+
+    @Provides
+    @Singleton
+    public BlobStore provideBlobStore(IoUtils io) {
+        return new BlobStore(new File(io.getBaseFolder(), BlobStore.DEFAULT_FOLDER));
+    }
+
+    @Provides
+    @Singleton
+    public DiskBudgetManager provideDiskBudgetManager(IoUtils io, Metrics metrics) {
+        var budget = new DiskBudgetManager("sources", args.diskBudgetMB * 1024 * 1024, args.diskBudgetMinAgeMS, metrics);
+        // one directory per version: sources/<forge>/<first char>/<group>/<artifact>/<version>
+        var root = new File(io.getBaseFolder(), SourcesJarProvider.SOURCES_FOLDER);
+        var depth = root.toPath().toAbsolutePath().normalize().getNameCount() + 5;
+        budget.scan(root, p -> p.getNameCount() == depth && !p.toString().endsWith(SourcesJarProvider.STAGING_SUFFIX));
+        return budget;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2022 Software Improvement Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.sourcesprovider.data;
+
+import static org.apache.commons.lang3.builder.ToStringStyle.MULTI_LINE_STYLE;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/** An archive entry that has not been extracted into the source path. */
+public class SkippedEntry {
+
+    public enum Reason {
+        /** entry does not match the include/exclude patterns */
+        EXCLUDED,
+        /** entry is larger than the per-file limit */
+        FILE_TOO_LARGE,
+        /**
+         * extraction stopped at this entry, because one of the per-archive size
+         * limits (extracted, inflated, or downloaded bytes) has been reached
+         */
+        ARCHIVE_TOO_LARGE,
+        /** extraction stopped at this entry, because the archive has too many entries */
+        TOO_MANY_ENTRIES
+    }
+
+    private String path;
+    private Reason reason;
+    private long numRemainingEntries;
+    private boolean remainingCountIncomplete;
+
+    public SkippedEntry() {
+        // for object mappers
+    }
+
+    public SkippedEntry(String path, Reason reason) {
+        setPath(path);
+        setReason(reason);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public void setReason(Reason reason) {
+        this.reason = reason;
+    }
+
+    /**
+     * number of entries after this one that have not been read, only set if the
+     * extraction stopped at this entry
+     */
+    public long getNumRemainingEntries() {
+        return numRemainingEntries;
+    }
+
+    public void setNumRemainingEntries(long numRemainingEntries) {
+        this.numRemainingEntries = numRemainingEntries;
+    }
+
+    /** true, if a size limit was reached while counting, the number of remaining entries is a lower bound */
+    public boolean isRemainingCountIncomplete() {
+        return remainingCountIncomplete;
+    }
+
+    public void setRemainingCountIncomplete(boolean remainingCountIncomplete) {
+        this.remainingCountIncomplete = remainingCountIncomplete;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return EqualsBuilder.reflectionEquals(this, obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, MULTI_LINE_STYLE);
+    }
+}
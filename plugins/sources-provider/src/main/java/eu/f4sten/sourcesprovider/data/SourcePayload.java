@@ -17,6 +17,9 @@ package eu.f4sten.sourcesprovider.data;
 
 import static org.apache.commons.lang3.builder.ToStringStyle.MULTI_LINE_STYLE;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
@@ -27,6 +30,7 @@ public class SourcePayload {
     private String product;
     private String version;
     private String sourcePath;
+    private List<SkippedEntry> skippedEntries = new ArrayList<>();
 
     public SourcePayload() {
         // for object mappers
@@ -71,6 +75,15 @@ public class SourcePayload {
         this.sourcePath = sourcePath;
     }
 
+    /** entries of the original archive that are missing in the source path */
+    public List<SkippedEntry> getSkippedEntries() {
+        return skippedEntries;
+    }
+
+    public void setSkippedEntries(List<SkippedEntry> skippedEntries) {
+        this.skippedEntries = skippedEntries;
+    }
+
     @Override
     public boolean equals(Object obj) {
         return EqualsBuilder.reflectionEquals(this, obj);
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2022 Software Improvement Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.sourcesprovider.data;
+
+import static org.apache.commons.lang3.builder.ToStringStyle.MULTI_LINE_STYLE;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/** Describes the contents of an extracted sources folder. */
+public class SourcesManifest {
+
+    private Map<String, String> fileHashes = new TreeMap<>();
+    private List<SkippedEntry> skippedEntries = new ArrayList<>();
+
+    /** relative path (separated by "/") to SWH content hash of each extracted file */
+    public Map<String, String> getFileHashes() {
+        return fileHashes;
+    }
+
+    public void setFileHashes(Map<String, String> fileHashes) {
+        this.fileHashes = fileHashes;
+    }
+
+    public List<SkippedEntry> getSkippedEntries() {
+        return skippedEntries;
+    }
+
+    public void setSkippedEntries(List<SkippedEntry> skippedEntries) {
+        this.skippedEntries = skippedEntries;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return EqualsBuilder.reflectionEquals(this, obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, MULTI_LINE_STYLE);
+    }
+}
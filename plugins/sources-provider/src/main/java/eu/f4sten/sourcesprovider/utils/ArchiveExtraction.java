@@ -0,0 +1,285 @@
+/*
+ * Copyright 2022 Software Improvement Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.sourcesprovider.utils;
+
+import static eu.f4sten.sourcesprovider.data.SkippedEntry.Reason.ARCHIVE_TOO_LARGE;
+import static eu.f4sten.sourcesprovider.data.SkippedEntry.Reason.EXCLUDED;
+import static eu.f4sten.sourcesprovider.data.SkippedEntry.Reason.FILE_TOO_LARGE;
+import static eu.f4sten.sourcesprovider.data.SkippedEntry.Reason.TOO_MANY_ENTRIES;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import eu.f4sten.sourcesprovider.data.SkippedEntry;
+import eu.f4sten.sourcesprovider.data.SkippedEntry.Reason;
+import eu.f4sten.sourcesprovider.data.SourcesManifest;
+
+/**
+ * Extracts a single archive stream, one instance per archive. Extracted files
+ * are linked from the {@link BlobStore}, which requires their hash before they
+ * can be stored. Each entry is written to a temporary file in the target
+ * directory, which is then moved into the store. Entries with a declared size
+ * are hashed while they are written. Streamed archives often omit the size, so
+ * the hash of these entries is computed from the (still cached) temporary
+ * file. The hashes are recorded in the manifest, so they never have to be
+ * computed again.
+ *
+ * A streamed archive has to be inflated to find the next entry, also for
+ * entries that are skipped. All bytes that are read from the download and all
+ * inflated bytes (extracted or not) are counted, the extraction stops as soon
+ * as one of the limits of the policy is exceeded. When the extraction stops,
+ * the entries after the stopping entry are only counted (within the same
+ * limits) and the count is recorded with the stop reason.
+ */
+class ArchiveExtraction {
+
+    private final ExtractionPolicy policy;
+    private final BlobStore blobs;
+    private final Path root;
+    private final SourcesManifest manifest = new SourcesManifest();
+
+    private final byte[] buf = new byte[SourcesDownloader.BUFFER_SIZE];
+    private final MessageDigest digest = GitBlobDigest.start(0);
+    private int numEntries = 0;
+    private long numBytes = 0;
+    private long numInflated = 0;
+    private long numDownloaded = 0;
+
+    ArchiveExtraction(ExtractionPolicy policy, BlobStore blobs, Path destPath) {
+        this.policy = policy;
+        this.blobs = blobs;
+        this.root = destPath.toAbsolutePath().normalize();
+    }
+
+    /** @return the manifest of all files that have been extracted so far, also after a failure */
+    SourcesManifest getManifest() {
+        return manifest;
+    }
+
+    /**
+     * closes the stream
+     *
+     * @return hashes of the extracted files and the entries that have not been
+     *         extracted
+     */
+    SourcesManifest extract(InputStream in) throws IOException {
+        try (var zis = new ZipInputStream(new DownloadLimit(in))) {
+            extract(zis);
+        }
+        return manifest;
+    }
+
+    private void extract(ZipInputStream zis) throws IOException {
+        var name = "";
+        try {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                name = entry.getName();
+                var stopReason = extract(zis, entry);
+                if (stopReason != null) {
+                    stop(zis, name, stopReason);
+                    return;
+                }
+            }
+        } catch (LimitExceededException e) {
+            // the rest of the archive cannot be read anymore
+            var skipped = new SkippedEntry(name, ARCHIVE_TOO_LARGE);
+            skipped.setRemainingCountIncomplete(true);
+            manifest.getSkippedEntries().add(skipped);
+        }
+    }
+
+    /** @return null or the reason, if the extraction has to stop */
+    private Reason extract(ZipInputStream zis, ZipEntry entry) throws IOException {
+        var name = entry.getName();
+        var entryPath = root.resolve(name).normalize();
+        if (!entryPath.startsWith(root)) {
+            throw new IOException("Entry is outside of the target directory: " + name);
+        }
+        if (++numEntries > policy.maxEntries) {
+            return TOO_MANY_ENTRIES;
+        }
+        // directories are created on demand, which also avoids empty ones
+        if (entry.isDirectory()) {
+            return null;
+        }
+        if (!policy.isIncluded(name)) {
+            skip(zis, name, EXCLUDED);
+            return null;
+        }
+        var tmp = Files.createTempFile(root, ".entry", ".tmp");
+        try {
+            return store(zis, entry, tmp, entryPath);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private Reason store(ZipInputStream zis, ZipEntry entry, Path tmp, Path entryPath) throws IOException {
+        var remaining = policy.maxArchiveSize - numBytes;
+        var limit = Math.min(policy.maxFileSize, remaining);
+        var declaredSize = entry.getSize();
+        if (declaredSize > limit) {
+            // the declared size is not trusted for extracted files, but a larger one can be skipped right away
+            return skipTooLarge(zis, entry.getName(), remaining);
+        }
+        var md = declaredSize >= 0 ? GitBlobDigest.start(digest, declaredSize) : null;
+        var size = write(zis, tmp, limit, md);
+        if (size == -1) {
+            return skipTooLarge(zis, entry.getName(), remaining);
+        }
+        var hash = md != null && size == declaredSize ? GitBlobDigest.finish(md) : hash(tmp, size);
+        Files.createDirectories(entryPath.getParent());
+        var relPath = root.relativize(entryPath).toString().replace(File.separatorChar, '/');
+        // archives can contain the same name twice, the (read-only) link must not be written to
+        Files.deleteIfExists(entryPath);
+        blobs.link(hash, tmp, entryPath);
+        var replaced = manifest.getFileHashes().put(relPath, hash);
+        if (replaced != null) {
+            blobs.release(replaced);
+        }
+        numBytes += size;
+        return null;
+    }
+
+    private Reason skipTooLarge(ZipInputStream zis, String name, long remaining) throws IOException {
+        if (policy.maxFileSize >= remaining) {
+            return ARCHIVE_TOO_LARGE;
+        }
+        skip(zis, name, FILE_TOO_LARGE);
+        return null;
+    }
+
+    private void skip(ZipInputStream zis, String name, Reason reason) throws IOException {
+        // inflates the rest of the entry, which would otherwise happen uncounted in getNextEntry
+        drain(zis);
+        manifest.getSkippedEntries().add(new SkippedEntry(name, reason));
+    }
+
+    private void stop(ZipInputStream zis, String name, Reason reason) throws IOException {
+        var e = new SkippedEntry(name, reason);
+        manifest.getSkippedEntries().add(e);
+        var numRemaining = 0;
+        try {
+            drain(zis);
+            while (zis.getNextEntry() != null) {
+                numRemaining++;
+                drain(zis);
+            }
+        } catch (LimitExceededException ex) {
+            e.setRemainingCountIncomplete(true);
+        }
+        e.setNumRemainingEntries(numRemaining);
+    }
+
+    /** @return number of bytes written to the file or -1, if the input is larger than limit */
+    private long write(ZipInputStream zis, Path file, long limit, MessageDigest md) throws IOException {
+        var size = 0L;
+        try (var out = Files.newOutputStream(file)) {
+            int len;
+            while ((len = read(zis)) != -1) {
+                size += len;
+                if (size > limit) {
+                    return -1;
+                }
+                if (md != null) {
+                    md.update(buf, 0, len);
+                }
+                out.write(buf, 0, len);
+            }
+        }
+        return size;
+    }
+
+    private void drain(ZipInputStream zis) throws IOException {
+        while (read(zis) != -1) {
+            // only counted
+        }
+    }
+
+    private int read(ZipInputStream zis) throws IOException {
+        var len = zis.read(buf);
+        if (len > 0) {
+            numInflated += len;
+            if (numInflated > policy.maxInflatedSize) {
+                throw new LimitExceededException();
+            }
+        }
+        return len;
+    }
+
+    private String hash(Path file, long size) throws IOException {
+        var md = GitBlobDigest.start(digest, size);
+        try (var in = Files.newInputStream(file)) {
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                md.update(buf, 0, len);
+            }
+        }
+        return GitBlobDigest.finish(md);
+    }
+
+    /** counts the (compressed) bytes that are read from the download */
+    private class DownloadLimit extends FilterInputStream {
+
+        DownloadLimit(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            var b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            var n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            var skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long n) throws IOException {
+            numDownloaded += n;
+            if (numDownloaded > policy.maxDownloadSize) {
+                throw new LimitExceededException();
+            }
+        }
+    }
+
+    private static class LimitExceededException extends IOException {
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2022 Software Improvement Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.sourcesprovider.utils;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Content-addressed store for extracted files, keyed by their git blob hash (see
+ * {@link GitBlobDigest}). Files of extracted sources are hard links into this
+ * store, so identical files of different versions share one copy on disk (and
+ * in the page cache). Blobs are read-only, as modifying one would modify all
+ * linked files. A blob that is not linked anymore has a link count of one and
+ * can be released.
+ */
+public class BlobStore {
+
+    public static final String DEFAULT_FOLDER = "blobs";
+
+    private static final Logger LOG = LoggerFactory.getLogger(BlobStore.class);
+
+    private static final int NUM_LOCKS = 64;
+
+    private final Path root;
+    // linking and releasing the same blob must not interleave
+    private final Object[] locks = new Object[NUM_LOCKS];
+
+    private volatile boolean canLink = true;
+
+    public BlobStore(File root) {
+        this.root = root.toPath();
+        for (var i = 0; i < NUM_LOCKS; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public Path getPath(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * Moves the file into the store, unless a blob with the same hash already
+     * exists. In both cases, the file does not exist anymore afterwards.
+     */
+    public Path store(String hash, Path file) throws IOException {
+        var blob = getPath(hash);
+        if (Files.exists(blob)) {
+            Files.delete(file);
+            return blob;
+        }
+        Files.createDirectories(blob.getParent());
+        try {
+            makeReadOnly(file);
+            // concurrent writers of the same blob write the same content
+            Files.move(file, blob, ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // the file is on another file system, copy it next to the blob first
+            var tmp = Files.createTempFile(blob.getParent(), hash, ".tmp");
+            try {
+                Files.copy(file, tmp, REPLACE_EXISTING);
+                makeReadOnly(tmp);
+                Files.move(tmp, blob, ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            Files.delete(file);
+        }
+        return blob;
+    }
+
+    /**
+     * Moves the file into the store and makes it available at the target path.
+     * Falls back to a plain file when hard links are not supported by the file
+     * system.
+     */
+    public void link(String hash, Path file, Path target) throws IOException {
+        if (canLink) {
+            var blob = getPath(hash);
+            try {
+                synchronized (lockFor(hash)) {
+                    store(hash, file);
+                    Files.createLink(target, blob);
+                }
+                return;
+            } catch (UnsupportedOperationException | FileSystemException e) {
+                // popular blobs can reach the link limit, otherwise linking is impossible in general
+                canLink = isLinked(blob);
+                if (canLink) {
+                    LOG.debug("Cannot link {} to {}, copying instead ({})", target, blob, e.getMessage());
+                } else {
+                    LOG.warn("Cannot link {} to {}, copying all files from now on ({})", target, blob, e.getMessage());
+                }
+            }
+        }
+        if (Files.exists(file)) {
+            Files.move(file, target);
+        } else {
+            Files.copy(getPath(hash), target);
+        }
+    }
+
+    /**
+     * Deletes the blob, unless it is still linked from extracted sources.
+     *
+     * @return true, if the blob has been deleted
+     */
+    public boolean release(String hash) {
+        var blob = getPath(hash);
+        synchronized (lockFor(hash)) {
+            if (!Files.exists(blob) || isLinked(blob)) {
+                return false;
+            }
+            try {
+                Files.delete(blob);
+                return true;
+            } catch (IOException e) {
+                LOG.warn("Cannot release blob {} ({})", blob, e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    private Object lockFor(String hash) {
+        return locks[Integer.parseInt(hash.substring(0, 2), 16) % NUM_LOCKS];
+    }
+
+    private static boolean isLinked(Path blob) {
+        try {
+            return (int) Files.getAttribute(blob, "unix:nlink") > 1;
+        } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static void makeReadOnly(Path p) {
+        var f = p.toFile();
+        f.setReadable(true, false);
+        f.setReadOnly();
+    }
+}
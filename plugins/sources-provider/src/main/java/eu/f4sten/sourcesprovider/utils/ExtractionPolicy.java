@@ -0,0 +1,80 @@
+/*
+ * Copyright 2022 Software Improvement Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.sourcesprovider.utils;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.f4sten.sourcesprovider.SourcesProviderArgs;
+import jakarta.inject.Inject;
+
+/**
+ * Decides which entries of a sources archive are extracted. Patterns are globs
+ * that are matched against the full entry name (e.g., "**.java" or
+ * "META-INF/**"), excludes win over includes.
+ */
+public class ExtractionPolicy {
+
+    public final long maxFileSize;
+    public final long maxArchiveSize;
+    public final long maxInflatedSize;
+    public final long maxDownloadSize;
+    public final int maxEntries;
+
+    private final List<PathMatcher> includes;
+    private final List<PathMatcher> excludes;
+
+    @Inject
+    public ExtractionPolicy(SourcesProviderArgs args) {
+        includes = toMatchers(args.includes);
+        excludes = toMatchers(args.excludes);
+        maxFileSize = args.maxFileSize;
+        maxArchiveSize = args.maxArchiveSize;
+        maxInflatedSize = args.maxInflatedSize;
+        maxDownloadSize = args.maxDownloadSize;
+        maxEntries = args.maxEntries;
+    }
+
+    public boolean isIncluded(String entryName) {
+        var path = Path.of(entryName);
+        return matchesAny(includes, path) && !matchesAny(excludes, path);
+    }
+
+    private static boolean matchesAny(List<PathMatcher> matchers, Path path) {
+        for (var m : matchers) {
+            if (m.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<PathMatcher> toMatchers(String patterns) {
+        var fs = FileSystems.getDefault();
+        var matchers = new ArrayList<PathMatcher>();
+        if (patterns != null) {
+            for (var p : patterns.split(",")) {
+                if (!p.isBlank()) {
+                    matchers.add(fs.getPathMatcher("glob:" + p.strip()));
+                }
+            }
+        }
+        return matchers;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2022 Software Improvement Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.sourcesprovider.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * Git blob hash, i.e., sha1("blob &lt;length&gt;\0" + content), which is also used
+ * by Software Heritage to identify file contents.
+ */
+public final class GitBlobDigest {
+
+    private GitBlobDigest() {
+        // do not instantiate
+    }
+
+    /** @return a SHA-1 digest that has already been salted for content of the given length */
+    public static MessageDigest start(long length) {
+        try {
+            return start(MessageDigest.getInstance("SHA-1"), length);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** resets and salts an existing SHA-1 digest, which avoids creating a new one per file */
+    public static MessageDigest start(MessageDigest md, long length) {
+        md.reset();
+        md.update(("blob " + length + "\u0000").getBytes(StandardCharsets.US_ASCII));
+        return md;
+    }
+
+    /** @return hex-encoded hash of the finished digest */
+    public static String finish(MessageDigest md) {
+        return Hex.encodeHexString(md.digest());
+    }
+
+    public static String hash(byte[] content, int offset, int length) {
+        var md = start(length);
+        md.update(content, offset, length);
+        return finish(md);
+    }
+
+    public static String hash(byte[] content) {
+        return hash(content, 0, content.length);
+    }
+}
@@ -17,16 +17,27 @@ package eu.f4sten.sourcesprovider.utils;
 
 import static eu.f4sten.infra.utils.FastenConstants.FORGE_MVN;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
 
-import org.json.JSONException;
-import org.json.JSONObject;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 
+import eu.f4sten.infra.json.LazyMessage;
 import eu.f4sten.pomanalyzer.data.MavenId;
 import eu.f4sten.sourcesprovider.data.SourcePayload;
 import jakarta.inject.Inject;
 
+/**
+ * Finds the source payload in (possibly nested) records in a single pass over
+ * the tokens of the record. The first "payload" object (in document order) that
+ * contains either a source path or a Maven sources jar is bound, all other
+ * values are skipped without being materialized. Arrays are not searched.
+ */
 public class PayloadParsing {
     private final SourcesJarProvider sourcesJarProvider;
 
@@ -35,56 +46,102 @@ public class PayloadParsing {
         this.sourcesJarProvider = sourcesJarProvider;
     }
 
-    public SourcePayload findSourcePayload(JSONObject json) {
-        for (var key : json.keySet()) {
-            if (key.equals("payload")) {
-                var candidatePayload = parse(json.getJSONObject(key));
-                if (candidatePayload != null) {
-                    return candidatePayload;
-                }
-            } else {
-                var other = json.get(key);
-                if (other instanceof JSONObject) {
-                    var otherPayload = findSourcePayload((JSONObject) other);
-                    if (otherPayload != null) {
-                        return otherPayload;
-                    }
+    /** @return source payload of the record, or null if it does not contain one */
+    public SourcePayload findSourcePayload(LazyMessage message) {
+        try (var p = message.asParser()) {
+            return findSourcePayload(p);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private SourcePayload findSourcePayload(JsonParser p) throws IOException {
+        JsonToken t;
+        while ((t = p.nextToken()) != null) {
+            if (t == JsonToken.START_ARRAY) {
+                p.skipChildren();
+            } else if (t == JsonToken.FIELD_NAME && "payload".equals(p.getCurrentName())) {
+                var candidate = parse(p);
+                if (candidate != null) {
+                    return candidate;
                 }
             }
         }
         return null;
     }
 
-    public SourcePayload parse(JSONObject payload) {
-        SourcePayload result = trySourcePayload(payload);
+    /**
+     * Binds the value that starts at the next token of the parser, which is
+     * consumed completely.
+     *
+     * @return source payload, or null if the value is not a source payload
+     */
+    public SourcePayload parse(JsonParser p) throws IOException {
+        if (p.nextToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return null;
+        }
+        var payload = readStrings(p);
+        var result = trySourcePayload(payload);
         if (result == null) {
             result = tryMavenSourcePayload(payload);
         }
         return result;
     }
 
-    private SourcePayload trySourcePayload(JSONObject payload) {
-        try {
-            return new SourcePayload(payload.getString("forge"), payload.getString("product"), payload.getString("version"), payload.getString("sourcePath"));
-        } catch (JSONException e) {
+    // only string values can be bound, nested values are skipped
+    private static Map<String, String> readStrings(JsonParser p) throws IOException {
+        var values = new HashMap<String, String>();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            var name = p.getCurrentName();
+            if (p.nextToken() == JsonToken.VALUE_STRING) {
+                values.put(name, p.getText());
+            } else {
+                p.skipChildren();
+            }
+        }
+        return values;
+    }
+
+    private static SourcePayload trySourcePayload(Map<String, String> payload) {
+        if (!hasAll(payload, "forge", "product", "version", "sourcePath")) {
             return null;
         }
+        return new SourcePayload(payload.get("forge"), payload.get("product"), payload.get("version"), payload.get("sourcePath"));
     }
 
-    private SourcePayload tryMavenSourcePayload(JSONObject payload) {
-        try {
-            if (payload.getString("forge").equals(FORGE_MVN)) {
-                var sourcesUrl = new URL(payload.getString("sourcesUrl"));
-                var mavenId = new MavenId();
-                mavenId.groupId = payload.getString("groupId");
-                mavenId.artifactId = payload.getString("artifactId");
-                mavenId.version = payload.getString("version");
-                var sourcesPath = sourcesJarProvider.downloadSourcesJar(mavenId, sourcesUrl);
-                return new SourcePayload(FORGE_MVN, payload.getString("groupId") + ":" + payload.getString("artifactId"), payload.getString("version"), sourcesPath);
-            } else {
-                return null;
+    private SourcePayload tryMavenSourcePayload(Map<String, String> payload) {
+        if (!FORGE_MVN.equals(payload.get("forge")) || !hasAll(payload, "groupId", "artifactId", "version", "sourcesUrl")) {
+            return null;
+        }
+        var sourcesUrl = toUrl(payload.get("sourcesUrl"));
+        if (sourcesUrl == null) {
+            return null;
+        }
+        var mavenId = new MavenId();
+        mavenId.groupId = payload.get("groupId");
+        mavenId.artifactId = payload.get("artifactId");
+        mavenId.version = payload.get("version");
+        var sourcesPath = sourcesJarProvider.downloadSourcesJar(mavenId, sourcesUrl);
+        var sp = new SourcePayload(FORGE_MVN, mavenId.groupId + ":" + mavenId.artifactId, mavenId.version, sourcesPath);
+        sp.setSkippedEntries(sourcesJarProvider.readSkippedEntries(sourcesPath));
+        return sp;
+    }
+
+    private static boolean hasAll(Map<String, String> payload, String... keys) {
+        for (var key : keys) {
+            if (!payload.containsKey(key)) {
+                return false;
             }
-        } catch (JSONException | MalformedURLException e) {
+        }
+        return true;
+    }
+
+    private static URL toUrl(String url) {
+        try {
+            return new URL(url);
+        } catch (MalformedURLException e) {
+            // rare, only malformed records end up here
             return null;
         }
     }
@@ -1,29 +1,73 @@
 package eu.f4sten.sourcesprovider.utils;
 
-import jakarta.inject.Inject;
-
-import dev.c0ps.io.IoUtils;
-
-import org.apache.commons.io.IOUtils;
-
-import java.io.File;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URL;
-import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+import eu.f4sten.sourcesprovider.SourcesProviderArgs;
+import jakarta.inject.Inject;
 
 public class SourcesDownloader {
 
-    private final IoUtils io;
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    private final SourcesProviderArgs args;
+    private final Map<String, Semaphore> permitsByHost = new ConcurrentHashMap<>();
 
     @Inject
-    public SourcesDownloader(IoUtils io) {
-        this.io = io;
+    public SourcesDownloader(SourcesProviderArgs args) {
+        this.args = args;
+    }
+
+    /**
+     * opens a buffered stream of the response body, the caller has to close it.
+     * Blocks while too many streams of the same host are open.
+     */
+    public InputStream openStream(URL url) throws IOException {
+        var permits = permitsByHost.computeIfAbsent(url.getHost(), h -> new Semaphore(args.downloadsPerHost));
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a connection to " + url.getHost());
+        }
+        try {
+            var conn = url.openConnection();
+            conn.setConnectTimeout(args.connectTimeoutMS);
+            conn.setReadTimeout(args.readTimeoutMS);
+            return new PermitInputStream(new BufferedInputStream(conn.getInputStream(), BUFFER_SIZE), permits);
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
     }
 
-    public File getFromUrl(URL url) throws IOException {
-        var fileName = Path.of(url.getPath()).getFileName();
-        var tempFile = new File(io.getTempFolder(), String.format("sources-provider-download-%s", fileName));
-        IOUtils.copy(url, tempFile);
-        return tempFile;
+    private static class PermitInputStream extends FilterInputStream {
+
+        private final Semaphore permits;
+        private boolean isReleased = false;
+
+        private PermitInputStream(InputStream in, Semaphore permits) {
+            super(in);
+            this.permits = permits;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!isReleased) {
+                    isReleased = true;
+                    permits.release();
+                }
+            }
+        }
     }
 }
@@ -1,94 +1,213 @@
-/*
- * Copyright 2022 Software Improvement Group
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *    http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package eu.f4sten.sourcesprovider.utils;
-
-import static eu.f4sten.infra.utils.FastenConstants.FORGE_MVN;
-
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.net.URL;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.jar.JarFile;
-
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import dev.c0ps.io.IoUtils;
-import eu.f4sten.pomanalyzer.data.MavenId;
-import jakarta.inject.Inject;
-
-public class SourcesJarProvider {
-    private static final Logger LOG = LoggerFactory.getLogger(SourcesJarProvider.class);
-    private final IoUtils io;
-    private final SourcesDownloader sd;
-
-    @Inject
-    public SourcesJarProvider(IoUtils io, SourcesDownloader sd) {
-        this.io = io;
-        this.sd = sd;
-    }
-
-    public String downloadSourcesJar(MavenId mavenId, URL sourcesUrl) {
-        var toPath = createSourcesPath(mavenId);
-        try {
-            if (new File(toPath).exists()) {
-                LOG.info("Sources already present, skipping download: " + toPath);
-            } else {
-                var tempFile = downloadAndUnpack(sourcesUrl, toPath);
-                FileUtils.delete(tempFile);
-            }
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
-        }
-        return toPath;
-    }
-
-    public String createSourcesPath(MavenId mavenId) {
-        var baseDir = io.getBaseFolder();
-        return Path.of(baseDir.toString(), "sources", FORGE_MVN, mavenId.groupId.substring(0, 1), mavenId.groupId, mavenId.artifactId, mavenId.version).toString();
-    }
-
-    private File downloadAndUnpack(URL sourcesUrl, String toPath) throws IOException, InterruptedException {
-        LOG.info("Downloading sources from: " + sourcesUrl + " into: " + toPath);
-        var tempFile = sd.getFromUrl(sourcesUrl);
-        extractJarFile(tempFile, toPath);
-        return tempFile;
-    }
-
-    private void extractJarFile(File jarFile, String toPath) throws IOException {
-        var jar = new JarFile(jarFile);
-        var destPath = Path.of(toPath);
-        var entries = jar.entries();
-        while (entries.hasMoreElements()) {
-            var entry = entries.nextElement();
-            var entryPath = destPath.resolve(entry.getName());
-            if (entry.isDirectory()) {
-                Files.createDirectories(entryPath);
-            } else {
-                Files.createDirectories(entryPath.getParent());
-                var in = jar.getInputStream(entry);
-                var out = new FileOutputStream(entryPath.toFile());
-                IOUtils.copy(in, out);
-                out.close();
-            }
-        }
-        jar.close();
-    }
-}
+/*
+ * Copyright 2022 Software Improvement Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.sourcesprovider.utils;
+
+import static eu.f4sten.infra.utils.FastenConstants.FORGE_MVN;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.c0ps.io.IoUtils;
+import eu.f4sten.infra.utils.DiskBudgetManager;
+import eu.f4sten.pomanalyzer.data.MavenId;
+import eu.f4sten.sourcesprovider.data.SkippedEntry;
+import eu.f4sten.sourcesprovider.data.SourcesManifest;
+import jakarta.inject.Inject;
+
+public class SourcesJarProvider {
+    private static final Logger LOG = LoggerFactory.getLogger(SourcesJarProvider.class);
+
+    public static final String SOURCES_FOLDER = "sources";
+    public static final String STAGING_SUFFIX = ".staging";
+
+    private final IoUtils io;
+    private final SourcesDownloader sd;
+    private final ExtractionPolicy policy;
+    private final BlobStore blobs;
+    private final DiskBudgetManager budget;
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    @Inject
+    public SourcesJarProvider(IoUtils io, SourcesDownloader sd, ExtractionPolicy policy, BlobStore blobs, DiskBudgetManager budget) {
+        this.io = io;
+        this.sd = sd;
+        this.policy = policy;
+        this.blobs = blobs;
+        this.budget = budget;
+        budget.onEviction(this::releaseBlobs);
+    }
+
+    /** safe to be called concurrently, concurrent requests for the same sources are coalesced */
+    public String downloadSourcesJar(MavenId mavenId, URL sourcesUrl) {
+        var toPath = createSourcesPath(mavenId);
+        // existing sources are marked as used, so they are not evicted while being returned
+        try (var lease = budget.acquire(new File(toPath))) {
+            downloadCoalesced(sourcesUrl, toPath);
+        }
+        return toPath;
+    }
+
+    private void downloadCoalesced(URL sourcesUrl, String toPath) {
+        var download = new CompletableFuture<Void>();
+        var existing = inFlight.putIfAbsent(toPath, download);
+        if (existing != null) {
+            LOG.info("Sources are already being downloaded, waiting: " + toPath);
+            existing.join();
+            return;
+        }
+        try {
+            downloadIfMissing(sourcesUrl, toPath);
+            download.complete(null);
+        } catch (RuntimeException e) {
+            download.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(toPath, download);
+        }
+    }
+
+    private void downloadIfMissing(URL sourcesUrl, String toPath) {
+        if (new File(toPath).exists()) {
+            LOG.info("Sources already present, skipping download: " + toPath);
+            return;
+        }
+        var staging = Path.of(toPath + STAGING_SUFFIX);
+        var extraction = new ArchiveExtraction(policy, blobs, staging);
+        try {
+            var manifest = downloadAndUnpack(sourcesUrl, extraction, staging);
+            // written before publishing, existing sources always have an up-to-date manifest
+            SourcesManifests.write(SourcesManifests.getFile(toPath), manifest);
+            if (!publish(staging, Path.of(toPath))) {
+                // another worker was faster, its result is equivalent
+                LOG.info("Sources have been published concurrently, dropping staged copy: " + toPath);
+                deleteStaging(staging, manifest);
+            }
+        } catch (IOException e) {
+            deleteStaging(staging, extraction.getManifest());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** @return manifest of the given sources path or null, if it has been extracted without one */
+    public SourcesManifest readManifest(String sourcesPath) {
+        return SourcesManifests.read(SourcesManifests.getFile(sourcesPath));
+    }
+
+    /** entries that have not been extracted into the given sources path */
+    public List<SkippedEntry> readSkippedEntries(String sourcesPath) {
+        var m = readManifest(sourcesPath);
+        return m != null ? m.getSkippedEntries() : new ArrayList<>();
+    }
+
+    /** removes the blobs of evicted sources that are not linked by other sources anymore */
+    private void releaseBlobs(File sourcesPath) {
+        var m = readManifest(sourcesPath.getPath());
+        if (m == null) {
+            return;
+        }
+        LOG.info("Evicted {}, released {} blobs", sourcesPath, releaseBlobs(m));
+    }
+
+    /**
+     * Every deletion of extracted files has to release their blobs afterwards,
+     * the link count of an orphaned blob would never drop to zero otherwise.
+     */
+    private int releaseBlobs(SourcesManifest m) {
+        var numReleased = 0;
+        for (var hash : Set.copyOf(m.getFileHashes().values())) {
+            if (blobs.release(hash)) {
+                numReleased++;
+            }
+        }
+        return numReleased;
+    }
+
+    public String createSourcesPath(MavenId mavenId) {
+        var baseDir = io.getBaseFolder();
+        return Path.of(baseDir.toString(), SOURCES_FOLDER, FORGE_MVN, mavenId.groupId.substring(0, 1), mavenId.groupId, mavenId.artifactId, mavenId.version).toString();
+    }
+
+    private SourcesManifest downloadAndUnpack(URL sourcesUrl, ArchiveExtraction extraction, Path staging) throws IOException {
+        LOG.info("Downloading sources from: " + sourcesUrl + " into: " + staging);
+        if (Files.exists(staging)) {
+            // leftovers of an earlier, interrupted run, the manifest is lost
+            deleteStaging(staging, leftoverManifest(staging));
+        }
+        Files.createDirectories(staging);
+        try (var in = sd.openStream(sourcesUrl)) {
+            var manifest = extraction.extract(in);
+            var numSkipped = manifest.getSkippedEntries().size();
+            if (numSkipped > 0) {
+                LOG.info("Skipped {} entries of {}", numSkipped, sourcesUrl);
+            }
+            return manifest;
+        }
+    }
+
+    /** @return false, if the destination has been published by another worker */
+    private static boolean publish(Path staging, Path dest) throws IOException {
+        Files.createDirectories(dest.getParent());
+        try {
+            Files.move(staging, dest, ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            if (!Files.exists(dest)) {
+                throw e;
+            }
+            return false;
+        }
+    }
+
+    /** deletes the staging directory and releases the blobs of the files listed in the manifest */
+    private void deleteStaging(Path staging, SourcesManifest m) {
+        try {
+            FileUtils.deleteDirectory(staging.toFile());
+        } catch (IOException e) {
+            LOG.warn("Could not remove staging directory: " + staging, e);
+        }
+        var numReleased = releaseBlobs(m);
+        if (numReleased > 0) {
+            LOG.info("Removed {}, released {} blobs", staging, numReleased);
+        }
+    }
+
+    /** hashes the files of a staging directory, which is rare enough to read them again */
+    private static SourcesManifest leftoverManifest(Path staging) throws IOException {
+        var m = new SourcesManifest();
+        try (var files = Files.walk(staging)) {
+            for (var f : (Iterable<Path>) files::iterator) {
+                if (Files.isRegularFile(f)) {
+                    m.getFileHashes().put(staging.relativize(f).toString(), GitBlobDigest.hash(Files.readAllBytes(f)));
+                }
+            }
+        }
+        return m;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2022 Software Improvement Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.sourcesprovider.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import eu.f4sten.sourcesprovider.data.SkippedEntry;
+import eu.f4sten.sourcesprovider.data.SkippedEntry.Reason;
+import eu.f4sten.sourcesprovider.data.SourcesManifest;
+
+/**
+ * Manifests are stored as a sidecar file next to the extracted sources folder
+ * (i.e., "/a/b/1.2.3" has its manifest at "/a/b/1.2.3.manifest.json").
+ */
+public final class SourcesManifests {
+
+    public static final String SUFFIX = ".manifest.json";
+
+    private SourcesManifests() {
+        // do not instantiate
+    }
+
+    public static File getFile(String sourcesPath) {
+        return new File(sourcesPath + SUFFIX);
+    }
+
+    public static void write(File f, SourcesManifest m) throws IOException {
+        var hashes = new JSONObject();
+        m.getFileHashes().forEach(hashes::put);
+        var skipped = new JSONArray();
+        for (var e : m.getSkippedEntries()) {
+            var o = new JSONObject();
+            o.put("path", e.getPath());
+            o.put("reason", e.getReason().name());
+            if (e.getNumRemainingEntries() > 0 || e.isRemainingCountIncomplete()) {
+                o.put("numRemainingEntries", e.getNumRemainingEntries());
+                o.put("remainingCountIncomplete", e.isRemainingCountIncomplete());
+            }
+            skipped.put(o);
+        }
+        var json = new JSONObject();
+        json.put("fileHashes", hashes);
+        json.put("skippedEntries", skipped);
+        Files.createDirectories(f.getParentFile().toPath());
+        Files.writeString(f.toPath(), json.toString());
+    }
+
+    /** @return the stored manifest or null, if the file does not exist */
+    public static SourcesManifest read(File f) {
+        if (!f.exists()) {
+            return null;
+        }
+        try {
+            var json = new JSONObject(Files.readString(f.toPath()));
+            var m = new SourcesManifest();
+            var hashes = json.getJSONObject("fileHashes");
+            for (var path : hashes.keySet()) {
+                m.getFileHashes().put(path, hashes.getString(path));
+            }
+            var skipped = json.getJSONArray("skippedEntries");
+            for (var i = 0; i < skipped.length(); i++) {
+                var o = skipped.getJSONObject(i);
+                var e = new SkippedEntry(o.getString("path"), Reason.valueOf(o.getString("reason")));
+                e.setNumRemainingEntries(o.optLong("numRemainingEntries", 0));
+                e.setRemainingCountIncomplete(o.optBoolean("remainingCountIncomplete", false));
+                m.getSkippedEntries().add(e);
+            }
+            return m;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
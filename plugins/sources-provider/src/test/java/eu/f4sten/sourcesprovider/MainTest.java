@@ -0,0 +1,143 @@
+/*
+ * Copyright 2022 Software Improvement Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.sourcesprovider;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.c0ps.franz.Kafka;
+import dev.c0ps.franz.Lane;
+import dev.c0ps.io.ObjectMapperBuilder;
+import eu.f4sten.infra.json.LazyMessage;
+import eu.f4sten.sourcesprovider.data.SourcePayload;
+import eu.f4sten.sourcesprovider.utils.PayloadParsing;
+
+public class MainTest {
+
+    private static final SourcePayload P1 = new SourcePayload("mvn", "g:a1", "1", "/a1");
+    private static final SourcePayload P2 = new SourcePayload("mvn", "g:a2", "2", "/a2");
+    private static final ObjectMapper OM = new ObjectMapperBuilder().build();
+
+    private SourcesProviderArgs args;
+    private Kafka kafka;
+    private PayloadParsing parsing;
+    private Main sut;
+
+    @BeforeEach
+    public void setup() {
+        args = new SourcesProviderArgs();
+        args.kafkaIn = "in";
+        args.kafkaOut = "out";
+        args.downloadThreads = 2;
+        kafka = mock(Kafka.class);
+        parsing = mock(PayloadParsing.class);
+        sut = new Main(kafka, args, parsing);
+    }
+
+    @Test
+    public void publishingWaitsForPoll() {
+        when(parsing.findSourcePayload(any())).thenReturn(P1);
+        sut.consume(msg("1"), Lane.NORMAL);
+        verify(kafka, never()).publish(any(), any(), any());
+        sut.publishPending();
+        verify(kafka).publish(P1, "out", Lane.NORMAL);
+    }
+
+    @Test
+    public void consumptionOrderIsPreserved() {
+        when(parsing.findSourcePayload(any())).thenAnswer(i -> {
+            var msg = i.getArgument(0, LazyMessage.class);
+            if ("1".equals(msg.get("/id", String.class))) {
+                // first download is the slowest
+                Thread.sleep(200);
+                return P1;
+            }
+            return P2;
+        });
+        sut.consume(msg("1"), Lane.NORMAL);
+        sut.consume(msg("2"), Lane.PRIORITY);
+        sut.publishPending();
+
+        var o = inOrder(kafka);
+        o.verify(kafka).publish(P1, "out", Lane.NORMAL);
+        o.verify(kafka).publish(P2, "out", Lane.PRIORITY);
+    }
+
+    @Test
+    public void unparseableRecordsArePublishedAsError() {
+        sut.consume(msg("1"), Lane.NORMAL);
+        sut.publishPending();
+        verify(kafka).publish(any(JSONObject.class), eq("out"), eq(Lane.ERROR));
+    }
+
+    @Test
+    public void failedDownloadsArePublishedAsErrorAndDoNotStopOthers() {
+        when(parsing.findSourcePayload(any())).thenAnswer(i -> {
+            var msg = i.getArgument(0, LazyMessage.class);
+            if ("1".equals(msg.get("/id", String.class))) {
+                throw new RuntimeException("download failed");
+            }
+            return P2;
+        });
+        sut.consume(msg("1"), Lane.NORMAL);
+        sut.consume(msg("2"), Lane.NORMAL);
+        sut.publishPending();
+
+        var o = inOrder(kafka);
+        o.verify(kafka).publish(any(JSONObject.class), eq("out"), eq(Lane.ERROR));
+        o.verify(kafka).publish(P2, "out", Lane.NORMAL);
+    }
+
+    @Test
+    public void errorsContainTheInput() {
+        sut.consume(msg("1"), Lane.NORMAL);
+        sut.publishPending();
+        verify(kafka).publish(argThat((JSONObject e) -> {
+            var input = e.getJSONObject("Could not parse source payload for input");
+            return "1".equals(input.getString("id"));
+        }), eq("out"), eq(Lane.ERROR));
+    }
+
+    @Test
+    public void pendingRecordsArePublishedOnlyOnce() {
+        when(parsing.findSourcePayload(any())).thenReturn(P1);
+        sut.consume(msg("1"), Lane.NORMAL);
+        sut.publishPending();
+        sut.publishPending();
+        verify(kafka).publish(P1, "out", Lane.NORMAL);
+    }
+
+    private static LazyMessage msg(String id) {
+        try {
+            return OM.readValue("{\"id\":\"" + id + "\"}", LazyMessage.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
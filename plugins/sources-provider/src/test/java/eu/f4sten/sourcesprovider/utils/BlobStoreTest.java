@@ -0,0 +1,117 @@
+/*
+ * Copyright 2022 Software Improvement Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.sourcesprovider.utils;
+
+import static java.nio.file.attribute.PosixFilePermission.OTHERS_READ;
+import static java.nio.file.attribute.PosixFilePermission.OWNER_WRITE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BlobStoreTest {
+
+    private static final byte[] CONTENT = "abc".getBytes(StandardCharsets.UTF_8);
+    private static final String HASH = GitBlobDigest.hash(CONTENT);
+
+    @TempDir
+    public File root;
+    private BlobStore sut;
+
+    @BeforeEach
+    public void setup() {
+        sut = new BlobStore(new File(root, "blobs"));
+    }
+
+    @Test
+    public void blobsAreSharded() {
+        var expected = new File(root, "blobs/f2/" + HASH).toPath();
+        assertEquals(expected, sut.getPath(HASH));
+    }
+
+    @Test
+    public void storedBlobsAreReadOnly() throws IOException {
+        var p = sut.store(HASH, file());
+        assertEquals(sut.getPath(HASH), p);
+        assertArrayEquals(CONTENT, Files.readAllBytes(p));
+        var perms = Files.getPosixFilePermissions(p);
+        assertFalse(perms.contains(OWNER_WRITE));
+        assertTrue(perms.contains(OTHERS_READ));
+    }
+
+    @Test
+    public void storingTwiceIsFine() throws IOException {
+        sut.store(HASH, file());
+        sut.store(HASH, file());
+        assertEquals(1, sut.getPath(HASH).getParent().toFile().list().length);
+    }
+
+    @Test
+    public void storedFilesAreConsumed() throws IOException {
+        var a = file();
+        var b = file();
+        sut.store(HASH, a);
+        sut.store(HASH, b);
+        assertFalse(Files.exists(a));
+        assertFalse(Files.exists(b));
+    }
+
+    @Test
+    public void linkedFilesShareContent() throws IOException {
+        var a = new File(root, "a.txt").toPath();
+        var b = new File(root, "b.txt").toPath();
+        sut.link(HASH, file(), a);
+        sut.link(HASH, file(), b);
+        assertTrue(Files.isSameFile(a, b));
+        assertTrue(Files.isSameFile(a, sut.getPath(HASH)));
+        assertArrayEquals(CONTENT, Files.readAllBytes(b));
+    }
+
+    @Test
+    public void unlinkedBlobsAreReleased() throws IOException {
+        sut.store(HASH, file());
+        assertTrue(sut.release(HASH));
+        assertFalse(sut.getPath(HASH).toFile().exists());
+        assertFalse(sut.release(HASH));
+    }
+
+    @Test
+    public void linkedBlobsAreNotReleased() throws IOException {
+        var a = new File(root, "a.txt").toPath();
+        sut.link(HASH, file(), a);
+        assertFalse(sut.release(HASH));
+        assertTrue(sut.getPath(HASH).toFile().exists());
+
+        Files.delete(a);
+        assertTrue(sut.release(HASH));
+    }
+
+    private Path file() throws IOException {
+        var p = Files.createTempFile(root.toPath(), "content", ".tmp");
+        Files.write(p, CONTENT);
+        return p;
+    }
+}
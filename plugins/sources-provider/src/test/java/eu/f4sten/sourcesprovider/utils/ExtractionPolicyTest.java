@@ -0,0 +1,84 @@
+/*
+ * Copyright 2022 Software Improvement Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.sourcesprovider.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import eu.f4sten.sourcesprovider.SourcesProviderArgs;
+
+public class ExtractionPolicyTest {
+
+    private SourcesProviderArgs args;
+
+    @BeforeEach
+    public void setup() {
+        args = new SourcesProviderArgs();
+    }
+
+    @Test
+    public void defaultsIncludeSourcesAndResources() {
+        var sut = new ExtractionPolicy(args);
+        assertTrue(sut.isIncluded("A.java"));
+        assertTrue(sut.isIncluded("a/b/C.java"));
+        assertTrue(sut.isIncluded("META-INF/MANIFEST.MF"));
+        assertTrue(sut.isIncluded("a/b/log4j.properties"));
+    }
+
+    @Test
+    public void defaultsExcludeBinaries() {
+        var sut = new ExtractionPolicy(args);
+        assertFalse(sut.isIncluded("A.class"));
+        assertFalse(sut.isIncluded("a/b/C.class"));
+        assertFalse(sut.isIncluded("lib/x.jar"));
+        assertFalse(sut.isIncluded("x.zip"));
+    }
+
+    @Test
+    public void excludesWinOverIncludes() {
+        args.includes = "**.java";
+        args.excludes = "test/**";
+        var sut = new ExtractionPolicy(args);
+        assertTrue(sut.isIncluded("main/A.java"));
+        assertFalse(sut.isIncluded("main/A.txt"));
+        assertFalse(sut.isIncluded("test/A.java"));
+    }
+
+    @Test
+    public void patternListsAreTrimmed() {
+        args.includes = " *.java , *.kt ,";
+        args.excludes = "";
+        var sut = new ExtractionPolicy(args);
+        assertTrue(sut.isIncluded("A.java"));
+        assertTrue(sut.isIncluded("A.kt"));
+        assertFalse(sut.isIncluded("a/A.java"));
+    }
+
+    @Test
+    public void limitsAreTakenFromArgs() {
+        args.maxFileSize = 1;
+        args.maxArchiveSize = 2;
+        args.maxEntries = 3;
+        var sut = new ExtractionPolicy(args);
+        assertEquals(1, sut.maxFileSize);
+        assertEquals(2, sut.maxArchiveSize);
+        assertEquals(3, sut.maxEntries);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2022 Software Improvement Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.sourcesprovider.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class GitBlobDigestTest {
+
+    // created via: git hash-object a.txt
+
+    @Test
+    public void emptyContent() {
+        assertEquals("e69de29bb2d1d6434b8b29ae775ad8c2e48c5391", GitBlobDigest.hash(new byte[0]));
+    }
+
+    @Test
+    public void someContent() {
+        assertEquals("f2ba8f84ab5c1bce84a7b441cb1959cfc7093b7f", GitBlobDigest.hash(bytes("abc")));
+    }
+
+    @Test
+    public void offsetAndLengthAreRespected() {
+        var expected = GitBlobDigest.hash(bytes("abc"));
+        assertEquals(expected, GitBlobDigest.hash(bytes("xabcx"), 1, 3));
+    }
+
+    @Test
+    public void digestCanBeUpdatedIncrementally() {
+        var md = GitBlobDigest.start(3);
+        md.update(bytes("a"));
+        md.update(bytes("bc"));
+        assertEquals(GitBlobDigest.hash(bytes("abc")), GitBlobDigest.finish(md));
+    }
+
+    @Test
+    public void nonUtf8ContentIsHashedAsIs() {
+        var content = new byte[] { (byte) 0xff, (byte) 0xfe, 0 };
+        // created via: printf '\xff\xfe\x00' | git hash-object --stdin
+        assertEquals("6e00d25c6cd705d172279b791d49c6e378416d86", GitBlobDigest.hash(content));
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
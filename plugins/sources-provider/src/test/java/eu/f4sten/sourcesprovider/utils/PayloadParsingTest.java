@@ -24,30 +24,40 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.util.List;
 
-import org.json.JSONException;
-import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.c0ps.io.ObjectMapperBuilder;
+import eu.f4sten.infra.json.LazyMessage;
+import eu.f4sten.sourcesprovider.data.SkippedEntry;
+import eu.f4sten.sourcesprovider.data.SkippedEntry.Reason;
+import eu.f4sten.sourcesprovider.data.SourcePayload;
+
 class PayloadParsingTest {
+    private static final ObjectMapper OM = new ObjectMapperBuilder().build();
+
     private PayloadParsing pp;
+    private SourcesJarProvider sd;
 
     @BeforeEach
     void setUp() {
-        SourcesJarProvider sd = mock(SourcesJarProvider.class);
+        sd = mock(SourcesJarProvider.class);
         when(sd.downloadSourcesJar(any(), any())).thenReturn("/test/path");
         pp = new PayloadParsing(sd);
     }
 
     @Test
-    void findJavaPayloadTest() throws IOException, JSONException {
-        var message = new JSONObject(Files.readString(getTestResource("PayloadParsingTest/java_metadatadb_extension_message.json").toPath()));
-        var payload = pp.findSourcePayload(message);
+    void findJavaPayloadTest() throws IOException {
+        var payload = pp.findSourcePayload(message("java_metadatadb_extension_message.json"));
         assertNotNull(payload);
         assertEquals(FORGE_MVN, payload.getForge());
         assertEquals("commons-codec:commons-codec", payload.getProduct());
@@ -56,9 +66,16 @@ class PayloadParsingTest {
     }
 
     @Test
-    void findPythonPayloadTest() throws IOException, JSONException {
-        var message = new JSONObject(Files.readString(getTestResource("PayloadParsingTest/python_metadatadb_extension_message.json").toPath()));
-        var payload = pp.findSourcePayload(message);
+    void skippedEntriesAreIncludedForJava() throws IOException {
+        var skipped = List.of(new SkippedEntry("a/B.class", Reason.EXCLUDED));
+        when(sd.readSkippedEntries("/test/path")).thenReturn(skipped);
+        var payload = pp.findSourcePayload(message("java_metadatadb_extension_message.json"));
+        assertEquals(skipped, payload.getSkippedEntries());
+    }
+
+    @Test
+    void findPythonPayloadTest() throws IOException {
+        var payload = pp.findSourcePayload(message("python_metadatadb_extension_message.json"));
         assertNotNull(payload);
         assertEquals(FORGE_PYPI, payload.getForge());
         assertEquals("pycg-stitch", payload.getProduct());
@@ -67,9 +84,8 @@ class PayloadParsingTest {
     }
 
     @Test
-    void findCPayloadTest() throws IOException, JSONException {
-        var message = new JSONObject(Files.readString(getTestResource("PayloadParsingTest/c_metadatadb_extension_message.json").toPath()));
-        var payload = pp.findSourcePayload(message);
+    void findCPayloadTest() throws IOException {
+        var payload = pp.findSourcePayload(message("c_metadatadb_extension_message.json"));
         assertNotNull(payload);
         assertEquals(FORGE_DEBIAN, payload.getForge());
         assertEquals("anna", payload.getProduct());
@@ -78,17 +94,43 @@ class PayloadParsingTest {
     }
 
     @Test
-    void parseSourcePayloadTest() throws IOException, JSONException {
-        var cSourcePayload = new JSONObject(Files.readString(getTestResource("PayloadParsingTest/c_source_payload.json").toPath()));
-        assertNotNull(pp.parse(cSourcePayload));
+    void parseSourcePayloadTest() throws IOException {
+        assertNotNull(parse("c_source_payload.json"));
+        assertNull(parse("c_non_source_payload.json"));
+        assertNotNull(parse("java_source_payload.json"));
+        assertNotNull(parse("python_source_payload.json"));
+    }
+
+    @Test
+    void malformedRecordsHaveNoPayload() throws IOException {
+        assertNull(pp.findSourcePayload(lazy("{}")));
+        assertNull(pp.findSourcePayload(lazy("{\"payload\":\"x\"}")));
+        assertNull(pp.findSourcePayload(lazy("{\"payload\":[{\"payload\":{}}]}")));
+        assertNull(pp.findSourcePayload(lazy("{\"payload\":{\"forge\":\"mvn\",\"product\":1,\"version\":\"1\",\"sourcePath\":\"/p\"}}")));
+        var badUrl = "{\"payload\":{\"forge\":\"mvn\",\"groupId\":\"g\",\"artifactId\":\"a\",\"version\":\"1\",\"sourcesUrl\":\"::\"}}";
+        assertNull(pp.findSourcePayload(lazy(badUrl)));
+        verify(sd, never()).downloadSourcesJar(any(), any());
+    }
+
+    @Test
+    void laterPayloadsAreFoundIfEarlierOnesDoNotMatch() throws IOException {
+        var json = "{\"payload\":{\"dir\":\"/d\"},\"input\":{\"payload\":{\"forge\":\"f\",\"product\":\"p\",\"version\":\"1\",\"sourcePath\":\"/p\"}}}";
+        var payload = pp.findSourcePayload(lazy(json));
+        assertNotNull(payload);
+        assertEquals("/p", payload.getSourcePath());
+    }
 
-        var cNonSourcePayload = new JSONObject(Files.readString(getTestResource("PayloadParsingTest/c_non_source_payload.json").toPath()));
-        assertNull(pp.parse(cNonSourcePayload));
+    private SourcePayload parse(String resource) throws IOException {
+        try (var p = OM.getFactory().createParser(getTestResource("PayloadParsingTest/" + resource))) {
+            return pp.parse(p);
+        }
+    }
 
-        var javaSourcePayload = new JSONObject(Files.readString(getTestResource("PayloadParsingTest/java_source_payload.json").toPath()));
-        assertNotNull(pp.parse(javaSourcePayload));
+    private static LazyMessage message(String resource) throws IOException {
+        return OM.readValue(getTestResource("PayloadParsingTest/" + resource), LazyMessage.class);
+    }
 
-        var pythonSourcePayload = new JSONObject(Files.readString(getTestResource("PayloadParsingTest/python_source_payload.json").toPath()));
-        assertNotNull(pp.parse(pythonSourcePayload));
+    private static LazyMessage lazy(String json) throws IOException {
+        return OM.readValue(json, LazyMessage.class);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2022 Software Improvement Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.sourcesprovider.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import eu.f4sten.sourcesprovider.SourcesProviderArgs;
+
+public class SourcesDownloaderTest {
+
+    private File file;
+    private URL url;
+    private SourcesProviderArgs args;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        file = Files.createTempFile("SourcesDownloaderTest", ".txt").toFile();
+        Files.writeString(file.toPath(), "abc");
+        url = file.toURI().toURL();
+        args = new SourcesProviderArgs();
+    }
+
+    @AfterEach
+    public void teardown() {
+        file.delete();
+    }
+
+    @Test
+    public void streamsContent() throws IOException {
+        var sut = new SourcesDownloader(args);
+        try (var in = sut.openStream(url)) {
+            assertEquals("abc", new String(in.readAllBytes()));
+        }
+    }
+
+    @Test
+    public void downloadsPerHostAreLimited() throws Exception {
+        args.downloadsPerHost = 1;
+        var sut = new SourcesDownloader(args);
+        var exec = Executors.newSingleThreadExecutor();
+        try {
+            var first = sut.openStream(url);
+            var second = exec.submit(() -> sut.openStream(url));
+            Thread.sleep(200);
+            assertFalse(second.isDone());
+
+            first.close();
+            try (InputStream in = second.get(10, TimeUnit.SECONDS)) {
+                assertEquals("abc", new String(in.readAllBytes()));
+            }
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+
+    @Test
+    public void repeatedCloseReleasesOnce() throws Exception {
+        args.downloadsPerHost = 1;
+        var sut = new SourcesDownloader(args);
+        var first = sut.openStream(url);
+        first.close();
+        first.close();
+
+        var exec = Executors.newFixedThreadPool(2);
+        try {
+            var second = sut.openStream(url);
+            var third = exec.submit(() -> sut.openStream(url));
+            Thread.sleep(200);
+            assertFalse(third.isDone());
+            second.close();
+            third.get(10, TimeUnit.SECONDS).close();
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+}
@@ -1,84 +1,406 @@
-/*
- * Copyright 2022 Software Improvement Group
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *    http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package eu.f4sten.sourcesprovider.utils;
-
-import static dev.c0ps.commons.ResourceUtils.getTestResource;
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
-
-import java.io.File;
-import java.io.IOException;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.nio.file.Files;
-import java.util.Arrays;
-import java.util.Set;
-import java.util.stream.Collectors;
-
-import org.apache.commons.io.FileUtils;
-import org.junit.jupiter.api.AfterEach;
-import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Test;
-
-import dev.c0ps.io.IoUtils;
-import eu.f4sten.pomanalyzer.data.MavenId;
-
-class SourcesJarProviderTest {
-
-    private SourcesJarProvider provider;
-    private File baseDir = null;
-    private File tempDir = null;
-
-    private final URL testUrl = new URL("https://repo.maven.apache.org/maven2/log4j/log4j/1.2.17/log4j-1.2.17-sources.jar");
-
-    SourcesJarProviderTest() throws MalformedURLException {}
-
-    @BeforeEach
-    void setUp() throws IOException {
-        baseDir = Files.createTempDirectory("SourcesDownloaderTest-Base").toFile();
-        tempDir = Files.createTempDirectory("SourcesDownloaderTest-Temp").toFile();
-        IoUtils io = mock(IoUtils.class);
-        SourcesDownloader sd = mock(SourcesDownloader.class);
-        provider = new SourcesJarProvider(io, sd);
-        when(io.getBaseFolder()).thenReturn(baseDir);
-        when(io.getTempFolder()).thenReturn(tempDir);
-        when(sd.getFromUrl(testUrl)).thenReturn(getTestResource("SourcesJarProviderTest/log4j-1.2.17-sources"));
-    }
-
-    @Test
-    void successfulDownloadSourcesJarTest() {
-        var mavenId = new MavenId();
-        mavenId.groupId = "log4j";
-        mavenId.artifactId = "log4j";
-        mavenId.version = "1.2.17";
-        var sourcesPath = provider.downloadSourcesJar(mavenId, testUrl);
-        assertNotNull(sourcesPath);
-        var files = new File(sourcesPath).listFiles();
-        var actuals = Arrays.stream(files) //
-                .map(f -> f.getName()) //
-                .collect(Collectors.toSet());
-        var expecteds = Set.of("META-INF", "org");
-        assertEquals(expecteds, actuals);
-    }
-
-    @AfterEach
-    void tearDown() throws IOException {
-        FileUtils.deleteDirectory(baseDir);
-        FileUtils.deleteDirectory(tempDir);
-    }
+/*
+ * Copyright 2022 Software Improvement Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.sourcesprovider.utils;
+
+import static dev.c0ps.commons.ResourceUtils.getTestResource;
+import static eu.f4sten.sourcesprovider.data.SkippedEntry.Reason.ARCHIVE_TOO_LARGE;
+import static eu.f4sten.sourcesprovider.data.SkippedEntry.Reason.EXCLUDED;
+import static eu.f4sten.sourcesprovider.data.SkippedEntry.Reason.FILE_TOO_LARGE;
+import static eu.f4sten.sourcesprovider.data.SkippedEntry.Reason.TOO_MANY_ENTRIES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.c0ps.io.IoUtils;
+import eu.f4sten.infra.metrics.Counter;
+import eu.f4sten.infra.metrics.Metrics;
+import eu.f4sten.infra.utils.DiskBudgetManager;
+import eu.f4sten.pomanalyzer.data.MavenId;
+import eu.f4sten.sourcesprovider.SourcesProviderArgs;
+import eu.f4sten.sourcesprovider.data.SkippedEntry;
+
+class SourcesJarProviderTest {
+
+    private SourcesJarProvider provider;
+    private IoUtils io;
+    private SourcesDownloader sd;
+    private SourcesProviderArgs args;
+    private DiskBudgetManager budget;
+    private File baseDir = null;
+    private File tempDir = null;
+
+    private final URL testUrl = new URL("https://repo.maven.apache.org/maven2/log4j/log4j/1.2.17/log4j-1.2.17-sources.jar");
+
+    SourcesJarProviderTest() throws MalformedURLException {}
+
+    @BeforeEach
+    void setUp() throws IOException {
+        baseDir = Files.createTempDirectory("SourcesDownloaderTest-Base").toFile();
+        tempDir = Files.createTempDirectory("SourcesDownloaderTest-Temp").toFile();
+        io = mock(IoUtils.class);
+        sd = mock(SourcesDownloader.class);
+        args = new SourcesProviderArgs();
+        budget = new DiskBudgetManager("sources", 0, mock(Metrics.class));
+        initProvider();
+        when(io.getBaseFolder()).thenReturn(baseDir);
+        when(io.getTempFolder()).thenReturn(tempDir);
+        when(sd.openStream(testUrl)).thenAnswer(i -> new FileInputStream(getTestResource("SourcesJarProviderTest/log4j-1.2.17-sources")));
+    }
+
+    @Test
+    void successfulDownloadSourcesJarTest() {
+        var sourcesPath = provider.downloadSourcesJar(log4j(), testUrl);
+        assertNotNull(sourcesPath);
+        var files = new File(sourcesPath).listFiles();
+        var actuals = Arrays.stream(files) //
+                .map(f -> f.getName()) //
+                .collect(Collectors.toSet());
+        var expecteds = Set.of("META-INF", "org");
+        assertEquals(expecteds, actuals);
+        assertFalse(new File(sourcesPath + ".staging").exists());
+        assertEquals(List.of(), provider.readSkippedEntries(sourcesPath));
+    }
+
+    @Test
+    void concurrentDownloadsOfSameSourcesAreCoalesced() throws Exception {
+        var isDownloading = new CountDownLatch(1);
+        var canFinish = new CountDownLatch(1);
+        when(sd.openStream(testUrl)).thenAnswer(i -> {
+            isDownloading.countDown();
+            canFinish.await(10, TimeUnit.SECONDS);
+            return new FileInputStream(getTestResource("SourcesJarProviderTest/log4j-1.2.17-sources"));
+        });
+
+        var exec = Executors.newFixedThreadPool(2);
+        try {
+            var a = exec.submit(() -> provider.downloadSourcesJar(log4j(), testUrl));
+            isDownloading.await(10, TimeUnit.SECONDS);
+            var b = exec.submit(() -> provider.downloadSourcesJar(log4j(), testUrl));
+            canFinish.countDown();
+            assertEquals(a.get(10, TimeUnit.SECONDS), b.get(10, TimeUnit.SECONDS));
+        } finally {
+            exec.shutdownNow();
+        }
+        verify(sd, times(1)).openStream(testUrl);
+    }
+
+    @Test
+    void manifestContainsHashesOfAllFiles() throws IOException {
+        var sourcesPath = provider.downloadSourcesJar(log4j(), testUrl);
+        var hashes = provider.readManifest(sourcesPath).getFileHashes();
+
+        var root = new File(sourcesPath).toPath();
+        try (var files = Files.walk(root)) {
+            var numFiles = files.filter(Files::isRegularFile).peek(f -> {
+                var path = root.relativize(f).toString();
+                assertEquals(hash(f), hashes.get(path), path);
+            }).count();
+            assertEquals(numFiles, hashes.size());
+        }
+        assertEquals("b83fa8b0d73a93989b06568801fab5807ede607f", hashes.get("META-INF/MANIFEST.MF"));
+    }
+
+    @Test
+    void identicalFilesOfDifferentVersionsShareStorage() throws IOException {
+        var v1 = log4j();
+        var v2 = log4j();
+        v2.version = "1.2.18";
+        var path1 = provider.downloadSourcesJar(v1, testUrl);
+        var path2 = provider.downloadSourcesJar(v2, testUrl);
+
+        var f1 = new File(path1, "META-INF/MANIFEST.MF").toPath();
+        var f2 = new File(path2, "META-INF/MANIFEST.MF").toPath();
+        assertTrue(Files.isSameFile(f1, f2));
+        assertEquals(Files.readString(f1), Files.readString(f2));
+    }
+
+    @Test
+    void evictedSourcesReleaseUnsharedBlobs() throws IOException {
+        var metrics = mock(Metrics.class);
+        when(metrics.counter(anyString(), anyString(), eq("budget"), eq("sources"))).thenReturn(mock(Counter.class));
+        budget = new DiskBudgetManager("sources", 20, metrics);
+        initProvider();
+
+        var v1 = log4j();
+        var v2 = log4j();
+        v2.version = "1.2.18";
+        mockZip("A.java", 8, "B.java", 4);
+        var path1 = provider.downloadSourcesJar(v1, testUrl);
+        var inoA = Files.readAttributes(new File(path1, "A.java").toPath(), "unix:ino").get("ino");
+        var hashB = hash(new File(path1, "B.java").toPath());
+        mockZip("A.java", 8, "C.java", 6);
+        var path2 = provider.downloadSourcesJar(v2, testUrl);
+
+        // 26 bytes exceed the budget, the least recently used version is evicted
+        assertFalse(new File(path1).exists());
+        assertTrue(new File(path2, "A.java").exists());
+        assertEquals(inoA, Files.readAttributes(new File(path2, "A.java").toPath(), "unix:ino").get("ino"));
+        assertFalse(new BlobStore(new File(baseDir, "blobs")).getPath(hashB).toFile().exists());
+        assertEquals(14, budget.getUsage());
+    }
+
+    @Test
+    void existingSourcesAreNotDownloadedAgain() {
+        var sourcesPath = provider.createSourcesPath(log4j());
+        new File(sourcesPath).mkdirs();
+        assertEquals(sourcesPath, provider.downloadSourcesJar(log4j(), testUrl));
+        assertEquals(0, new File(sourcesPath).listFiles().length);
+    }
+
+    @Test
+    void entriesOutsideOfTargetAreRejected() throws IOException {
+        mockZip("../../evil.txt", 1);
+
+        var e = assertThrows(RuntimeException.class, () -> {
+            provider.downloadSourcesJar(log4j(), testUrl);
+        });
+        assertEquals(IOException.class, e.getCause().getClass());
+
+        var sourcesPath = provider.createSourcesPath(log4j());
+        assertFalse(new File(sourcesPath).exists());
+        assertFalse(new File(sourcesPath + ".staging").exists());
+        assertEquals(List.of(), provider.readSkippedEntries(sourcesPath));
+    }
+
+    @Test
+    void failedExtractionReleasesBlobs() throws IOException {
+        mockZip("A.java", 3, "../../evil.txt", 1);
+        assertThrows(RuntimeException.class, () -> {
+            provider.downloadSourcesJar(log4j(), testUrl);
+        });
+        assertEquals(0, numBlobs());
+    }
+
+    @Test
+    void droppedConcurrentPublicationReleasesBlobs() throws IOException {
+        var sourcesPath = provider.createSourcesPath(log4j());
+        var zip = zip("A.java", 3);
+        when(sd.openStream(testUrl)).thenAnswer(i -> {
+            // another worker publishes while this one is extracting
+            new File(sourcesPath).mkdirs();
+            new File(sourcesPath, "B.java").createNewFile();
+            return new ByteArrayInputStream(zip);
+        });
+        assertEquals(sourcesPath, provider.downloadSourcesJar(log4j(), testUrl));
+        assertFalse(new File(sourcesPath + ".staging").exists());
+        assertEquals(0, numBlobs());
+    }
+
+    @Test
+    void leftoverStagingReleasesBlobs() throws IOException {
+        var staging = new File(provider.createSourcesPath(log4j()) + ".staging");
+        staging.mkdirs();
+        var tmp = new File(tempDir, "X.java").toPath();
+        Files.write(tmp, new byte[] { 1, 2, 3 });
+        var hash = hash(tmp);
+        new BlobStore(new File(baseDir, "blobs")).link(hash, tmp, new File(staging, "X.java").toPath());
+        assertEquals(1, numBlobs());
+
+        mockZip("A.java", 3);
+        provider.downloadSourcesJar(log4j(), testUrl);
+        assertFalse(new BlobStore(new File(baseDir, "blobs")).getPath(hash).toFile().exists());
+        assertEquals(1, numBlobs());
+    }
+
+    @Test
+    void replacedDuplicateEntriesReleaseBlobs() throws IOException {
+        // ZipOutputStream rejects duplicate names, so rename the second entry afterwards
+        var zip = rename(zip("A.java", 1, "B.java", 2), "B.java", "A.java");
+        when(sd.openStream(testUrl)).thenReturn(new ByteArrayInputStream(zip));
+        var sourcesPath = provider.downloadSourcesJar(log4j(), testUrl);
+        assertEquals(2, new File(sourcesPath, "A.java").length());
+        assertEquals(1, numBlobs());
+    }
+
+    @Test
+    void excludedEntriesAreRecorded() throws IOException {
+        args.includes = "**.java";
+        args.excludes = "**/generated/**";
+        initProvider();
+        mockZip("a/A.java", 1, "a/b.properties", 1, "a/generated/B.java", 1);
+
+        var sourcesPath = provider.downloadSourcesJar(log4j(), testUrl);
+        assertTrue(new File(sourcesPath, "a/A.java").exists());
+        assertFalse(new File(sourcesPath, "a/b.properties").exists());
+        assertFalse(new File(sourcesPath, "a/generated").exists());
+
+        var expected = List.of( //
+                new SkippedEntry("a/b.properties", EXCLUDED), //
+                new SkippedEntry("a/generated/B.java", EXCLUDED));
+        assertEquals(expected, provider.readSkippedEntries(sourcesPath));
+    }
+
+    @Test
+    void largeFilesAreSkipped() throws IOException {
+        args.maxFileSize = 10;
+        initProvider();
+        mockZip("A.java", 10, "B.java", 11, "C.java", 1);
+
+        var sourcesPath = provider.downloadSourcesJar(log4j(), testUrl);
+        assertEquals(Set.of("A.java", "C.java"), Set.of(new File(sourcesPath).list()));
+        assertEquals(List.of(new SkippedEntry("B.java", FILE_TOO_LARGE)), provider.readSkippedEntries(sourcesPath));
+    }
+
+    @Test
+    void extractionStopsAfterMaxEntries() throws IOException {
+        args.maxEntries = 2;
+        initProvider();
+        mockZip("A.java", 1, "B.java", 1, "C.java", 1, "D.java", 1);
+
+        var sourcesPath = provider.downloadSourcesJar(log4j(), testUrl);
+        assertEquals(Set.of("A.java", "B.java"), Set.of(new File(sourcesPath).list()));
+        var expected = new SkippedEntry("C.java", TOO_MANY_ENTRIES);
+        expected.setNumRemainingEntries(1);
+        assertEquals(List.of(expected), provider.readSkippedEntries(sourcesPath));
+    }
+
+    @Test
+    void extractionStopsAfterMaxArchiveSize() throws IOException {
+        args.maxFileSize = 10;
+        args.maxArchiveSize = 15;
+        initProvider();
+        mockZip("A.java", 10, "B.java", 10, "C.java", 1, "D.java", 1);
+
+        var sourcesPath = provider.downloadSourcesJar(log4j(), testUrl);
+        assertEquals(Set.of("A.java"), Set.of(new File(sourcesPath).list()));
+        var expected = new SkippedEntry("B.java", ARCHIVE_TOO_LARGE);
+        expected.setNumRemainingEntries(2);
+        assertEquals(List.of(expected), provider.readSkippedEntries(sourcesPath));
+    }
+
+    @Test
+    void skippedLargeFilesCountAgainstTheInflationLimit() throws IOException {
+        args.maxFileSize = 10;
+        args.maxInflatedSize = 100;
+        initProvider();
+        mockZip("A.java", 5, "B.java", 1000, "C.java", 1);
+
+        var sourcesPath = provider.downloadSourcesJar(log4j(), testUrl);
+        assertEquals(Set.of("A.java"), Set.of(new File(sourcesPath).list()));
+        var expected = new SkippedEntry("B.java", ARCHIVE_TOO_LARGE);
+        expected.setRemainingCountIncomplete(true);
+        assertEquals(List.of(expected), provider.readSkippedEntries(sourcesPath));
+    }
+
+    @Test
+    void extractionStopsAfterMaxDownloadSize() throws IOException {
+        args.maxDownloadSize = 100;
+        initProvider();
+        mockZip("A.java", 10, "B.java", 10, "C.java", 10);
+
+        var sourcesPath = provider.downloadSourcesJar(log4j(), testUrl);
+        var skipped = provider.readSkippedEntries(sourcesPath);
+        assertEquals(1, skipped.size());
+        assertEquals(ARCHIVE_TOO_LARGE, skipped.get(0).getReason());
+        assertTrue(skipped.get(0).isRemainingCountIncomplete());
+    }
+
+    private static String hash(Path f) {
+        try {
+            return GitBlobDigest.hash(Files.readAllBytes(f));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void initProvider() {
+        provider = new SourcesJarProvider(io, sd, new ExtractionPolicy(args), new BlobStore(new File(baseDir, "blobs")), budget);
+    }
+
+    private void mockZip(Object... namesAndSizes) throws IOException {
+        when(sd.openStream(testUrl)).thenReturn(new ByteArrayInputStream(zip(namesAndSizes)));
+    }
+
+    private static byte[] zip(Object... namesAndSizes) throws IOException {
+        var baos = new ByteArrayOutputStream();
+        try (var zos = new ZipOutputStream(baos)) {
+            for (var i = 0; i < namesAndSizes.length; i += 2) {
+                zos.putNextEntry(new ZipEntry((String) namesAndSizes[i]));
+                zos.write(new byte[(int) namesAndSizes[i + 1]]);
+                zos.closeEntry();
+            }
+        }
+        return baos.toByteArray();
+    }
+
+    private static byte[] rename(byte[] zip, String from, String to) {
+        var f = from.getBytes(StandardCharsets.UTF_8);
+        var t = to.getBytes(StandardCharsets.UTF_8);
+        for (var i = 0; i <= zip.length - f.length; i++) {
+            if (Arrays.equals(zip, i, i + f.length, f, 0, f.length)) {
+                System.arraycopy(t, 0, zip, i, t.length);
+            }
+        }
+        return zip;
+    }
+
+    private long numBlobs() throws IOException {
+        var blobs = new File(baseDir, "blobs").toPath();
+        if (!Files.exists(blobs)) {
+            return 0;
+        }
+        try (var files = Files.walk(blobs)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private static MavenId log4j() {
+        var mavenId = new MavenId();
+        mavenId.groupId = "log4j";
+        mavenId.artifactId = "log4j";
+        mavenId.version = "1.2.17";
+        return mavenId;
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        FileUtils.deleteDirectory(baseDir);
+        FileUtils.deleteDirectory(tempDir);
+    }
 }
\ No newline at end of file
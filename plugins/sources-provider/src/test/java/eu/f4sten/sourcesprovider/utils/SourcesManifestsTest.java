@@ -0,0 +1,78 @@
+/*
+ * Copyright 2022 Software Improvement Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.sourcesprovider.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import eu.f4sten.sourcesprovider.data.SkippedEntry;
+import eu.f4sten.sourcesprovider.data.SkippedEntry.Reason;
+import eu.f4sten.sourcesprovider.data.SourcesManifest;
+
+public class SourcesManifestsTest {
+
+    @TempDir
+    public File root;
+
+    @Test
+    public void fileIsNextToSources() {
+        assertEquals(new File("/a/b/1.2.3.manifest.json"), SourcesManifests.getFile("/a/b/1.2.3"));
+    }
+
+    @Test
+    public void missingManifestIsNull() {
+        assertNull(SourcesManifests.read(new File(root, "x.manifest.json")));
+    }
+
+    @Test
+    public void emptyRoundtrip() throws IOException {
+        var f = new File(root, "a/1.manifest.json");
+        var m = new SourcesManifest();
+        SourcesManifests.write(f, m);
+        assertEquals(m, SourcesManifests.read(f));
+    }
+
+    @Test
+    public void roundtrip() throws IOException {
+        var f = new File(root, "a/1.manifest.json");
+        var m = new SourcesManifest();
+        m.getFileHashes().put("a/B.java", "123");
+        m.getFileHashes().put("C.java", "234");
+        m.getSkippedEntries().add(new SkippedEntry("D.class", Reason.EXCLUDED));
+        var stop = new SkippedEntry("E.java", Reason.TOO_MANY_ENTRIES);
+        stop.setNumRemainingEntries(12);
+        m.getSkippedEntries().add(stop);
+        SourcesManifests.write(f, m);
+        assertEquals(m, SourcesManifests.read(f));
+    }
+
+    @Test
+    public void incompleteCountsRoundtrip() throws IOException {
+        var f = new File(root, "a/1.manifest.json");
+        var m = new SourcesManifest();
+        var stop = new SkippedEntry("E.java", Reason.ARCHIVE_TOO_LARGE);
+        stop.setRemainingCountIncomplete(true);
+        m.getSkippedEntries().add(stop);
+        SourcesManifests.write(f, m);
+        assertEquals(m, SourcesManifests.read(f));
+    }
+}
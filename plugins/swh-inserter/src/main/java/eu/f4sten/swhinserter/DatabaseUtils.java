@@ -79,4 +79,24 @@ public class DatabaseUtils {
             throw new UnrecoverableError(e);
         }
     }
-}
\ No newline at end of file
+
+    public void addPkgVersionMetadata(Long pkgVersionID, String key, String value) {
+        try {
+            final var currentMetadata = context.select(PackageVersions.PACKAGE_VERSIONS.METADATA)
+                    .from(PackageVersions.PACKAGE_VERSIONS)
+                    .where(PackageVersions.PACKAGE_VERSIONS.ID.eq(pkgVersionID))
+                    .fetchOne().getValue(PackageVersions.PACKAGE_VERSIONS.METADATA);
+
+            // Updates the existing metadata field to avoid overriding it
+            var metadata = currentMetadata == null
+                    ? new JSONObject().put(key, value)
+                    : new JSONObject(currentMetadata.data()).put(key, value);
+
+            context.update(PackageVersions.PACKAGE_VERSIONS)
+                    .set(PackageVersions.PACKAGE_VERSIONS.METADATA, JSONB.valueOf(String.valueOf(metadata)))
+                    .where(PackageVersions.PACKAGE_VERSIONS.ID.eq(pkgVersionID)).execute();
+        } catch (DataAccessException e) {
+            throw new UnrecoverableError(e);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.swhinserter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * Computes the SWH directory identifier (i.e., the git tree hash) of a source
+ * tree from the content hashes of its files, so no file has to be read. Trees
+ * are built bottom-up, every directory hash is computed once and reused by its
+ * parent, and sibling directories are hashed in parallel. All files are
+ * treated as regular, non-executable files (mode 100644), empty directories do
+ * not exist in the tree.
+ */
+public class DirectoryHasher {
+
+    public static final String SWH_DIR_PREFIX = "swh:1:dir:";
+
+    private static final byte[] MODE_FILE = "100644 ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MODE_DIR = "40000 ".getBytes(StandardCharsets.US_ASCII);
+
+    private final ForkJoinPool pool;
+
+    public DirectoryHasher(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @param fileHashes relative file paths (separated by "/") and their content hashes
+     * @return SWH identifier of the root directory, e.g., "swh:1:dir:4b825dc..."
+     */
+    public String calc(Map<String, String> fileHashes) {
+        var root = new Dir();
+        for (var e : fileHashes.entrySet()) {
+            var segments = Arrays.stream(e.getKey().split("/")) //
+                    .filter(seg -> !seg.isEmpty() && !".".equals(seg)) //
+                    .toArray(String[]::new);
+            if (segments.length > 0) {
+                root.add(segments, 0, e.getValue());
+            }
+        }
+        return SWH_DIR_PREFIX + pool.invoke(new DirTask(root));
+    }
+
+    private static class Dir {
+
+        private final Map<String, Dir> dirs = new TreeMap<>();
+        private final Map<String, String> files = new TreeMap<>();
+
+        private void add(String[] segments, int idx, String hash) {
+            var name = segments[idx];
+            if (idx == segments.length - 1) {
+                files.put(name, hash);
+            } else {
+                dirs.computeIfAbsent(name, n -> new Dir()).add(segments, idx + 1, hash);
+            }
+        }
+    }
+
+    private static class DirTask extends RecursiveTask<String> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Dir dir;
+
+        private DirTask(Dir dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        protected String compute() {
+            var subTasks = new TreeMap<String, DirTask>();
+            dir.dirs.forEach((name, sub) -> subTasks.put(name, new DirTask(sub)));
+            invokeAll(subTasks.values());
+
+            var entries = new ArrayList<TreeEntry>();
+            dir.files.forEach((name, hash) -> entries.add(new TreeEntry(MODE_FILE, name, false, hash)));
+            subTasks.forEach((name, task) -> entries.add(new TreeEntry(MODE_DIR, name, true, task.join())));
+            return hashTree(entries);
+        }
+    }
+
+    private static class TreeEntry implements Comparable<TreeEntry> {
+
+        private final byte[] mode;
+        private final byte[] name;
+        private final byte[] sortKey;
+        private final String hash;
+
+        private TreeEntry(byte[] mode, String name, boolean isDir, String hash) {
+            this.mode = mode;
+            this.name = name.getBytes(StandardCharsets.UTF_8);
+            // git sorts directories as if their name ended with a slash
+            this.sortKey = isDir ? (name + "/").getBytes(StandardCharsets.UTF_8) : this.name;
+            this.hash = hash;
+        }
+
+        @Override
+        public int compareTo(TreeEntry o) {
+            return Arrays.compareUnsigned(sortKey, o.sortKey);
+        }
+    }
+
+    private static String hashTree(List<TreeEntry> entries) {
+        entries.sort(null);
+        var out = new ByteArrayOutputStream();
+        for (var e : entries) {
+            out.writeBytes(e.mode);
+            out.writeBytes(e.name);
+            out.write(0);
+            out.writeBytes(decode(e.hash));
+        }
+        var content = out.toByteArray();
+        var md = getSha1Digest();
+        md.update(("tree " + content.length + "\u0000").getBytes(StandardCharsets.US_ASCII));
+        md.update(content);
+        return Hex.encodeHexString(md.digest());
+    }
+
+    private static MessageDigest getSha1Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static byte[] decode(String hash) {
+        try {
+            return Hex.decodeHex(hash);
+        } catch (DecoderException e) {
+            throw new IllegalArgumentException("Invalid hash: " + hash, e);
+        }
+    }
+}
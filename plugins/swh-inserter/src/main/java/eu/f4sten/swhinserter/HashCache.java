@@ -0,0 +1,225 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.swhinserter;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * Persistent cache of file hashes, keyed by the identity of a file (device,
+ * inode, size, and modification time). Replays of already processed records
+ * do not have to read the files again. Entries are kept in memory and appended
+ * to a binary log of fixed-size records, a truncated last record (e.g., after a
+ * crash) is ignored. Hashes are only cached on file systems that expose unix
+ * attributes. Instances can be used from multiple threads.
+ */
+public class HashCache implements AutoCloseable {
+
+    public static final String DEFAULT_FILE = "swh-inserter/hash-cache.bin";
+
+    private static final int HASH_LENGTH = 20;
+    private static final int RECORD_LENGTH = 4 * Long.BYTES + HASH_LENGTH;
+    private static final String UNIX_ATTRIBUTES = "unix:dev,ino,size,lastModifiedTime";
+
+    private final Map<Key, byte[]> hashes = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private final FileChannel log;
+    private final ByteBuffer pending = ByteBuffer.allocate(RECORD_LENGTH * 1024);
+
+    public HashCache(File file) {
+        try {
+            file.getParentFile().mkdirs();
+            var validLength = load(file);
+            if (validLength != file.length()) {
+                try (var ch = FileChannel.open(file.toPath(), WRITE)) {
+                    ch.truncate(validLength);
+                }
+            }
+            log = FileChannel.open(file.toPath(), CREATE, WRITE, APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return cached hash of the file, or the result of the hasher for unknown
+     *         or changed files
+     */
+    public String computeIfAbsent(File f, Supplier<String> hasher) {
+        var key = Key.of(f);
+        if (key != null) {
+            var hash = hashes.get(key);
+            if (hash != null) {
+                hits.incrementAndGet();
+                return Hex.encodeHexString(hash);
+            }
+        }
+        misses.incrementAndGet();
+        var hash = hasher.get();
+        // files that have changed while being hashed are not cached
+        if (key != null && key.equals(Key.of(f))) {
+            put(key, hash);
+        }
+        return hash;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return hashes.size();
+    }
+
+    /**
+     * Persists all new entries.
+     */
+    public synchronized void flush() {
+        try {
+            pending.flip();
+            while (pending.hasRemaining()) {
+                log.write(pending);
+            }
+            pending.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            flush();
+            log.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void put(Key key, String hash) {
+        var bytes = decode(hash);
+        if (bytes.length != HASH_LENGTH || hashes.putIfAbsent(key, bytes) != null) {
+            return;
+        }
+        synchronized (this) {
+            if (pending.remaining() < RECORD_LENGTH) {
+                flush();
+            }
+            pending.putLong(key.dev).putLong(key.ino).putLong(key.size).putLong(key.mtime).put(bytes);
+        }
+    }
+
+    private long load(File file) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+        var buf = ByteBuffer.allocate(RECORD_LENGTH * 1024);
+        long validLength = 0;
+        try (var ch = FileChannel.open(file.toPath(), READ)) {
+            while (ch.read(buf) != -1) {
+                buf.flip();
+                while (buf.remaining() >= RECORD_LENGTH) {
+                    var key = new Key(buf.getLong(), buf.getLong(), buf.getLong(), buf.getLong());
+                    var hash = new byte[HASH_LENGTH];
+                    buf.get(hash);
+                    hashes.put(key, hash);
+                    validLength += RECORD_LENGTH;
+                }
+                buf.compact();
+            }
+        }
+        return validLength;
+    }
+
+    private static byte[] decode(String hash) {
+        try {
+            return Hex.decodeHex(hash);
+        } catch (DecoderException e) {
+            throw new IllegalArgumentException("Invalid hash: " + hash, e);
+        }
+    }
+
+    private static class Key {
+
+        private final long dev;
+        private final long ino;
+        private final long size;
+        private final long mtime;
+
+        private Key(long dev, long ino, long size, long mtime) {
+            this.dev = dev;
+            this.ino = ino;
+            this.size = size;
+            this.mtime = mtime;
+        }
+
+        private static Key of(File f) {
+            try {
+                var attrs = Files.readAttributes(f.toPath(), UNIX_ATTRIBUTES);
+                var mtime = ((FileTime) attrs.get("lastModifiedTime")).to(TimeUnit.NANOSECONDS);
+                return new Key(toLong(attrs.get("dev")), toLong(attrs.get("ino")), toLong(attrs.get("size")), mtime);
+            } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+                // missing files or no unix attributes, both cannot be cached
+                return null;
+            }
+        }
+
+        private static long toLong(Object o) {
+            return ((Number) o).longValue();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            var o = (Key) obj;
+            return dev == o.dev && ino == o.ino && size == o.size && mtime == o.mtime;
+        }
+
+        @Override
+        public int hashCode() {
+            var h = Long.hashCode(dev);
+            h = 31 * h + Long.hashCode(ino);
+            h = 31 * h + Long.hashCode(size);
+            return 31 * h + Long.hashCode(mtime);
+        }
+    }
+}
@@ -18,6 +18,12 @@ package eu.f4sten.swhinserter;
 import java.io.File;
 import java.io.UncheckedIOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,26 +33,36 @@ import dev.c0ps.franz.Kafka;
 import dev.c0ps.franz.Lane;
 import dev.c0ps.io.IoUtils;
 import eu.f4sten.sourcesprovider.data.SourcePayload;
+import eu.f4sten.sourcesprovider.data.SourcesManifest;
+import eu.f4sten.sourcesprovider.utils.SourcesManifests;
 import jakarta.inject.Inject;
 
 public class Main implements Runnable {
 
     private static final Logger LOG = LoggerFactory.getLogger(Main.class);
 
+    public static final String SWH_DIR_ID = "swh_dir_id";
+
     private final SwhInserterArgs args;
     private final Kafka kafka;
     private final DatabaseUtils db;
     private final IoUtils io;
 
     private final SwhHashCalculator calc;
+    private final HashCache cache;
+    private final ForkJoinPool pool;
+    private final DirectoryHasher dirHasher;
 
     @Inject
-    public Main(SwhInserterArgs args, Kafka kafka, DatabaseUtils db, IoUtils io, SwhHashCalculator calc) {
+    public Main(SwhInserterArgs args, Kafka kafka, DatabaseUtils db, IoUtils io, SwhHashCalculator calc, HashCache cache) {
         this.args = args;
         this.kafka = kafka;
         this.db = db;
         this.io = io;
         this.calc = calc;
+        this.cache = cache;
+        this.pool = new ForkJoinPool(Math.max(1, args.hashThreads));
+        this.dirHasher = new DirectoryHasher(pool);
     }
 
     @Override
@@ -63,6 +79,8 @@ public class Main implements Runnable {
                 kafka.poll();
             }
         } finally {
+            pool.shutdownNow();
+            cache.close();
             kafka.stop();
         }
     }
@@ -76,16 +94,67 @@ public class Main implements Runnable {
 
         var pkgVerID = db.getPkgVersionID(pkgName, ver);
         var paths = db.getFilePaths4PkgVersion(pkgVerID);
+        var manifest = SourcesManifests.read(SourcesManifests.getFile(basePath.getPath()));
+        var knownHashes = manifest == null ? Map.<String, String>of() : manifest.getFileHashes();
+
+        // files are hashed in parallel, the database is only accessed from this thread
+        var hashes = new ArrayList<Future<String>>(paths.size());
+        for (var path : paths) {
+            // hashes from the manifest avoid reading the files again
+            var knownHash = knownHashes.get(path);
+            hashes.add(knownHash != null ? CompletableFuture.completedFuture(knownHash) : pool.submit(() -> calcCached(basePath, path)));
+        }
 
-        paths.forEach(path -> {
+        var i = 0;
+        for (var path : paths) {
             try {
-                var hash = calc.calc(basePath, path);
+                var hash = await(hashes.get(i++));
                 db.addFileHash(pkgVerID, path, hash);
                 LOG.info("Added file hash for {}", path);
             } catch (UncheckedIOException | IllegalStateException e) {
                 LOG.error("Unable to process '{}' ({}: {})", path, e.getClass(), e.getMessage());
             }
-        });
+        }
+
+        cache.flush();
+        LOG.info("Hash cache: {} hits, {} misses", cache.getHits(), cache.getMisses());
+
+        addDirectoryId(pkgVerID, manifest);
+    }
+
+    private String calcCached(File basePath, String path) {
+        return cache.computeIfAbsent(new File(basePath, path), () -> calc.calc(basePath, path));
+    }
+
+    private void addDirectoryId(Long pkgVerID, SourcesManifest manifest) {
+        // the manifest is the only complete listing of the tree, db only knows analyzed files
+        if (manifest == null) {
+            LOG.info("No manifest found, skipping directory identifier");
+            return;
+        }
+        // SWH archives the full jar, a partial extraction would result in a different identifier
+        if (!manifest.getSkippedEntries().isEmpty()) {
+            LOG.info("Extraction skipped {} entries, skipping directory identifier", manifest.getSkippedEntries().size());
+            return;
+        }
+        var dirId = dirHasher.calc(manifest.getFileHashes());
+        db.addPkgVersionMetadata(pkgVerID, SWH_DIR_ID, dirId);
+        LOG.info("Added directory identifier {}", dirId);
+    }
+
+    private static String await(Future<String> hash) {
+        try {
+            return hash.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
     }
 
     private File getBasePath(String forge, String pkgName, String version) {
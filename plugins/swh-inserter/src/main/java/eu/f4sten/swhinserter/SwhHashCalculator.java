@@ -15,48 +15,83 @@
  */
 package eu.f4sten.swhinserter;
 
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
-import org.apache.commons.codec.binary.Hex;
-import org.apache.commons.io.FileUtils;
+import eu.f4sten.sourcesprovider.utils.GitBlobDigest;
 
+/**
+ * Computes the SWH content hash (i.e., the git blob hash) of a file. The raw
+ * bytes are streamed through a reusable per-thread digest: small files are read
+ * through a reusable direct buffer, large files are memory mapped. Instances
+ * can be used from multiple threads.
+ */
 public class SwhHashCalculator {
 
+    public static final int BUFFER_SIZE = 1 << 16;
+    public static final long MAP_THRESHOLD = 1 << 22;
+
+    private static final long MAX_MAPPED_CHUNK = 1 << 30;
+
+    private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(SwhHashCalculator::getSha1Digest);
+    private static final ThreadLocal<ByteBuffer> BUFFERS = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
     public String calc(File basePath, String path) {
 
         if (path.startsWith("/")) {
             throw new IllegalArgumentException("path must be relative, was: " + path);
         }
 
-        var content = read(basePath, path);
-        var bytes = content.getBytes(StandardCharsets.UTF_8);
-        var hash = computeSwhHash(bytes);
-        return hash;
-    }
-
-    private String read(File base, String path) {
-        try {
-            var f = new File(base, path);
-            if (!f.exists()) {
-                throw new IllegalStateException("File does not exist: " + f.getAbsolutePath());
+        var f = new File(basePath, path);
+        if (!f.exists()) {
+            throw new IllegalStateException("File does not exist: " + f.getAbsolutePath());
+        }
+        try (var ch = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            var size = ch.size();
+            var md = GitBlobDigest.start(DIGESTS.get(), size);
+            if (size >= MAP_THRESHOLD) {
+                updateMapped(md, ch, size);
+            } else {
+                updateBuffered(md, ch, size);
             }
-            return FileUtils.readFileToString(f, StandardCharsets.UTF_8);
+            return GitBlobDigest.finish(md);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
     }
 
-    private String computeSwhHash(byte[] fileContent) {
-        var md = getSha1Digest();
-        // The SWH hash is based on Git, which saltes the content with "blob"
-        md.update(String.format("blob %d\u0000", fileContent.length).getBytes());
-        md.update(fileContent);
-        return Hex.encodeHexString(md.digest());
+    private static void updateBuffered(MessageDigest md, FileChannel ch, long size) throws IOException {
+        var buf = BUFFERS.get();
+        long total = 0;
+        buf.clear();
+        while (ch.read(buf) != -1) {
+            buf.flip();
+            total += buf.remaining();
+            md.update(buf);
+            buf.clear();
+        }
+        assertSize(size, total);
+    }
+
+    private static void updateMapped(MessageDigest md, FileChannel ch, long size) throws IOException {
+        for (long pos = 0; pos < size; pos += MAX_MAPPED_CHUNK) {
+            md.update(ch.map(READ_ONLY, pos, Math.min(MAX_MAPPED_CHUNK, size - pos)));
+        }
+    }
+
+    // the length is part of the hash, so a file that changes while being read cannot be hashed
+    private static void assertSize(long expected, long actual) throws IOException {
+        if (expected != actual) {
+            throw new IOException(String.format("File has changed while hashing (expected %d bytes, read %d)", expected, actual));
+        }
     }
 
     private static MessageDigest getSha1Digest() {
@@ -66,4 +101,4 @@ public class SwhHashCalculator {
             throw new RuntimeException(e);
         }
     }
-}
\ No newline at end of file
+}
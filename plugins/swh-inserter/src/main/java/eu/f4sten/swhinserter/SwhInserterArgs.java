@@ -22,4 +22,7 @@ import eu.f4sten.infra.kafka.DefaultTopics;
 public class SwhInserterArgs {
     @Parameter(names = "--swhinserter.kafkaIn", arity = 1)
     public String kafkaIn = DefaultTopics.SOURCES_PROVIDER;
-}
\ No newline at end of file
+
+    @Parameter(names = "--swhinserter.hashThreads", arity = 1, description = "Number of files that are hashed in parallel")
+    public int hashThreads = Runtime.getRuntime().availableProcessors();
+}
@@ -15,14 +15,18 @@
  */
 package eu.f4sten.swhinserter;
 
+import java.io.File;
+
 import org.jooq.SQLDialect;
 import org.jooq.impl.DSL;
 
 import com.google.inject.Binder;
 import com.google.inject.Provides;
+import com.google.inject.Singleton;
 
 import dev.c0ps.diapper.IInjectorConfig;
 import dev.c0ps.diapper.InjectorConfig;
+import dev.c0ps.io.IoUtils;
 import dev.c0ps.io.JsonUtils;
 import eu.f4sten.infra.utils.PostgresConnector;
 import eu.f4sten.infra.utils.Version;
@@ -47,4 +51,10 @@ public class SwhInserterInjectorConfig implements IInjectorConfig {
         var dslContext = DSL.using(c, SQLDialect.POSTGRES);
         return new DatabaseUtils(dslContext);
     }
-}
\ No newline at end of file
+
+    @Provides
+    @Singleton
+    public HashCache provideHashCache(IoUtils io) {
+        return new HashCache(new File(io.getBaseFolder(), HashCache.DEFAULT_FILE));
+    }
+}
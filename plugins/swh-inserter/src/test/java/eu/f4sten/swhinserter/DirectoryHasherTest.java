@@ -0,0 +1,103 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.swhinserter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DirectoryHasherTest {
+
+    // expected values have been created with "git write-tree"
+    private static final String EMPTY_TREE = "swh:1:dir:4b825dc642cb6eb9a060e54bf8d69288fbee4904";
+    private static final String SINGLE_FILE_TREE = "swh:1:dir:c5d1394b97e64311067cb4185038d4ea6002e323";
+    private static final String NESTED_TREE = "swh:1:dir:857bdab8b4a71f81b1de6a63ef92fd43f51aa3e4";
+
+    private static final String BLOB1 = "d00491fd7e5bb6fa28c517a0bb32b8b506539d4d";
+    private static final String BLOB2 = "0cfbf08886fca9a91cb753ec8734c84fcbe52c9f";
+    private static final String BLOB3 = "00750edc07d6415dcc07ae0351e9397b0222b7ba";
+
+    private ForkJoinPool pool;
+    private DirectoryHasher sut;
+
+    @BeforeEach
+    public void setup() {
+        pool = new ForkJoinPool(4);
+        sut = new DirectoryHasher(pool);
+    }
+
+    @AfterEach
+    public void teardown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void emptyTree() {
+        assertEquals(EMPTY_TREE, sut.calc(Map.of()));
+    }
+
+    @Test
+    public void singleFile() {
+        assertEquals(SINGLE_FILE_TREE, sut.calc(Map.of("x.txt", BLOB1)));
+    }
+
+    @Test
+    public void nestedTree() {
+        // "a.txt" is sorted before directory "a", as git compares it as "a/"
+        var files = new HashMap<String, String>();
+        files.put("a.txt", BLOB2);
+        files.put("a/f.txt", BLOB3);
+        files.put("b/c/x.txt", BLOB1);
+        files.put("x.txt", BLOB1);
+        assertEquals(NESTED_TREE, sut.calc(files));
+    }
+
+    @Test
+    public void redundantSeparatorsAreIgnored() {
+        var files = new HashMap<String, String>();
+        files.put("./a.txt", BLOB2);
+        files.put("a//f.txt", BLOB3);
+        files.put("/b/c/x.txt", BLOB1);
+        files.put("x.txt", BLOB1);
+        assertEquals(NESTED_TREE, sut.calc(files));
+    }
+
+    @Test
+    public void resultIsIndependentOfParallelism() {
+        var files = new HashMap<String, String>();
+        for (var i = 0; i < 100; i++) {
+            files.put("d" + (i % 7) + "/e" + (i % 3) + "/f" + i + ".txt", BLOB1);
+        }
+        var single = new ForkJoinPool(1);
+        try {
+            assertEquals(new DirectoryHasher(single).calc(files), sut.calc(files));
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    public void invalidHash() {
+        assertThrows(IllegalArgumentException.class, () -> sut.calc(Map.of("x.txt", "xyz")));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2022 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.f4sten.swhinserter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HashCacheTest {
+
+    private static final String HASH1 = "d00491fd7e5bb6fa28c517a0bb32b8b506539d4d";
+    private static final String HASH2 = "0cfbf08886fca9a91cb753ec8734c84fcbe52c9f";
+
+    @TempDir
+    public File tmp;
+
+    private File cacheFile;
+    private File f;
+    private HashCache sut;
+    private AtomicInteger numCalls;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        cacheFile = new File(tmp, "cache/hashes.bin");
+        f = new File(tmp, "a.txt");
+        Files.writeString(f.toPath(), "1\n");
+        numCalls = new AtomicInteger();
+        sut = new HashCache(cacheFile);
+    }
+
+    @AfterEach
+    public void teardown() {
+        sut.close();
+    }
+
+    @Test
+    public void missThenHit() {
+        assertEquals(HASH1, sut.computeIfAbsent(f, () -> count(HASH1)));
+        assertEquals(HASH1, sut.computeIfAbsent(f, () -> fail("should be cached")));
+        assertEquals(1, numCalls.get());
+        assertEquals(1, sut.getHits());
+        assertEquals(1, sut.getMisses());
+        assertEquals(1, sut.size());
+    }
+
+    @Test
+    public void changedFilesAreRehashed() throws IOException {
+        sut.computeIfAbsent(f, () -> count(HASH1));
+        Files.writeString(f.toPath(), "2\n");
+        Files.setLastModifiedTime(f.toPath(), FileTime.fromMillis(1234));
+        assertEquals(HASH2, sut.computeIfAbsent(f, () -> count(HASH2)));
+        assertEquals(2, numCalls.get());
+        assertEquals(0, sut.getHits());
+    }
+
+    @Test
+    public void missingFilesAreNotCached() {
+        var missing = new File(tmp, "missing.txt");
+        sut.computeIfAbsent(missing, () -> count(HASH1));
+        sut.computeIfAbsent(missing, () -> count(HASH1));
+        assertEquals(2, numCalls.get());
+        assertEquals(0, sut.size());
+    }
+
+    @Test
+    public void entriesArePersisted() {
+        sut.computeIfAbsent(f, () -> count(HASH1));
+        sut.close();
+
+        sut = new HashCache(cacheFile);
+        assertEquals(1, sut.size());
+        assertEquals(HASH1, sut.computeIfAbsent(f, () -> fail("should be cached")));
+        assertEquals(1, sut.getHits());
+    }
+
+    @Test
+    public void truncatedRecordsAreIgnored() throws IOException {
+        var g = new File(tmp, "b.txt");
+        Files.writeString(g.toPath(), "2\n");
+        sut.computeIfAbsent(f, () -> count(HASH1));
+        sut.computeIfAbsent(g, () -> count(HASH2));
+        sut.close();
+
+        try (var raf = new RandomAccessFile(cacheFile, "rw")) {
+            raf.setLength(raf.length() - 5);
+        }
+
+        sut = new HashCache(cacheFile);
+        assertEquals(1, sut.size());
+        // new records are appended after the last complete record
+        sut.computeIfAbsent(g, () -> count(HASH2));
+        sut.close();
+
+        sut = new HashCache(cacheFile);
+        assertEquals(2, sut.size());
+        assertEquals(HASH2, sut.computeIfAbsent(g, () -> fail("should be cached")));
+    }
+
+    private String count(String hash) {
+        numCalls.incrementAndGet();
+        return hash;
+    }
+}
@@ -17,32 +17,50 @@ package eu.f4sten.swhinserter;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Arrays;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 
 import dev.c0ps.franz.Kafka;
 import dev.c0ps.franz.Lane;
 import dev.c0ps.io.IoUtils;
+import eu.f4sten.sourcesprovider.data.SkippedEntry;
 import eu.f4sten.sourcesprovider.data.SourcePayload;
+import eu.f4sten.sourcesprovider.data.SourcesManifest;
+import eu.f4sten.sourcesprovider.utils.SourcesManifests;
 
 public class MainTest {
 
     private static final File SOMEBASE = new File("BASE");
     private static final String SOMEHASH = "12345";
+    private static final String OTHERHASH = "d00491fd7e5bb6fa28c517a0bb32b8b506539d4d";
+    // created with "git write-tree" for a tree that only contains "a/b/c.txt" with OTHERHASH
+    private static final String OTHERDIR = "swh:1:dir:ca87d71d8a1d8266b74b3bde53a551f1f7867529";
+
+    @TempDir
+    public File tmp;
+
     private Main sut;
     private DatabaseUtils db;
     private IoUtils io;
     private SwhHashCalculator hash;
+    private HashCache cache;
 
     @BeforeEach
     public void setup() {
@@ -54,7 +72,13 @@ public class MainTest {
 
         hash = mock(SwhHashCalculator.class);
         when(hash.calc(any(File.class), anyString())).thenReturn(SOMEHASH);
-        sut = new Main(args, kafka, db, io, hash);
+        cache = new HashCache(new File(tmp, "hash-cache.bin"));
+        sut = new Main(args, kafka, db, io, hash, cache);
+    }
+
+    @AfterEach
+    public void teardown() {
+        cache.close();
     }
 
     @Test
@@ -74,6 +98,83 @@ public class MainTest {
         assertEquals(expected, actual);
 
         verify(db).addFileHash(eq(123L), eq("a/b/c.txt"), eq(SOMEHASH));
+        verify(db, never()).addPkgVersionMetadata(anyLong(), anyString(), anyString());
+    }
+
+    @Test
+    public void consumeUsesHashesOfManifest() throws IOException {
+        when(io.getBaseFolder()).thenReturn(tmp);
+        registerPackageVersion("prod:art", "1.2.3", 123);
+        registerPaths(123, "a/b/c.txt", "a/b/d.txt");
+
+        var m = new SourcesManifest();
+        m.getFileHashes().put("a/b/c.txt", OTHERHASH);
+        var basePath = new File(tmp, "sources/forge/p/prod/art/1.2.3");
+        SourcesManifests.write(SourcesManifests.getFile(basePath.getPath()), m);
+
+        var p = new SourcePayload("forge", "prod:art", "1.2.3", basePath.getPath());
+        sut.consume(p, Lane.NORMAL);
+
+        verify(hash, never()).calc(any(File.class), eq("a/b/c.txt"));
+        verify(hash).calc(eq(basePath), eq("a/b/d.txt"));
+        verify(db).addFileHash(eq(123L), eq("a/b/c.txt"), eq(OTHERHASH));
+        verify(db).addFileHash(eq(123L), eq("a/b/d.txt"), eq(SOMEHASH));
+    }
+
+    @Test
+    public void replayUsesHashCache() throws IOException {
+        when(io.getBaseFolder()).thenReturn(tmp);
+        when(hash.calc(any(File.class), anyString())).thenReturn(OTHERHASH);
+        registerPackageVersion("prod:art", "1.2.3", 123);
+        registerPaths(123, "a/b/c.txt");
+
+        var basePath = new File(tmp, "sources/forge/p/prod/art/1.2.3");
+        var f = new File(basePath, "a/b/c.txt");
+        f.getParentFile().mkdirs();
+        Files.writeString(f.toPath(), "1\n");
+
+        var p = new SourcePayload("forge", "prod:art", "1.2.3", basePath.getPath());
+        sut.consume(p, Lane.NORMAL);
+        sut.consume(p, Lane.NORMAL);
+
+        verify(hash, times(1)).calc(eq(basePath), eq("a/b/c.txt"));
+        verify(db, times(2)).addFileHash(eq(123L), eq("a/b/c.txt"), eq(OTHERHASH));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void consumeAddsDirectoryIdOfManifest() throws IOException {
+        when(io.getBaseFolder()).thenReturn(tmp);
+        registerPackageVersion("prod:art", "1.2.3", 123);
+        registerPaths(123, "a/b/c.txt");
+
+        var m = new SourcesManifest();
+        m.getFileHashes().put("a/b/c.txt", OTHERHASH);
+        var basePath = new File(tmp, "sources/forge/p/prod/art/1.2.3");
+        SourcesManifests.write(SourcesManifests.getFile(basePath.getPath()), m);
+
+        sut.consume(new SourcePayload("forge", "prod:art", "1.2.3", basePath.getPath()), Lane.NORMAL);
+
+        verify(db).addPkgVersionMetadata(eq(123L), eq(Main.SWH_DIR_ID), eq(OTHERDIR));
+    }
+
+    @Test
+    public void consumeSkipsDirectoryIdOfPartialExtraction() throws IOException {
+        when(io.getBaseFolder()).thenReturn(tmp);
+        registerPackageVersion("prod:art", "1.2.3", 123);
+        registerPaths(123, "a/b/c.txt");
+
+        var m = new SourcesManifest();
+        m.getFileHashes().put("a/b/c.txt", OTHERHASH);
+        m.getSkippedEntries().add(new SkippedEntry("a/b/D.class", SkippedEntry.Reason.EXCLUDED));
+        var basePath = new File(tmp, "sources/forge/p/prod/art/1.2.3");
+        SourcesManifests.write(SourcesManifests.getFile(basePath.getPath()), m);
+
+        sut.consume(new SourcePayload("forge", "prod:art", "1.2.3", basePath.getPath()), Lane.NORMAL);
+
+        verify(db).addFileHash(eq(123L), eq("a/b/c.txt"), eq(OTHERHASH));
+        verify(db, never()).addPkgVersionMetadata(anyLong(), anyString(), anyString());
     }
 
     private void registerPackageVersion(String pkg, String v, long id) {
@@ -22,13 +22,17 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Random;
 
 import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import eu.f4sten.sourcesprovider.utils.GitBlobDigest;
+
 public class SwhHashCalculatorTest {
 
     @TempDir
@@ -79,6 +83,42 @@ public class SwhHashCalculatorTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    public void bytesAreHashedAsIs() throws IOException {
+        var f = new File(root, "a.bin");
+        Files.write(f.toPath(), new byte[] { (byte) 0xff, (byte) 0xfe, 0 });
+        var actual = sut.calc(root, "a.bin");
+        // created via: printf '\xff\xfe\x00' | git hash-object --stdin
+        var expected = "6e00d25c6cd705d172279b791d49c6e378416d86";
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void emptyFile() throws IOException {
+        new File(root, "a.txt").createNewFile();
+        // created via: git hash-object a.txt
+        assertEquals("e69de29bb2d1d6434b8b29ae775ad8c2e48c5391", sut.calc(root, "a.txt"));
+    }
+
+    @Test
+    public void filesLargerThanBuffer() throws IOException {
+        assertHashOfRandomFile(3 * SwhHashCalculator.BUFFER_SIZE + 17);
+    }
+
+    @Test
+    public void mappedFiles() throws IOException {
+        assertHashOfRandomFile(SwhHashCalculator.MAP_THRESHOLD + 17);
+    }
+
+    @Test
+    public void digestsAreReused() throws IOException {
+        FileUtils.writeStringToFile(new File(root, "a.txt"), "abc", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(root, "b.txt"), "abcd", StandardCharsets.UTF_8);
+        var a = sut.calc(root, "a.txt");
+        sut.calc(root, "b.txt");
+        assertEquals(a, sut.calc(root, "a.txt"));
+    }
+
     @Test
     public void pathDoesNotExist() {
         var e = assertThrows(IllegalStateException.class, () -> {
@@ -91,6 +131,13 @@ public class SwhHashCalculatorTest {
         assertTrue(msg.contains(path("a", "b.txt")));
     }
 
+    private void assertHashOfRandomFile(long size) throws IOException {
+        var content = new byte[(int) size];
+        new Random(123).nextBytes(content);
+        Files.write(new File(root, "a.bin").toPath(), content);
+        assertEquals(GitBlobDigest.hash(content), sut.calc(root, "a.bin"));
+    }
+
     private static String path(String first, String... more) {
         return Path.of(first, more).toString();
     }